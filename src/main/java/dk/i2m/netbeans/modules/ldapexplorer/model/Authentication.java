@@ -31,7 +31,12 @@ public enum Authentication {
     /** Simple username and password authentication. */
     SIMPLE,
     /** Kerberos 5  **/
-    KERBEROS5
+    KERBEROS5,
+    /**
+     * SASL EXTERNAL, authenticating as the identity the server derives from
+     * the connection, such as the user of an {@code ldapi://} connection.
+     */
+    EXTERNAL
     ;
     private static final ResourceBundle bundle = NbBundle.getBundle(
             Authentication.class);
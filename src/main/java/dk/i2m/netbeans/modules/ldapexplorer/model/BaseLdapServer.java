@@ -19,30 +19,49 @@ package dk.i2m.netbeans.modules.ldapexplorer.model;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.naming.CommunicationException;
 import javax.naming.Context;
-import javax.naming.NameClassPair;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
+import javax.naming.ReferralException;
+import javax.naming.ServiceUnavailableException;
 import javax.naming.SizeLimitExceededException;
+import javax.naming.TimeLimitExceededException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
 import javax.naming.ldap.Control;
-import javax.naming.ldap.InitialLdapContext;
 import javax.naming.ldap.LdapContext;
 import javax.naming.ldap.PagedResultsControl;
 import javax.naming.ldap.PagedResultsResponseControl;
 import org.openide.filesystems.FileObject;
+import org.openide.util.RequestProcessor;
 
 /**
  * Connection to an {@link LdapServer}.
@@ -51,27 +70,116 @@ import org.openide.filesystems.FileObject;
  */
 public class BaseLdapServer {
 
-    private static final Comparator<LdapEntry> labelSorter = (t, t1) -> {
-            return t.getLabel().compareTo(t1.getLabel());
-    };
-
     /** Prefix of FileObjects containing LdapServers. */
     public static final String FO_PREFIX = "i2m-ldapserver-";
 
+    /**
+     * Number of times an enumeration is resumed after consecutive failures
+     * without any progress in between.
+     */
+    private static final int MAX_RESUMES = 2;
+
+    /** Time in milliseconds after which the root DSE is read again. */
+    private static final long ROOT_DSE_MAX_AGE = TimeUnit.HOURS.toMillis(24);
+    /** Time in milliseconds before a failed read of the root DSE is retried. */
+    private static final long ROOT_DSE_RETRY_DELAY = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Number of pages of received entries buffered for a subscriber of a
+     * {@link LdapFlow.Publisher} before further pages are requested.
+     */
+    private static final int PUBLISHER_BUFFER_PAGES = 2;
+
+    private static final RequestProcessor RP = new RequestProcessor(
+            BaseLdapServer.class.getName(), 1, true);
+
+    /**
+     * Default executor of the operations, a virtual thread per operation on
+     * Java 21 and later, a shared pool otherwise.
+     */
+    private static final Executor DEFAULT_EXECUTOR;
+
+    static {
+        Executor virtual = VirtualThreads.newExecutor("LDAP operation");
+        DEFAULT_EXECUTOR = virtual != null ? virtual : new RequestProcessor(
+                BaseLdapServer.class.getName() + ".operations", 16, true);
+    }
+
+    /** Attribute always requested when listing or searching entries. */
+    private static final String OBJECT_CLASS = "objectClass";
+
+    /**
+     * Operational attributes identifying the version of an entry, used to
+     * revalidate cached entries without downloading them again.
+     */
+    private static final String[] VERSION_ATTRIBUTES = {
+        "entryCSN", "modifyTimestamp", "uSNChanged"};
+
     private String identifier = null;
     private String host;
     private int port;
     private boolean secure = false;
     private boolean ignoreTlsErrors = false;
+    private boolean startTls = false;
     private int timeout = 5000;
     private String baseDN;
     private Authentication authentication = Authentication.NONE;
     private String binding = "";
     private String password = "";
     private String label = "";
-    private LdapContext dirCtx = null;
-    private Boolean pagingSupported = null;
-    private Integer maxQuerySize = null;
+    private String[] treeAttributes = new String[0];
+    private String[] replicas = new String[0];
+    private String srvDomain = "";
+    private SrvDiscovery srvDiscovery = SrvDiscovery.DEFAULT;
+    private int poolMaxSize = 4;
+    private int poolIdleTimeout = 60000;
+    private int poolMaxLifetime = 600000;
+    private int poolBorrowTimeout = 30000;
+    private int maxInFlight = 4;
+    private int maxQueued = 100;
+    private int searchRateLimit = 0;
+    private int readRateLimit = 0;
+    private int healthCheckInterval = 30000;
+    private int entryCacheSize = 1000;
+    private int entryCacheMaxBytes = 8 * 1024 * 1024;
+    private int entryCacheTtl = 30000;
+    private final LdapEntryCache entryCache = new LdapEntryCache(
+            entryCacheSize, entryCacheMaxBytes, entryCacheTtl);
+    private volatile ReplicaPool pool = null;
+    private Transport transport = Transport.JNDI;
+    private volatile LdapTransport connectedTransport = null;
+    private volatile ReferralChaser referrals = null;
+    private int pageSize = 500;
+    private int searchTimeLimit = 0;
+    private int searchSizeLimit = 0;
+    private int readTimeout = 120000;
+    private boolean tcpNoDelay = true;
+    private boolean keepAlive = true;
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+    private volatile int pageSizeLimit = PageSizeController.MAX_PAGE_SIZE;
+    private volatile RootDse rootDse = null;
+    private final AtomicBoolean rootDseRefreshing = new AtomicBoolean();
+    /** Time before which a failed read of the root DSE is not retried. */
+    private volatile long rootDseRetryAt = 0;
+    /**
+     * Admits the operations of this server, so that the explorer never puts
+     * more load on a server than configured, and runs the asynchronous ones.
+     */
+    private final Bulkhead bulkhead = new Bulkhead(DEFAULT_EXECUTOR,
+            maxInFlight, maxQueued);
+    /** Reads in flight, shared by concurrent reads of the same entry. */
+    private final SingleFlight<LdapEntry> reads = new SingleFlight<>();
+    /**
+     * Listings and searches in flight, shared by concurrent identical
+     * enumerations. Guarded by itself.
+     */
+    private final Map<String, SharedEnumeration> enumerations = new HashMap<>();
+    /** Decides when the server is contacted again after failures. */
+    private final ReconnectPolicy reconnectPolicy = new ReconnectPolicy();
+    private final HealthMonitor healthMonitor = new HealthMonitor(this::probe,
+            reconnectPolicy);
+    private final ConnectProfiler connectProfiler = new ConnectProfiler();
 
     /**
      * Creates a new {@link LdapServer}.
@@ -174,6 +282,7 @@ public class BaseLdapServer {
     public void setHost(String host) {
         String oldHost = this.host;
         this.host = host;
+        this.rootDse = null;
         fire("host", oldHost, host);
     }
 
@@ -194,9 +303,135 @@ public class BaseLdapServer {
     public void setPort(Integer port) {
         Integer oldPort = this.port;
         this.port = port;
+        this.rootDse = null;
         fire("port", oldPort, port);
     }
 
+    /**
+     * Gets the replicas serving the same directory as the
+     * {@link LdapServer}.
+     *
+     * @return Replicas as {@code host[:port]} or LDAP URL
+     */
+    public String[] getReplicas() {
+        return replicas.clone();
+    }
+
+    /**
+     * Sets the replicas serving the same directory as the
+     * {@link LdapServer}. Operations are routed to the replica, the
+     * configured host included, that answers fastest, and fail over to the
+     * other replicas when one becomes unreachable. A replica without an
+     * explicit port or scheme is connected like the configured host, a replica
+     * given as an absolute path is connected via {@code ldapi://}.
+     *
+     * @param replicas Replicas as {@code host[:port]}, socket path or LDAP
+     * URL
+     */
+    public void setReplicas(String[] replicas) {
+        String[] old = this.replicas;
+        this.replicas = replicas == null ? new String[0] : replicas.clone();
+        fire("replicas", old, this.replicas);
+    }
+
+    /**
+     * Gets the domain whose DNS SRV records publish the servers of the
+     * directory.
+     *
+     * @return Domain, empty if the configured host is used
+     */
+    public String getSrvDomain() {
+        return srvDomain;
+    }
+
+    /**
+     * Sets the domain whose DNS SRV records, {@code _ldap._tcp.<domain>} or
+     * {@code _ldaps._tcp.<domain>} for secure connections, publish the
+     * servers of the directory, e.g. the domain controllers of an Active
+     * Directory domain. The published servers replace the configured host,
+     * the fastest server of the best priority is used. The change is applied
+     * on the next connect.
+     *
+     * @param srvDomain Domain, empty to use the configured host
+     */
+    public void setSrvDomain(String srvDomain) {
+        String old = this.srvDomain;
+        this.srvDomain = srvDomain == null ? "" : srvDomain.trim();
+        fire("srvDomain", old, this.srvDomain);
+    }
+
+    /**
+     * Sets the discovery of the servers published by DNS SRV records.
+     *
+     * @param srvDiscovery Discovery of the servers
+     */
+    void setSrvDiscovery(SrvDiscovery srvDiscovery) {
+        this.srvDiscovery = srvDiscovery;
+    }
+
+    /**
+     * Gets the URLs to connect to: the servers published for the
+     * {@link #getSrvDomain() domain}, or the configured host if no domain is
+     * set, followed by the replicas.
+     *
+     * @return URLs to connect to, the preferred server first
+     * @throws NamingException If the servers of the domain could not be
+     * discovered
+     */
+    List<String> getConnectUrls() throws NamingException {
+        List<String> urls = getReplicaUrls();
+        if (srvDomain.isEmpty()) {
+            return urls;
+        }
+        String service = (secure ? "_ldaps._tcp." : "_ldap._tcp.") + srvDomain;
+        List<String> discovered = new ArrayList<>();
+        for (SrvRecord record : srvDiscovery.discover(service, timeout)) {
+            String url = (secure ? "ldaps://" : "ldap://") + record.getTarget()
+                    + ":" + record.getPort();
+            if (!discovered.contains(url)) {
+                discovered.add(url);
+            }
+        }
+        for (String url : urls.subList(1, urls.size())) {
+            if (!discovered.contains(url)) {
+                discovered.add(url);
+            }
+        }
+        return discovered;
+    }
+
+    /**
+     * Gets the URLs of the configured host and its replicas.
+     *
+     * @return URLs to connect to, the configured host first
+     */
+    List<String> getReplicaUrls() {
+        List<String> urls = new ArrayList<>();
+        urls.add(toString());
+        for (String replica : replicas) {
+            String url = replica.trim();
+            if (url.isEmpty()) {
+                continue;
+            }
+            if (url.startsWith("/")) {
+                url = toLdapiUrl(url);
+            } else if (!url.contains("://")) {
+                if (!url.startsWith("[") && url.indexOf(':') != url.lastIndexOf(':')) {
+                    // IPv6 literal, which only takes a port in brackets
+                    url = "[" + url + "]";
+                }
+                if (url.lastIndexOf(':') <= url.lastIndexOf(']')) {
+                    url += ":" + port;
+                }
+                url = (secure ? "ldaps://" : "ldap://") + url;
+            }
+            if (!urls.contains(url)) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
     /**
      * Determines if the connection to the {@link LdapServer} is secure.
      *
@@ -221,6 +456,7 @@ public class BaseLdapServer {
     public void setSecure(Boolean secure) {
         Boolean oldSecure = this.secure;
         this.secure = secure;
+        this.rootDse = null;
         fire("secure", oldSecure, secure);
     }
 
@@ -232,6 +468,46 @@ public class BaseLdapServer {
         this.ignoreTlsErrors = ignoreTlsErrors;
     }
 
+    /**
+     * Determines if plain connections are upgraded to TLS by StartTLS before
+     * binding. Connections via LDAPS are encrypted already.
+     *
+     * @return {@code true} if StartTLS is used
+     */
+    public boolean isStartTls() {
+        return startTls;
+    }
+
+    /**
+     * Sets if plain connections are upgraded to TLS by StartTLS before
+     * binding, for servers that only offer TLS on the standard port. The
+     * change is applied on the next connect.
+     *
+     * @param startTls {@code true} to use StartTLS
+     */
+    public void setStartTls(boolean startTls) {
+        boolean old = this.startTls;
+        this.startTls = startTls;
+        fire("startTls", old, startTls);
+    }
+
+    /**
+     * Gets the security of the connections to a replica.
+     *
+     * @param url URL of the replica
+     * @return Security of the connections
+     */
+    ConnectionSecurity getConnectionSecurity(String url) {
+        if (url.regionMatches(true, 0, "ldaps:", 0, 6)) {
+            return ConnectionSecurity.LDAPS;
+        }
+        if (getUnixSocket(url) != null) {
+            // Only processes of the host can reach the socket
+            return ConnectionSecurity.PLAIN;
+        }
+        return startTls ? ConnectionSecurity.STARTTLS : ConnectionSecurity.PLAIN;
+    }
+
     /**
      * Gets the user binding of the connection. This is only considered when the {@link Authentication}
      * type requires it (e.g.
@@ -317,576 +593,2270 @@ public class BaseLdapServer {
     }
 
     /**
-     * Determines if the label has been set for the server.
+     * Gets the attributes fetched in addition to the object classes when
+     * listing or searching entries.
      *
-     * @return
-     * <code>true</code> if the label was set on the server, otherwise
-     * <code>false</code>
+     * @return Additional attributes fetched for tree entries
      */
-    public boolean isLabelSet() {
-        if (this.label == null || this.label.isEmpty()) {
-            return false;
-        } else {
-            return true;
-        }
+    public String[] getTreeAttributes() {
+        return treeAttributes.clone();
     }
 
     /**
-     * Equality of an {@link LdapServer} is based on
-     * {@link LdapServer#getIdentifier()}. Note that {@link LdapServer}s without
-     * an identifier will all be equal.
+     * Sets the attributes fetched in addition to the object classes when
+     * listing or searching entries. The values are available from
+     * {@link LdapEntry#getAttributes()} of the entries passed to the
+     * {@link LdapResultProcessor}.
      *
-     * @param obj
-     *          {@link LdapServer} to compare
-     * @return
-     * <code>true</code> if the {@link LdapServer} is equal, otherwise
-     * <code>false</code>
+     * @param treeAttributes Additional attributes fetched for tree entries
      */
-    @Override
-    public boolean equals(Object obj) {
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        final BaseLdapServer other = (BaseLdapServer) obj;
-        if ((this.identifier == null) ? (other.identifier != null)
-                : !this.identifier.equals(other.identifier)) {
-            return false;
-        }
-        return true;
-    }
-
-    @Override
-    public int hashCode() {
-        int hash = 7;
-        hash =
-                41 * hash + (this.identifier != null
-                ? this.identifier.hashCode() : 0);
-        return hash;
+    public void setTreeAttributes(String[] treeAttributes) {
+        String[] old = this.treeAttributes;
+        this.treeAttributes = treeAttributes == null
+                ? new String[0] : treeAttributes.clone();
+        fire("treeAttributes", old, this.treeAttributes);
     }
 
     /**
-     * The {@link String} representation of this object is the connection string
-     * for the LDAP service.
+     * Gets the attributes requested when listing or searching entries, the
+     * object classes plus the configured {@link #getTreeAttributes()}.
      *
-     * @return String representation of the server
+     * @return Attributes to request for tree entries
      */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        if (secure) {
-            sb.append("ldaps://");
-        } else {
-            sb.append("ldap://");
+    private String[] getProjection() {
+        Set<String> projection = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        projection.add(OBJECT_CLASS);
+        for (String attribute : treeAttributes) {
+            if (attribute != null && !attribute.trim().isEmpty()) {
+                projection.add(attribute.trim());
+            }
         }
-        sb.append(host);
-        sb.append(":");
-        sb.append(port);
-        return sb.toString();
+        return projection.toArray(new String[0]);
     }
 
-    private LdapContext getClonedContext() throws NamingException {
-        synchronized (dirCtx) {
-            return (LdapContext) dirCtx.lookup("");
-        }
+    /**
+     * Gets the maximum number of concurrent connections opened to the server.
+     *
+     * @return Maximum number of pooled connections
+     */
+    public Integer getPoolMaxSize() {
+        return poolMaxSize;
     }
-    
-    private void closeContext(LdapContext ctx) {
-        try {
-            ctx.close();
-        } catch (NamingException | NullPointerException ex) {
+
+    /**
+     * Sets the maximum number of concurrent connections opened to the server.
+     * The change is applied on the next connect.
+     *
+     * @param poolMaxSize Maximum number of pooled connections
+     */
+    public void setPoolMaxSize(Integer poolMaxSize) {
+        if (poolMaxSize == null || poolMaxSize < 1) {
+            throw new IllegalArgumentException("At least one connection is required");
         }
+        Integer old = this.poolMaxSize;
+        this.poolMaxSize = poolMaxSize;
+        fire("poolMaxSize", old, poolMaxSize);
     }
 
     /**
-     * Generates a {@link Hashtable} with the environment for connecting to the {@link LdapServer}.
+     * Gets the time in milliseconds after which an unused pooled connection is
+     * closed.
      *
-     * @return {@link Hashtable} containing a configured LDAP environment
+     * @return Idle timeout of pooled connections
      */
-    @SuppressWarnings("UseOfObsoleteCollectionType")
-    protected Hashtable<String, String> getConnectionEnvironment() {
-        Hashtable<String, String> env = new Hashtable<>();
-        env.put(Context.INITIAL_CONTEXT_FACTORY,
-                "com.sun.jndi.ldap.LdapCtxFactory");
-        env.put(Context.PROVIDER_URL, toString());
-        env.put("com.sun.jndi.ldap.connect.timeout",
-                String.valueOf(this.timeout));
+    public Integer getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
 
-        if (isIgnoreTlsErrors()) {
-            env.put(
-                    "java.naming.ldap.factory.socket",
-                    TLSUncheckedSocketFactory.class.getName()
-            );
-        }
+    /**
+     * Sets the time in milliseconds after which an unused pooled connection is
+     * closed. The change is applied on the next connect.
+     *
+     * @param poolIdleTimeout Idle timeout of pooled connections
+     */
+    public void setPoolIdleTimeout(Integer poolIdleTimeout) {
+        Integer old = this.poolIdleTimeout;
+        this.poolIdleTimeout = poolIdleTimeout;
+        fire("poolIdleTimeout", old, poolIdleTimeout);
+    }
 
-        if (this.authentication.equals(Authentication.SIMPLE)) {
-            env.put(Context.SECURITY_AUTHENTICATION, this.authentication.name().
-                    toLowerCase());
-            env.put(Context.SECURITY_PRINCIPAL, this.binding);
-            env.put(Context.SECURITY_CREDENTIALS, getPassword());
-        }
+    /**
+     * Gets the time in milliseconds after which a pooled connection is
+     * replaced, regardless of its use.
+     *
+     * @return Maximum lifetime of pooled connections
+     */
+    public Integer getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
 
-        return env;
+    /**
+     * Sets the time in milliseconds after which a pooled connection is
+     * replaced, regardless of its use. The change is applied on the next
+     * connect.
+     *
+     * @param poolMaxLifetime Maximum lifetime of pooled connections
+     */
+    public void setPoolMaxLifetime(Integer poolMaxLifetime) {
+        Integer old = this.poolMaxLifetime;
+        this.poolMaxLifetime = poolMaxLifetime;
+        fire("poolMaxLifetime", old, poolMaxLifetime);
     }
 
     /**
-     * Connects to the {@link LdapServer}.
+     * Gets the time in milliseconds an operation waits for a pooled connection
+     * when all connections are in use.
      *
-     * @throws ConnectionException If a connection could not be established
+     * @return Borrow timeout of pooled connections
      */
-    public void connect() throws ConnectionException {
-        try {
-            pagingSupported = null;
-            maxQuerySize = null;
-            dirCtx = new InitialLdapContext(getConnectionEnvironment(), null);
-        } catch (NamingException ex) {
-            throw new ConnectionException(ex);
-        }
+    public Integer getPoolBorrowTimeout() {
+        return poolBorrowTimeout;
     }
 
     /**
-     * Disconnects from an {@link LdapServer}.
+     * Sets the time in milliseconds an operation waits for a pooled connection
+     * when all connections are in use. Unlike the connect timeout it covers
+     * the wait for running operations to complete. The change is applied on
+     * the next connect.
      *
-     * @throws ConnectionException If the connection could not be abrupted
+     * @param poolBorrowTimeout Borrow timeout of pooled connections
      */
-    public void disconnect() throws ConnectionException {
-        closeContext(dirCtx);
-        dirCtx = null;
+    public void setPoolBorrowTimeout(Integer poolBorrowTimeout) {
+        Integer old = this.poolBorrowTimeout;
+        this.poolBorrowTimeout = poolBorrowTimeout;
+        fire("poolBorrowTimeout", old, poolBorrowTimeout);
     }
 
     /**
-     * Determines if a connection has already been established.
+     * Gets the maximum number of operations running against the server at a
+     * time.
      *
-     * @return
-     * <code>true</code> if a connection has already been established, otherwise
-     * <code>false</code>
+     * @return Maximum number of concurrent operations
      */
-    public boolean isConnected() {
-        return dirCtx != null;
+    public Integer getMaxInFlight() {
+        return maxInFlight;
     }
 
-    private boolean isPagingSupported() {
-        if (pagingSupported == null) {
-            pagingSupported = false;
-            try {
-                synchronized (dirCtx) {
-                    Attribute supportedControls = dirCtx
-                            .getAttributes(
-                                    "",
-                                    new String[]{"supportedControl"}
-                            )
-                            .get("supportedControl");
-                    if (supportedControls != null) {
-                        NamingEnumeration attribute = supportedControls.getAll();
-                        while (attribute.hasMore()) {
-                            Object value = attribute.next();
-                            if (PagedResultsControl.OID.equals(value)) {
-                                pagingSupported = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-            } catch (NamingException ex) {
-                Logger.getLogger(BaseLdapServer.class.getName()).log(
-                        Level.WARNING,
-                        "Failed to query ldap server for PagedResultsControl",
-                        ex.getMessage());
-            }
+    /**
+     * Sets the maximum number of operations running against the server at a
+     * time. Operations beyond the limit wait until a running operation
+     * completed. A limit above {@link #getPoolMaxSize()} lets the additional
+     * operations wait up to {@link #getPoolBorrowTimeout()} for a connection
+     * instead.
+     *
+     * @param maxInFlight Maximum number of concurrent operations
+     */
+    public void setMaxInFlight(Integer maxInFlight) {
+        if (maxInFlight == null || maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one operation is required");
         }
-        return pagingSupported;
+        Integer old = this.maxInFlight;
+        this.maxInFlight = maxInFlight;
+        bulkhead.setLimit(maxInFlight);
+        fire("maxInFlight", old, maxInFlight);
     }
 
     /**
-     * Gets a {@link List} of {@link LdapEntry} objects residing in the given
-     * path.
+     * Gets the maximum number of operations waiting to run against the
+     * server.
      *
-     * @param path Path for which to obtain the {@link LdapEntry} objects
-     * @param lrp {@link LdapResultProcessor} processor to receive the query result
-     * @throws QueryException If the path is invalid or the server could not be
-     * queried
+     * @return Maximum number of waiting operations
      */
-    public void getTree(String path, LdapResultProcessor lrp) throws QueryException {
-        if (isPagingSupported() && maxQuerySize != null) {
-            getPagedTree(path, lrp, true);
-        } else {
-            getTree(path, lrp, true);
-        }
+    public Integer getMaxQueued() {
+        return maxQueued;
     }
 
-    private byte[] getPageContextCookie(LdapContext ctx) throws NamingException {
-        Control[] controls = ctx.getResponseControls();
-        if (controls != null) {
-            for (int i = 0; i < controls.length; i++) {
-                if (controls[i] instanceof PagedResultsResponseControl) {
-                    PagedResultsResponseControl prrc =
-                            (PagedResultsResponseControl) controls[i];
-                    return prrc.getCookie();
-                }
-            }
-        }
-        return null;
+    /**
+     * Sets the maximum number of operations waiting to run against the
+     * server. Further operations fail right away with a
+     * {@link QueryException}.
+     *
+     * @param maxQueued Maximum number of waiting operations
+     */
+    public void setMaxQueued(Integer maxQueued) {
+        Integer old = this.maxQueued;
+        this.maxQueued = maxQueued;
+        bulkhead.setMaxQueued(maxQueued);
+        fire("maxQueued", old, maxQueued);
     }
 
-    private void getPagedTree(String path, LdapResultProcessor lrp, boolean firstTry) throws
-            QueryException {
-        if (!isConnected() || lrp.isCanceled()) {
-            return;
-        }
+    /**
+     * Gets the maximum number of listings and searches started per second.
+     *
+     * @return Rate limit of listings and searches, {@code 0} for no limit
+     */
+    public Integer getSearchRateLimit() {
+        return searchRateLimit;
+    }
 
-        LdapContext cloneCtx = null;
+    /**
+     * Sets the maximum number of listings and searches started per second.
+     * Up to a second's worth of listings and searches may start at once.
+     *
+     * @param searchRateLimit Rate limit of listings and searches, {@code 0}
+     * for no limit
+     */
+    public void setSearchRateLimit(Integer searchRateLimit) {
+        Integer old = this.searchRateLimit;
+        this.searchRateLimit = searchRateLimit;
+        bulkhead.setSearchRate(searchRateLimit);
+        fire("searchRateLimit", old, searchRateLimit);
+    }
 
-        try {
-            cloneCtx = getClonedContext();
+    /**
+     * Gets the maximum number of entries read by name per second.
+     *
+     * @return Rate limit of entry reads, {@code 0} for no limit
+     */
+    public Integer getReadRateLimit() {
+        return readRateLimit;
+    }
 
-            byte[] cookie = null;
-            SearchControls searchControls = new SearchControls();
-            searchControls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
+    /**
+     * Sets the maximum number of entries read by name per second. Up to a
+     * second's worth of entries may be read at once.
+     *
+     * @param readRateLimit Rate limit of entry reads, {@code 0} for no limit
+     */
+    public void setReadRateLimit(Integer readRateLimit) {
+        Integer old = this.readRateLimit;
+        this.readRateLimit = readRateLimit;
+        bulkhead.setReadRate(readRateLimit);
+        fire("readRateLimit", old, readRateLimit);
+    }
 
-            while (true) {
-                NamingEnumeration<SearchResult> results;
+    /**
+     * Gets the number of running and waiting operations and the counters of
+     * the operations limit.
+     *
+     * @return Snapshot of the operations limit statistics
+     */
+    public BulkheadStatistics getBulkheadStatistics() {
+        return bulkhead.getStatistics();
+    }
 
-                cloneCtx.setRequestControls(new Control[]{
-                            new PagedResultsControl(maxQuerySize, cookie,
-                            Control.CRITICAL)
-                        });
-                results = cloneCtx.search(
-                        path,
-                        "objectClass=*",
-                        searchControls);
+    /**
+     * Gets the interval of the background probes of the connections to the
+     * server.
+     *
+     * @return Interval in milliseconds, {@code 0} if the connections are
+     * not probed
+     */
+    public Integer getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * Sets the interval of the background probes of the connections to the
+     * server. The probes replace connections dropped while idle, e.g. by a
+     * firewall, before an operation runs into them, and close the circuit
+     * breaker as soon as the server answers again.
+     *
+     * @param healthCheckInterval Interval in milliseconds, {@code 0} to not
+     * probe the connections
+     */
+    public void setHealthCheckInterval(Integer healthCheckInterval) {
+        if (healthCheckInterval == null || healthCheckInterval < 0) {
+            throw new IllegalArgumentException("The interval must not be negative");
+        }
+        Integer old = this.healthCheckInterval;
+        this.healthCheckInterval = healthCheckInterval;
+        if (isConnected()) {
+            healthMonitor.start(healthCheckInterval);
+        }
+        fire("healthCheckInterval", old, healthCheckInterval);
+    }
+
+    /**
+     * Gets the state of the circuit breaker and the counters of the
+     * reconnects and probes.
+     *
+     * @return Snapshot of the health statistics
+     */
+    public HealthStatistics getHealthStatistics() {
+        return new HealthStatistics(reconnectPolicy.getState(),
+                reconnectPolicy.getFailures(), reconnectPolicy.getRetries(),
+                reconnectPolicy.getRejected(), healthMonitor.getProbes(),
+                healthMonitor.getFailedProbes());
+    }
+
+    /**
+     * Gets the time it took to open the connections to the server, by
+     * security, TLS handshakes and binds included.
+     *
+     * @return Snapshot of the connect statistics
+     */
+    public ConnectStatistics getConnectStatistics() {
+        return connectProfiler.getStatistics();
+    }
+
+    /**
+     * Gets the latency and the load of the configured host and its
+     * replicas.
+     *
+     * @return Snapshots of the replicas, empty if not connected
+     */
+    public List<ReplicaStatistics> getReplicaStatistics() {
+        ReplicaPool p = pool;
+        return p == null ? Collections.<ReplicaStatistics>emptyList()
+                : p.getStatistics();
+    }
+
+    /**
+     * Gets the transport carrying the operations to the server.
+     *
+     * @return Transport used for connections to the server
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the transport carrying the operations to the server. The change is
+     * applied on the next connect.
+     *
+     * @param transport Transport used for connections to the server
+     */
+    public void setTransport(Transport transport) {
+        Transport old = this.transport;
+        this.transport = transport == null ? Transport.JNDI : transport;
+        fire("transport", old, this.transport);
+    }
+
+    /**
+     * Gets the executor running the asynchronous operations and the queries
+     * of listings and searches.
+     *
+     * @return Executor of the operations
+     */
+    public Executor getExecutor() {
+        return bulkhead.getDelegate();
+    }
+
+    /**
+     * Sets the executor running the asynchronous operations and the queries
+     * of listings and searches. The operations block the thread they run on
+     * while waiting for the server. No more operations than
+     * {@link #getMaxInFlight()} are passed to the executor at a time.
+     *
+     * @param executor Executor of the operations, {@code null} for a virtual
+     * thread per operation on Java 21 and later, a shared pool otherwise
+     */
+    public void setExecutor(Executor executor) {
+        bulkhead.setDelegate(executor == null ? DEFAULT_EXECUTOR : executor);
+    }
+
+    /**
+     * Gets the number of entries requested per page when the server supports
+     * paging.
+     *
+     * @return Initial page size of paged searches
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of entries requested per page when the server supports
+     * paging. The page size is tuned from there and the best size is used
+     * for later searches.
+     *
+     * @param pageSize Initial page size of paged searches
+     */
+    public void setPageSize(Integer pageSize) {
+        Integer old = this.pageSize;
+        this.pageSize = pageSize;
+        RootDse dse = rootDse;
+        if (dse != null && dse.getPageSize() != null) {
+            // Start over from the configured size
+            this.rootDse = dse.withPageSize(null);
+        }
+        fire("pageSize", old, pageSize);
+    }
+
+    /**
+     * Gets the time in milliseconds the server may spend on a search request.
+     *
+     * @return Time limit of search requests, {@code 0} for no limit
+     */
+    public Integer getSearchTimeLimit() {
+        return searchTimeLimit;
+    }
+
+    /**
+     * Sets the time in milliseconds the server may spend on a search request.
+     * The server rounds the limit to seconds.
+     *
+     * @param searchTimeLimit Time limit of search requests, {@code 0} for no
+     * limit
+     */
+    public void setSearchTimeLimit(Integer searchTimeLimit) {
+        Integer old = this.searchTimeLimit;
+        this.searchTimeLimit = searchTimeLimit;
+        fire("searchTimeLimit", old, searchTimeLimit);
+    }
+
+    /**
+     * Gets the maximum number of entries returned by a listing or search.
+     *
+     * @return Size limit of listings and searches, {@code 0} for no limit
+     */
+    public Integer getSearchSizeLimit() {
+        return searchSizeLimit;
+    }
+
+    /**
+     * Sets the maximum number of entries returned by a listing or search.
+     *
+     * @param searchSizeLimit Size limit of listings and searches, {@code 0}
+     * for no limit
+     */
+    public void setSearchSizeLimit(Integer searchSizeLimit) {
+        Integer old = this.searchSizeLimit;
+        this.searchSizeLimit = searchSizeLimit;
+        fire("searchSizeLimit", old, searchSizeLimit);
+    }
+
+    /**
+     * Gets the time in milliseconds to wait for a response of the server
+     * before the connection is considered broken.
+     *
+     * @return Read timeout of connections, {@code 0} for no timeout
+     */
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for a response of the server
+     * before the connection is considered broken. The change is applied on
+     * the next connect.
+     *
+     * @param readTimeout Read timeout of connections, {@code 0} for no
+     * timeout
+     */
+    public void setReadTimeout(Integer readTimeout) {
+        Integer old = this.readTimeout;
+        this.readTimeout = readTimeout;
+        fire("readTimeout", old, readTimeout);
+    }
+
+    /**
+     * Determines if requests are sent right away instead of waiting to fill
+     * a TCP segment (Nagle's algorithm).
+     *
+     * @return {@code true} if {@code TCP_NODELAY} is set on connections
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Sets if requests are sent right away instead of waiting to fill a TCP
+     * segment. The change is applied on the next connect.
+     *
+     * @param tcpNoDelay {@code true} to set {@code TCP_NODELAY} on
+     * connections
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        boolean old = this.tcpNoDelay;
+        this.tcpNoDelay = tcpNoDelay;
+        fire("tcpNoDelay", old, tcpNoDelay);
+    }
+
+    /**
+     * Determines if the operating system probes idle connections, so that
+     * connections dropped by the network are detected.
+     *
+     * @return {@code true} if {@code SO_KEEPALIVE} is set on connections
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sets if the operating system probes idle connections. The change is
+     * applied on the next connect.
+     *
+     * @param keepAlive {@code true} to set {@code SO_KEEPALIVE} on
+     * connections
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        boolean old = this.keepAlive;
+        this.keepAlive = keepAlive;
+        fire("keepAlive", old, keepAlive);
+    }
+
+    /**
+     * Gets the size of the send buffer of connections.
+     *
+     * @return Send buffer size in bytes, {@code 0} for the default of the
+     * operating system
+     */
+    public Integer getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Sets the size of the send buffer of connections. The change is applied
+     * on the next connect.
+     *
+     * @param sendBufferSize Send buffer size in bytes, {@code 0} for the
+     * default of the operating system
+     */
+    public void setSendBufferSize(Integer sendBufferSize) {
+        Integer old = this.sendBufferSize;
+        this.sendBufferSize = sendBufferSize;
+        fire("sendBufferSize", old, sendBufferSize);
+    }
+
+    /**
+     * Gets the size of the receive buffer of connections. Large listings
+     * over links with a high bandwidth-delay product need a buffer larger
+     * than the default to keep the link busy.
+     *
+     * @return Receive buffer size in bytes, {@code 0} for the default of the
+     * operating system
+     */
+    public Integer getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Sets the size of the receive buffer of connections. The change is
+     * applied on the next connect.
+     *
+     * @param receiveBufferSize Receive buffer size in bytes, {@code 0} for
+     * the default of the operating system
+     */
+    public void setReceiveBufferSize(Integer receiveBufferSize) {
+        Integer old = this.receiveBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        fire("receiveBufferSize", old, receiveBufferSize);
+    }
+
+    /**
+     * Gets the maximum number of entries kept in the entry cache.
+     *
+     * @return Maximum number of cached entries
+     */
+    public Integer getEntryCacheSize() {
+        return entryCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of entries kept in the entry cache. A size of
+     * {@code 0} disables the cache.
+     *
+     * @param entryCacheSize Maximum number of cached entries
+     */
+    public void setEntryCacheSize(Integer entryCacheSize) {
+        Integer old = this.entryCacheSize;
+        this.entryCacheSize = entryCacheSize;
+        configureEntryCache();
+        fire("entryCacheSize", old, entryCacheSize);
+    }
+
+    /**
+     * Gets the maximum estimated memory in bytes used by the entry cache.
+     *
+     * @return Maximum memory used by cached entries
+     */
+    public Integer getEntryCacheMaxBytes() {
+        return entryCacheMaxBytes;
+    }
+
+    /**
+     * Sets the maximum estimated memory in bytes used by the entry cache.
+     *
+     * @param entryCacheMaxBytes Maximum memory used by cached entries
+     */
+    public void setEntryCacheMaxBytes(Integer entryCacheMaxBytes) {
+        Integer old = this.entryCacheMaxBytes;
+        this.entryCacheMaxBytes = entryCacheMaxBytes;
+        configureEntryCache();
+        fire("entryCacheMaxBytes", old, entryCacheMaxBytes);
+    }
+
+    /**
+     * Gets the time in milliseconds a cached entry is shown without asking
+     * the server whether it changed.
+     *
+     * @return Time to live of cached entries
+     */
+    public Integer getEntryCacheTtl() {
+        return entryCacheTtl;
+    }
+
+    /**
+     * Sets the time in milliseconds a cached entry is shown without asking
+     * the server whether it changed.
+     *
+     * @param entryCacheTtl Time to live of cached entries
+     */
+    public void setEntryCacheTtl(Integer entryCacheTtl) {
+        Integer old = this.entryCacheTtl;
+        this.entryCacheTtl = entryCacheTtl;
+        configureEntryCache();
+        fire("entryCacheTtl", old, entryCacheTtl);
+    }
+
+    private void configureEntryCache() {
+        entryCache.configure(entryCacheSize, entryCacheMaxBytes, entryCacheTtl);
+    }
+
+    /**
+     * Gets the hit and miss counters of the entry cache.
+     *
+     * @return Snapshot of the entry cache statistics
+     */
+    public CacheStatistics getEntryCacheStatistics() {
+        return entryCache.getStatistics();
+    }
+
+    /**
+     * Determines if the label has been set for the server.
+     *
+     * @return
+     * <code>true</code> if the label was set on the server, otherwise
+     * <code>false</code>
+     */
+    public boolean isLabelSet() {
+        if (this.label == null || this.label.isEmpty()) {
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Equality of an {@link LdapServer} is based on
+     * {@link LdapServer#getIdentifier()}. Note that {@link LdapServer}s without
+     * an identifier will all be equal.
+     *
+     * @param obj
+     *          {@link LdapServer} to compare
+     * @return
+     * <code>true</code> if the {@link LdapServer} is equal, otherwise
+     * <code>false</code>
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final BaseLdapServer other = (BaseLdapServer) obj;
+        if ((this.identifier == null) ? (other.identifier != null)
+                : !this.identifier.equals(other.identifier)) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash =
+                41 * hash + (this.identifier != null
+                ? this.identifier.hashCode() : 0);
+        return hash;
+    }
+
+    /**
+     * The {@link String} representation of this object is the connection string
+     * for the LDAP service.
+     *
+     * @return String representation of the server
+     */
+    @Override
+    public String toString() {
+        if (host != null && host.startsWith("/")) {
+            return toLdapiUrl(host);
+        }
+        StringBuilder sb = new StringBuilder();
+        if (secure) {
+            sb.append("ldaps://");
+        } else {
+            sb.append("ldap://");
+        }
+        sb.append(host);
+        sb.append(":");
+        sb.append(port);
+        return sb.toString();
+    }
+
+    private LdapContext borrowContext() throws NamingException {
+        return borrowContext(null);
+    }
+
+    /**
+     * Borrows a context from the given replica, or from the best replica if
+     * none is given.
+     */
+    private LdapContext borrowContext(ReplicaPool.Replica replica)
+            throws NamingException {
+        ReplicaPool p = pool;
+        if (p == null) {
+            throw new CommunicationException("Not connected");
+        }
+        reconnectPolicy.checkAvailable();
+        return replica == null ? p.borrow() : p.borrow(replica);
+    }
+
+    /**
+     * Returns a context after an operation the server answered, be it with
+     * an error.
+     */
+    private void releaseContext(LdapContext ctx) {
+        if (ctx != null) {
+            reconnectPolicy.succeeded();
+        }
+        ReplicaPool p = pool;
+        if (p != null) {
+            p.release(ctx);
+        } else if (ctx != null) {
+            try {
+                ctx.close();
+            } catch (NamingException ex) {
+            }
+        }
+    }
+
+    /**
+     * Records the round trip time of an operation for the replica the
+     * context is connected to.
+     */
+    private void recordLatency(LdapContext ctx, long nanos) {
+        ReplicaPool p = pool;
+        if (p != null) {
+            p.recordLatency(ctx, nanos);
+        }
+    }
+
+    /**
+     * Discards a context that failed with a communication error. The idle
+     * connections to the same replica are dropped as well, as they most
+     * probably went stale for the same reason (server restart, firewall
+     * dropping idle sessions), and the replica is skipped for a while.
+     */
+    private void invalidateContext(LdapContext ctx) {
+        ReplicaPool p = pool;
+        if (p != null) {
+            p.fail(ctx);
+        }
+    }
+
+    /**
+     * Waits before an operation that failed with a communication error is
+     * tried again on a fresh connection, as decided by the
+     * {@link ReconnectPolicy}.
+     *
+     * @param attempt Number of the failed attempt, {@code 1} for the first
+     * @param failure Failure of the attempt
+     * @throws QueryException If the operation is not tried again
+     */
+    private void awaitRetry(int attempt, NamingException failure)
+            throws QueryException {
+        try {
+            if (reconnectPolicy.retry(attempt)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryException("Interrupted while reconnecting", ex);
+        }
+        throw new QueryException(failure);
+    }
+
+    /**
+     * Probes the idle connections for the {@link HealthMonitor}. When one
+     * went stale, or the circuit is not closed, a fresh connection is opened
+     * right away, so that the next operation does not have to.
+     *
+     * @return {@code true} if the server answered
+     */
+    private boolean probe() throws NamingException {
+        ReplicaPool p = pool;
+        if (p == null) {
+            return false;
+        }
+        int idle = p.getIdleCount();
+        if (p.probeIdle() == 0
+                && reconnectPolicy.getState() == CircuitState.CLOSED) {
+            return idle > 0;
+        }
+        p.release(p.borrow());
+        return true;
+    }
+
+    /**
+     * Generates a {@link Hashtable} with the environment for connecting to the {@link LdapServer}.
+     *
+     * @return {@link Hashtable} containing a configured LDAP environment
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    protected Hashtable<String, String> getConnectionEnvironment() {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY,
+                "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, toString());
+        if (this.readTimeout > 0) {
+            env.put("com.sun.jndi.ldap.read.timeout",
+                    String.valueOf(this.readTimeout));
+        }
+
+        // The options of the sockets are passed by openContext(). The
+        // connect timeout is one of them, without a timeout in the
+        // environment JNDI lets the factory connect to the host name, so that
+        // it can race the connects to all of its addresses
+        env.put("java.naming.ldap.factory.socket",
+                TunedSocketFactory.class.getName());
+
+        if (this.authentication.equals(Authentication.SIMPLE)) {
+            env.put(Context.SECURITY_AUTHENTICATION, this.authentication.name().
+                    toLowerCase());
+            env.put(Context.SECURITY_PRINCIPAL, this.binding);
+            env.put(Context.SECURITY_CREDENTIALS, getPassword());
+        } else if (this.authentication.equals(Authentication.EXTERNAL)) {
+            env.put(Context.SECURITY_AUTHENTICATION, "EXTERNAL");
+        }
+
+        return env;
+    }
+
+    /**
+     * Connects to the {@link LdapServer}.
+     *
+     * @throws ConnectionException If a connection could not be established
+     */
+    public void connect() throws ConnectionException {
+        try (Bulkhead.Permit permit = enter(Bulkhead.Kind.CONNECT, Priority.INTERACTIVE, 1)) {
+            connectPool();
+        } catch (QueryException ex) {
+            throw new ConnectionException(ex.getMessage(), ex);
+        }
+    }
+
+    private void connectPool() throws ConnectionException {
+        entryCache.clear();
+        final Hashtable<String, String> env = getConnectionEnvironment();
+        final List<String> urls;
+        try {
+            urls = getConnectUrls();
+        } catch (NamingException ex) {
+            throw new ConnectionException(ex);
+        }
+        final LdapTransport newTransport = transport.create();
+        // Referred servers are connected to like replicas
+        ReplicaPool.PoolFactory factory = url -> {
+            Hashtable<String, String> replicaEnv = new Hashtable<>(env);
+            // The socket factory connects ldapi:// replicas to their socket,
+            // whatever address the transport asks for
+            replicaEnv.put(Context.PROVIDER_URL, getUnixSocket(url) == null
+                    ? url : "ldap://localhost");
+            ConnectionSecurity security = getConnectionSecurity(url);
+            if (security == ConnectionSecurity.STARTTLS) {
+                replicaEnv.put(StartTls.START_TLS, "true");
+            }
+            TunedSocketFactory.Settings settings = getSocketSettings(url);
+            return new LdapConnectionPool(
+                    () -> openContext(newTransport, replicaEnv, security,
+                            settings),
+                    poolMaxSize,
+                    poolIdleTimeout,
+                    poolMaxLifetime,
+                    poolBorrowTimeout);
+        };
+        ReplicaPool newPool = new ReplicaPool(urls, factory, reconnectPolicy);
+        try {
+            // Open the first connection eagerly, so that invalid settings or
+            // credentials are reported when connecting
+            newPool.release(newPool.borrow());
+        } catch (NamingException ex) {
+            newPool.close();
+            newTransport.close();
+            throw new ConnectionException(ex);
+        }
+        ReplicaPool oldPool = pool;
+        LdapTransport oldTransport = connectedTransport;
+        ReferralChaser oldReferrals = referrals;
+        connectedTransport = newTransport;
+        referrals = new ReferralChaser(factory);
+        pool = newPool;
+        close(oldPool, oldTransport, oldReferrals);
+        reconnectPolicy.succeeded();
+        healthMonitor.start(healthCheckInterval);
+    }
+
+    /**
+     * Opens a connection for the pool as the identity given by
+     * {@link #runAs(PrivilegedExceptionAction)}. Connections are opened on
+     * whatever thread needs one, this is the single place that has to know
+     * about the identity, the socket options and the connect costs.
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    private LdapContext openContext(LdapTransport t,
+            Hashtable<String, String> env, ConnectionSecurity security,
+            TunedSocketFactory.Settings settings) throws NamingException {
+        try {
+            return runAs(() -> TunedSocketFactory.connect(settings, () -> {
+                long start = System.nanoTime();
+                try {
+                    LdapContext ctx = t.connect(env);
+                    connectProfiler.connected(security, System.nanoTime() - start);
+                    return ctx;
+                } catch (NamingException | RuntimeException ex) {
+                    connectProfiler.failed(security);
+                    throw ex;
+                }
+            }));
+        } catch (NamingException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            NamingException ne = new NamingException(ex.getMessage());
+            ne.setRootCause(ex);
+            throw ne;
+        }
+    }
+
+    /**
+     * Gets the options of the sockets connecting to a replica.
+     */
+    private TunedSocketFactory.Settings getSocketSettings(String url) {
+        return new TunedSocketFactory.Settings(
+                getConnectionSecurity(url) == ConnectionSecurity.LDAPS, ignoreTlsErrors,
+                tcpNoDelay, keepAlive, sendBufferSize, receiveBufferSize,
+                timeout, getUnixSocket(url));
+    }
+
+    /**
+     * Gets the {@code ldapi://} URL of a Unix domain socket, the path being
+     * URL encoded into the host part like OpenLDAP does.
+     *
+     * @param path Path of the socket
+     * @return URL of the socket
+     */
+    static String toLdapiUrl(String path) {
+        try {
+            return "ldapi://" + URLEncoder.encode(path, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Gets the path of the Unix domain socket of an {@code ldapi://} URL.
+     *
+     * @param url URL of a replica
+     * @return Path of the socket, or {@code null} if the URL is not an
+     * {@code ldapi://} URL
+     */
+    static String getUnixSocket(String url) {
+        if (!url.regionMatches(true, 0, "ldapi://", 0, 8)) {
+            return null;
+        }
+        String path = url.substring(8);
+        int end = path.indexOf('/');
+        if (end >= 0) {
+            path = path.substring(0, end);
+        }
+        try {
+            return URLDecoder.decode(path, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Runs an action as the identity connections to the server are opened
+     * with. The default implementation runs the action on the calling thread
+     * as is.
+     *
+     * @param <T> Type of the result of the action
+     * @param action Action to run
+     * @return Result of the action
+     * @throws Exception If the action failed, or the identity could not be
+     * obtained
+     */
+    protected <T> T runAs(PrivilegedExceptionAction<T> action) throws Exception {
+        return action.run();
+    }
+
+    private static void close(ReplicaPool oldPool,
+            LdapTransport oldTransport, ReferralChaser oldReferrals) {
+        if (oldPool != null) {
+            oldPool.close();
+        }
+        if (oldReferrals != null) {
+            oldReferrals.close();
+        }
+        if (oldTransport != null) {
+            oldTransport.close();
+        }
+    }
+
+    /**
+     * Disconnects from an {@link LdapServer}.
+     *
+     * @throws ConnectionException If the connection could not be abrupted
+     */
+    public void disconnect() throws ConnectionException {
+        ReplicaPool oldPool = pool;
+        LdapTransport oldTransport = connectedTransport;
+        ReferralChaser oldReferrals = referrals;
+        pool = null;
+        connectedTransport = null;
+        referrals = null;
+        healthMonitor.stop();
+        entryCache.clear();
+        close(oldPool, oldTransport, oldReferrals);
+    }
+
+    /**
+     * Determines if a connection has already been established.
+     *
+     * @return
+     * <code>true</code> if a connection has already been established, otherwise
+     * <code>false</code>
+     */
+    public boolean isConnected() {
+        return pool != null;
+    }
+
+    /**
+     * Gets the capabilities announced by the server, as far as they are
+     * known. The root DSE is read on first use after connecting and kept
+     * across reconnects.
+     *
+     * @return Snapshot of the root DSE or {@code null} if it was not read yet
+     */
+    public RootDse getRootDse() {
+        return rootDse;
+    }
+
+    /**
+     * Gets the root DSE, reading it if necessary. A snapshot older than a day
+     * is returned while a fresh copy is read in the background.
+     *
+     * @return Snapshot of the root DSE, {@code null} if it was never read and
+     * the server is not connected
+     */
+    private RootDse fetchRootDse() {
+        RootDse dse = rootDse;
+        if (!isConnected()) {
+            return dse;
+        }
+        if (System.currentTimeMillis() < rootDseRetryAt) {
+            return dse;
+        }
+        if (dse == null) {
+            dse = refreshRootDse();
+        } else if (dse.isOlderThan(ROOT_DSE_MAX_AGE)
+                && rootDseRefreshing.compareAndSet(false, true)) {
+            RP.post(() -> {
+                try (Bulkhead.Permit permit = enter(Bulkhead.Kind.READ,
+                        Priority.PREFETCH, 1)) {
+                    refreshRootDse();
+                } catch (QueryException ex) {
+                    Logger.getLogger(BaseLdapServer.class.getName()).log(
+                            Level.FINE, "Root DSE not refreshed", ex);
+                } finally {
+                    rootDseRefreshing.set(false);
+                }
+            });
+        }
+        return dse;
+    }
+
+    /**
+     * Sets the snapshot of the root DSE, e.g. when restoring a stored server.
+     *
+     * @param rootDse Snapshot of the root DSE, {@code null} to read it again
+     * on next use
+     */
+    public void setRootDse(RootDse rootDse) {
+        RootDse old = this.rootDse;
+        this.rootDse = rootDse;
+        fire("rootDse", old, rootDse);
+    }
+
+    private RootDse refreshRootDse() {
+        RootDse fresh;
+        LdapContext ctx = null;
+        try {
+            ctx = borrowContext();
+            fresh = RootDse.read(ctx);
+        } catch (CommunicationException | ServiceUnavailableException ex) {
+            // The server is not reachable right now, ask again on next use
+            invalidateContext(ctx);
+            ctx = null;
+            Logger.getLogger(BaseLdapServer.class.getName()).log(
+                    Level.FINE, "Root DSE not read: {0}", ex.getMessage());
+            return rootDse;
+        } catch (NamingException ex) {
+            // Keep the last snapshot, the failure may be transient. Don't ask
+            // again for every query meanwhile, servers restricting access to
+            // the root DSE will refuse again.
+            Logger.getLogger(BaseLdapServer.class.getName()).log(
+                    Level.WARNING, "Failed to read the root DSE: {0}",
+                    ex.getMessage());
+            rootDseRetryAt = System.currentTimeMillis() + ROOT_DSE_RETRY_DELAY;
+            return rootDse;
+        } finally {
+            releaseContext(ctx);
+        }
+        RootDse old = rootDse;
+        if (old != null && old.getPageSize() != null) {
+            fresh = fresh.withPageSize(old.getPageSize());
+        }
+        setRootDse(fresh);
+        return fresh;
+    }
+
+    private boolean isPagingSupported() {
+        RootDse dse = fetchRootDse();
+        return dse != null && dse.isPagingSupported();
+    }
+
+    /**
+     * Creates the controller for a paged search. It starts with the page size
+     * that performed best on earlier searches or with the configured
+     * {@link #getPageSize()} if none is known yet.
+     */
+    private PageSizeController createPageSizeController() {
+        RootDse dse = rootDse;
+        Integer learned = dse == null ? null : dse.getPageSize();
+        return new PageSizeController(learned != null ? learned : pageSize,
+                pageSizeLimit);
+    }
+
+    /**
+     * Remembers the page size that performed best, so that later searches
+     * start with it.
+     */
+    private void rememberPageSize(PageSizeController pages) {
+        pageSizeLimit = pages.getLimit();
+        RootDse dse = rootDse;
+        if (dse != null && !Integer.valueOf(pages.getBestPageSize()).equals(
+                dse.getPageSize())) {
+            setRootDse(dse.withPageSize(pages.getBestPageSize()));
+        }
+    }
+
+    /**
+     * Gets a {@link List} of {@link LdapEntry} objects residing in the given
+     * path.
+     *
+     * @param path Path for which to obtain the {@link LdapEntry} objects
+     * @param lrp {@link LdapResultProcessor} processor to receive the query result
+     * @throws QueryException If the path is invalid or the server could not be
+     * queried
+     */
+    public void getTree(String path, LdapResultProcessor lrp) throws QueryException {
+        ResultProcessorSubscriber.process(publishTree(path), lrp);
+    }
+
+    /**
+     * Gets a {@link LdapFlow.Publisher} of the {@link LdapEntry} objects
+     * residing in the given path, listed with
+     * {@link Priority#VISIBLE_EXPAND}.
+     *
+     * @param path Path for which to obtain the {@link LdapEntry} objects
+     * @return Publisher of the entries
+     * @see #publishTree(java.lang.String, Priority)
+     */
+    public LdapFlow.Publisher<LdapEntry> publishTree(String path) {
+        return publishTree(path, Priority.VISIBLE_EXPAND);
+    }
+
+    /**
+     * Gets a {@link LdapFlow.Publisher} of the {@link LdapEntry} objects
+     * residing in the given path. The entries are listed for every
+     * subscription, pages are only requested from the server as the
+     * subscriber requests entries. Identical listings running concurrently,
+     * e.g. of two explorer windows, share a single listing.
+     *
+     * @param path Path for which to obtain the {@link LdapEntry} objects
+     * @param priority Priority of the listing
+     * @return Publisher of the entries, failing with a
+     * {@link QueryException} if the path is invalid or the server could not
+     * be queried
+     */
+    public LdapFlow.Publisher<LdapEntry> publishTree(String path,
+            Priority priority) {
+        return publish(path, SearchControls.ONELEVEL_SCOPE, "(objectClass=*)",
+                priority);
+    }
+
+    /**
+     * Searches the subtree for LDAP entries matching the given {@code filter}.
+     *
+     * @param filter LDAP filter
+     * @param lpr {@link LdapResultProcessor} to process the search result
+     * @throws QueryException If the search failed
+     */
+    public void search(String filter, LdapResultProcessor lpr) throws QueryException {
+        ResultProcessorSubscriber.process(publishSearch(filter), lpr);
+    }
+
+    /**
+     * Gets a {@link LdapFlow.Publisher} of the LDAP entries in the subtree
+     * matching the given {@code filter}, searched with
+     * {@link Priority#INTERACTIVE}.
+     *
+     * @param filter LDAP filter
+     * @return Publisher of the matching entries
+     * @see #publishSearch(java.lang.String, Priority)
+     */
+    public LdapFlow.Publisher<LdapEntry> publishSearch(String filter) {
+        return publishSearch(filter, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Gets a {@link LdapFlow.Publisher} of the LDAP entries in the subtree
+     * matching the given {@code filter}. The search is run for every
+     * subscription, pages are only requested from the server as the
+     * subscriber requests entries. Identical searches running concurrently
+     * share a single search. A search with a background priority, e.g.
+     * an export, lets the operations of the user run between its pages.
+     *
+     * @param filter LDAP filter
+     * @param priority Priority of the search
+     * @return Publisher of the matching entries, failing with a
+     * {@link QueryException} if the search failed
+     */
+    public LdapFlow.Publisher<LdapEntry> publishSearch(String filter,
+            Priority priority) {
+        return publish(getBaseDN(), SearchControls.SUBTREE_SCOPE, filter,
+                priority);
+    }
+
+    /**
+     * Creates the publisher of an enumeration. At most
+     * {@link #PUBLISHER_BUFFER_PAGES} pages of received entries are buffered
+     * for a subscriber that does not keep up.
+     */
+    private LdapFlow.Publisher<LdapEntry> publish(String base, int scope,
+            String filter, Priority priority) {
+        int capacity = PUBLISHER_BUFFER_PAGES
+                * createPageSizeController().getPageSize();
+        return LdapEntryPublisher.of(
+                sink -> enumerateShared(base, scope, filter, priority,
+                        capacity, sink), capacity);
+    }
+
+    /**
+     * Passes the entries of an enumeration to the given sink, sharing the
+     * enumeration with the identical ones in flight. An operation running
+     * on the calling thread does not wait for an enumeration that may still
+     * be queued in the bulkhead, which could deadlock.
+     *
+     * @param capacity Number of entries the sink buffers
+     */
+    private CompletableFuture<Void> enumerateShared(String base, int scope,
+            String filter, Priority priority, int capacity,
+            LdapResultProcessor sink) {
+        String key = scope + "\n" + base.toLowerCase(Locale.ROOT) + "\n"
+                + filter + "\n" + String.join(",", getProjection()) + "\n"
+                + capacity;
+        boolean shared = !bulkhead.isHolding();
+        SharedEnumeration enumeration;
+        CompletableFuture<Void> joined;
+        synchronized (enumerations) {
+            enumeration = shared ? enumerations.get(key) : null;
+            joined = enumeration == null ? null
+                    : enumeration.join(sink, priority);
+            if (joined == null) {
+                enumeration = new SharedEnumeration(priority, capacity);
+                joined = enumeration.join(sink, priority);
+                if (shared) {
+                    enumerations.put(key, enumeration);
+                }
+            } else {
+                return joined;
+            }
+        }
+        SharedEnumeration started = enumeration;
+        try {
+            bulkhead.execute(Bulkhead.Kind.SEARCH, priority, 1, () -> {
+                try {
+                    started.run(lrp -> enumerate(base, scope, filter, lrp));
+                } finally {
+                    synchronized (enumerations) {
+                        enumerations.remove(key, started);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            synchronized (enumerations) {
+                enumerations.remove(key, started);
+            }
+            started.finish(new QueryException(ex.getMessage(), ex));
+        }
+        return joined;
+    }
+
+    private void enumerate(String base, int scope, String filter,
+            LdapResultProcessor lrp) throws QueryException {
+        if (isPagingSupported()) {
+            pagedEnumerate(base, scope, filter, lrp);
+        } else {
+            Progress progress = new Progress();
+            while (!enumerate(base, scope, filter, lrp, progress)) {
+                // Run the search again on a fresh connection
+            }
+            chaseReferences(base, scope, filter, lrp, progress);
+        }
+    }
+
+    /**
+     * Chases the references collected by an enumeration once its own
+     * entries are passed. The entries found are passed to the same
+     * {@link LdapResultProcessor}, skipping those already delivered, e.g.
+     * by a server holding a copy of the referred partition.
+     */
+    private void chaseReferences(String base, int scope, String filter,
+            LdapResultProcessor lrp, Progress progress) throws QueryException {
+        ReferralChaser chaser = referrals;
+        if (chaser == null || progress.references.isEmpty()
+                || lrp.isCanceled() || progress.isLimitReached(searchSizeLimit)) {
+            return;
+        }
+        try {
+            chaser.chase(progress.references, base, filter,
+                    createSearchControls(scope), sr -> {
+                        if (progress.deliver(sr.getNameInNamespace())) {
+                            lrp.addEntry(createEntry(sr));
+                        }
+                        return !progress.isLimitReached(searchSizeLimit);
+                    }, lrp::isCanceled);
+        } catch (NamingException ex) {
+            throw new QueryException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryException("Interrupted while chasing referrals", ex);
+        } finally {
+            progress.references.clear();
+        }
+    }
+
+    /**
+     * Progress of an enumeration, used to resume it after a recoverable
+     * failure without passing any entry twice to the
+     * {@link LdapResultProcessor}.
+     */
+    private static class Progress {
+
+        private final Set<String> delivered = new HashSet<>();
+        /** Cookie of the page currently requested, {@code null} for the first page. */
+        private byte[] cookie = null;
+        /** Replica that issued the cookie, the only one accepting it. */
+        private ReplicaPool.Replica replica = null;
+        /** Consecutive failures without a completed page in between. */
+        private int failures = 0;
+        /** Continuation references received, chased once the enumeration is complete. */
+        private final List<List<String>> references = new ArrayList<>();
+
+        /**
+         * Records a received entry.
+         *
+         * @param dn Distinguished name of the entry
+         * @return {@code true} if the entry was not delivered before
+         */
+        boolean deliver(String dn) {
+            return delivered.add(dn.toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * Determines if the configured number of entries was delivered.
+         *
+         * @param limit Maximum number of entries, {@code 0} for no limit
+         * @return {@code true} if no further entries are wanted
+         */
+        boolean isLimitReached(int limit) {
+            return limit > 0 && delivered.size() >= limit;
+        }
+
+        /**
+         * Records a failure.
+         *
+         * @return {@code true} if the enumeration should be resumed
+         */
+        boolean failed() {
+            return ++failures <= MAX_RESUMES;
+        }
+    }
+
+    /**
+     * Aborts a running search when its {@link LdapResultProcessor} is
+     * canceled. JNDI cannot abandon a request from another thread, instead
+     * the enumeration is closed, which abandons the outstanding operation,
+     * and the connection is closed, so that the server stops evaluating the
+     * search right away.
+     */
+    private static class SearchAbort implements Runnable {
+
+        private final LdapContext ctx;
+        private NamingEnumeration<?> results = null;
+        private boolean aborted = false;
+        private boolean finished = false;
+
+        SearchAbort(LdapContext ctx) {
+            this.ctx = ctx;
+        }
+
+        synchronized void setResults(NamingEnumeration<?> results) {
+            this.results = results;
+        }
+
+        synchronized boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * Marks the search as finished, after which it is no longer aborted.
+         *
+         * @return {@code true} if the search was aborted and its connection
+         * must not be reused
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return aborted;
+        }
+
+        @Override
+        public void run() {
+            final NamingEnumeration<?> open;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                aborted = true;
+                open = results;
+            }
+            RP.post(() -> {
+                // JNDI only closes the connection once its enumerations are
+                // closed, so the enumeration is closed first
+                try {
+                    if (open != null) {
+                        open.close();
+                    }
+                } catch (NamingException ex) {
+                    Logger.getLogger(BaseLdapServer.class.getName()).log(
+                            Level.FINE, "Failed to close aborted search", ex);
+                }
+                try {
+                    ctx.close();
+                } catch (NamingException ex) {
+                    Logger.getLogger(BaseLdapServer.class.getName()).log(
+                            Level.FINE, "Failed to close aborted connection", ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Starts watching a search for cancellation.
+     */
+    private SearchAbort watch(LdapContext ctx, LdapResultProcessor lrp) {
+        SearchAbort abort = new SearchAbort(ctx);
+        lrp.addCancelAction(abort);
+        return abort;
+    }
+
+    /**
+     * Stops watching a search and returns its connection to the pool,
+     * unless the search was aborted.
+     */
+    private void unwatch(LdapContext ctx, LdapResultProcessor lrp,
+            SearchAbort abort) {
+        if (abort != null) {
+            lrp.removeCancelAction(abort);
+            if (abort.finish()) {
+                ReplicaPool p = pool;
+                if (p != null) {
+                    p.invalidate(ctx);
+                }
+                return;
+            }
+        }
+        releaseContext(ctx);
+    }
+
+    private byte[] getPageContextCookie(LdapContext ctx) throws NamingException {
+        Control[] controls = ctx.getResponseControls();
+        if (controls != null) {
+            for (int i = 0; i < controls.length; i++) {
+                if (controls[i] instanceof PagedResultsResponseControl) {
+                    PagedResultsResponseControl prrc =
+                            (PagedResultsResponseControl) controls[i];
+                    return prrc.getCookie();
+                }
+            }
+        }
+        return null;
+    }
+
+    private SearchControls createSearchControls(int scope) {
+        SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(scope);
+        searchControls.setReturningAttributes(getProjection());
+        searchControls.setTimeLimit(searchTimeLimit);
+        return searchControls;
+    }
+
+    private void pagedEnumerate(String base, int scope, String filter,
+            LdapResultProcessor lrp) throws QueryException {
+        PageSizeController pages = createPageSizeController();
+        Progress progress = new Progress();
+        while (!pagedEnumerate(base, scope, filter, lrp, pages, progress)) {
+            // Resume where the failed attempt stopped
+        }
+        rememberPageSize(pages);
+        chaseReferences(base, scope, filter, lrp, progress);
+    }
+
+    /**
+     * Requests pages until the enumeration completes or fails. The
+     * enumeration starts at the cookie of the given progress, so that an
+     * enumeration interrupted by a recoverable failure continues with the
+     * page that failed.
+     *
+     * @return {@code true} if the enumeration is complete, {@code false} if
+     * it must be resumed
+     */
+    private boolean pagedEnumerate(String base, int scope, String filter,
+            LdapResultProcessor lrp, PageSizeController pages,
+            Progress progress) throws QueryException {
+        if (!isConnected() || lrp.isCanceled()) {
+            return true;
+        }
+
+        LdapContext cloneCtx = null;
+        SearchAbort abort = null;
+        boolean resumed = progress.cookie != null;
+        int pageEntries = 0;
+
+        try {
+            // Servers bind the cookie to the replica that issued it
+            cloneCtx = borrowContext(resumed ? progress.replica : null);
+            ReplicaPool p = pool;
+            progress.replica = p != null ? p.getReplica(cloneCtx) : null;
+            abort = watch(cloneCtx, lrp);
+
+            SearchControls searchControls = createSearchControls(scope);
 
-                while (results != null & results.hasMore()) {
-                    NameClassPair nc = results.next();
+            do {
+                cloneCtx.setRequestControls(new Control[]{
+                            new PagedResultsControl(pages.getPageSize(),
+                            progress.cookie, Control.CRITICAL)
+                        });
 
-                    LdapEntry entry = new LdapEntry();
+                long start = System.nanoTime();
+                pageEntries = 0;
+                try {
+                    NamingEnumeration<SearchResult> results = cloneCtx.search(
+                            base, filter, searchControls);
+                    abort.setResults(results);
+
+                    while (results != null && results.hasMore()) {
+                        SearchResult sr = results.next();
+                        pageEntries++;
+                        if (progress.deliver(sr.getNameInNamespace())) {
+                            lrp.addEntry(createEntry(sr));
+                        }
 
-                    entry.setDn(nc.getNameInNamespace());
-                    entry.setLabel(nc.getName());
+                        if (lrp.isCanceled()) {
+                            return true;
+                        }
+                        if (progress.isLimitReached(searchSizeLimit)) {
+                            // Abandon the remaining pages
+                            results.close();
+                            return true;
+                        }
+                    }
+                } catch (ReferralException ex) {
+                    // Thrown once the entries of the page are passed, the
+                    // cookie of the page is still returned
+                    progress.references.addAll(
+                            ReferralChaser.getReferences(ex));
+                }
 
-                    addObjectClasses(cloneCtx, entry);
-                    lrp.addEntry(entry);
+                progress.cookie = getPageContextCookie(cloneCtx);
+                progress.failures = 0;
+                resumed = false;
+                pages.pageCompleted(pageEntries, System.nanoTime() - start,
+                        progress.cookie != null);
+                if (progress.cookie != null) {
+                    yieldBetweenPages();
+                }
+            } while (progress.cookie != null);
+        } catch (NamingException ex) {
+            if (abort != null && abort.isAborted()) {
+                // Canceled while waiting for the server
+                return true;
+            }
+            return recoverPagedEnumerate(ex, cloneCtx, pages, progress,
+                    resumed, pageEntries);
+        } catch (IOException | NullPointerException ex) {
+            throw new QueryException(ex);
+        } finally {
+            unwatch(cloneCtx, lrp, abort);
+        }
+        return true;
+    }
 
-                    if(lrp.isCanceled()) {
-                        return;
-                    }
-                }
+    /**
+     * Lets waiting operations of a higher priority run before a background
+     * enumeration requests its next page. The enumeration keeps its
+     * connection, as servers bind the cookie to it, so it only yields if
+     * the pool can serve another connection.
+     */
+    private void yieldBetweenPages() throws QueryException {
+        ReplicaPool p = pool;
+        if (p == null || !p.hasCapacity()) {
+            return;
+        }
+        try {
+            bulkhead.yieldToWaiting();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryException("Interrupted while yielding", ex);
+        }
+    }
 
-                cookie = getPageContextCookie(cloneCtx);
-                if (cookie == null) {
-                    break;
-                }
+    /**
+     * Decides how a failed paged enumeration continues.
+     *
+     * @return {@code true} if the enumeration is complete, {@code false} if
+     * it must be resumed
+     * @throws QueryException If the failure is not recoverable
+     */
+    private boolean recoverPagedEnumerate(NamingException ex, LdapContext ctx,
+            PageSizeController pages, Progress progress, boolean resumed,
+            int pageEntries) throws QueryException {
+        if (ex instanceof TimeLimitExceededException) {
+            // The configured search time limit ran out, only the entries
+            // received so far can be shown
+            Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
+                    getMessage());
+            return true;
+        } else if (ex instanceof SizeLimitExceededException) {
+            if (pageEntries == 0 || !progress.failed()) {
+                // The server limits the total number of entries, only the
+                // entries within that limit can be shown
+                // TODO: Evaluate if this should be a displayed error!
+                Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
+                        getMessage());
+                return true;
             }
-        } catch (CommunicationException ex) {
-            // When the connection was closed by the server - try to connect again
-            // (once) and return that result
-            if (firstTry) {
-                try {
-                    connect();
-                } catch (ConnectionException ex2) {
-                    throw new QueryException(ex2);
-                }
-                lrp.reset();
-                getPagedTree(path, lrp, false);
-            } else {
-                throw new QueryException(ex);
+            // The page exceeded the size limit of the server, request it
+            // again in pages within that limit
+            pages.limit(pageEntries);
+            return false;
+        } else if (ex instanceof CommunicationException) {
+            // When the connection was closed by the server - resume with a
+            // fresh connection, continuing from the last page if the server
+            // still accepts its cookie. With replicas the cookie is only
+            // valid on the one that failed, fail over to another replica,
+            // start over there and skip the delivered entries.
+            invalidateContext(ctx);
+            ReplicaPool p = pool;
+            if (p != null && p.getReplicaCount() > 1) {
+                progress.cookie = null;
             }
-        } catch (NamingException | IOException | NullPointerException ex) {
+            awaitRetry(++progress.failures, ex);
+            return false;
+        } else if (ex instanceof ServiceUnavailableException) {
+            // The circuit is open or no connection is available, starting
+            // over would fail the same way
             throw new QueryException(ex);
-        } finally {
-            closeContext(cloneCtx);
+        } else if (resumed && progress.failed()) {
+            // The server did not accept the cookie of the interrupted
+            // enumeration, start over and skip the delivered entries
+            progress.cookie = null;
+            return false;
         }
+        throw new QueryException(ex);
     }
 
-    private void getTree(String path, LdapResultProcessor lrp, boolean firstTry) throws
-            QueryException {
+    /**
+     * Runs a search without paging.
+     *
+     * @return {@code true} if the enumeration is complete, {@code false} if
+     * it must be run again
+     */
+    private boolean enumerate(String base, int scope, String filter,
+            LdapResultProcessor lrp, Progress progress) throws QueryException {
 
         if (!isConnected() || lrp.isCanceled()) {
-            return;
+            return true;
         }
 
         LdapContext cloneCtx = null;
+        SearchAbort abort = null;
 
-        int fetchedElements = 0;
         try {
-            cloneCtx = getClonedContext();
-                
-            NamingEnumeration<NameClassPair> results = cloneCtx.list(path);
-
-            while (results != null & results.hasMore()) {
-                NameClassPair nc = results.next();
+            cloneCtx = borrowContext();
+            abort = watch(cloneCtx, lrp);
 
-                LdapEntry entry = new LdapEntry();
+            SearchControls searchControls = createSearchControls(scope);
+            searchControls.setCountLimit(searchSizeLimit);
+            NamingEnumeration<SearchResult> results = cloneCtx.search(base,
+                    filter, searchControls);
+            abort.setResults(results);
 
-                entry.setDn(nc.getNameInNamespace());
-                entry.setLabel(nc.getName());
-
-                addObjectClasses(cloneCtx, entry);
-                lrp.addEntry(entry);
-                fetchedElements++;
+            while (results != null && results.hasMore()) {
+                SearchResult sr = results.next();
+                if (progress.deliver(sr.getNameInNamespace())) {
+                    lrp.addEntry(createEntry(sr));
+                }
 
                 if(lrp.isCanceled()) {
-                    return;
+                    return true;
                 }
             }
-        } catch (SizeLimitExceededException ex) {
-            if (isPagingSupported()) {
-                maxQuerySize = fetchedElements - 1;
-                lrp.reset();
-                getPagedTree(path, lrp, true);
-            } else {
-                // TODO: Evaluate if this should be a displayed error!
-                Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
-                        getMessage());
-            }
+        } catch (ReferralException ex) {
+            // Thrown once the entries of the server are passed
+            progress.references.addAll(ReferralChaser.getReferences(ex));
+        } catch (SizeLimitExceededException | TimeLimitExceededException ex) {
+            // Without paging only the entries within the limits of the
+            // server can be shown
+            // TODO: Evaluate if this should be a displayed error!
+            Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
+                    getMessage());
         } catch (CommunicationException ex) {
-            // When the connection was closed by the server - try to connect again
-            // (once) and return that result
-            if (firstTry) {
-                try {
-                    connect();
-                } catch (ConnectionException ex2) {
-                    throw new QueryException(ex2);
-                }
-                lrp.reset();
-                getTree(path, lrp, false);
-            } else {
-                throw new QueryException(ex);
+            if (abort != null && abort.isAborted()) {
+                return true;
             }
+            // When the connection was closed by the server - run the search
+            // again with a fresh connection, skipping the delivered entries
+            invalidateContext(cloneCtx);
+            cloneCtx = null;
+            unwatch(null, lrp, abort);
+            abort = null;
+            awaitRetry(++progress.failures, ex);
+            return false;
         } catch (NamingException | NullPointerException ex) {
+            if (abort != null && abort.isAborted()) {
+                return true;
+            }
             throw new QueryException(ex);
         } finally {
-            closeContext(cloneCtx);
+            unwatch(cloneCtx, lrp, abort);
         }
+        return true;
     }
 
     /**
-     * Searches the subtree for LDAP entries matching the given {@code filter}.
+     * Creates an {@link LdapEntry} from a search result. The result carries
+     * the projection requested by {@link #getProjection()}, so no further
+     * round trip is necessary to determine the object classes.
      *
-     * @param filter LDAP filter
-     * @param lpr {@link LdapResultProcessor} to process the search result
-     * @throws QueryException If the search failed
+     * @param sr Search result to convert
+     * @return {@link LdapEntry} populated from the search result
+     * @throws NamingException If the attributes could not be read
      */
-    public void search(String filter, LdapResultProcessor lpr) throws QueryException {
-        if (isPagingSupported() && maxQuerySize != null) {
-            this.pagedSearch(filter, lpr, true);
-        } else {
-            this.search(filter, lpr, true);
-        }
-    }
-
-    private void pagedSearch(String filter, LdapResultProcessor lpr, boolean firstTry)
-            throws QueryException {
-        if (!isConnected() || lpr.isCanceled()) {
-            return;
-        }
-
-        LdapContext cloneCtx = null;
+    private LdapEntry createEntry(SearchResult sr) throws NamingException {
+        LdapEntry entry = new LdapEntry();
 
-        try {
-            cloneCtx = getClonedContext();
+        entry.setDn(sr.getNameInNamespace());
+        entry.setLabel(sr.getName());
 
-            byte[] cookie = null;
-            SearchControls searchControls = new SearchControls();
-            searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        Attributes attrs = sr.getAttributes();
+        if (attrs != null) {
+            for (NamingEnumeration<? extends Attribute> ae = attrs.getAll();
+                    ae.hasMore();) {
+                Attribute attr = ae.next();
+                boolean objectClass = OBJECT_CLASS.equalsIgnoreCase(attr.getID());
 
-            while (true) {
-                cloneCtx.setRequestControls(new Control[]{
-                            new PagedResultsControl(maxQuerySize, cookie,
-                            Control.CRITICAL)
-                        });
+                for (NamingEnumeration ne = attr.getAll(); ne.hasMore();) {
+                    Object value = ne.next();
+                    if (objectClass) {
+                        entry.addObjectClass(String.valueOf(value));
+                    } else {
+                        entry.setAttribute(attr.getID(), value);
+                    }
+                }
+            }
+        }
 
-                NamingEnumeration<SearchResult> results = cloneCtx.search(getBaseDN(), filter,
-                        searchControls);
-                cookie = getPageContextCookie(cloneCtx);
+        return entry;
+    }
 
-                while (results != null & results.hasMore()) {
-                    SearchResult sr = results.next();
+    /**
+     * Gets an {@link LdapEntry} from the LDAP server. Entries are cached, an
+     * entry older than {@link #getEntryCacheTtl()} is only downloaded again
+     * if its version on the server changed.
+     *
+     * @param dn Distinguished name of the entry
+     * @return {@link LdapEntry} matching the
+     * <code>dn</code>
+     * @throws QueryException If the entry could not be retrieved
+     */
+    public LdapEntry getEntry(String dn) throws QueryException {
+        LdapEntry cached = entryCache.get(dn);
+        if (cached != null) {
+            return cached;
+        }
+        if (bulkhead.isHolding()) {
+            // Waiting for a read queued in the bulkhead could deadlock
+            return readEntry(dn);
+        }
+        return reads.run(readKey(dn), Priority.INTERACTIVE, () -> {
+            try (Bulkhead.Permit permit = enter(Bulkhead.Kind.READ,
+                    Priority.INTERACTIVE, 1)) {
+                return readEntry(dn);
+            }
+        });
+    }
 
-                    LdapEntry entry = new LdapEntry();
+    /**
+     * Gets the key of a read in flight, concurrent reads of the same key
+     * share a single read from the server.
+     */
+    private static String readKey(String dn) {
+        return dn.toLowerCase(Locale.ROOT) + "\n"
+                + String.join(",", getEntryAttributes());
+    }
 
-                    entry.setDn(sr.getNameInNamespace());
-                    entry.setLabel(sr.getName());
-                    addObjectClasses(cloneCtx, entry);
+    /**
+     * Gets an {@link LdapEntry} from the entry cache without contacting the
+     * server.
+     *
+     * @param dn Distinguished name of the entry
+     * @return Cached {@link LdapEntry} or {@code null} if the entry is not
+     * cached or must be revalidated
+     */
+    public LdapEntry getCachedEntry(String dn) {
+        return entryCache.get(dn);
+    }
 
-                    lpr.addEntry(entry);
+    private LdapEntry readEntry(String dn) throws QueryException {
+        for (int attempt = 1;; attempt++) {
+            LdapEntry entry = readEntry(dn, attempt);
+            if (entry != null) {
+                return entry;
+            }
+        }
+    }
 
-                    if(lpr.isCanceled()) {
-                        return;
-                    }
-                }
+    /**
+     * Reads an entry once.
+     *
+     * @return The entry, {@code null} if the read must be tried again
+     */
+    private LdapEntry readEntry(String dn, int attempt) throws
+            QueryException {
+        LdapEntry entry = new LdapEntry();
+        entry.setDn(dn);
+        if (!isConnected()) {
+            throw new QueryException("Not connected");
+        }
 
-                if (cookie == null) {
-                    break;
+        LdapContext ctx = null;
+        try {
+            ctx = borrowContext();
+
+            String cachedVersion = entryCache.getVersion(dn);
+            if (cachedVersion != null) {
+                // Base scope read of the version only, a cheap round trip
+                // that feeds the latency of the replica
+                long start = System.nanoTime();
+                String version = getVersion(getAttributes(ctx, dn,
+                        VERSION_ATTRIBUTES));
+                recordLatency(ctx, System.nanoTime() - start);
+                LdapEntry cached = cachedVersion.equals(version)
+                        ? entryCache.revalidate(dn) : null;
+                if (cached != null) {
+                    return cached;
                 }
             }
 
+            Attributes attrs = getAttributes(ctx, dn, getEntryAttributes());
+            entry = createEntry(dn, attrs);
+            entryCache.put(dn, entry, getVersion(attrs));
         } catch (CommunicationException ex) {
-            // When the connection was closed by the server - try to connect again
-            // (once) and return that result
-            if (firstTry) {
-                try {
-                    connect();
-                } catch (ConnectionException ex2) {
-                    throw new QueryException(ex2);
-                }
-                lpr.reset();
-                pagedSearch(filter, lpr, false);
-            } else {
-                throw new QueryException(ex);
-            }
-        } catch (NamingException | IOException | NullPointerException ex) {
+            // When the connection was closed by the server - try again with
+            // a fresh connection
+            invalidateContext(ctx);
+            ctx = null;
+            awaitRetry(attempt, ex);
+            return null;
+        } catch (NamingException ex) {
+            entryCache.invalidate(dn);
             throw new QueryException(ex);
         } finally {
-            closeContext(cloneCtx);
+            releaseContext(ctx);
         }
+
+        return entry;
     }
 
-    private void search(String filter, LdapResultProcessor lpr, boolean firstTry) throws
-            QueryException {
+    /**
+     * Reads the attributes of an entry, from the server it is referred to
+     * if it is held by another server.
+     */
+    private Attributes getAttributes(LdapContext ctx, String dn,
+            String[] attrIds) throws NamingException {
+        try {
+            return ctx.getAttributes(dn, attrIds);
+        } catch (ReferralException ex) {
+            ReferralChaser chaser = referrals;
+            if (chaser == null) {
+                throw ex;
+            }
+            return chaser.read(ex, dn, attrIds);
+        }
+    }
 
-        if (!isConnected() || lpr.isCanceled()) {
-            return;
+    /**
+     * Gets several {@link LdapEntry} objects from the LDAP server. Cached
+     * entries are taken from the cache, the others are read in one batch.
+     * The {@link Transport#PIPELINED} transport sends all reads before
+     * waiting for the first response, so the batch costs a single round
+     * trip.
+     *
+     * @param dns Distinguished names of the entries
+     * @return {@link LdapEntry} objects in the order of the names
+     * @throws QueryException If any entry could not be retrieved
+     */
+    public List<LdapEntry> getEntries(List<String> dns) throws QueryException {
+        List<LdapEntry> entries = new ArrayList<>(dns.size());
+        List<String> missing = new ArrayList<>();
+        for (String dn : dns) {
+            LdapEntry cached = entryCache.get(dn);
+            entries.add(cached);
+            if (cached == null) {
+                missing.add(dn);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Iterator<LdapEntry> read;
+            try (Bulkhead.Permit permit = enter(Bulkhead.Kind.READ,
+                    Priority.INTERACTIVE, missing.size())) {
+                read = readEntries(missing).iterator();
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i) == null) {
+                    entries.set(i, read.next());
+                }
+            }
         }
+        return entries;
+    }
 
-        LdapContext cloneCtx = null;
+    /**
+     * Connects to the server on the {@link #getExecutor() executor}.
+     *
+     * @return Future completed when connected, or completed exceptionally
+     * with a {@link ConnectionException}
+     * @see #connect()
+     */
+    public CompletableFuture<Void> connectAsync() {
+        return supplyAsync(Bulkhead.Kind.CONNECT, Priority.INTERACTIVE, 1, () -> {
+            connect();
+            return null;
+        });
+    }
 
-        int fetchedElements = 0;
-        try {
-            cloneCtx = getClonedContext();
+    /**
+     * Gets an entry on the {@link #getExecutor() executor} with
+     * {@link Priority#INTERACTIVE}.
+     *
+     * @param dn Distinguished name of the entry
+     * @return Future of the entry
+     * @see #getEntryAsync(java.lang.String, Priority)
+     */
+    public CompletableFuture<LdapEntry> getEntryAsync(String dn) {
+        return getEntryAsync(dn, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Gets an entry on the {@link #getExecutor() executor}. A cached entry
+     * completes the future right away, concurrent reads of the same entry
+     * share a single read from the server. Canceling the future only stops
+     * the shared read when no other caller waits for it.
+     *
+     * @param dn Distinguished name of the entry
+     * @param priority Priority of the read
+     * @return Future of the entry, or completed exceptionally with a
+     * {@link QueryException}
+     * @see #getEntry(java.lang.String)
+     */
+    public CompletableFuture<LdapEntry> getEntryAsync(String dn,
+            Priority priority) {
+        LdapEntry cached = entryCache.get(dn);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return reads.runAsync(readKey(dn), priority,
+                () -> supplyAsync(Bulkhead.Kind.READ, priority, 1,
+                        () -> readEntry(dn)));
+    }
 
-            SearchControls controls = new SearchControls();
-            controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            NamingEnumeration<SearchResult> results = cloneCtx.search(getBaseDN(),
-                    filter, controls);
+    /**
+     * Gets several entries on the {@link #getExecutor() executor} with
+     * {@link Priority#INTERACTIVE}.
+     *
+     * @param dns Distinguished names of the entries
+     * @return Future of the entries in the order of the names
+     * @see #getEntriesAsync(java.util.List, Priority)
+     */
+    public CompletableFuture<List<LdapEntry>> getEntriesAsync(List<String> dns) {
+        return getEntriesAsync(dns, Priority.INTERACTIVE);
+    }
 
-            while (results != null & results.hasMore()) {
-                SearchResult sr = results.next();
+    /**
+     * Gets several entries on the {@link #getExecutor() executor}.
+     *
+     * @param dns Distinguished names of the entries
+     * @param priority Priority of the reads
+     * @return Future of the entries in the order of the names, or completed
+     * exceptionally with a {@link QueryException}
+     * @see #getEntries(java.util.List)
+     */
+    public CompletableFuture<List<LdapEntry>> getEntriesAsync(List<String> dns,
+            Priority priority) {
+        return supplyAsync(Bulkhead.Kind.READ, priority, dns.size(),
+                () -> getEntries(dns));
+    }
+
+    /**
+     * Lists the entries residing in the given path on the
+     * {@link #getExecutor() executor} with {@link Priority#VISIBLE_EXPAND}.
+     *
+     * @param path Path for which to obtain the {@link LdapEntry} objects
+     * @param lrp {@link LdapResultProcessor} receiving the entries
+     * @return Future completed when all entries were passed to the processor
+     * @see #getTreeAsync(java.lang.String, LdapResultProcessor, Priority)
+     */
+    public CompletableFuture<Void> getTreeAsync(String path,
+            LdapResultProcessor lrp) {
+        return getTreeAsync(path, lrp, Priority.VISIBLE_EXPAND);
+    }
 
-                LdapEntry entry = new LdapEntry();
+    /**
+     * Lists the entries residing in the given path on the
+     * {@link #getExecutor() executor}. Canceling the future cancels the
+     * listing of this processor, a listing shared with other callers
+     * continues for them.
+     *
+     * @param path Path for which to obtain the {@link LdapEntry} objects
+     * @param lrp {@link LdapResultProcessor} receiving the entries
+     * @param priority Priority of the listing
+     * @return Future completed when all entries were passed to the processor,
+     * or completed exceptionally with a {@link QueryException}
+     * @see #getTree(java.lang.String, LdapResultProcessor)
+     */
+    public CompletableFuture<Void> getTreeAsync(String path,
+            LdapResultProcessor lrp, Priority priority) {
+        return cancelling(ResultProcessorSubscriber.processAsync(
+                publishTree(path, priority), lrp), lrp);
+    }
 
-                entry.setDn(sr.getNameInNamespace());
-                entry.setLabel(sr.getName());
-                addObjectClasses(cloneCtx, entry);
+    /**
+     * Searches the subtree for entries matching the given {@code filter} on
+     * the {@link #getExecutor() executor} with {@link Priority#INTERACTIVE}.
+     *
+     * @param filter LDAP filter
+     * @param lrp {@link LdapResultProcessor} receiving the entries
+     * @return Future completed when all entries were passed to the processor
+     * @see #searchAsync(java.lang.String, LdapResultProcessor, Priority)
+     */
+    public CompletableFuture<Void> searchAsync(String filter,
+            LdapResultProcessor lrp) {
+        return searchAsync(filter, lrp, Priority.INTERACTIVE);
+    }
 
-                lpr.addEntry(entry);
-                fetchedElements++;
+    /**
+     * Searches the subtree for entries matching the given {@code filter} on
+     * the {@link #getExecutor() executor}. Canceling the future cancels the
+     * search of this processor, a search shared with other callers
+     * continues for them.
+     *
+     * @param filter LDAP filter
+     * @param lrp {@link LdapResultProcessor} receiving the entries
+     * @param priority Priority of the search
+     * @return Future completed when all entries were passed to the processor,
+     * or completed exceptionally with a {@link QueryException}
+     * @see #search(java.lang.String, LdapResultProcessor)
+     */
+    public CompletableFuture<Void> searchAsync(String filter,
+            LdapResultProcessor lrp, Priority priority) {
+        return cancelling(ResultProcessorSubscriber.processAsync(
+                publishSearch(filter, priority), lrp), lrp);
+    }
 
-                if(lpr.isCanceled()) {
+    /**
+     * Runs a blocking operation on the executor once the bulkhead admits it.
+     * The operation is skipped if the future was completed, e.g. canceled,
+     * before it started.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Bulkhead.Kind kind,
+            Priority priority, int tokens, Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            bulkhead.execute(kind, priority, tokens, () -> {
+                if (future.isDone()) {
                     return;
                 }
-            }
-        } catch (CommunicationException ex) {
-            // When the connection was closed by the server - try to connect again
-            // (once) and return that result
-            if (firstTry) {
                 try {
-                    connect();
-                } catch (ConnectionException ex2) {
-                    throw new QueryException(ex2);
+                    future.complete(operation.call());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
                 }
-                lpr.reset();
-                search(filter, lpr, false);
-            } else {
-                throw new QueryException(ex);
-            }
-        } catch (SizeLimitExceededException ex) {
-            if (isPagingSupported()) {
-                maxQuerySize = fetchedElements - 1;
-                pagedSearch(filter, lpr, true);
-            } else {
-                // TODO: Evaluate if this should be a displayed error!
-                Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
-                        getMessage());
-            }
-        } catch (NamingException | NullPointerException ex) {
-            throw new QueryException(ex);
-        } finally {
-            closeContext(cloneCtx);
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(new QueryException(ex.getMessage(), ex));
         }
+        return future;
     }
 
     /**
-     * Adds object classes to an {@link LdapEntry}.
-     *
-     * @param entry
-     *          {@link LdapEntry} for which to add object classes
+     * Waits until the bulkhead admits an operation on the calling thread.
      */
-    private void addObjectClasses(LdapContext ctx, LdapEntry entry) {
+    private Bulkhead.Permit enter(Bulkhead.Kind kind, Priority priority,
+            int tokens) throws QueryException {
         try {
-            Attributes attrs = ctx.getAttributes(entry.getDn(),
-                    new String[]{
-                        "objectclass"});
+            return bulkhead.acquire(kind, priority, tokens);
+        } catch (RejectedExecutionException ex) {
+            throw new QueryException(ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryException("Interrupted while waiting for the server", ex);
+        }
+    }
 
-            for (NamingEnumeration<? extends Attribute> ae = attrs.getAll(); ae.
-                    hasMore();) {
-                Attribute attr = ae.next();
+    private static <T> CompletableFuture<T> cancelling(
+            CompletableFuture<T> future, LdapResultProcessor lrp) {
+        future.whenComplete((result, ex) -> {
+            if (future.isCancelled()) {
+                lrp.cancel();
+            }
+        });
+        return future;
+    }
 
-                for (NamingEnumeration ne = attr.getAll(); ne.hasMore();) {
-                    String objClass = (String) ne.next();
-                    entry.addObjectClass(objClass);
-                }
+    private List<LdapEntry> readEntries(List<String> dns) throws QueryException {
+        for (int attempt = 1;; attempt++) {
+            List<LdapEntry> entries = readEntries(dns, attempt);
+            if (entries != null) {
+                return entries;
             }
-        } catch (RuntimeException | NamingException ex) {
-            Logger.getLogger(BaseLdapServer.class.getName()).warning(ex.
-                    getMessage());
         }
     }
 
     /**
-     * Gets an {@link LdapEntry} from the LDAP server
+     * Reads several entries once.
      *
-     * @param dn Distinguished name of the entry
-     * @return {@link LdapEntry} matching the
-     * <code>dn</code>
-     * @throws QueryException If the entry could not be retrieved
+     * @return The entries, {@code null} if the reads must be tried again
      */
-    public LdapEntry getEntry(String dn) throws QueryException {
-        return this.getEntry(dn, true);
-    }
-
-    private LdapEntry getEntry(String dn, boolean firstTry) throws
-            QueryException {
-        LdapEntry entry = new LdapEntry();
-        entry.setDn(dn);
+    private List<LdapEntry> readEntries(List<String> dns, int attempt)
+            throws QueryException {
         if (!isConnected()) {
             throw new QueryException("Not connected");
         }
 
-        synchronized (dirCtx) {
-            try {
-                Attributes attrs = dirCtx.getAttributes(dn);
+        LdapContext ctx = null;
+        try {
+            ctx = borrowContext();
+            LdapTransport t = connectedTransport;
+            List<Attributes> read = t.getAttributes(ctx, dns, getEntryAttributes());
+            List<LdapEntry> entries = new ArrayList<>(dns.size());
+            for (int i = 0; i < dns.size(); i++) {
+                LdapEntry entry = createEntry(dns.get(i), read.get(i));
+                entryCache.put(dns.get(i), entry, getVersion(read.get(i)));
+                entries.add(entry);
+            }
+            return entries;
+        } catch (ReferralException ex) {
+            // An entry is held by another server, read the entries one by
+            // one below, so that its referral is chased
+        } catch (CommunicationException ex) {
+            // When the connection was closed by the server - try again with
+            // a fresh connection
+            invalidateContext(ctx);
+            ctx = null;
+            awaitRetry(attempt, ex);
+            return null;
+        } catch (NamingException ex) {
+            throw new QueryException(ex);
+        } finally {
+            releaseContext(ctx);
+        }
+        List<LdapEntry> entries = new ArrayList<>(dns.size());
+        for (String dn : dns) {
+            entries.add(readEntry(dn));
+        }
+        return entries;
+    }
 
-                for (NamingEnumeration<? extends Attribute> ae = attrs.getAll();
-                        ae.hasMore();) {
-                    Attribute attr = ae.next();
+    /**
+     * Gets the attributes read for an entry, all user attributes plus the
+     * {@link #VERSION_ATTRIBUTES}.
+     */
+    private static String[] getEntryAttributes() {
+        String[] returning = new String[VERSION_ATTRIBUTES.length + 1];
+        returning[0] = "*";
+        System.arraycopy(VERSION_ATTRIBUTES, 0, returning, 1,
+                VERSION_ATTRIBUTES.length);
+        return returning;
+    }
 
-                    for (NamingEnumeration ne = attr.getAll(); ne.hasMore();) {
-                        entry.setAttribute(attr.getID(), ne.next());
-                    }
-                }
-            } catch (CommunicationException ex) {
-                // When the connection was closed by the server - try to connect again
-                // (once) and return that result
-                if (firstTry) {
-                    try {
-                        connect();
-                    } catch (ConnectionException ex2) {
-                        throw new QueryException(ex2);
-                    }
-                    return getEntry(dn, false);
-                } else {
-                    throw new QueryException(ex);
-                }
-            } catch (NamingException ex) {
-                throw new QueryException(ex);
+    /**
+     * Creates an {@link LdapEntry} from the attributes read from the server,
+     * leaving out the {@link #VERSION_ATTRIBUTES}.
+     */
+    private static LdapEntry createEntry(String dn, Attributes attrs)
+            throws NamingException {
+        LdapEntry entry = new LdapEntry();
+        entry.setDn(dn);
+        for (NamingEnumeration<? extends Attribute> ae = attrs.getAll();
+                ae.hasMore();) {
+            Attribute attr = ae.next();
+            if (isVersionAttribute(attr.getID())) {
+                continue;
             }
-        }
 
+            for (NamingEnumeration ne = attr.getAll(); ne.hasMore();) {
+                entry.setAttribute(attr.getID(), ne.next());
+            }
+        }
         return entry;
     }
 
+    private static boolean isVersionAttribute(String id) {
+        for (String attribute : VERSION_ATTRIBUTES) {
+            if (attribute.equalsIgnoreCase(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the version attributes returned by the server.
+     *
+     * @param attrs Attributes containing the {@link #VERSION_ATTRIBUTES}
+     * @return Version of the entry or {@code null} if the server does not
+     * maintain any of the version attributes
+     * @throws NamingException If the attributes could not be read
+     */
+    private static String getVersion(Attributes attrs) throws NamingException {
+        StringBuilder version = new StringBuilder();
+        for (String id : VERSION_ATTRIBUTES) {
+            Attribute attr = attrs.get(id);
+            if (attr != null && attr.size() > 0) {
+                version.append(id).append('=').append(attr.get()).append(';');
+            }
+        }
+        return version.length() == 0 ? null : version.toString();
+    }
+
     private final List<PropertyChangeListener> listeners = Collections.
             synchronizedList(new LinkedList<>());
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import org.openide.util.RequestProcessor;
+
+/**
+ * {@link LdapResultProcessor} collecting the received entries and publishing
+ * them in batches.
+ *
+ * <p>{@code Children.Keys} diffs the complete key list on every update, so
+ * publishing every single entry costs quadratic work and floods the UI with
+ * node events. The received entries are published when {@link #BATCH_SIZE}
+ * entries are pending or {@link #BATCH_DELAY} milliseconds after the first
+ * pending entry was received, whatever happens first. {@link #finish()}
+ * publishes the complete result sorted by label.</p>
+ */
+class BatchingResultProcessor extends LdapResultProcessor {
+
+    /** Maximum number of entries received before the keys are published. */
+    static final int BATCH_SIZE = 500;
+    /** Maximum delay in milliseconds before received entries are published. */
+    static final int BATCH_DELAY = 100;
+
+    private static final RequestProcessor FLUSHER = new RequestProcessor(
+            BatchingResultProcessor.class.getName(), 1, true);
+
+    private final Consumer<List<LdapEntry>> keySink;
+    private final Consumer<Runnable> flushScheduler;
+    private final ArrayList<LdapEntry> entries = new ArrayList<>();
+    private int published = 0;
+    private boolean flushScheduled = false;
+    private boolean finished = false;
+
+    /**
+     * Creates a new {@link BatchingResultProcessor}.
+     *
+     * @param keySink Receives a snapshot of all entries received so far. It is
+     * invoked while holding the lock of this processor, so that snapshots are
+     * published in order.
+     */
+    BatchingResultProcessor(Consumer<List<LdapEntry>> keySink) {
+        this(keySink, flush -> FLUSHER.post(flush, BATCH_DELAY));
+    }
+
+    /**
+     * Creates a new {@link BatchingResultProcessor} with a custom scheduler
+     * for the delayed publishing of pending entries.
+     *
+     * @param keySink Receives a snapshot of all entries received so far
+     * @param flushScheduler Runs the given flush {@link #BATCH_DELAY}
+     * milliseconds later
+     */
+    BatchingResultProcessor(Consumer<List<LdapEntry>> keySink,
+            Consumer<Runnable> flushScheduler) {
+        this.keySink = keySink;
+        this.flushScheduler = flushScheduler;
+    }
+
+    @Override
+    public void addEntry(LdapEntry entry) {
+        synchronized (entries) {
+            if (finished) {
+                return;
+            }
+            entries.add(entry);
+            if (entries.size() - published >= BATCH_SIZE) {
+                publish();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                flushScheduler.accept(this::flush);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        synchronized (entries) {
+            entries.clear();
+            published = 0;
+            keySink.accept(Collections.emptyList());
+        }
+    }
+
+    /**
+     * Publishes the complete result sorted by label. Entries received after
+     * this call are ignored.
+     */
+    public void finish() {
+        synchronized (entries) {
+            finished = true;
+            entries.sort(LdapEntry.LABEL_ORDER);
+            published = entries.size();
+            keySink.accept(new ArrayList<>(entries));
+        }
+    }
+
+    private void flush() {
+        synchronized (entries) {
+            if (!finished && !isCanceled() && published != entries.size()) {
+                publish();
+            }
+            flushScheduled = false;
+        }
+    }
+
+    private void publish() {
+        published = entries.size();
+        keySink.accept(new ArrayList<>(entries));
+    }
+}
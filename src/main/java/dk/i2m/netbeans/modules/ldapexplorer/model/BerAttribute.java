@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.BasicAttribute;
+
+/**
+ * Attribute holding the undecoded values of a received entry.
+ *
+ * <p>The values are kept as offsets into the buffer the message was received
+ * in. They are decoded into {@code String}s, or {@code byte[]}s for binary
+ * attributes, the first time any value is accessed. Entries that are only
+ * counted or have just a few attributes looked at never pay for the others.
+ * {@link #getRawValue(int)} gives access to the encoded value without
+ * decoding it.</p>
+ */
+class BerAttribute extends BasicAttribute {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean binary;
+    /** Buffer holding the undecoded values, {@code null} once decoded. */
+    private transient byte[] buffer;
+    /** Offset and length of each undecoded value. */
+    private transient int[] slices = new int[2];
+    private transient int count = 0;
+
+    /**
+     * Creates a new {@link BerAttribute}.
+     *
+     * @param id Attribute description
+     * @param binary Whether the values are decoded into {@code byte[]}s
+     * @param buffer Buffer holding the received values, not to be modified
+     */
+    BerAttribute(String id, boolean binary, byte[] buffer) {
+        super(id);
+        this.binary = binary;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Adds an undecoded value, while the attribute is being received.
+     *
+     * @param offset Offset of the value in the buffer
+     * @param length Length of the value
+     */
+    void addValue(int offset, int length) {
+        if (count * 2 == slices.length) {
+            slices = Arrays.copyOf(slices, count * 4);
+        }
+        slices[count * 2] = offset;
+        slices[count * 2 + 1] = length;
+        count++;
+    }
+
+    /**
+     * Gets a value as received from the server.
+     *
+     * @param index Index of the value
+     * @return Read-only view of the encoded value
+     * @throws NamingException If the value could not be read
+     */
+    ByteBuffer getRawValue(int index) throws NamingException {
+        synchronized (this) {
+            if (buffer != null) {
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                }
+                return ByteBuffer.wrap(buffer, slices[index * 2], slices[index * 2 + 1])
+                        .slice().asReadOnlyBuffer();
+            }
+        }
+        Object value = get(index);
+        return ByteBuffer.wrap(value instanceof byte[] ? (byte[]) value
+                : String.valueOf(value).getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Decodes the received values into the values of the attribute.
+     */
+    private synchronized void materialize() {
+        if (buffer == null) {
+            return;
+        }
+        values.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            int offset = slices[i * 2];
+            int length = slices[i * 2 + 1];
+            values.add(binary
+                    ? Arrays.copyOfRange(buffer, offset, offset + length)
+                    : new String(buffer, offset, length, StandardCharsets.UTF_8));
+        }
+        // Releases the received message
+        buffer = null;
+        slices = null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return buffer != null ? count : super.size();
+    }
+
+    @Override
+    public NamingEnumeration<?> getAll() throws NamingException {
+        materialize();
+        return super.getAll();
+    }
+
+    @Override
+    public Object get() throws NamingException {
+        materialize();
+        return super.get();
+    }
+
+    @Override
+    public Object get(int ix) throws NamingException {
+        materialize();
+        return super.get(ix);
+    }
+
+    @Override
+    public boolean contains(Object attrVal) {
+        materialize();
+        return super.contains(attrVal);
+    }
+
+    @Override
+    public boolean add(Object attrVal) {
+        materialize();
+        return super.add(attrVal);
+    }
+
+    @Override
+    public void add(int ix, Object attrVal) {
+        materialize();
+        super.add(ix, attrVal);
+    }
+
+    @Override
+    public Object set(int ix, Object attrVal) {
+        materialize();
+        return super.set(ix, attrVal);
+    }
+
+    @Override
+    public boolean remove(Object attrval) {
+        materialize();
+        return super.remove(attrval);
+    }
+
+    @Override
+    public Object remove(int ix) {
+        materialize();
+        return super.remove(ix);
+    }
+
+    @Override
+    public void clear() {
+        materialize();
+        super.clear();
+    }
+
+    @Override
+    public Object clone() {
+        materialize();
+        return super.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        materialize();
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        materialize();
+        return super.toString();
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        materialize();
+        return this;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of heap {@link ByteBuffer}s in power of two size classes.
+ *
+ * <p>Buffers larger than the largest size class are allocated as needed and
+ * dropped on release. Each size class keeps a bounded number of released
+ * buffers, so a burst of large requests does not pin memory for good.</p>
+ */
+final class BerBufferPool {
+
+    /** Pool shared by all pipelined connections. */
+    static final BerBufferPool SHARED = new BerBufferPool(10, 20, 16);
+
+    private final int minShift;
+    private final int maxShift;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer>[] classes;
+
+    /**
+     * Creates a new {@link BerBufferPool}.
+     *
+     * @param minShift Binary logarithm of the smallest buffer capacity
+     * @param maxShift Binary logarithm of the largest pooled buffer capacity
+     * @param maxPooled Maximum number of released buffers kept per size class
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    BerBufferPool(int minShift, int maxShift, int maxPooled) {
+        this.minShift = minShift;
+        this.maxShift = maxShift;
+        this.maxPooled = maxPooled;
+        this.classes = new ArrayDeque[maxShift - minShift + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, or allocates one.
+     *
+     * @param capacity Minimum capacity of the buffer
+     * @return Buffer with at least the given capacity
+     */
+    ByteBuffer acquire(int capacity) {
+        int shift = shift(capacity);
+        if (shift > maxShift) {
+            return ByteBuffer.allocate(capacity);
+        }
+        ArrayDeque<ByteBuffer> pooled = classes[shift - minShift];
+        ByteBuffer buffer;
+        synchronized (pooled) {
+            buffer = pooled.pollFirst();
+        }
+        if (buffer == null) {
+            return ByteBuffer.allocate(1 << shift);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer Buffer obtained from {@link #acquire(int)}
+     */
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int shift = shift(capacity);
+        if (shift > maxShift || capacity != 1 << shift) {
+            return;
+        }
+        ArrayDeque<ByteBuffer> pooled = classes[shift - minShift];
+        synchronized (pooled) {
+            if (pooled.size() < maxPooled) {
+                pooled.addFirst(buffer);
+            }
+        }
+    }
+
+    private int shift(int capacity) {
+        if (capacity <= 1 << minShift) {
+            return minShift;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decoder for the subset of the Basic Encoding Rules used by LDAP messages.
+ *
+ * <p>Constructed elements are entered by {@link #readSequence(int)}, which
+ * returns the offset of their end, the content is read until
+ * {@link #position()} reaches that offset.</p>
+ *
+ * <p>{@link #skipContent(int)} locates the content of an element in
+ * {@link #array()} without copying it.</p>
+ */
+class BerDecoder {
+
+    /** Upper bound of the size of a single message. */
+    static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    BerDecoder(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    BerDecoder(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * @return Current read offset
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * @return {@code true} if unread bytes are left
+     */
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * @return Tag of the next element without consuming it, {@code -1} at the
+     * end of the data
+     */
+    int peekTag() {
+        return position < limit ? buffer[position] & 0xff : -1;
+    }
+
+    /**
+     * Enters a constructed element.
+     *
+     * @param tag Expected tag, {@code -1} to accept any tag
+     * @return Offset of the end of the element
+     * @throws IOException If the element is malformed or has another tag
+     */
+    int readSequence(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        return position + contentLength;
+    }
+
+    boolean readBoolean(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        boolean value = false;
+        for (int i = 0; i < contentLength; i++) {
+            value |= buffer[position++] != 0;
+        }
+        return value;
+    }
+
+    int readInt() throws IOException {
+        return readInt(BerEncoder.INTEGER);
+    }
+
+    int readInt(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        if (contentLength < 1 || contentLength > 4) {
+            throw new IOException("Unsupported integer of " + contentLength + " bytes");
+        }
+        // Sign extension of the first byte
+        int value = buffer[position++];
+        for (int i = 1; i < contentLength; i++) {
+            value = (value << 8) | (buffer[position++] & 0xff);
+        }
+        return value;
+    }
+
+    int readEnumerated() throws IOException {
+        return readInt(BerEncoder.ENUMERATED);
+    }
+
+    byte[] readOctets(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        byte[] value = Arrays.copyOfRange(buffer, position, position + contentLength);
+        position += contentLength;
+        return value;
+    }
+
+    /**
+     * Skips a primitive element, leaving its content in place. The content
+     * ends at the {@link #position()} after the call.
+     *
+     * @param tag Expected tag
+     * @return Length of the content
+     * @throws IOException If the element is malformed or has another tag
+     */
+    int skipContent(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        position += contentLength;
+        return contentLength;
+    }
+
+    /**
+     * @return Array holding the decoded bytes, not to be modified
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    String readString() throws IOException {
+        return readString(BerEncoder.OCTET_STRING);
+    }
+
+    String readString(int tag) throws IOException {
+        readTag(tag);
+        int contentLength = readLength();
+        String value = new String(buffer, position, contentLength,
+                StandardCharsets.UTF_8);
+        position += contentLength;
+        return value;
+    }
+
+    /**
+     * Skips the next element.
+     *
+     * @throws IOException If the element is malformed
+     */
+    void skip() throws IOException {
+        readTag(-1);
+        int contentLength = readLength();
+        position += contentLength;
+    }
+
+    private void readTag(int expected) throws IOException {
+        if (position >= limit) {
+            throw new IOException("Unexpected end of message");
+        }
+        int tag = buffer[position++] & 0xff;
+        if (expected != -1 && tag != expected) {
+            throw new IOException(String.format(
+                    "Expected tag 0x%02x but found 0x%02x", expected, tag));
+        }
+    }
+
+    private int readLength() throws IOException {
+        if (position >= limit) {
+            throw new IOException("Unexpected end of message");
+        }
+        int first = buffer[position++] & 0xff;
+        int contentLength;
+        if ((first & 0x80) == 0) {
+            contentLength = first;
+        } else {
+            int count = first & 0x7f;
+            if (count == 0 || count > 4 || position + count > limit) {
+                throw new IOException("Unsupported length encoding");
+            }
+            contentLength = 0;
+            for (int i = 0; i < count; i++) {
+                contentLength = (contentLength << 8) | (buffer[position++] & 0xff);
+            }
+        }
+        if (contentLength < 0 || position + contentLength > limit) {
+            throw new IOException("Element exceeds the message");
+        }
+        return contentLength;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoder for the subset of the Basic Encoding Rules used by LDAP messages.
+ *
+ * <p>Constructed elements are opened by {@link #beginSequence(int)} and closed
+ * by {@link #endSequence()}, which fills in the length of the content.</p>
+ *
+ * <p>An encoder created with a {@link BerBufferPool} encodes into pooled
+ * buffers and must be {@link #release() released} after use.</p>
+ */
+class BerEncoder {
+
+    static final int BOOLEAN = 0x01;
+    static final int INTEGER = 0x02;
+    static final int OCTET_STRING = 0x04;
+    static final int ENUMERATED = 0x0a;
+    static final int SEQUENCE = 0x30;
+    static final int SET = 0x31;
+
+    private final BerBufferPool pool;
+    private ByteBuffer pooled;
+    private byte[] buffer;
+    private int length = 0;
+    private int[] sequences = new int[8];
+    private int depth = 0;
+
+    BerEncoder() {
+        this(256);
+    }
+
+    BerEncoder(int capacity) {
+        this.pool = null;
+        this.buffer = new byte[capacity];
+    }
+
+    BerEncoder(BerBufferPool pool) {
+        this.pool = pool;
+        this.pooled = pool.acquire(1024);
+        this.buffer = pooled.array();
+    }
+
+    /**
+     * Starts a constructed element.
+     *
+     * @param tag Tag of the element
+     * @return This encoder
+     */
+    BerEncoder beginSequence(int tag) {
+        writeByte(tag);
+        if (depth == sequences.length) {
+            sequences = Arrays.copyOf(sequences, depth * 2);
+        }
+        sequences[depth++] = length;
+        // Placeholder for the length, widened by endSequence if necessary
+        writeByte(0);
+        return this;
+    }
+
+    /**
+     * Completes the element started by the last call to
+     * {@link #beginSequence(int)}.
+     *
+     * @return This encoder
+     */
+    BerEncoder endSequence() {
+        if (depth == 0) {
+            throw new IllegalStateException("No open sequence");
+        }
+        int lengthOffset = sequences[--depth];
+        int contentOffset = lengthOffset + 1;
+        int contentLength = length - contentOffset;
+        int extra = lengthBytes(contentLength) - 1;
+        if (extra > 0) {
+            ensureCapacity(extra);
+            System.arraycopy(buffer, contentOffset, buffer, contentOffset + extra,
+                    contentLength);
+            length += extra;
+        }
+        putLength(lengthOffset, contentLength);
+        return this;
+    }
+
+    BerEncoder writeBoolean(int tag, boolean value) {
+        writeByte(tag);
+        writeByte(1);
+        writeByte(value ? 0xff : 0x00);
+        return this;
+    }
+
+    BerEncoder writeInt(int value) {
+        return writeInt(INTEGER, value);
+    }
+
+    BerEncoder writeInt(int tag, int value) {
+        int bytes = 4;
+        // Strip redundant leading bytes of the two's complement
+        while (bytes > 1) {
+            int top = value >> ((bytes - 1) * 8 - 1);
+            if (top != 0 && top != -1) {
+                break;
+            }
+            bytes--;
+        }
+        writeByte(tag);
+        writeLength(bytes);
+        for (int i = bytes - 1; i >= 0; i--) {
+            writeByte(value >> (i * 8));
+        }
+        return this;
+    }
+
+    BerEncoder writeEnumerated(int value) {
+        return writeInt(ENUMERATED, value);
+    }
+
+    BerEncoder writeString(String value) {
+        return writeString(OCTET_STRING, value);
+    }
+
+    BerEncoder writeString(int tag, String value) {
+        int chars = value.length();
+        for (int i = 0; i < chars; i++) {
+            if (value.charAt(i) >= 0x80) {
+                return writeOctets(tag, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // ASCII, encoded in place
+        writeByte(tag);
+        writeLength(chars);
+        ensureCapacity(chars);
+        for (int i = 0; i < chars; i++) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    BerEncoder writeOctets(int tag, byte[] value) {
+        writeByte(tag);
+        writeLength(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, length, value.length);
+        length += value.length;
+        return this;
+    }
+
+    /**
+     * Writes an element without content, e.g. the unbind request.
+     *
+     * @param tag Tag of the element
+     * @return This encoder
+     */
+    BerEncoder writeNull(int tag) {
+        writeByte(tag);
+        writeByte(0);
+        return this;
+    }
+
+    /**
+     * @return Number of encoded bytes
+     */
+    int size() {
+        return length;
+    }
+
+    /**
+     * Writes the encoded bytes to the given stream.
+     *
+     * @param out Stream to write to
+     * @throws IOException If writing failed
+     */
+    void writeTo(OutputStream out) throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException(depth + " sequences left open");
+        }
+        out.write(buffer, 0, length);
+    }
+
+    /**
+     * @return Copy of the encoded bytes
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Discards the encoded bytes, so that the encoder can be reused.
+     */
+    void reset() {
+        length = 0;
+        depth = 0;
+    }
+
+    /**
+     * Returns the buffer of a pooled encoder to its pool. The encoder must not
+     * be used afterwards.
+     */
+    void release() {
+        if (pooled != null) {
+            pool.release(pooled);
+            pooled = null;
+            buffer = null;
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeLength(int value) {
+        int bytes = lengthBytes(value);
+        ensureCapacity(bytes);
+        putLength(length, value);
+        length += bytes;
+    }
+
+    private static int lengthBytes(int value) {
+        if (value < 0x80) {
+            return 1;
+        } else if (value < 0x100) {
+            return 2;
+        } else if (value < 0x10000) {
+            return 3;
+        } else if (value < 0x1000000) {
+            return 4;
+        }
+        return 5;
+    }
+
+    private void putLength(int offset, int value) {
+        int bytes = lengthBytes(value);
+        if (bytes == 1) {
+            buffer[offset] = (byte) value;
+            return;
+        }
+        buffer[offset] = (byte) (0x80 | (bytes - 1));
+        for (int i = 1; i < bytes; i++) {
+            buffer[offset + i] = (byte) (value >> ((bytes - 1 - i) * 8));
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional <= buffer.length) {
+            return;
+        }
+        int capacity = Math.max(buffer.length * 2, length + additional);
+        if (pool == null) {
+            buffer = Arrays.copyOf(buffer, capacity);
+            return;
+        }
+        ByteBuffer grown = pool.acquire(capacity);
+        System.arraycopy(buffer, 0, grown.array(), 0, length);
+        pool.release(pooled);
+        pooled = grown;
+        buffer = grown.array();
+    }
+}
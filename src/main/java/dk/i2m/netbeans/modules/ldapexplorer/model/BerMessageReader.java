@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Frames the BER elements, usually LDAP messages, of a stream.
+ *
+ * <p>The stream is read in blocks of {@link #BLOCK_SIZE} bytes and the
+ * elements are decoded where they were read, without copying them into
+ * buffers of their own. Only an element spanning the end of a block is moved
+ * to the next block. Blocks are not reused, as the values sliced out of an
+ * element share its block for as long as they are referenced.</p>
+ */
+class BerMessageReader {
+
+    /** Size of the blocks the stream is read into. */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private byte[] block = new byte[BLOCK_SIZE];
+    /** Start of the first unframed byte. */
+    private int start = 0;
+    /** End of the bytes read into the block. */
+    private int end = 0;
+
+    BerMessageReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next element.
+     *
+     * @return Decoder for the element or {@code null} if the stream ended
+     * before the element started
+     * @throws IOException If the element could not be read
+     */
+    BerDecoder next() throws IOException {
+        while (true) {
+            int size = elementSize();
+            if (size > 0 && start + size <= end) {
+                BerDecoder element = new BerDecoder(block, start, size);
+                start += size;
+                return element;
+            }
+            // Room for the header, or for the complete element if its size
+            // is known already
+            int required = Math.max(size, 6);
+            if (start + required > block.length) {
+                byte[] next = new byte[Math.max(BLOCK_SIZE, required)];
+                System.arraycopy(block, start, next, 0, end - start);
+                block = next;
+                end -= start;
+                start = 0;
+            }
+            int n = in.read(block, end, block.length - end);
+            if (n < 0) {
+                if (start == end) {
+                    return null;
+                }
+                throw new EOFException("Connection closed within a message");
+            }
+            end += n;
+        }
+    }
+
+    /**
+     * @return Size of the element starting at {@link #start} including its
+     * header, {@code -1} if the header was not read completely yet
+     */
+    private int elementSize() throws IOException {
+        if (end - start < 2) {
+            return -1;
+        }
+        int first = block[start + 1] & 0xff;
+        if ((first & 0x80) == 0) {
+            return 2 + first;
+        }
+        int count = first & 0x7f;
+        if (count == 0 || count > 4) {
+            throw new IOException("Unsupported length encoding");
+        }
+        if (end - start < 2 + count) {
+            return -1;
+        }
+        int contentLength = 0;
+        for (int i = 0; i < count; i++) {
+            contentLength = (contentLength << 8) | (block[start + 2 + i] & 0xff);
+        }
+        if (contentLength < 0 || contentLength > BerDecoder.MAX_MESSAGE_SIZE) {
+            throw new IOException("Message of " + contentLength + " bytes exceeds the limit");
+        }
+        return 2 + count + contentLength;
+    }
+}
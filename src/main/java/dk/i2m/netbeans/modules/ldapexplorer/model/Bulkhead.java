@@ -0,0 +1,557 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Limits the load put on a single server. At most a given number of
+ * operations run at a time, further operations wait in a queue of bounded
+ * length and are rejected while it is full. Reads and searches can
+ * additionally be limited to a rate, each by a token bucket holding the
+ * tokens of one second.
+ *
+ * <p>Operations enter either as a task, which is passed to an executor once
+ * admitted, so that a waiting operation does not hold a thread, or by
+ * blocking the calling thread in {@link #acquire(Kind, Priority, int)}.
+ * Operations started by a thread running an admitted operation are part of
+ * that operation and run without waiting, so that an operation may use other
+ * operations of the same server.</p>
+ *
+ * <p>Waiting operations are admitted by {@link Priority}, in order within a
+ * priority, except that an operation waiting for tokens of one kind does not
+ * hold up operations of another kind. Background operations leave the last
+ * slot to the operations of the user and give their slot away between pages
+ * by {@link #yieldToWaiting()}, so that the user is answered within a round
+ * trip even during an export.</p>
+ */
+class Bulkhead {
+
+    /**
+     * Kind of an operation, determining the rate limit applying to it.
+     */
+    enum Kind {
+
+        /** Opening connections, not rate limited. */
+        CONNECT,
+        /** Reading entries by name. */
+        READ,
+        /** Listing and searching entries. */
+        SEARCH
+    }
+
+    /**
+     * Permission to run an operation, released by closing it.
+     */
+    interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final Logger LOG = Logger.getLogger(Bulkhead.class.getName());
+
+    private static final RequestProcessor TIMER = new RequestProcessor(
+            Bulkhead.class.getName(), 1, true);
+
+    /** Permit of a thread entering again, released by the outer permit. */
+    private static final Permit REENTERED = () -> {
+    };
+
+    private final EnumMap<Priority, ArrayDeque<Waiter>> queues =
+            new EnumMap<>(Priority.class);
+    private final ThreadLocal<Waiter> holding = new ThreadLocal<>();
+    private final RequestProcessor.Task refill = TIMER.create(this::dispatch);
+    private final TokenBucket reads = new TokenBucket();
+    private final TokenBucket searches = new TokenBucket();
+    private volatile Executor delegate;
+    private int limit;
+    private int maxQueued;
+    private int running = 0;
+    private int queued = 0;
+    private long admitted = 0;
+    private long rejected = 0;
+    private long throttled = 0;
+    private long yielded = 0;
+
+    /**
+     * Creates a new {@link Bulkhead} without rate limits.
+     *
+     * @param delegate Executor running the admitted tasks
+     * @param limit Maximum number of operations running at a time
+     * @param maxQueued Maximum number of operations waiting to run
+     */
+    Bulkhead(Executor delegate, int limit, int maxQueued) {
+        this.delegate = delegate;
+        this.limit = Math.max(1, limit);
+        this.maxQueued = Math.max(0, maxQueued);
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    Executor getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Replaces the executor running the admitted tasks. Running tasks are
+     * not affected.
+     *
+     * @param delegate Executor running further tasks
+     */
+    void setDelegate(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Changes the maximum number of operations running at a time. A raised
+     * limit admits waiting operations right away, a lowered limit lets the
+     * running operations complete.
+     *
+     * @param limit Maximum number of operations running at a time
+     */
+    void setLimit(int limit) {
+        synchronized (this) {
+            this.limit = Math.max(1, limit);
+        }
+        dispatch();
+    }
+
+    /**
+     * Changes the maximum number of waiting operations. Operations already
+     * waiting are not rejected.
+     *
+     * @param maxQueued Maximum number of operations waiting to run
+     */
+    synchronized void setMaxQueued(int maxQueued) {
+        this.maxQueued = Math.max(0, maxQueued);
+    }
+
+    /**
+     * Changes the rate limit of reads.
+     *
+     * @param perSecond Entries read per second, {@code 0} for no limit
+     */
+    void setReadRate(int perSecond) {
+        synchronized (this) {
+            reads.setRate(perSecond);
+        }
+        dispatch();
+    }
+
+    /**
+     * Changes the rate limit of listings and searches.
+     *
+     * @param perSecond Listings and searches started per second, {@code 0}
+     * for no limit
+     */
+    void setSearchRate(int perSecond) {
+        synchronized (this) {
+            searches.setRate(perSecond);
+        }
+        dispatch();
+    }
+
+    /**
+     * Gets an executor passing its tasks to this bulkhead as operations of
+     * the given kind and priority, each taking a single token.
+     *
+     * @param kind Kind of the operations
+     * @param priority Priority of the operations
+     * @return Executor of operations of the given kind
+     */
+    Executor executor(Kind kind, Priority priority) {
+        return task -> execute(kind, priority, 1, task);
+    }
+
+    /**
+     * Runs a task on the executor once it is admitted.
+     *
+     * @param kind Kind of the operation
+     * @param priority Priority of the operation
+     * @param tokens Tokens taken from the rate limit of the kind
+     * @param task Operation to run
+     * @throws RejectedExecutionException If the queue is full
+     */
+    void execute(Kind kind, Priority priority, int tokens, Runnable task) {
+        Waiter outer = holding.get();
+        if (outer != null) {
+            // Part of the running operation, which waiting could deadlock
+            delegate.execute(() -> runHolding(outer, task));
+            return;
+        }
+        enter(new Task(kind, priority, tokens, task));
+    }
+
+    /**
+     * Blocks until an operation may run on the calling thread. The permit
+     * must be closed when the operation completed.
+     *
+     * @param kind Kind of the operation
+     * @param priority Priority of the operation
+     * @param tokens Tokens taken from the rate limit of the kind
+     * @return Permit to close after the operation
+     * @throws InterruptedException If the thread was interrupted while
+     * waiting
+     * @throws RejectedExecutionException If the queue is full
+     */
+    Permit acquire(Kind kind, Priority priority, int tokens)
+            throws InterruptedException {
+        if (holding.get() != null) {
+            return REENTERED;
+        }
+        Blocked waiter = new Blocked(kind, priority, tokens);
+        enter(waiter);
+        try {
+            waiter.await();
+        } catch (InterruptedException ex) {
+            if (!withdraw(waiter)) {
+                // Admitted while being interrupted
+                release();
+            }
+            throw ex;
+        }
+        holding.set(waiter);
+        return new Permit() {
+
+            private boolean closed = false;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    holding.remove();
+                    release();
+                }
+            }
+        };
+    }
+
+    /**
+     * Tells whether the calling thread runs an admitted operation.
+     *
+     * @return {@code true} if an operation is running on the calling thread
+     */
+    boolean isHolding() {
+        return holding.get() != null;
+    }
+
+    /**
+     * Gives the slot of the background operation running on the calling
+     * thread to waiting operations of a higher priority, and waits until the
+     * operation is admitted again. The operation is admitted before any other
+     * operation of its priority. Operations of the user do not yield.
+     *
+     * @return {@code true} if the operation yielded
+     * @throws InterruptedException If the thread was interrupted while
+     * waiting, the operation still counts as running
+     */
+    boolean yieldToWaiting() throws InterruptedException {
+        Waiter current = holding.get();
+        if (current == null || !current.priority.isBackground()) {
+            return false;
+        }
+        Blocked resume = new Blocked(current.kind, current.priority, 0);
+        synchronized (this) {
+            if (!isWaitingAbove(current.priority)) {
+                return false;
+            }
+            queues.get(current.priority).addFirst(resume);
+            queued++;
+            running--;
+            yielded++;
+        }
+        dispatch();
+        try {
+            resume.await();
+        } catch (InterruptedException ex) {
+            if (withdraw(resume)) {
+                // Keep the count of the operation, which releases its slot
+                // when it completes
+                synchronized (this) {
+                    running++;
+                }
+            }
+            throw ex;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the current load and the counters of this bulkhead.
+     *
+     * @return Snapshot of the bulkhead statistics
+     */
+    synchronized BulkheadStatistics getStatistics() {
+        return new BulkheadStatistics(running, queued, admitted, rejected,
+                throttled, yielded);
+    }
+
+    /**
+     * Runs a task as part of an admitted operation.
+     */
+    private void runHolding(Waiter operation, Runnable task) {
+        Waiter outer = holding.get();
+        holding.set(operation);
+        try {
+            task.run();
+        } finally {
+            if (outer == null) {
+                holding.remove();
+            } else {
+                holding.set(outer);
+            }
+        }
+    }
+
+    private synchronized boolean isWaitingAbove(Priority priority) {
+        for (Priority higher : Priority.values()) {
+            if (higher == priority) {
+                return false;
+            }
+            if (!queues.get(higher).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enter(Waiter waiter) {
+        synchronized (this) {
+            boolean idle = queued == 0 && running < limit;
+            if (!idle && queued >= maxQueued) {
+                rejected++;
+                throw new RejectedExecutionException("Too many operations ("
+                        + running + " running, " + queued
+                        + " waiting) for the server");
+            }
+            queues.get(waiter.priority).add(waiter);
+            queued++;
+        }
+        dispatch();
+    }
+
+    /**
+     * Removes a waiting operation from the queue.
+     *
+     * @return {@code true} if the operation was still waiting, {@code false}
+     * if it was admitted already
+     */
+    private synchronized boolean withdraw(Waiter waiter) {
+        if (queues.get(waiter.priority).remove(waiter)) {
+            queued--;
+            return true;
+        }
+        return false;
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+        }
+        dispatch();
+    }
+
+    /**
+     * Admits waiting operations by priority as far as the limit and the rate
+     * limits allow. If an operation waits for tokens, admitting is tried
+     * again when they are available.
+     */
+    private void dispatch() {
+        List<Waiter> admit = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            long refillDelay = Long.MAX_VALUE;
+            EnumSet<Kind> exhausted = EnumSet.noneOf(Kind.class);
+            for (Priority priority : Priority.values()) {
+                // Background operations leave the last slot to the user
+                int slots = priority.isBackground() && limit > 1
+                        ? limit - 1 : limit;
+                for (Iterator<Waiter> it = queues.get(priority).iterator();
+                        it.hasNext() && running < slots;) {
+                    Waiter waiter = it.next();
+                    if (exhausted.contains(waiter.kind)) {
+                        continue;
+                    }
+                    TokenBucket bucket = getBucket(waiter.kind);
+                    long delay = bucket == null
+                            ? 0 : bucket.take(waiter.tokens, now);
+                    if (delay > 0) {
+                        exhausted.add(waiter.kind);
+                        refillDelay = Math.min(refillDelay, delay);
+                        if (!waiter.throttled) {
+                            waiter.throttled = true;
+                            throttled++;
+                        }
+                        continue;
+                    }
+                    it.remove();
+                    queued--;
+                    running++;
+                    admitted++;
+                    admit.add(waiter);
+                }
+            }
+            if (refillDelay != Long.MAX_VALUE) {
+                refill.schedule((int) Math.max(1,
+                        TimeUnit.NANOSECONDS.toMillis(refillDelay)));
+            }
+        }
+        for (Waiter waiter : admit) {
+            waiter.admit();
+        }
+    }
+
+    private TokenBucket getBucket(Kind kind) {
+        switch (kind) {
+            case READ:
+                return reads;
+            case SEARCH:
+                return searches;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Operation waiting to be admitted.
+     */
+    private abstract static class Waiter {
+
+        final Kind kind;
+        final Priority priority;
+        final int tokens;
+        /** The operation was counted as throttled. */
+        boolean throttled = false;
+
+        Waiter(Kind kind, Priority priority, int tokens) {
+            this.kind = kind;
+            this.priority = priority;
+            this.tokens = Math.max(0, tokens);
+        }
+
+        /**
+         * Starts the admitted operation, which releases its permit when it
+         * completes.
+         */
+        abstract void admit();
+    }
+
+    /**
+     * Operation passed to the executor when admitted.
+     */
+    private class Task extends Waiter {
+
+        private final Runnable task;
+
+        Task(Kind kind, Priority priority, int tokens, Runnable task) {
+            super(kind, priority, tokens);
+            this.task = task;
+        }
+
+        @Override
+        void admit() {
+            try {
+                delegate.execute(() -> {
+                    try {
+                        runHolding(this, task);
+                    } finally {
+                        release();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.WARNING, "Operation rejected by the executor", ex);
+                release();
+            }
+        }
+    }
+
+    /**
+     * Operation of a thread waiting in
+     * {@link #acquire(Kind, Priority, int)} or {@link #yieldToWaiting()}.
+     */
+    private static class Blocked extends Waiter {
+
+        private boolean admitted = false;
+
+        Blocked(Kind kind, Priority priority, int tokens) {
+            super(kind, priority, tokens);
+        }
+
+        synchronized void await() throws InterruptedException {
+            while (!admitted) {
+                wait();
+            }
+        }
+
+        @Override
+        synchronized void admit() {
+            admitted = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Token bucket refilled at a constant rate, holding at most the tokens of
+     * one second.
+     */
+    private static class TokenBucket {
+
+        private int rate = 0;
+        private double tokens = 0;
+        private long updated = 0;
+
+        void setRate(int rate) {
+            this.rate = Math.max(0, rate);
+            this.tokens = this.rate;
+            this.updated = System.nanoTime();
+        }
+
+        /**
+         * Takes tokens if available. A request for more tokens than the
+         * bucket holds takes a full bucket, a request for none always
+         * succeeds.
+         *
+         * @return {@code 0} if the tokens were taken, otherwise the time in
+         * nanoseconds until they are available
+         */
+        long take(int count, long now) {
+            if (rate == 0 || count == 0) {
+                return 0;
+            }
+            tokens = Math.min(rate, tokens + (now - updated) * rate / 1e9);
+            updated = now;
+            double needed = Math.min(count, rate);
+            if (tokens >= needed) {
+                tokens -= needed;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) * 1e9 / rate);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Snapshot of the load and the counters of the operations limit of an
+ * {@link LdapServer}.
+ */
+public final class BulkheadStatistics {
+
+    private final int running;
+    private final int queued;
+    private final long admitted;
+    private final long rejected;
+    private final long throttled;
+    private final long yielded;
+
+    BulkheadStatistics(int running, int queued, long admitted, long rejected,
+            long throttled, long yielded) {
+        this.running = running;
+        this.queued = queued;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.throttled = throttled;
+        this.yielded = yielded;
+    }
+
+    /**
+     * @return Number of operations currently running against the server
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return Number of operations currently waiting to run
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return Number of operations admitted since the IDE was started
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * Gets the number of operations which failed right away, because too
+     * many operations were waiting already.
+     *
+     * @return Number of rejected operations
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of operations which were delayed by a rate limit.
+     *
+     * @return Number of throttled operations
+     */
+    public long getThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Gets the number of times a background operation gave its slot to
+     * operations of a higher priority between two pages.
+     *
+     * @return Number of yields
+     */
+    public long getYielded() {
+        return yielded;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d running, %d queued, %d admitted, "
+                + "%d rejected, %d throttled, %d yielded",
+                running, queued, admitted, rejected, throttled, yielded);
+    }
+}
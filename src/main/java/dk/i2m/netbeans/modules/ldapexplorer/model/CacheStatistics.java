@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Snapshot of the counters of the entry cache of an {@link LdapServer}.
+ */
+public final class CacheStatistics {
+
+    private final long hits;
+    private final long revalidations;
+    private final long misses;
+    private final long evictions;
+    private final int entries;
+    private final long estimatedBytes;
+
+    CacheStatistics(long hits, long revalidations, long misses, long evictions,
+            int entries, long estimatedBytes) {
+        this.hits = hits;
+        this.revalidations = revalidations;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Gets the number of lookups served from the cache without contacting
+     * the server.
+     *
+     * @return Number of fresh cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups served from the cache after the server
+     * confirmed that the expired entry was unchanged.
+     *
+     * @return Number of successful revalidations
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * Gets the number of lookups which required the complete entry to be
+     * downloaded, either because it was not cached or because it changed.
+     *
+     * @return Number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries removed to stay within the configured
+     * bounds.
+     *
+     * @return Number of evicted entries
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Number of entries currently cached
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return Estimated memory used by the cached entries in bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Gets the share of lookups served without downloading the entry,
+     * counting revalidated entries as hits.
+     *
+     * @return Hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long lookups = hits + revalidations + misses;
+        return lookups == 0 ? 0 : (double) (hits + revalidations) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d revalidated, %d misses (%.0f%%), "
+                + "%d evicted, %d entries, %d KiB",
+                hits, revalidations, misses, getHitRatio() * 100, evictions,
+                entries, estimatedBytes / 1024);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * State of the circuit breaker guarding the operations on an
+ * {@link LdapServer}.
+ */
+public enum CircuitState {
+
+    /** The server answers, operations run as usual. */
+    CLOSED,
+    /**
+     * The server failed repeatedly, operations fail right away instead of
+     * waiting for the server until the cooldown passed.
+     */
+    OPEN,
+    /**
+     * The cooldown passed, a single trial operation decides whether the
+     * circuit closes or opens again.
+     */
+    HALF_OPEN
+}
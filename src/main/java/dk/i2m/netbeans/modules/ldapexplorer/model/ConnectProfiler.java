@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Measures the time it takes to open connections, by
+ * {@link ConnectionSecurity}, so that the cost of TLS handshakes and the
+ * savings of resumed TLS sessions can be seen.
+ */
+class ConnectProfiler {
+
+    /** Counters of one {@link ConnectionSecurity}, guarded by the profiler. */
+    private static final class Counters {
+
+        private long connects = 0;
+        private long failures = 0;
+        private long totalNanos = 0;
+        private long minNanos = Long.MAX_VALUE;
+        private long maxNanos = 0;
+    }
+
+    private final Map<ConnectionSecurity, Counters> counters =
+            new EnumMap<>(ConnectionSecurity.class);
+
+    /**
+     * Records an opened connection.
+     *
+     * @param security Security of the connection
+     * @param nanos Time in nanoseconds it took to open the connection
+     */
+    synchronized void connected(ConnectionSecurity security, long nanos) {
+        Counters c = get(security);
+        c.connects++;
+        c.totalNanos += nanos;
+        c.minNanos = Math.min(c.minNanos, nanos);
+        c.maxNanos = Math.max(c.maxNanos, nanos);
+    }
+
+    /**
+     * Records a connection that could not be opened.
+     *
+     * @param security Security of the connection
+     */
+    synchronized void failed(ConnectionSecurity security) {
+        get(security).failures++;
+    }
+
+    /**
+     * @return Snapshot of the cost of the connections opened so far
+     */
+    synchronized ConnectStatistics getStatistics() {
+        Map<ConnectionSecurity, ConnectStatistics.Mode> modes =
+                new EnumMap<>(ConnectionSecurity.class);
+        for (Map.Entry<ConnectionSecurity, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            modes.put(entry.getKey(), c.connects == 0
+                    ? new ConnectStatistics.Mode(0, c.failures, 0, 0, 0)
+                    : new ConnectStatistics.Mode(c.connects, c.failures,
+                            c.totalNanos / 1e6 / c.connects, c.minNanos / 1e6,
+                            c.maxNanos / 1e6));
+        }
+        return new ConnectStatistics(modes);
+    }
+
+    private Counters get(ConnectionSecurity security) {
+        Counters c = counters.get(security);
+        if (c == null) {
+            c = new Counters();
+            counters.put(security, c);
+        }
+        return c;
+    }
+}
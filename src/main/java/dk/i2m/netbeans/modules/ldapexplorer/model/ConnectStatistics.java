@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the cost of opening connections to an {@link LdapServer}, by
+ * {@link ConnectionSecurity}. The time to open a connection spans connecting
+ * the socket, the TLS handshake and the bind.
+ */
+public final class ConnectStatistics {
+
+    /**
+     * Cost of the connections opened with one {@link ConnectionSecurity}.
+     */
+    public static final class Mode {
+
+        private final long connects;
+        private final long failures;
+        private final double averageTime;
+        private final double minTime;
+        private final double maxTime;
+
+        Mode(long connects, long failures, double averageTime, double minTime,
+                double maxTime) {
+            this.connects = connects;
+            this.failures = failures;
+            this.averageTime = averageTime;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+        /**
+         * @return Number of connections opened
+         */
+        public long getConnects() {
+            return connects;
+        }
+
+        /**
+         * @return Number of connections that could not be opened
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return Average time in milliseconds to open a connection
+         */
+        public double getAverageTime() {
+            return averageTime;
+        }
+
+        /**
+         * Gets the shortest time to open a connection. With TLS, this is
+         * usually a connection resuming a cached TLS session.
+         *
+         * @return Shortest time in milliseconds
+         */
+        public double getMinTime() {
+            return minTime;
+        }
+
+        /**
+         * Gets the longest time to open a connection. With TLS, this is
+         * usually a connection doing a full handshake.
+         *
+         * @return Longest time in milliseconds
+         */
+        public double getMaxTime() {
+            return maxTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d connects, %.1f ms avg, %.1f-%.1f ms, %d failed",
+                    connects, averageTime, minTime, maxTime, failures);
+        }
+    }
+
+    private final Map<ConnectionSecurity, Mode> modes;
+
+    ConnectStatistics(Map<ConnectionSecurity, Mode> modes) {
+        this.modes = new EnumMap<>(modes);
+    }
+
+    /**
+     * Gets the cost of the connections opened with the given security.
+     *
+     * @param security Security of the connections
+     * @return Cost of the connections, {@code null} if none was opened
+     */
+    public Mode getMode(ConnectionSecurity security) {
+        return modes.get(security);
+    }
+
+    @Override
+    public String toString() {
+        if (modes.isEmpty()) {
+            return "No connects";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<ConnectionSecurity, Mode> mode : modes.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(mode.getKey()).append(' ').append(mode.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 Interactive Media Management.
+ * Copyright 2026 Interactive Media Management.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -13,16 +13,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package dk.i2m.netbeans.modules.ldapexplorer.ui;
+package dk.i2m.netbeans.modules.ldapexplorer.model;
 
-import org.openide.util.RequestProcessor;
-
-public class UIHelper {
+/**
+ * Protection of the connections to an {@link LdapServer}.
+ */
+public enum ConnectionSecurity {
 
-    private static final RequestProcessor RP = new RequestProcessor(
-            UIHelper.class.getName(), 2);
-    
-    public static RequestProcessor getRequestProcessor() {
-        return RP;
-    }
+    /** Unencrypted connection. */
+    PLAIN,
+    /** TLS from the start, on the dedicated LDAPS port. */
+    LDAPS,
+    /** Plain connection upgraded to TLS by StartTLS before binding. */
+    STARTTLS
 }
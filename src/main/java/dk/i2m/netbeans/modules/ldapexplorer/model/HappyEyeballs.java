@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Connects to a host name with several addresses the way RFC 8305 ("Happy
+ * Eyeballs") describes. All addresses are resolved, and connection attempts
+ * to them are started one after another, each {@link #ATTEMPT_DELAY}
+ * milliseconds after the previous one or as soon as it failed. The first
+ * connection established wins, the other attempts are aborted.
+ *
+ * <p>The outcome of every attempt is remembered per address. Addresses that
+ * failed recently are tried last, addresses that connected are tried first,
+ * fastest first, so that a dead address costs one connect timeout at most
+ * and no delay at all on the following connects.</p>
+ */
+class HappyEyeballs {
+
+    /**
+     * Delay in milliseconds before the next address is tried, as recommended
+     * by RFC 8305.
+     */
+    static final int ATTEMPT_DELAY = 250;
+    /** Time in milliseconds an address that failed is tried after the others. */
+    static final long FAILURE_MEMORY = TimeUnit.MINUTES.toMillis(1);
+    /** Maximum number of addresses whose health is remembered. */
+    static final int MAX_ADDRESSES = 1024;
+
+    /** Attempts block in connect, a virtual thread each where available. */
+    private static final Executor ATTEMPTS;
+
+    static {
+        Executor virtual = VirtualThreads.newExecutor("LDAP connect");
+        ATTEMPTS = virtual != null ? virtual : new RequestProcessor(
+                HappyEyeballs.class.getName(), 16, true);
+    }
+
+    /**
+     * Shared by all servers, the health of an address does not depend on the
+     * server it is configured for.
+     */
+    static final HappyEyeballs DEFAULT = new HappyEyeballs(ATTEMPT_DELAY);
+
+    /**
+     * Supplier of the unconnected sockets of the attempts.
+     */
+    @FunctionalInterface
+    interface SocketSupplier {
+
+        /**
+         * @return Unconnected socket with the options of the connection
+         * @throws IOException If the socket could not be created
+         */
+        Socket newSocket() throws IOException;
+    }
+
+    /**
+     * Outcome of the last attempts to an address.
+     */
+    private static final class Health {
+
+        /** Time of the last failure in nanoseconds, if {@link #failed}. */
+        private long failedAt;
+        private boolean failed;
+        /** Duration of the last successful connect in nanoseconds. */
+        private long connectNanos = -1;
+    }
+
+    private final int attemptDelay;
+    private final Map<InetSocketAddress, Health> health = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link HappyEyeballs}.
+     *
+     * @param attemptDelay Delay in milliseconds before the next address is
+     * tried
+     */
+    HappyEyeballs(int attemptDelay) {
+        this.attemptDelay = attemptDelay;
+    }
+
+    /**
+     * Connects to a host by racing connection attempts to its addresses.
+     *
+     * @param host Name or address of the host
+     * @param port Port to connect to
+     * @param timeout Timeout of the connect in milliseconds, {@code 0} for
+     * none
+     * @param sockets Supplier of the unconnected sockets
+     * @return Connected socket
+     * @throws IOException If no address could be connected to within the
+     * timeout
+     */
+    Socket connect(String host, int port, int timeout, SocketSupplier sockets)
+            throws IOException {
+        List<InetSocketAddress> endpoints = new ArrayList<>();
+        for (InetAddress address : InetAddress.getAllByName(host)) {
+            endpoints.add(new InetSocketAddress(address, port));
+        }
+        return connect(endpoints, timeout, sockets);
+    }
+
+    /**
+     * Connects to the first endpoint answering.
+     *
+     * @param endpoints Resolved endpoints, in the order of the resolver
+     * @param timeout Timeout of the connect in milliseconds, {@code 0} for
+     * none
+     * @param sockets Supplier of the unconnected sockets
+     * @return Connected socket
+     * @throws IOException If no endpoint could be connected to within the
+     * timeout
+     */
+    Socket connect(List<InetSocketAddress> endpoints, int timeout,
+            SocketSupplier sockets) throws IOException {
+        List<InetSocketAddress> ordered = order(endpoints);
+        if (ordered.size() == 1) {
+            Attempt attempt = new Attempt(ordered.get(0), timeout, sockets, null);
+            attempt.run();
+            if (attempt.failure != null) {
+                throw attempt.failure;
+            }
+            return attempt.socket;
+        }
+        return race(ordered, timeout, sockets);
+    }
+
+    /**
+     * Orders the endpoints as they are tried. The address families alternate,
+     * starting with the family of the first endpoint, and endpoints are
+     * ranked by their health.
+     *
+     * @param endpoints Resolved endpoints
+     * @return Endpoints in the order they are tried
+     */
+    List<InetSocketAddress> order(List<InetSocketAddress> endpoints) {
+        List<InetSocketAddress> first = new ArrayList<>();
+        List<InetSocketAddress> second = new ArrayList<>();
+        for (InetSocketAddress endpoint : endpoints) {
+            if (isIpv6(endpoint) == isIpv6(endpoints.get(0))) {
+                first.add(endpoint);
+            } else {
+                second.add(endpoint);
+            }
+        }
+        List<InetSocketAddress> ordered = new ArrayList<>(endpoints.size());
+        for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) {
+                ordered.add(first.get(i));
+            }
+            if (i < second.size()) {
+                ordered.add(second.get(i));
+            }
+        }
+        long now = System.nanoTime();
+        ordered.sort(Comparator.comparingLong(endpoint -> rank(endpoint, now)));
+        return ordered;
+    }
+
+    private static boolean isIpv6(InetSocketAddress endpoint) {
+        return endpoint.getAddress() instanceof Inet6Address;
+    }
+
+    /**
+     * Ranks an endpoint, endpoints that connected before by the duration of
+     * their last connect, then unknown endpoints, then endpoints that failed
+     * recently.
+     */
+    private long rank(InetSocketAddress endpoint, long now) {
+        Health h = health.get(endpoint);
+        if (h == null) {
+            return Long.MAX_VALUE - 1;
+        }
+        synchronized (h) {
+            if (h.failed && now - h.failedAt
+                    < TimeUnit.MILLISECONDS.toNanos(FAILURE_MEMORY)) {
+                return Long.MAX_VALUE;
+            }
+            return h.connectNanos >= 0 ? h.connectNanos : Long.MAX_VALUE - 1;
+        }
+    }
+
+    /**
+     * Starts the attempts staggered and returns the first connected socket.
+     */
+    private Socket race(List<InetSocketAddress> endpoints, int timeout,
+            SocketSupplier sockets) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Attempt> attempts = new ArrayList<>(endpoints.size());
+        Attempt winner = null;
+        IOException failure = null;
+        int failed = 0;
+        long nextStart = System.nanoTime();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (timeout > 0 && now - deadline >= 0) {
+                    SocketTimeoutException ex = new SocketTimeoutException(
+                            "Connect timed out: " + endpoints);
+                    if (failure != null) {
+                        ex.initCause(failure);
+                    }
+                    throw ex;
+                }
+                boolean pending = attempts.size() < endpoints.size();
+                if (pending && now - nextStart >= 0) {
+                    Attempt attempt = new Attempt(endpoints.get(attempts.size()),
+                            timeout > 0 ? (int) Math.max(1, TimeUnit.NANOSECONDS
+                                    .toMillis(deadline - now)) : 0,
+                            sockets, finished);
+                    attempts.add(attempt);
+                    ATTEMPTS.execute(attempt);
+                    nextStart = now + TimeUnit.MILLISECONDS.toNanos(attemptDelay);
+                    pending = attempts.size() < endpoints.size();
+                }
+                long wait = pending ? nextStart - now : Long.MAX_VALUE;
+                if (timeout > 0) {
+                    wait = Math.min(wait, deadline - now);
+                }
+                Attempt attempt = finished.poll(wait, TimeUnit.NANOSECONDS);
+                if (attempt == null) {
+                    continue;
+                }
+                if (attempt.failure == null) {
+                    winner = attempt;
+                    return attempt.socket;
+                }
+                if (failure == null) {
+                    failure = attempt.failure;
+                } else {
+                    failure.addSuppressed(attempt.failure);
+                }
+                if (++failed == endpoints.size()) {
+                    throw failure;
+                }
+                // Do not wait for the delay, the address failed already
+                nextStart = System.nanoTime();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Connect to " + endpoints
+                    + " was interrupted");
+        } finally {
+            for (Attempt attempt : attempts) {
+                if (attempt != winner) {
+                    attempt.cancel();
+                }
+            }
+        }
+    }
+
+    private void succeeded(InetSocketAddress endpoint, long nanos) {
+        Health h = getHealth(endpoint);
+        synchronized (h) {
+            h.failed = false;
+            h.connectNanos = nanos;
+        }
+    }
+
+    private void failed(InetSocketAddress endpoint) {
+        Health h = getHealth(endpoint);
+        synchronized (h) {
+            h.failed = true;
+            h.failedAt = System.nanoTime();
+        }
+    }
+
+    private Health getHealth(InetSocketAddress endpoint) {
+        if (health.size() >= MAX_ADDRESSES && !health.containsKey(endpoint)) {
+            // Forget some addresses, most are of replaced DNS records anyway
+            Iterator<InetSocketAddress> it = health.keySet().iterator();
+            for (int i = 0; i < MAX_ADDRESSES / 4 && it.hasNext(); i++) {
+                it.next();
+                it.remove();
+            }
+        }
+        return health.computeIfAbsent(endpoint, e -> new Health());
+    }
+
+    /**
+     * Connection attempt to one endpoint.
+     */
+    private final class Attempt implements Runnable {
+
+        private final InetSocketAddress endpoint;
+        private final int timeout;
+        private final SocketSupplier sockets;
+        private final BlockingQueue<Attempt> finished;
+        private Socket socket;
+        private IOException failure;
+        private boolean cancelled = false;
+
+        Attempt(InetSocketAddress endpoint, int timeout, SocketSupplier sockets,
+                BlockingQueue<Attempt> finished) {
+            this.endpoint = endpoint;
+            this.timeout = timeout;
+            this.sockets = sockets;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Socket s = sockets.newSocket();
+                synchronized (this) {
+                    socket = s;
+                    if (cancelled) {
+                        s.close();
+                        return;
+                    }
+                }
+                long start = System.nanoTime();
+                s.connect(endpoint, timeout);
+                succeeded(endpoint, System.nanoTime() - start);
+            } catch (IOException ex) {
+                synchronized (this) {
+                    if (cancelled) {
+                        // Aborted by closing the socket
+                        return;
+                    }
+                }
+                failed(endpoint);
+                failure = ex;
+                close();
+            }
+            if (finished != null) {
+                finished.add(this);
+            }
+        }
+
+        /**
+         * Aborts the attempt, closing the socket if it connected already.
+         */
+        void cancel() {
+            synchronized (this) {
+                cancelled = true;
+            }
+            close();
+        }
+
+        private void close() {
+            Socket s;
+            synchronized (this) {
+                s = socket;
+            }
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
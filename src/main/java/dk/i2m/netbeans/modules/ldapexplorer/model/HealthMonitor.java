@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Probes the connections to a server in the background, so that
+ * connections dropped while idle, e.g. by a firewall, are found and replaced
+ * before an operation of the user runs into them. The probes also keep
+ * idle sessions alive on firewalls dropping silent connections.
+ *
+ * <p>Probes run every interval while the server answers. While it does not,
+ * they follow the backoff of the {@link ReconnectPolicy} instead, and the
+ * first probe reaching the server again closes its circuit.</p>
+ */
+class HealthMonitor {
+
+    private static final Logger LOG = Logger.getLogger(HealthMonitor.class.getName());
+
+    private static final RequestProcessor MONITOR = new RequestProcessor(
+            HealthMonitor.class.getName(), 4, true);
+
+    /**
+     * Probe of the connections to a server.
+     */
+    @FunctionalInterface
+    interface Probe {
+
+        /**
+         * Validates the connections to the server, replacing stale ones.
+         *
+         * @return {@code true} if the server answered, {@code false} if there
+         * was nothing to probe
+         * @throws NamingException If the server could not be reached
+         */
+        boolean probe() throws NamingException;
+    }
+
+    private final Probe probe;
+    private final ReconnectPolicy policy;
+    private final RequestProcessor.Task task;
+    private volatile int interval = 0;
+    private long probes = 0;
+    private long failedProbes = 0;
+
+    /**
+     * Creates a new, stopped {@link HealthMonitor}.
+     *
+     * @param probe Probe of the server
+     * @param policy Reconnect policy of the server
+     */
+    HealthMonitor(Probe probe, ReconnectPolicy policy) {
+        this.probe = probe;
+        this.policy = policy;
+        this.task = MONITOR.create(this::run);
+    }
+
+    /**
+     * Starts probing, or changes the interval of the running probes.
+     *
+     * @param interval Interval in milliseconds, {@code 0} stops probing
+     */
+    void start(int interval) {
+        this.interval = interval;
+        if (interval > 0) {
+            task.schedule(interval);
+        } else {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Stops probing.
+     */
+    void stop() {
+        start(0);
+    }
+
+    synchronized long getProbes() {
+        return probes;
+    }
+
+    synchronized long getFailedProbes() {
+        return failedProbes;
+    }
+
+    private void run() {
+        int current = interval;
+        if (current <= 0) {
+            return;
+        }
+        long next = current;
+        synchronized (this) {
+            probes++;
+        }
+        try {
+            if (probe.probe()) {
+                policy.succeeded();
+            }
+        } catch (CommunicationException | ServiceUnavailableException ex) {
+            LOG.log(Level.FINE, "Health probe failed", ex);
+            synchronized (this) {
+                failedProbes++;
+            }
+            policy.failed();
+            next = Math.min(current, policy.getDelay(policy.getFailures()));
+        } catch (NamingException | RuntimeException ex) {
+            // The server answered, but refused the probe
+            LOG.log(Level.FINE, "Health probe refused", ex);
+            policy.succeeded();
+        }
+        if (interval == current) {
+            task.schedule((int) next);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Snapshot of the health of the connections to an {@link LdapServer}.
+ */
+public final class HealthStatistics {
+
+    private final CircuitState circuit;
+    private final int failures;
+    private final long retries;
+    private final long rejected;
+    private final long probes;
+    private final long failedProbes;
+
+    HealthStatistics(CircuitState circuit, int failures, long retries,
+            long rejected, long probes, long failedProbes) {
+        this.circuit = circuit;
+        this.failures = failures;
+        this.retries = retries;
+        this.rejected = rejected;
+        this.probes = probes;
+        this.failedProbes = failedProbes;
+    }
+
+    /**
+     * @return State of the circuit breaker of the server
+     */
+    public CircuitState getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * @return Number of consecutive communication failures
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets the number of operations which were tried again on a fresh
+     * connection after a communication failure.
+     *
+     * @return Number of retried operations
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * Gets the number of operations which failed right away, because the
+     * circuit was open.
+     *
+     * @return Number of rejected operations
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return Number of background probes since the IDE was started
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return Number of background probes that could not reach the server
+     */
+    public long getFailedProbes() {
+        return failedProbes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %d failures, %d retried, %d rejected, "
+                + "%d probes, %d failed",
+                circuit, failures, retries, rejected, probes, failedProbes);
+    }
+}
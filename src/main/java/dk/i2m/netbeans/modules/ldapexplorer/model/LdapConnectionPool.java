@@ -0,0 +1,417 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Bounded pool of {@link LdapContext}s connected to a single
+ * {@link LdapServer}.
+ *
+ * <p>Contexts are handed out by {@link #borrow()} and must be given back by
+ * either {@link #release(javax.naming.ldap.LdapContext)} or - if the
+ * connection turned out to be broken - by
+ * {@link #invalidate(javax.naming.ldap.LdapContext)}. Idle contexts are closed
+ * after the idle timeout, every context is closed after its maximum lifetime
+ * and contexts that were idle for a while are validated before they are
+ * handed out again.</p>
+ */
+class LdapConnectionPool {
+
+    private static final Logger LOG = Logger.getLogger(LdapConnectionPool.class.getName());
+
+    private static final RequestProcessor EVICTOR = new RequestProcessor(
+            LdapConnectionPool.class.getName(), 1, true);
+
+    /**
+     * Contexts that were idle for less than this interval are considered
+     * healthy and are not validated when borrowed.
+     */
+    private static final long VALIDATION_IDLE_THRESHOLD = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Factory creating new connections for the pool.
+     */
+    interface ConnectionFactory {
+
+        /**
+         * Opens a new connection to the server.
+         *
+         * @return Newly connected context
+         * @throws NamingException If the connection could not be established
+         */
+        LdapContext connect() throws NamingException;
+    }
+
+    private static class PooledContext {
+
+        private final LdapContext context;
+        private final long created = System.nanoTime();
+        private long lastUsed = created;
+        private long lastValidated = created;
+
+        PooledContext(LdapContext context) {
+            this.context = context;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final long maxLifetime;
+    private final long borrowTimeout;
+    private final Deque<PooledContext> idle = new ArrayDeque<>();
+    private final Map<LdapContext, PooledContext> borrowed = new IdentityHashMap<>();
+    private final RequestProcessor.Task evictionTask = EVICTOR.create(this::evict);
+    private int pending = 0;
+    private boolean closed = false;
+    private volatile LongConsumer latencyListener = null;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param factory Factory used to open new connections
+     * @param maxSize Maximum number of open connections
+     * @param idleTimeout Time in milliseconds after which an idle connection
+     * is closed
+     * @param maxLifetime Time in milliseconds after which a connection is
+     * closed regardless of its use
+     * @param borrowTimeout Time in milliseconds to wait for a connection when
+     * all connections are in use
+     */
+    LdapConnectionPool(ConnectionFactory factory, int maxSize, long idleTimeout,
+            long maxLifetime, long borrowTimeout) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The pool must hold at least one connection");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        this.maxLifetime = TimeUnit.MILLISECONDS.toNanos(maxLifetime);
+        this.borrowTimeout = TimeUnit.MILLISECONDS.toNanos(borrowTimeout);
+    }
+
+    /**
+     * Sets the listener receiving the round trip time of every validation.
+     *
+     * @param latencyListener Receives round trip times in nanoseconds,
+     * {@code null} for none
+     */
+    void setLatencyListener(LongConsumer latencyListener) {
+        this.latencyListener = latencyListener;
+    }
+
+    /**
+     * Borrows a context from the pool. A new connection is opened if no idle
+     * context is available and the pool is not exhausted, otherwise the call
+     * blocks until a context is returned.
+     *
+     * @return Context which must be returned to the pool after use
+     * @throws NamingException If no connection could be obtained
+     */
+    LdapContext borrow() throws NamingException {
+        long deadline = System.nanoTime() + borrowTimeout;
+        while (true) {
+            PooledContext candidate = null;
+            synchronized (this) {
+                while (!closed && idle.isEmpty()
+                        && borrowed.size() + pending >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new ServiceUnavailableException(
+                                "Timed out waiting for a pooled connection");
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new ServiceUnavailableException(
+                                "Interrupted while waiting for a pooled connection");
+                    }
+                }
+                if (closed) {
+                    throw new ServiceUnavailableException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                }
+                pending++;
+            }
+
+            if (candidate == null) {
+                return open();
+            }
+
+            long now = System.nanoTime();
+            if (isExpired(candidate, now)) {
+                discard(candidate);
+            } else if (now - Math.max(candidate.lastUsed,
+                    candidate.lastValidated) > VALIDATION_IDLE_THRESHOLD
+                    && !validate(candidate)) {
+                discard(candidate);
+            } else {
+                synchronized (this) {
+                    pending--;
+                    candidate.lastUsed = now;
+                    borrowed.put(candidate.context, candidate);
+                }
+                return candidate.context;
+            }
+        }
+    }
+
+    private LdapContext open() throws NamingException {
+        LdapContext ctx;
+        try {
+            ctx = factory.connect();
+        } catch (NamingException | RuntimeException ex) {
+            synchronized (this) {
+                pending--;
+                notifyAll();
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            pending--;
+            if (!closed) {
+                borrowed.put(ctx, new PooledContext(ctx));
+                return ctx;
+            }
+        }
+        close(ctx);
+        throw new ServiceUnavailableException("Connection pool is closed");
+    }
+
+    /**
+     * Returns a healthy context to the pool.
+     *
+     * @param ctx Context obtained from {@link #borrow()}, may be {@code null}
+     */
+    void release(LdapContext ctx) {
+        if (ctx == null) {
+            return;
+        }
+        try {
+            // Controls are sticky on a context, don't leak paging state
+            ctx.setRequestControls(null);
+        } catch (NamingException ex) {
+            invalidate(ctx);
+            return;
+        }
+        boolean keep;
+        synchronized (this) {
+            PooledContext pc = borrowed.remove(ctx);
+            keep = pc != null && !closed && !isExpired(pc, System.nanoTime());
+            if (keep) {
+                pc.lastUsed = System.nanoTime();
+                idle.addFirst(pc);
+            }
+            notifyAll();
+        }
+        if (keep) {
+            evictionTask.schedule((int) TimeUnit.NANOSECONDS.toMillis(idleTimeout));
+        } else {
+            close(ctx);
+        }
+    }
+
+    /**
+     * Removes a broken context from the pool and closes it.
+     *
+     * @param ctx Context obtained from {@link #borrow()}, may be {@code null}
+     */
+    void invalidate(LdapContext ctx) {
+        if (ctx == null) {
+            return;
+        }
+        synchronized (this) {
+            borrowed.remove(ctx);
+            notifyAll();
+        }
+        close(ctx);
+    }
+
+    /**
+     * Closes all idle contexts. Used after a communication failure, as the
+     * other idle connections are most probably affected as well.
+     */
+    void purgeIdle() {
+        List<PooledContext> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            notifyAll();
+        }
+        for (PooledContext pc : toClose) {
+            close(pc.context);
+        }
+    }
+
+    /**
+     * Validates the idle contexts one by one. The validation keeps the
+     * sessions alive, but does not count as use, so idle contexts are still
+     * closed after the idle timeout. A stale context is closed together with
+     * the remaining idle contexts, as they most probably went stale for the
+     * same reason.
+     *
+     * @return Number of closed contexts
+     */
+    int probeIdle() {
+        List<PooledContext> candidates;
+        synchronized (this) {
+            candidates = new ArrayList<>(idle);
+        }
+        for (PooledContext pc : candidates) {
+            synchronized (this) {
+                if (closed || !idle.remove(pc)) {
+                    // Borrowed or evicted meanwhile
+                    continue;
+                }
+                pending++;
+            }
+            boolean valid = validate(pc);
+            boolean keep;
+            synchronized (this) {
+                pending--;
+                keep = valid && !closed;
+                if (keep) {
+                    pc.lastValidated = System.nanoTime();
+                    idle.addLast(pc);
+                }
+                notifyAll();
+            }
+            if (!keep) {
+                close(pc.context);
+            }
+            if (!valid) {
+                int purged;
+                synchronized (this) {
+                    purged = idle.size();
+                }
+                purgeIdle();
+                return purged + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Closes the pool and all idle contexts. Borrowed contexts are closed when
+     * they are returned.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        evictionTask.cancel();
+        purgeIdle();
+    }
+
+    /**
+     * @return Number of connections currently handed out
+     */
+    synchronized int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return {@code true} if a context can be borrowed without waiting for
+     * another one to be returned
+     */
+    synchronized boolean hasCapacity() {
+        return !idle.isEmpty() || borrowed.size() + pending < maxSize;
+    }
+
+    /**
+     * @return Number of open connections waiting in the pool
+     */
+    synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    private void evict() {
+        List<PooledContext> toClose = new ArrayList<>();
+        boolean reschedule;
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Iterator<PooledContext> it = idle.iterator(); it.hasNext();) {
+                PooledContext pc = it.next();
+                if (now - pc.lastUsed >= idleTimeout || isExpired(pc, now)) {
+                    it.remove();
+                    toClose.add(pc);
+                }
+            }
+            reschedule = !closed && !idle.isEmpty();
+        }
+        for (PooledContext pc : toClose) {
+            close(pc.context);
+        }
+        if (reschedule) {
+            evictionTask.schedule((int) TimeUnit.NANOSECONDS.toMillis(idleTimeout));
+        }
+    }
+
+    private boolean isExpired(PooledContext pc, long now) {
+        return now - pc.created >= maxLifetime;
+    }
+
+    private boolean validate(PooledContext pc) {
+        try {
+            // Reading the root DSE without any attribute is the cheapest
+            // operation every server supports
+            long start = System.nanoTime();
+            pc.context.getAttributes("", new String[]{"1.1"});
+            LongConsumer listener = latencyListener;
+            if (listener != null) {
+                listener.accept(System.nanoTime() - start);
+            }
+            return true;
+        } catch (NamingException | RuntimeException ex) {
+            LOG.log(Level.FINE, "Pooled connection failed validation", ex);
+            return false;
+        }
+    }
+
+    private void discard(PooledContext pc) {
+        synchronized (this) {
+            pending--;
+            notifyAll();
+        }
+        close(pc.context);
+    }
+
+    private static void close(LdapContext ctx) {
+        try {
+            ctx.close();
+        } catch (NamingException | RuntimeException ex) {
+            LOG.log(Level.FINE, "Failed to close pooled connection", ex);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package dk.i2m.netbeans.modules.ldapexplorer.model;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,17 @@ import org.apache.commons.codec.binary.Base64;
  * @author Allan Lykke Christensen
  */
 public class LdapEntry {
+
+    /**
+     * Orders entries by their label, ignoring the case of the labels.
+     */
+    public static final Comparator<LdapEntry> LABEL_ORDER = (t, t1) -> {
+        String l = t.getLabel() == null ? "" : t.getLabel();
+        String l1 = t1.getLabel() == null ? "" : t1.getLabel();
+        int result = l.compareToIgnoreCase(l1);
+        return result != 0 ? result : l.compareTo(l1);
+    };
+
     private final List<String> objectClasses = new ArrayList<>();
     private final Base64 encoder = new Base64(76, (System.getProperty("line.separator") + " ").getBytes());
     private String label;
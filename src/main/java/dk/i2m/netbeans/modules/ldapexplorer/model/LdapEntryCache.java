@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Least recently used cache of the entries fetched by
+ * {@link BaseLdapServer#getEntry(java.lang.String)}.
+ *
+ * <p>The cache is bounded by the number of entries and by the estimated
+ * memory used by the entries. Entries older than the time to live are not
+ * served directly, instead the caller is expected to compare the version of
+ * the cached entry ({@code entryCSN}, {@code modifyTimestamp}, ...) with the
+ * version on the server and either {@link #revalidate(java.lang.String)} or
+ * {@link #put(java.lang.String, dk.i2m.netbeans.modules.ldapexplorer.model.LdapEntry, java.lang.String)}
+ * the entry.</p>
+ */
+class LdapEntryCache {
+
+    /** Rough per object overhead used when estimating the entry size. */
+    private static final int OBJECT_OVERHEAD = 48;
+
+    private static class CachedEntry {
+
+        private final LdapEntry entry;
+        private final String version;
+        private final long size;
+        private long validated = System.nanoTime();
+
+        CachedEntry(LdapEntry entry, String version, long size) {
+            this.entry = entry;
+            this.version = version;
+            this.size = size;
+        }
+    }
+
+    private final LinkedHashMap<String, CachedEntry> entries
+            = new LinkedHashMap<>(16, 0.75f, true);
+    private int maxEntries;
+    private long maxBytes;
+    private long timeToLive;
+    private long bytes = 0;
+    private long hits = 0;
+    private long revalidations = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries Maximum number of cached entries, {@code 0} disables
+     * the cache
+     * @param maxBytes Maximum estimated memory used by the cached entries
+     * @param timeToLive Time in milliseconds an entry is served without
+     * revalidation
+     */
+    LdapEntryCache(int maxEntries, long maxBytes, long timeToLive) {
+        configure(maxEntries, maxBytes, timeToLive);
+    }
+
+    /**
+     * Changes the bounds of the cache, evicting entries if necessary.
+     *
+     * @param maxEntries Maximum number of cached entries, {@code 0} disables
+     * the cache
+     * @param maxBytes Maximum estimated memory used by the cached entries
+     * @param timeToLive Time in milliseconds an entry is served without
+     * revalidation
+     */
+    final synchronized void configure(int maxEntries, long maxBytes,
+            long timeToLive) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeToLive));
+        evict();
+    }
+
+    /**
+     * Gets an entry which was cached or revalidated within the time to live.
+     *
+     * @param dn Distinguished name of the entry
+     * @return Cached entry or {@code null} if the entry is not cached or
+     * must be revalidated
+     */
+    synchronized LdapEntry get(String dn) {
+        CachedEntry cached = entries.get(dn);
+        if (cached == null
+                || System.nanoTime() - cached.validated >= timeToLive) {
+            return null;
+        }
+        hits++;
+        return cached.entry;
+    }
+
+    /**
+     * Gets the version of an entry which must be revalidated before it is
+     * served again.
+     *
+     * @param dn Distinguished name of the entry
+     * @return Version of the cached entry or {@code null} if the entry is not
+     * cached or the server did not provide a version
+     */
+    synchronized String getVersion(String dn) {
+        CachedEntry cached = entries.get(dn);
+        return cached == null ? null : cached.version;
+    }
+
+    /**
+     * Marks a cached entry as valid after the server confirmed that its
+     * version did not change.
+     *
+     * @param dn Distinguished name of the entry
+     * @return Revalidated entry or {@code null} if the entry was evicted in
+     * the meantime
+     */
+    synchronized LdapEntry revalidate(String dn) {
+        CachedEntry cached = entries.get(dn);
+        if (cached == null) {
+            return null;
+        }
+        cached.validated = System.nanoTime();
+        revalidations++;
+        return cached.entry;
+    }
+
+    /**
+     * Caches an entry downloaded from the server.
+     *
+     * @param dn Distinguished name of the entry
+     * @param entry Entry to cache
+     * @param version Version of the entry reported by the server, may be
+     * {@code null}
+     */
+    synchronized void put(String dn, LdapEntry entry, String version) {
+        misses++;
+        if (maxEntries == 0) {
+            return;
+        }
+        CachedEntry cached = new CachedEntry(entry, version, estimateSize(entry));
+        CachedEntry old = entries.put(dn, cached);
+        if (old != null) {
+            bytes -= old.size;
+        }
+        bytes += cached.size;
+        evict();
+    }
+
+    /**
+     * Removes an entry from the cache.
+     *
+     * @param dn Distinguished name of the entry
+     */
+    synchronized void invalidate(String dn) {
+        CachedEntry old = entries.remove(dn);
+        if (old != null) {
+            bytes -= old.size;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache. The statistics are kept.
+     */
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return Snapshot of the cache counters
+     */
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, revalidations, misses, evictions,
+                entries.size(), bytes);
+    }
+
+    private void evict() {
+        for (Iterator<CachedEntry> it = entries.values().iterator();
+                it.hasNext() && (entries.size() > maxEntries || bytes > maxBytes);) {
+            CachedEntry eldest = it.next();
+            it.remove();
+            bytes -= eldest.size;
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory used by an entry. Strings are counted with two
+     * bytes per character, binary values with their length.
+     *
+     * @param entry Entry to estimate
+     * @return Estimated size in bytes
+     */
+    static long estimateSize(LdapEntry entry) {
+        long size = OBJECT_OVERHEAD * 4;
+        size += sizeOf(entry.getDn()) + sizeOf(entry.getLabel());
+        for (String objectClass : entry.getObjectClasses()) {
+            size += sizeOf(objectClass);
+        }
+        for (Map.Entry<String, ArrayList<Object>> attribute
+                : entry.getAttributes().entrySet()) {
+            size += sizeOf(attribute.getKey()) + OBJECT_OVERHEAD * 2;
+            for (Object value : attribute.getValue()) {
+                if (value instanceof byte[]) {
+                    size += OBJECT_OVERHEAD + ((byte[]) value).length;
+                } else {
+                    size += sizeOf(String.valueOf(value));
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : OBJECT_OVERHEAD + 2L * value.length();
+    }
+}
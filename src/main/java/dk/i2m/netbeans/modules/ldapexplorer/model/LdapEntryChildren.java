@@ -16,8 +16,6 @@
  */
 package dk.i2m.netbeans.modules.ldapexplorer.model;
 
-import dk.i2m.netbeans.modules.ldapexplorer.ui.UIHelper;
-import java.util.ArrayList;
 import java.util.function.Consumer;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
@@ -33,7 +31,7 @@ import org.openide.util.*;
 public class LdapEntryChildren extends Children.Keys<LdapEntry> {
     private String parent = "";
     private LdapServer ldapServer = null;
-    private TreeLoader tl;
+    private volatile TreeLoader tl;
     private SearchContext ctx;
     private Consumer<SearchContext> cancelHandler = (sc) -> this.cancelLoading();
 
@@ -64,26 +62,28 @@ public class LdapEntryChildren extends Children.Keys<LdapEntry> {
     @Override
     protected void addNotify() {
         if (ldapServer != null) {
-            tl = new TreeLoader();
+            final TreeLoader loader = new TreeLoader();
+            tl = loader;
             if(ctx != null) {
                 ctx.registerCancelListener(cancelHandler);
             }
             final ProgressHandle ph = ProgressHandleFactory.createHandle(
                     NbBundle.getMessage(LdapEntryChildren.class, "FetchingLDAPEntries"), tl);
-            RequestProcessor.Task t = UIHelper.getRequestProcessor().create(() -> {
-                ph.start();
-                ph.switchToIndeterminate();
-                try {
-                    ldapServer.getTree(parent, tl);
-                } catch (QueryException ex) {
+            ph.start();
+            ph.switchToIndeterminate();
+            ldapServer.getTreeAsync(parent, loader).whenComplete((result, ex) -> {
+                // A cancel completes normally, the released keys must not
+                // be published again
+                if (ex != null) {
                     Exceptions.printStackTrace(ex);
+                } else if (!loader.isCanceled()) {
+                    loader.finish();
                 }
-                tl = null;
+                if (tl == loader) {
+                    tl = null;
+                }
+                ph.finish();
             });
-
-            t.addTaskListener( (Task task) -> ph.finish());
-
-            t.schedule(0);
         }
     }
 
@@ -116,24 +116,10 @@ public class LdapEntryChildren extends Children.Keys<LdapEntry> {
         return new Node[]{node};
     }
 
-    class TreeLoader extends LdapResultProcessor {
-        private final ArrayList<LdapEntry> entries = new ArrayList<>();
-
-        @Override
-        public void addEntry(LdapEntry entry) {
-            synchronized (entries) {
-                entries.add(entry);
-                setKeys(entries);
-            }
-        }
+    class TreeLoader extends BatchingResultProcessor {
 
-        @Override
-        public void reset() {
-            synchronized (entries) {
-                entries.clear();
-                setKeys(entries);
-            }
+        TreeLoader() {
+            super(keys -> setKeys(keys));
         }
-
     }
 }
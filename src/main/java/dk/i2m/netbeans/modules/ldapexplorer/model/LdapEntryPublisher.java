@@ -0,0 +1,312 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.openide.util.RequestProcessor;
+
+/**
+ * {@link LdapFlow.Publisher} running a listing or search for every
+ * subscription.
+ *
+ * <p>The query starts with the first request of the subscriber and runs on a
+ * worker thread, feeding the received entries into a buffer. When the buffer
+ * holds {@code capacity} entries the worker waits for the subscriber to
+ * request more, so that no further pages are requested from the server until
+ * the subscriber caught up.</p>
+ *
+ * <p>An {@link AsyncQuery} does not take a worker thread of its own, e.g.
+ * when the subscription joins an identical enumeration already running for
+ * another subscriber.</p>
+ */
+class LdapEntryPublisher implements LdapFlow.Publisher<LdapEntry> {
+
+    private static final RequestProcessor RP = new RequestProcessor(
+            LdapEntryPublisher.class.getName(), 16, true);
+
+    /**
+     * Query feeding a subscription.
+     */
+    @FunctionalInterface
+    interface Query {
+
+        /**
+         * Runs the query, passing the received entries to the given sink.
+         * The query stops when the sink is canceled.
+         *
+         * @param sink Receiver of the entries
+         * @throws QueryException If the query failed
+         */
+        void run(LdapResultProcessor sink) throws QueryException;
+    }
+
+    /**
+     * Query feeding a subscription without blocking the subscribing thread.
+     */
+    @FunctionalInterface
+    interface AsyncQuery {
+
+        /**
+         * Starts the query, passing the received entries to the given sink.
+         * The query stops feeding the sink when the sink is canceled.
+         *
+         * @param sink Receiver of the entries
+         * @return Future completed when the query finished, or completed
+         * exceptionally with the failure of the query
+         */
+        CompletableFuture<Void> start(LdapResultProcessor sink);
+    }
+
+    private final AsyncQuery query;
+    private final int capacity;
+
+    /**
+     * Creates a new {@link LdapEntryPublisher}.
+     *
+     * @param query Query run for every subscription
+     * @param capacity Maximum number of received entries buffered per
+     * subscription
+     */
+    LdapEntryPublisher(Query query, int capacity) {
+        this(query, capacity, RP);
+    }
+
+    /**
+     * Creates a new {@link LdapEntryPublisher}.
+     *
+     * @param query Query run for every subscription
+     * @param capacity Maximum number of received entries buffered per
+     * subscription
+     * @param executor Executor running the queries
+     */
+    LdapEntryPublisher(Query query, int capacity, Executor executor) {
+        this(running(query, executor), capacity);
+    }
+
+    private LdapEntryPublisher(AsyncQuery query, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.query = query;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new {@link LdapEntryPublisher} starting a query that does
+     * not block.
+     *
+     * @param query Query started for every subscription
+     * @param capacity Maximum number of received entries buffered per
+     * subscription
+     * @return Publisher of the entries received by the query
+     */
+    static LdapEntryPublisher of(AsyncQuery query, int capacity) {
+        return new LdapEntryPublisher(query, capacity);
+    }
+
+    private static AsyncQuery running(Query query, Executor executor) {
+        return sink -> {
+            CompletableFuture<Void> finished = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        query.run(sink);
+                        finished.complete(null);
+                    } catch (QueryException | RuntimeException ex) {
+                        finished.completeExceptionally(ex);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                finished.completeExceptionally(
+                        new QueryException(ex.getMessage(), ex));
+            }
+            return finished;
+        };
+    }
+
+    @Override
+    public void subscribe(LdapFlow.Subscriber<? super LdapEntry> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        EntrySubscription subscription = new EntrySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class EntrySubscription implements LdapFlow.Subscription {
+
+        private final LdapFlow.Subscriber<? super LdapEntry> subscriber;
+        private final ArrayDeque<LdapEntry> buffer = new ArrayDeque<>();
+        private final Sink sink = new Sink();
+        private long demand = 0;
+        private boolean started = false;
+        /** The query finished, the buffer holds the remaining entries. */
+        private boolean done = false;
+        private Throwable failure = null;
+        /** No further signals are passed to the subscriber. */
+        private boolean terminated = false;
+        private boolean draining = false;
+
+        EntrySubscription(LdapFlow.Subscriber<? super LdapEntry> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            boolean start;
+            synchronized (buffer) {
+                if (terminated) {
+                    return;
+                }
+                if (n <= 0) {
+                    failure = new IllegalArgumentException(
+                            "Requested " + n + " entries");
+                    done = true;
+                    buffer.clear();
+                    start = false;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    start = !started;
+                    started = true;
+                }
+                buffer.notifyAll();
+            }
+            if (start) {
+                CompletableFuture<Void> running;
+                try {
+                    running = query.start(sink);
+                } catch (RuntimeException ex) {
+                    running = new CompletableFuture<>();
+                    running.completeExceptionally(ex);
+                }
+                running.whenComplete((result, ex) -> finish(ex));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (buffer) {
+                terminated = true;
+                buffer.clear();
+                buffer.notifyAll();
+            }
+            sink.cancel();
+        }
+
+        private void finish(Throwable error) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            synchronized (buffer) {
+                if (failure == null) {
+                    failure = error;
+                }
+                done = true;
+            }
+            drain();
+        }
+
+        /**
+         * Passes buffered entries to the subscriber as far as requested.
+         * Only one thread delivers at a time, a thread finding another one
+         * delivering leaves the work to it.
+         */
+        private void drain() {
+            synchronized (buffer) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            while (true) {
+                LdapEntry next;
+                Throwable error;
+                synchronized (buffer) {
+                    if (terminated) {
+                        draining = false;
+                        return;
+                    }
+                    if (demand > 0 && !buffer.isEmpty()) {
+                        next = buffer.poll();
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                        buffer.notifyAll();
+                        error = null;
+                    } else if (done && (buffer.isEmpty() || failure != null)) {
+                        terminated = true;
+                        next = null;
+                        error = failure;
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (next != null) {
+                    subscriber.onNext(next);
+                } else if (error != null) {
+                    sink.cancel();
+                    subscriber.onError(error);
+                    return;
+                } else {
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Receiver of the query results, buffering them for the subscriber.
+         */
+        private class Sink extends LdapResultProcessor {
+
+            @Override
+            public void addEntry(LdapEntry entry) {
+                boolean stop;
+                synchronized (buffer) {
+                    while (buffer.size() >= capacity && !terminated) {
+                        try {
+                            buffer.wait();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            terminated = true;
+                        }
+                    }
+                    stop = terminated;
+                    if (!stop) {
+                        buffer.add(entry);
+                    }
+                }
+                if (stop) {
+                    cancel();
+                } else {
+                    drain();
+                }
+            }
+
+            @Override
+            public void reset() {
+                // Delivered entries cannot be taken back, the enumerations
+                // resume without delivering entries twice instead
+            }
+        }
+    }
+}
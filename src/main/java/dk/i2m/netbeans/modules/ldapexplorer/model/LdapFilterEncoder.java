@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.naming.directory.InvalidSearchFilterException;
+
+/**
+ * Encodes LDAP search filters in their string representation (RFC 4515)
+ * into the BER representation of a search request.
+ */
+class LdapFilterEncoder {
+
+    private static final int AND = 0xa0;
+    private static final int OR = 0xa1;
+    private static final int NOT = 0xa2;
+    private static final int EQUALITY = 0xa3;
+    private static final int SUBSTRINGS = 0xa4;
+    private static final int GREATER_OR_EQUAL = 0xa5;
+    private static final int LESS_OR_EQUAL = 0xa6;
+    private static final int PRESENT = 0x87;
+    private static final int APPROX = 0xa8;
+    private static final int EXTENSIBLE = 0xa9;
+
+    private static final int SUBSTRING_INITIAL = 0x80;
+    private static final int SUBSTRING_ANY = 0x81;
+    private static final int SUBSTRING_FINAL = 0x82;
+
+    private static final int MATCHING_RULE = 0x81;
+    private static final int MATCHING_TYPE = 0x82;
+    private static final int MATCH_VALUE = 0x83;
+    private static final int DN_ATTRIBUTES = 0x84;
+
+    private final String filter;
+    private final BerEncoder encoder;
+    private int position = 0;
+
+    private LdapFilterEncoder(String filter, BerEncoder encoder) {
+        this.filter = filter;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Encodes the given filter. Like JNDI, a filter without enclosing
+     * parentheses is accepted.
+     *
+     * @param filter Filter in its string representation
+     * @param encoder Encoder receiving the filter
+     * @throws InvalidSearchFilterException If the filter is malformed
+     */
+    static void encode(String filter, BerEncoder encoder)
+            throws InvalidSearchFilterException {
+        String trimmed = filter == null ? "" : filter.trim();
+        if (trimmed.isEmpty()) {
+            trimmed = "(objectClass=*)";
+        } else if (trimmed.charAt(0) != '(') {
+            trimmed = "(" + trimmed + ")";
+        }
+        LdapFilterEncoder parser = new LdapFilterEncoder(trimmed, encoder);
+        parser.filter();
+        if (parser.position != trimmed.length()) {
+            throw parser.error("Unexpected characters after the filter");
+        }
+    }
+
+    private void filter() throws InvalidSearchFilterException {
+        expect('(');
+        if (position >= filter.length()) {
+            throw error("Unexpected end of filter");
+        }
+        switch (filter.charAt(position)) {
+            case '&':
+                position++;
+                filterList(AND);
+                break;
+            case '|':
+                position++;
+                filterList(OR);
+                break;
+            case '!':
+                position++;
+                encoder.beginSequence(NOT);
+                filter();
+                encoder.endSequence();
+                break;
+            default:
+                item();
+        }
+        expect(')');
+    }
+
+    private void filterList(int tag) throws InvalidSearchFilterException {
+        encoder.beginSequence(tag);
+        while (position < filter.length() && filter.charAt(position) == '(') {
+            filter();
+        }
+        encoder.endSequence();
+    }
+
+    private void item() throws InvalidSearchFilterException {
+        int end = filter.indexOf(')', position);
+        if (end < 0) {
+            throw error("Missing closing parenthesis");
+        }
+        int equals = filter.indexOf('=', position);
+        if (equals < 0 || equals > end) {
+            throw error("Missing comparison");
+        }
+        char modifier = filter.charAt(equals - 1);
+        if (modifier == ':') {
+            extensible(filter.substring(position, equals - 1), equals + 1, end);
+        } else if (modifier == '~' || modifier == '>' || modifier == '<') {
+            int tag = modifier == '~' ? APPROX
+                    : modifier == '>' ? GREATER_OR_EQUAL : LESS_OR_EQUAL;
+            encoder.beginSequence(tag);
+            encoder.writeString(attribute(position, equals - 1));
+            encoder.writeOctets(BerEncoder.OCTET_STRING, unescape(equals + 1, end));
+            encoder.endSequence();
+        } else {
+            String attribute = attribute(position, equals);
+            String value = filter.substring(equals + 1, end);
+            if (value.equals("*")) {
+                encoder.writeString(PRESENT, attribute);
+            } else if (value.indexOf('*') >= 0) {
+                substrings(attribute, equals + 1, end);
+            } else {
+                encoder.beginSequence(EQUALITY);
+                encoder.writeString(attribute);
+                encoder.writeOctets(BerEncoder.OCTET_STRING, unescape(equals + 1, end));
+                encoder.endSequence();
+            }
+        }
+        position = end;
+    }
+
+    private void substrings(String attribute, int start, int end)
+            throws InvalidSearchFilterException {
+        encoder.beginSequence(SUBSTRINGS);
+        encoder.writeString(attribute);
+        encoder.beginSequence(BerEncoder.SEQUENCE);
+        int from = start;
+        boolean first = true;
+        while (from <= end) {
+            int star = filter.indexOf('*', from);
+            if (star < 0 || star > end) {
+                star = end;
+            }
+            if (star > from) {
+                int tag = first ? SUBSTRING_INITIAL
+                        : star == end ? SUBSTRING_FINAL : SUBSTRING_ANY;
+                encoder.writeOctets(tag, unescape(from, star));
+            }
+            first = false;
+            from = star + 1;
+        }
+        encoder.endSequence();
+        encoder.endSequence();
+    }
+
+    private void extensible(String description, int start, int end)
+            throws InvalidSearchFilterException {
+        String[] parts = description.split(":", -1);
+        String type = parts[0].trim();
+        boolean dnAttributes = false;
+        String rule = null;
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equalsIgnoreCase("dn")) {
+                dnAttributes = true;
+            } else if (!parts[i].isEmpty()) {
+                rule = parts[i];
+            }
+        }
+        if (type.isEmpty() && rule == null) {
+            throw error("Extensible match without type and matching rule");
+        }
+        encoder.beginSequence(EXTENSIBLE);
+        if (rule != null) {
+            encoder.writeString(MATCHING_RULE, rule);
+        }
+        if (!type.isEmpty()) {
+            encoder.writeString(MATCHING_TYPE, type);
+        }
+        encoder.writeOctets(MATCH_VALUE, unescape(start, end));
+        if (dnAttributes) {
+            encoder.writeBoolean(DN_ATTRIBUTES, true);
+        }
+        encoder.endSequence();
+    }
+
+    private String attribute(int start, int end) throws InvalidSearchFilterException {
+        String attribute = filter.substring(start, end).trim();
+        if (attribute.isEmpty()) {
+            throw error("Missing attribute");
+        }
+        return attribute;
+    }
+
+    /**
+     * Decodes the {@code \XX} escapes of an assertion value.
+     */
+    private byte[] unescape(int start, int end) throws InvalidSearchFilterException {
+        ByteArrayOutputStream value = new ByteArrayOutputStream(end - start);
+        int literal = start;
+        for (int i = start; i < end; i++) {
+            if (filter.charAt(i) == '\\') {
+                if (i + 2 >= end) {
+                    throw error("Incomplete escape sequence");
+                }
+                byte[] chunk = filter.substring(literal, i).getBytes(StandardCharsets.UTF_8);
+                value.write(chunk, 0, chunk.length);
+                int high = Character.digit(filter.charAt(i + 1), 16);
+                int low = Character.digit(filter.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    throw error("Invalid escape sequence");
+                }
+                value.write((high << 4) | low);
+                i += 2;
+                literal = i + 1;
+            }
+        }
+        byte[] chunk = filter.substring(literal, end).getBytes(StandardCharsets.UTF_8);
+        value.write(chunk, 0, chunk.length);
+        return value.toByteArray();
+    }
+
+    private void expect(char c) throws InvalidSearchFilterException {
+        if (position >= filter.length() || filter.charAt(position) != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private InvalidSearchFilterException error(String message) {
+        return new InvalidSearchFilterException(message + " at position "
+                + position + " of " + filter);
+    }
+}
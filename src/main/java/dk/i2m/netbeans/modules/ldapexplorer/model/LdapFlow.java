@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Interrelated interfaces for flow-controlled streams of LDAP results.
+ *
+ * <p>The interfaces follow the contract of {@code java.util.concurrent.Flow}
+ * (reactive streams), which is not available on the Java version the module
+ * targets. A {@link Subscriber} requests items through its
+ * {@link Subscription} and the {@link Publisher} never signals more items
+ * than requested.</p>
+ */
+public final class LdapFlow {
+
+    private LdapFlow() {
+    }
+
+    /**
+     * Producer of items received by {@link Subscriber}s. Every subscription
+     * runs the underlying query again.
+     *
+     * @param <T> Type of the published items
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Adds the given subscriber. The subscriber receives
+         * {@link Subscriber#onSubscribe(Subscription)} before any other
+         * signal.
+         *
+         * @param subscriber Subscriber to receive the items
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items. The methods of a subscriber are never invoked
+     * concurrently for the same subscription.
+     *
+     * @param <T> Type of the received items
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Invoked before any other method for a new subscription. No items
+         * are received before items are requested from the subscription.
+         *
+         * @param subscription Subscription to request items from
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next item.
+         *
+         * @param item Received item
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked when the publisher failed, no further signals follow.
+         *
+         * @param throwable Cause of the failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when all items were received, no further signals follow.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a {@link Publisher} and a {@link Subscriber}.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds the given number of items to the demand of the subscriber.
+         * {@link Long#MAX_VALUE} requests all items.
+         *
+         * @param n Number of additional items, must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stops the delivery of items and releases the resources of the
+         * subscription. Items may still be received for a short while.
+         */
+        void cancel();
+    }
+}
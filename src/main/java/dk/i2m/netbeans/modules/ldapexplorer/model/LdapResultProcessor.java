@@ -15,10 +15,13 @@
  */
 package dk.i2m.netbeans.modules.ldapexplorer.model;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.openide.util.Cancellable;
 
 public abstract class LdapResultProcessor implements Cancellable {
     private volatile boolean canceled = false;
+    private final List<Runnable> cancelActions = new ArrayList<>();
 
     public boolean isCanceled() {
         return canceled;
@@ -26,10 +29,46 @@ public abstract class LdapResultProcessor implements Cancellable {
 
     @Override
     public boolean cancel() {
-        this.canceled = true;
+        List<Runnable> actions;
+        synchronized (cancelActions) {
+            this.canceled = true;
+            actions = new ArrayList<>(cancelActions);
+            cancelActions.clear();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
         return true;
     }
 
+    /**
+     * Registers an action aborting the operation feeding this processor. The
+     * action is run when the processor is canceled, or right away if it was
+     * canceled already.
+     *
+     * @param action Action to run on cancellation
+     */
+    void addCancelAction(Runnable action) {
+        synchronized (cancelActions) {
+            if (!canceled) {
+                cancelActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Removes an action registered by {@link #addCancelAction(java.lang.Runnable)}.
+     *
+     * @param action Action to remove
+     */
+    void removeCancelAction(Runnable action) {
+        synchronized (cancelActions) {
+            cancelActions.remove(action);
+        }
+    }
+
     public abstract void addEntry(LdapEntry entry);
 
     public abstract void reset();
@@ -16,8 +16,6 @@
  */
 package dk.i2m.netbeans.modules.ldapexplorer.model;
 
-import dk.i2m.netbeans.modules.ldapexplorer.ui.UIHelper;
-import java.util.ArrayList;
 import java.util.function.Consumer;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
@@ -25,8 +23,6 @@ import org.openide.nodes.Children;
 import org.openide.nodes.Node;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
-import org.openide.util.RequestProcessor;
-import org.openide.util.Task;
 
 /**
  * LDAP entry {@link Children} for displaying search result nodes on the UI.
@@ -37,7 +33,7 @@ public class LdapSearchEntryChildren extends Children.Keys<LdapEntry> {
 
     private LdapServer ldapServer = null;
     private String search;
-    private TreeLoader tl;
+    private volatile TreeLoader tl;
     private SearchContext ctx;
     private Consumer<SearchContext> cancelHandler = (sc) -> this.cancelLoading();
 
@@ -68,27 +64,28 @@ public class LdapSearchEntryChildren extends Children.Keys<LdapEntry> {
     @Override
     protected void addNotify() {
        if (ldapServer != null) {
-            tl = new TreeLoader();
+            final TreeLoader loader = new TreeLoader();
+            tl = loader;
             if(ctx != null) {
                 ctx.registerCancelListener(cancelHandler);
             }
             final ProgressHandle ph = ProgressHandleFactory.createHandle(
                     NbBundle.getMessage(LdapEntryChildren.class, "FetchingLDAPEntries"), tl);
-            RequestProcessor.Task t = UIHelper.getRequestProcessor().create(() -> {
-                ph.start();
-                ph.switchToIndeterminate();
-                try {
-                    ldapServer.search(search, tl);
-                } catch (QueryException ex) {
+            ph.start();
+            ph.switchToIndeterminate();
+            ldapServer.searchAsync(search, loader).whenComplete((result, ex) -> {
+                // A cancel completes normally, the released keys must not
+                // be published again
+                if (ex != null) {
                     Exceptions.printStackTrace(ex);
+                } else if (!loader.isCanceled()) {
+                    loader.finish();
                 }
-
-                tl = null;
+                if (tl == loader) {
+                    tl = null;
+                }
+                ph.finish();
             });
-
-            t.addTaskListener( (Task task) -> ph.finish());
-
-            t.schedule(0);
         }
     }
 
@@ -119,24 +116,10 @@ public class LdapSearchEntryChildren extends Children.Keys<LdapEntry> {
         return new Node[]{node};
     }
 
-    class TreeLoader extends LdapResultProcessor {
-        private final ArrayList<LdapEntry> entries = new ArrayList<>();
+    class TreeLoader extends BatchingResultProcessor {
 
-        @Override
-        public void addEntry(LdapEntry entry) {
-            synchronized (entries) {
-                entries.add(entry);
-                setKeys(entries);
-            }
+        TreeLoader() {
+            super(keys -> setKeys(keys));
         }
-
-        @Override
-        public void reset() {
-            synchronized (entries) {
-                entries.clear();
-                setKeys(entries);
-            }
-        }
-
     }
 }
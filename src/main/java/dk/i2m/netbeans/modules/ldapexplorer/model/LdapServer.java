@@ -17,9 +17,9 @@
 package dk.i2m.netbeans.modules.ldapexplorer.model;
 
 import java.io.File;
-import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.Hashtable;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.naming.Context;
@@ -69,7 +69,8 @@ public class LdapServer extends BaseLdapServer {
     @SuppressWarnings("UseOfObsoleteCollectionType")
     protected Hashtable<String, String> getConnectionEnvironment() {
         Hashtable<String, String> env = super.getConnectionEnvironment();
-        env.put(Context.REFERRAL, "follow");
+        // Referrals are chased over cached connections, see ReferralChaser
+        env.put(Context.REFERRAL, "throw");
         if(this.getAuthentication() == Authentication.KERBEROS5) {
             env.put(Context.SECURITY_AUTHENTICATION, "GSSAPI");
         }
@@ -111,126 +112,19 @@ public class LdapServer extends BaseLdapServer {
         return hash;
     }
 
+    /**
+     * Runs the action as the Kerberos subject when authenticating with
+     * {@link Authentication#KERBEROS5}, logging in first if necessary.
+     */
     @Override
-    public void connect() throws ConnectionException {
-        if (this.getAuthentication() == Authentication.KERBEROS5) {
-            try {
-                javax.security.auth.Subject.doAs(
-                        getIdentity(),
-                        new PrivilegedAction<Void>() {
-                            @Override
-                            public Void run() {
-                                try {
-                                    LdapServer.super.connect();
-                                } catch (ConnectionException ex) {
-                                    throw new RuntimeException(ex);
-                                }
-                                return null;
-                            }
-                        });
-            } catch (LoginException ex) {
-                throw new ConnectionException(ex);
-            } catch (RuntimeException ex) {
-                if (ex.getCause() instanceof ConnectionException) {
-                    throw (ConnectionException) ex.getCause();
-                } else {
-                    throw ex;
-                }
-            }
-        } else {
-           super.connect();
-        }
-    }
-
-    @Override
-    public void getTree(final String path, LdapResultProcessor lpr)  throws QueryException {
-        if (this.getAuthentication() == Authentication.KERBEROS5) {
-            try {
-                javax.security.auth.Subject.doAs(
-                        getIdentity(),
-                        new PrivilegedAction<Void>() {
-                    @Override
-                    public Void run() {
-                        try {
-                            LdapServer.super.getTree(path, lpr);
-                            return null;
-                        } catch (QueryException ex) {
-                            throw new RuntimeException(ex);
-                        }
-                    }
-                });
-            } catch (LoginException ex) {
-                throw new QueryException(ex);
-            } catch (RuntimeException ex) {
-                if (ex.getCause() instanceof QueryException) {
-                    throw (QueryException) ex.getCause();
-                } else {
-                    throw ex;
-                }
-            }
-        } else {
-            LdapServer.super.getTree(path, lpr);
-        }
-    }
-
-    @Override
-    public void search(final String filter, LdapResultProcessor lpr)  throws QueryException {
-        if (this.getAuthentication() == Authentication.KERBEROS5) {
-            try {
-                javax.security.auth.Subject.doAs(
-                        getIdentity(),
-                        new PrivilegedAction<Void>() {
-                    @Override
-                    public Void run() {
-                        try {
-                            LdapServer.super.search(filter, lpr);
-                            return null;
-                        } catch (QueryException ex) {
-                            throw new RuntimeException(ex);
-                        }
-                    }
-                });
-            } catch (LoginException ex) {
-                throw new QueryException(ex);
-            } catch (RuntimeException ex) {
-                if (ex.getCause() instanceof QueryException) {
-                    throw (QueryException) ex.getCause();
-                } else {
-                    throw ex;
-                }
-            }
-        } else {
-            LdapServer.super.search(filter, lpr);
+    protected <T> T runAs(PrivilegedExceptionAction<T> action) throws Exception {
+        if (this.getAuthentication() != Authentication.KERBEROS5) {
+            return action.run();
         }
-    }
-
-    @Override
-    public LdapEntry getEntry(final String dn) throws QueryException {
-        if (this.getAuthentication() == Authentication.KERBEROS5) {
-            try {
-                return javax.security.auth.Subject.doAs(
-                        getIdentity(),
-                        new PrivilegedAction<LdapEntry>() {
-                            @Override
-                            public LdapEntry run() {
-                                try {
-                                    return LdapServer.super.getEntry( dn );
-                                } catch (QueryException ex) {
-                                    throw new RuntimeException(ex);
-                                }
-                            }
-                        });
-            } catch (LoginException ex) {
-                throw new QueryException(ex);
-            } catch (RuntimeException ex) {
-                if (ex.getCause() instanceof QueryException) {
-                    throw (QueryException) ex.getCause();
-                } else {
-                    throw ex;
-                }
-            }
-        } else {
-            return LdapServer.super.getEntry( dn );
+        try {
+            return Subject.doAs(getIdentity(), action);
+        } catch (PrivilegedActionException ex) {
+            throw ex.getException();
         }
     }
 
@@ -248,7 +142,7 @@ public class LdapServer extends BaseLdapServer {
         fire("krb5LoginConf", old, this.krb5loginConf);
     }
 
-    private Subject getIdentity() throws LoginException {
+    private synchronized Subject getIdentity() throws LoginException {
         // Benutze zunächst bestehenden Login Context
         if(this.identity != null) {
             LOG.log(Level.INFO, "Service existing identity: {0}", this.identity.toString());
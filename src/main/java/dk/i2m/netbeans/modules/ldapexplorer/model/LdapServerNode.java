@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ResourceBundle;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.Action;
@@ -37,6 +38,7 @@ import org.openide.nodes.Children;
 import org.openide.nodes.PropertySupport;
 import org.openide.nodes.Sheet;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 import org.openide.util.WeakListeners;
 import org.openide.util.actions.SystemAction;
 import org.openide.util.lookup.AbstractLookup;
@@ -51,6 +53,14 @@ public class LdapServerNode extends AbstractNode implements
         PropertyChangeListener {
 
     private static final Logger LOG = Logger.getLogger(LdapServerNode.class.getName());
+    /**
+     * Delay in milliseconds before a changed root DSE snapshot is saved, the
+     * changes of that period are saved at once.
+     */
+    private static final int ROOT_DSE_SAVE_DELAY = 10000;
+    private static final RequestProcessor RP = new RequestProcessor(
+            LdapServerNode.class.getName(), 1);
+    private final AtomicBoolean rootDseSavePending = new AtomicBoolean();
 
     private LdapServer server = null;
     private static ResourceBundle bundle = NbBundle.getBundle(
@@ -100,6 +110,11 @@ public class LdapServerNode extends AbstractNode implements
         krb5securityDetails.setDisplayName(bundle.getString("PROPSET_NAME_KRB5Security"));
         krb5securityDetails.setShortDescription(bundle.getString(
                 "PROPSET_DESC_KRB5Security"));
+        Sheet.Set performanceDetails = Sheet.createPropertiesSet();
+        performanceDetails.setName("performance");
+        performanceDetails.setDisplayName(bundle.getString("PROPSET_NAME_Performance"));
+        performanceDetails.setShortDescription(bundle.getString(
+                "PROPSET_DESC_Performance"));
 
         LdapServer srv = getLookup().lookup(LdapServer.class);
 
@@ -125,6 +140,18 @@ public class LdapServerNode extends AbstractNode implements
                 portProp.setShortDescription(bundle.getString("PROP_DESC_Port"));
                 connectionDetails.put(portProp);
 
+                Property replicasProp = new PropertySupport.Reflection<>(srv,
+                        String[].class, "replicas");
+                replicasProp.setName(bundle.getString("PROP_NAME_Replicas"));
+                replicasProp.setShortDescription(bundle.getString("PROP_DESC_Replicas"));
+                connectionDetails.put(replicasProp);
+
+                Property srvDomainProp = new PropertySupport.Reflection<>(srv,
+                        String.class, "srvDomain");
+                srvDomainProp.setName(bundle.getString("PROP_NAME_SrvDomain"));
+                srvDomainProp.setShortDescription(bundle.getString("PROP_DESC_SrvDomain"));
+                connectionDetails.put(srvDomainProp);
+
                 Property timeoutProp = new PropertySupport.Reflection<>(
                         srv,
                         Integer.class, "timeout");
@@ -152,6 +179,12 @@ public class LdapServerNode extends AbstractNode implements
                 ignoreTlsErrors.setShortDescription(bundle.getString("PROP_DESC_IgnoreTlsErrors"));
                 securityDetails.put(ignoreTlsErrors);
 
+                Property startTlsProp = new PropertySupport.Reflection<>(
+                        srv, boolean.class, "startTls");
+                startTlsProp.setName(bundle.getString("PROP_NAME_StartTls"));
+                startTlsProp.setShortDescription(bundle.getString("PROP_DESC_StartTls"));
+                securityDetails.put(startTlsProp);
+
                 Property authProp = new PropertySupport.Reflection<>(
                         srv, Authentication.class, "authentication");
                 authProp.setName(bundle.getString("PROP_NAME_Authentication"));
@@ -206,6 +239,200 @@ public class LdapServerNode extends AbstractNode implements
                 krb5keytabProp.setName(bundle.getString("PROP_NAME_krb5keytab"));
                 krb5keytabProp.setShortDescription(bundle.getString("PROP_DESC_krb5keytab"));
                 krb5securityDetails.put(krb5keytabProp);
+
+                Property poolMaxSizeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "poolMaxSize");
+                poolMaxSizeProp.setName(bundle.getString("PROP_NAME_PoolMaxSize"));
+                poolMaxSizeProp.setShortDescription(bundle.getString("PROP_DESC_PoolMaxSize"));
+                performanceDetails.put(poolMaxSizeProp);
+
+                Property poolIdleTimeoutProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "poolIdleTimeout");
+                poolIdleTimeoutProp.setName(bundle.getString("PROP_NAME_PoolIdleTimeout"));
+                poolIdleTimeoutProp.setShortDescription(bundle.getString("PROP_DESC_PoolIdleTimeout"));
+                performanceDetails.put(poolIdleTimeoutProp);
+
+                Property poolMaxLifetimeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "poolMaxLifetime");
+                poolMaxLifetimeProp.setName(bundle.getString("PROP_NAME_PoolMaxLifetime"));
+                poolMaxLifetimeProp.setShortDescription(bundle.getString("PROP_DESC_PoolMaxLifetime"));
+                performanceDetails.put(poolMaxLifetimeProp);
+
+                Property poolBorrowTimeoutProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "poolBorrowTimeout");
+                poolBorrowTimeoutProp.setName(bundle.getString("PROP_NAME_PoolBorrowTimeout"));
+                poolBorrowTimeoutProp.setShortDescription(bundle.getString("PROP_DESC_PoolBorrowTimeout"));
+                performanceDetails.put(poolBorrowTimeoutProp);
+
+                Property maxInFlightProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "maxInFlight");
+                maxInFlightProp.setName(bundle.getString("PROP_NAME_MaxInFlight"));
+                maxInFlightProp.setShortDescription(bundle.getString("PROP_DESC_MaxInFlight"));
+                performanceDetails.put(maxInFlightProp);
+
+                Property maxQueuedProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "maxQueued");
+                maxQueuedProp.setName(bundle.getString("PROP_NAME_MaxQueued"));
+                maxQueuedProp.setShortDescription(bundle.getString("PROP_DESC_MaxQueued"));
+                performanceDetails.put(maxQueuedProp);
+
+                Property searchRateLimitProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "searchRateLimit");
+                searchRateLimitProp.setName(bundle.getString("PROP_NAME_SearchRateLimit"));
+                searchRateLimitProp.setShortDescription(bundle.getString("PROP_DESC_SearchRateLimit"));
+                performanceDetails.put(searchRateLimitProp);
+
+                Property readRateLimitProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "readRateLimit");
+                readRateLimitProp.setName(bundle.getString("PROP_NAME_ReadRateLimit"));
+                readRateLimitProp.setShortDescription(bundle.getString("PROP_DESC_ReadRateLimit"));
+                performanceDetails.put(readRateLimitProp);
+
+                Property bulkheadStatisticsProp = new PropertySupport.ReadOnly<String>(
+                        "bulkheadStatistics", String.class,
+                        bundle.getString("PROP_NAME_BulkheadStatistics"),
+                        bundle.getString("PROP_DESC_BulkheadStatistics")) {
+                    @Override
+                    public String getValue() {
+                        return srv.getBulkheadStatistics().toString();
+                    }
+                };
+                performanceDetails.put(bulkheadStatisticsProp);
+
+                Property healthCheckIntervalProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "healthCheckInterval");
+                healthCheckIntervalProp.setName(bundle.getString("PROP_NAME_HealthCheckInterval"));
+                healthCheckIntervalProp.setShortDescription(bundle.getString("PROP_DESC_HealthCheckInterval"));
+                performanceDetails.put(healthCheckIntervalProp);
+
+                Property healthStatisticsProp = new PropertySupport.ReadOnly<String>(
+                        "healthStatistics", String.class,
+                        bundle.getString("PROP_NAME_HealthStatistics"),
+                        bundle.getString("PROP_DESC_HealthStatistics")) {
+                    @Override
+                    public String getValue() {
+                        return srv.getHealthStatistics().toString();
+                    }
+                };
+                performanceDetails.put(healthStatisticsProp);
+
+                Property replicaStatisticsProp = new PropertySupport.ReadOnly<String>(
+                        "replicaStatistics", String.class,
+                        bundle.getString("PROP_NAME_ReplicaStatistics"),
+                        bundle.getString("PROP_DESC_ReplicaStatistics")) {
+                    @Override
+                    public String getValue() {
+                        StringBuilder sb = new StringBuilder();
+                        for (ReplicaStatistics replica : srv.getReplicaStatistics()) {
+                            if (sb.length() > 0) {
+                                sb.append("; ");
+                            }
+                            sb.append(replica);
+                        }
+                        return sb.toString();
+                    }
+                };
+                performanceDetails.put(replicaStatisticsProp);
+
+                Property connectStatisticsProp = new PropertySupport.ReadOnly<String>(
+                        "connectStatistics", String.class,
+                        bundle.getString("PROP_NAME_ConnectStatistics"),
+                        bundle.getString("PROP_DESC_ConnectStatistics")) {
+                    @Override
+                    public String getValue() {
+                        return srv.getConnectStatistics().toString();
+                    }
+                };
+                performanceDetails.put(connectStatisticsProp);
+
+                Property treeAttributesProp = new PropertySupport.Reflection<>(srv,
+                        String[].class, "treeAttributes");
+                treeAttributesProp.setName(bundle.getString("PROP_NAME_TreeAttributes"));
+                treeAttributesProp.setShortDescription(bundle.getString("PROP_DESC_TreeAttributes"));
+                performanceDetails.put(treeAttributesProp);
+
+                Property pageSizeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "pageSize");
+                pageSizeProp.setName(bundle.getString("PROP_NAME_PageSize"));
+                pageSizeProp.setShortDescription(bundle.getString("PROP_DESC_PageSize"));
+                performanceDetails.put(pageSizeProp);
+
+                Property searchTimeLimitProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "searchTimeLimit");
+                searchTimeLimitProp.setName(bundle.getString("PROP_NAME_SearchTimeLimit"));
+                searchTimeLimitProp.setShortDescription(bundle.getString("PROP_DESC_SearchTimeLimit"));
+                performanceDetails.put(searchTimeLimitProp);
+
+                Property searchSizeLimitProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "searchSizeLimit");
+                searchSizeLimitProp.setName(bundle.getString("PROP_NAME_SearchSizeLimit"));
+                searchSizeLimitProp.setShortDescription(bundle.getString("PROP_DESC_SearchSizeLimit"));
+                performanceDetails.put(searchSizeLimitProp);
+
+                Property readTimeoutProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "readTimeout");
+                readTimeoutProp.setName(bundle.getString("PROP_NAME_ReadTimeout"));
+                readTimeoutProp.setShortDescription(bundle.getString("PROP_DESC_ReadTimeout"));
+                performanceDetails.put(readTimeoutProp);
+
+                Property transportProp = new PropertySupport.Reflection<>(srv,
+                        Transport.class, "transport");
+                transportProp.setName(bundle.getString("PROP_NAME_Transport"));
+                transportProp.setShortDescription(bundle.getString("PROP_DESC_Transport"));
+                performanceDetails.put(transportProp);
+
+                Property tcpNoDelayProp = new PropertySupport.Reflection<>(srv,
+                        boolean.class, "tcpNoDelay");
+                tcpNoDelayProp.setName(bundle.getString("PROP_NAME_TcpNoDelay"));
+                tcpNoDelayProp.setShortDescription(bundle.getString("PROP_DESC_TcpNoDelay"));
+                performanceDetails.put(tcpNoDelayProp);
+
+                Property keepAliveProp = new PropertySupport.Reflection<>(srv,
+                        boolean.class, "keepAlive");
+                keepAliveProp.setName(bundle.getString("PROP_NAME_KeepAlive"));
+                keepAliveProp.setShortDescription(bundle.getString("PROP_DESC_KeepAlive"));
+                performanceDetails.put(keepAliveProp);
+
+                Property sendBufferSizeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "sendBufferSize");
+                sendBufferSizeProp.setName(bundle.getString("PROP_NAME_SendBufferSize"));
+                sendBufferSizeProp.setShortDescription(bundle.getString("PROP_DESC_SendBufferSize"));
+                performanceDetails.put(sendBufferSizeProp);
+
+                Property receiveBufferSizeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "receiveBufferSize");
+                receiveBufferSizeProp.setName(bundle.getString("PROP_NAME_ReceiveBufferSize"));
+                receiveBufferSizeProp.setShortDescription(bundle.getString("PROP_DESC_ReceiveBufferSize"));
+                performanceDetails.put(receiveBufferSizeProp);
+
+                Property entryCacheSizeProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "entryCacheSize");
+                entryCacheSizeProp.setName(bundle.getString("PROP_NAME_EntryCacheSize"));
+                entryCacheSizeProp.setShortDescription(bundle.getString("PROP_DESC_EntryCacheSize"));
+                performanceDetails.put(entryCacheSizeProp);
+
+                Property entryCacheMaxBytesProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "entryCacheMaxBytes");
+                entryCacheMaxBytesProp.setName(bundle.getString("PROP_NAME_EntryCacheMaxBytes"));
+                entryCacheMaxBytesProp.setShortDescription(bundle.getString("PROP_DESC_EntryCacheMaxBytes"));
+                performanceDetails.put(entryCacheMaxBytesProp);
+
+                Property entryCacheTtlProp = new PropertySupport.Reflection<>(srv,
+                        Integer.class, "entryCacheTtl");
+                entryCacheTtlProp.setName(bundle.getString("PROP_NAME_EntryCacheTtl"));
+                entryCacheTtlProp.setShortDescription(bundle.getString("PROP_DESC_EntryCacheTtl"));
+                performanceDetails.put(entryCacheTtlProp);
+
+                Property entryCacheStatisticsProp = new PropertySupport.ReadOnly<String>(
+                        "entryCacheStatistics", String.class,
+                        bundle.getString("PROP_NAME_EntryCacheStatistics"),
+                        bundle.getString("PROP_DESC_EntryCacheStatistics")) {
+                    @Override
+                    public String getValue() {
+                        return srv.getEntryCacheStatistics().toString();
+                    }
+                };
+                performanceDetails.put(entryCacheStatisticsProp);
             } catch (RuntimeException | NoSuchMethodException ex) {
                 LOG.log(Level.WARNING, "Failed to create property sheet for server", ex);
             }
@@ -215,6 +442,7 @@ public class LdapServerNode extends AbstractNode implements
         sheet.put(connectionDetails);
         sheet.put(securityDetails);
         sheet.put(krb5securityDetails);
+        sheet.put(performanceDetails);
 
         return sheet;
 
@@ -245,6 +473,11 @@ public class LdapServerNode extends AbstractNode implements
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         LdapServer srv = getLookup().lookup(LdapServer.class);
+        if ("rootDse".equals(evt.getPropertyName())) {
+            // Runtime state changed by queries, not by the user
+            scheduleRootDseSave(srv);
+            return;
+        }
         if (srv.isLabelSet()) {
             setDisplayName(srv.getLabel());
         } else {
@@ -271,6 +504,20 @@ public class LdapServerNode extends AbstractNode implements
         }.execute();
     }
 
+    private void scheduleRootDseSave(LdapServer srv) {
+        if (!rootDseSavePending.compareAndSet(false, true)) {
+            return;
+        }
+        RP.post(() -> {
+            rootDseSavePending.set(false);
+            try {
+                LdapService.getDefault().saveRootDse(srv);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Root DSE of " + srv + " not saved", ex);
+            }
+        }, ROOT_DSE_SAVE_DELAY);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
+import javax.naming.ldap.LdapContext;
+
+/**
+ * Transport carrying the LDAP operations of a {@link BaseLdapServer}.
+ *
+ * <p>A transport opens the contexts pooled by the server. Every connect of
+ * the server creates a new transport instance, which is closed after the
+ * contexts on disconnect.</p>
+ *
+ * @see Transport
+ */
+public interface LdapTransport {
+
+    /**
+     * Opens a context.
+     *
+     * @param env JNDI environment of the server
+     * @return Connected and authenticated context
+     * @throws NamingException If the context could not be opened
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    LdapContext connect(Hashtable<String, String> env) throws NamingException;
+
+    /**
+     * Reads the attributes of several entries. Transports able to pipeline
+     * requests read them in a single round trip, the default implementation
+     * reads one entry after the other.
+     *
+     * @param ctx Context opened by this transport
+     * @param names Distinguished names of the entries
+     * @param attrIds Attributes to read, {@code null} for all user attributes
+     * @return Attributes of the entries in the order of the names
+     * @throws NamingException If any entry could not be read
+     */
+    default List<Attributes> getAttributes(LdapContext ctx, List<String> names,
+            String[] attrIds) throws NamingException {
+        List<Attributes> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(ctx.getAttributes(name, attrIds));
+        }
+        return result;
+    }
+
+    /**
+     * Releases the resources shared by the contexts of this transport. The
+     * contexts are closed before.
+     */
+    default void close() {
+    }
+}
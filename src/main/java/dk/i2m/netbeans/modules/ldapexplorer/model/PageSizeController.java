@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the page size of a paged search from the measured latency and
+ * throughput of the pages received so far.
+ *
+ * <p>The page size is doubled as long as pages are returned quickly and the
+ * throughput does not drop, it is halved when a page takes too long and it
+ * falls back to the best size seen when the throughput drops. A page
+ * returned with fewer entries than requested while more pages follow means
+ * the server caps the page size, which then becomes the upper limit.</p>
+ */
+class PageSizeController {
+
+    /** Smallest page size requested. */
+    static final int MIN_PAGE_SIZE = 50;
+    /** Largest page size requested. */
+    static final int MAX_PAGE_SIZE = 10000;
+    /** Pages returned faster than this are grown. */
+    private static final long TARGET_LATENCY = TimeUnit.MILLISECONDS.toNanos(250);
+    /** Pages taking longer than this are shrunk. */
+    private static final long MAX_LATENCY = TimeUnit.SECONDS.toNanos(1);
+    /** Throughput drop tolerated before falling back to the best size. */
+    private static final double TOLERANCE = 0.9;
+
+    private int limit;
+    private int pageSize;
+    private int bestPageSize;
+    private double bestThroughput = 0;
+
+    /**
+     * Creates a new controller.
+     *
+     * @param pageSize Size of the first page
+     * @param limit Largest page size accepted by the server
+     */
+    PageSizeController(int pageSize, int limit) {
+        this.limit = clamp(limit, 1, MAX_PAGE_SIZE);
+        this.pageSize = clamp(pageSize, MIN_PAGE_SIZE, this.limit);
+        this.bestPageSize = this.pageSize;
+    }
+
+    /**
+     * @return Size of the next page to request
+     */
+    int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return Page size with the best throughput seen so far
+     */
+    int getBestPageSize() {
+        return bestPageSize;
+    }
+
+    /**
+     * @return Largest page size accepted by the server
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records a received page and adjusts the size of the next page.
+     *
+     * @param entries Number of entries in the page
+     * @param nanos Time in nanoseconds between requesting the page and
+     * receiving its last entry
+     * @param more {@code true} if the server announced further pages
+     */
+    void pageCompleted(int entries, long nanos, boolean more) {
+        if (entries < pageSize) {
+            if (more && entries > 0) {
+                // The server returned less than requested, it caps the page
+                // size silently
+                limit(entries);
+            }
+            // A partial last page says nothing about the throughput
+            return;
+        }
+
+        double throughput = entries / (double) Math.max(1, nanos);
+        if (nanos > MAX_LATENCY) {
+            pageSize = Math.max(Math.min(MIN_PAGE_SIZE, limit), pageSize / 2);
+            if (bestPageSize > pageSize) {
+                bestPageSize = pageSize;
+                bestThroughput = throughput;
+            }
+        } else if (throughput >= bestThroughput * TOLERANCE) {
+            if (throughput > bestThroughput) {
+                bestThroughput = throughput;
+                bestPageSize = pageSize;
+            }
+            if (nanos < TARGET_LATENCY) {
+                pageSize = Math.min(limit, pageSize * 2);
+            }
+        } else {
+            pageSize = bestPageSize;
+        }
+    }
+
+    /**
+     * Lowers the largest page size, e.g. after the server reported that a
+     * page exceeded its size limit.
+     *
+     * @param limit Largest page size accepted by the server
+     */
+    void limit(int limit) {
+        this.limit = Math.max(1, Math.min(this.limit, limit));
+        pageSize = Math.min(pageSize, this.limit);
+        bestPageSize = Math.min(bestPageSize, this.limit);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(Math.min(min, max), Math.min(value, max));
+    }
+}
@@ -0,0 +1,954 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.AuthenticationException;
+import javax.naming.AuthenticationNotSupportedException;
+import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.InterruptedNamingException;
+import javax.naming.InvalidNameException;
+import javax.naming.LimitExceededException;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.NoPermissionException;
+import javax.naming.OperationNotSupportedException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.SizeLimitExceededException;
+import javax.naming.TimeLimitExceededException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.InvalidAttributeIdentifierException;
+import javax.naming.directory.InvalidAttributeValueException;
+import javax.naming.directory.InvalidSearchFilterException;
+import javax.naming.directory.NoSuchAttributeException;
+import javax.naming.ldap.BasicControl;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.PagedResultsResponseControl;
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * LDAPv3 connection multiplexing any number of outstanding operations.
+ *
+ * <p>JNDI sends one request per context and waits for its response. This
+ * connection writes requests as they are issued and a reader thread
+ * dispatches the responses to the waiting operations by their message ID,
+ * so many operations share one round trip. Responses are decoded by the
+ * thread consuming them, the reader thread only frames the messages.</p>
+ *
+ * <p>Requests are encoded into pooled buffers. Responses are decoded where
+ * they were read from the socket and attribute values stay undecoded slices
+ * of the received bytes until they are accessed, see {@link BerAttribute}.</p>
+ *
+ * <p>There is no backpressure per operation. The reader thread serves all
+ * operations of the connection, so it queues every received entry instead
+ * of waiting for a slow consumer, which would stall the other operations.
+ * An unpaged search therefore buffers its complete result. The explorer
+ * pages its enumerations when the server supports it, which bounds the
+ * buffered entries to one page; against servers without paging the
+ * {@link Transport#JNDI} transport should be used for large searches.</p>
+ *
+ * <p>Only the operations used by the explorer are supported: anonymous and
+ * simple binds, searches and abandon requests.</p>
+ */
+class PipelinedConnection {
+
+    private static final Logger LOG = Logger.getLogger(PipelinedConnection.class.getName());
+
+    static final int BIND_REQUEST = 0x60;
+    static final int BIND_RESPONSE = 0x61;
+    static final int UNBIND_REQUEST = 0x42;
+    static final int SEARCH_REQUEST = 0x63;
+    static final int SEARCH_ENTRY = 0x64;
+    static final int SEARCH_DONE = 0x65;
+    static final int ABANDON_REQUEST = 0x50;
+    static final int SEARCH_REFERENCE = 0x73;
+    static final int EXTENDED_REQUEST = 0x77;
+    static final int EXTENDED_RESPONSE = 0x78;
+    static final int CONTROLS = 0xa0;
+    private static final int SIMPLE_AUTHENTICATION = 0x80;
+    private static final int SASL_AUTHENTICATION = 0xa3;
+    private static final String SASL_EXTERNAL = "EXTERNAL";
+    private static final int REFERRAL = 0xa3;
+
+    /** Environment property listing additional binary attributes, as in JNDI. */
+    static final String BINARY_ATTRIBUTES = "java.naming.ldap.attributes.binary";
+    static final String CONNECT_TIMEOUT = "com.sun.jndi.ldap.connect.timeout";
+    static final String READ_TIMEOUT = "com.sun.jndi.ldap.read.timeout";
+    static final String SOCKET_FACTORY = "java.naming.ldap.factory.socket";
+
+    /** Attributes JNDI returns as {@code byte[]} by default. */
+    private static final Set<String> DEFAULT_BINARY_ATTRIBUTES = new HashSet<>(
+            Arrays.asList("userpassword", "javaserializeddata",
+                    "jpegphoto", "audio", "thumbnailphoto", "thumbnaillogo",
+                    "usercertificate", "cacertificate",
+                    "certificaterevocationlist", "authorityrevocationlist",
+                    "crosscertificatepair", "photo", "personalsignature",
+                    "x500uniqueidentifier"));
+
+    /** Number of slots of the attribute description cache, a power of two. */
+    private static final int ATTRIBUTE_ID_SLOTS = 512;
+
+    private final Socket socket;
+    private final BerMessageReader in;
+    private final OutputStream out;
+    private final int readTimeout;
+    private final Set<String> binaryAttributes;
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private final Map<Integer, Operation> operations = new ConcurrentHashMap<>();
+    /** Decoded attribute descriptions, by the hash of their encoding. */
+    private final AttributeId[] attributeIds = new AttributeId[ATTRIBUTE_ID_SLOTS];
+    private volatile NamingException failure = null;
+
+    PipelinedConnection(Socket socket, int readTimeout,
+            Set<String> binaryAttributes) throws IOException {
+        this.socket = socket;
+        this.in = new BerMessageReader(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+        this.readTimeout = readTimeout;
+        this.binaryAttributes = binaryAttributes;
+        Thread reader = new Thread(this::read, "LDAP reader "
+                + socket.getInetAddress() + ":" + socket.getPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Opens and binds a connection as described by a JNDI environment. The
+     * provider URL, the connect and read timeouts, the socket factory, the
+     * binary attributes and simple authentication are supported.
+     *
+     * @param env JNDI environment
+     * @return Bound connection
+     * @throws NamingException If the connection could not be established
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    static PipelinedConnection open(Hashtable<?, ?> env) throws NamingException {
+        URI url;
+        try {
+            url = new URI(String.valueOf(env.get(Context.PROVIDER_URL)));
+        } catch (URISyntaxException ex) {
+            NamingException ne = new InvalidNameException(ex.getMessage());
+            ne.setRootCause(ex);
+            throw ne;
+        }
+        boolean secure = "ldaps".equalsIgnoreCase(url.getScheme());
+        if (!secure && !"ldap".equalsIgnoreCase(url.getScheme())) {
+            throw new OperationNotSupportedException(
+                    "Unsupported URL scheme: " + url.getScheme());
+        }
+        String authentication = env.get(Context.SECURITY_AUTHENTICATION) == null
+                ? "none" : String.valueOf(env.get(Context.SECURITY_AUTHENTICATION));
+        if (!authentication.equalsIgnoreCase("none")
+                && !authentication.equalsIgnoreCase("simple")
+                && !authentication.equalsIgnoreCase("external")) {
+            throw new AuthenticationNotSupportedException(authentication
+                    + " authentication is not supported by the pipelined transport");
+        }
+        Set<String> binary = new HashSet<>(DEFAULT_BINARY_ATTRIBUTES);
+        Object extra = env.get(BINARY_ATTRIBUTES);
+        if (extra != null) {
+            for (String id : String.valueOf(extra).trim().split("\\s+")) {
+                binary.add(id.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        int port = url.getPort() > 0 ? url.getPort() : secure ? 636 : 389;
+        Socket socket = null;
+        try {
+            SocketFactory factory = createSocketFactory(env, secure);
+            int connectTimeout = getInt(env, CONNECT_TIMEOUT);
+            boolean factoryConnects = env.get(SOCKET_FACTORY) != null
+                    && connectTimeout <= 0;
+            if (factoryConnects) {
+                // As in JNDI, the factory connects to the host name itself
+                // and handshakes TLS connections lazily or right away
+                socket = factory.createSocket(url.getHost(), port);
+            } else {
+                socket = factory.createSocket();
+                if (env.get(SOCKET_FACTORY) == null) {
+                    socket.setTcpNoDelay(true);
+                }
+                socket.connect(new InetSocketAddress(url.getHost(), port),
+                        connectTimeout);
+            }
+            if (socket instanceof SSLSocket) {
+                SSLSocket ssl = (SSLSocket) socket;
+                if (env.get(SOCKET_FACTORY) == null) {
+                    SSLParameters parameters = ssl.getSSLParameters();
+                    parameters.setEndpointIdentificationAlgorithm("LDAPS");
+                    ssl.setSSLParameters(parameters);
+                }
+                if (!factoryConnects) {
+                    ssl.startHandshake();
+                }
+            } else if (StartTls.isRequested(env)) {
+                socket = startTls(socket, url.getHost(), port, env);
+            }
+            PipelinedConnection connection = new PipelinedConnection(socket,
+                    getInt(env, READ_TIMEOUT), binary);
+            if (!authentication.equalsIgnoreCase("none")) {
+                try {
+                    if (authentication.equalsIgnoreCase("external")) {
+                        connection.bindExternal();
+                    } else {
+                        connection.bind(String.valueOf(env.get(Context.SECURITY_PRINCIPAL)),
+                                String.valueOf(env.get(Context.SECURITY_CREDENTIALS)));
+                    }
+                } catch (NamingException ex) {
+                    connection.close();
+                    throw ex;
+                }
+            }
+            return connection;
+        } catch (IOException ex) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+            CommunicationException ce = new CommunicationException(
+                    url.getHost() + ":" + port);
+            ce.setRootCause(ex);
+            throw ce;
+        }
+    }
+
+    /**
+     * Upgrades a plain connection to TLS before any other request is sent,
+     * so that the reader thread starts on the encrypted stream.
+     *
+     * @return Connected TLS socket layered over the given one
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    private static Socket startTls(Socket socket, String host, int port,
+            Hashtable<?, ?> env) throws IOException, NamingException {
+        BerEncoder request = new BerEncoder();
+        request.beginSequence(0x30)
+                .writeInt(1)
+                .beginSequence(EXTENDED_REQUEST)
+                .writeString(0x80, StartTls.OID)
+                .endSequence()
+                .endSequence();
+        OutputStream output = socket.getOutputStream();
+        output.write(request.toByteArray());
+        output.flush();
+
+        socket.setSoTimeout(getInt(env, READ_TIMEOUT));
+        BerDecoder message = new BerMessageReader(socket.getInputStream()).next();
+        if (message == null) {
+            throw new EOFException("Connection closed during StartTLS");
+        }
+        message.readSequence(0x30);
+        message.readInt();
+        if (message.peekTag() != EXTENDED_RESPONSE) {
+            throw new IOException(String.format("Unexpected response 0x%02x",
+                    message.peekTag()));
+        }
+        message.readSequence(EXTENDED_RESPONSE);
+        Response response = new Response(EXTENDED_RESPONSE,
+                message.readEnumerated(), message.readString(),
+                message.readString());
+        if (response.getResultCode() != 0) {
+            socket.close();
+            throw response.toException();
+        }
+        socket.setSoTimeout(0);
+
+        SSLSocket ssl = (SSLSocket) StartTls.getSocketFactory(env)
+                .createSocket(socket, host, port, true);
+        if (env.get(SOCKET_FACTORY) == null) {
+            SSLParameters parameters = ssl.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("LDAPS");
+            ssl.setSSLParameters(parameters);
+        }
+        ssl.startHandshake();
+        return ssl;
+    }
+
+    private static int getInt(Hashtable<?, ?> env, String name) {
+        Object value = env.get(name);
+        try {
+            return value == null ? 0 : Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates the socket factory named in the environment, like JNDI by
+     * invoking its static {@code getDefault()} method.
+     */
+    private static SocketFactory createSocketFactory(Hashtable<?, ?> env,
+            boolean secure) throws IOException {
+        Object name = env.get(SOCKET_FACTORY);
+        if (name == null) {
+            return secure ? SSLSocketFactory.getDefault() : SocketFactory.getDefault();
+        }
+        try {
+            Class<?> factoryClass = Class.forName(String.valueOf(name), true,
+                    PipelinedConnection.class.getClassLoader());
+            Method getDefault = factoryClass.getMethod("getDefault");
+            return (SocketFactory) getDefault.invoke(null);
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new IOException("Socket factory " + name + " is not usable", ex);
+        }
+    }
+
+    /**
+     * @return {@code true} if the connection can be used for further
+     * operations
+     */
+    boolean isOpen() {
+        return failure == null;
+    }
+
+    private void bind(String dn, String password) throws NamingException {
+        Operation op = send(encoder -> encoder
+                .beginSequence(BIND_REQUEST)
+                .writeInt(3)
+                .writeString(dn)
+                .writeString(SIMPLE_AUTHENTICATION, password)
+                .endSequence(), null, true, true);
+        Response response = op.next();
+        if (response.getResultCode() != 0) {
+            throw response.toException();
+        }
+    }
+
+    /**
+     * Binds with the SASL EXTERNAL mechanism, as the identity the server
+     * derives from the connection.
+     */
+    private void bindExternal() throws NamingException {
+        Operation op = send(encoder -> encoder
+                .beginSequence(BIND_REQUEST)
+                .writeInt(3)
+                .writeString("")
+                .beginSequence(SASL_AUTHENTICATION)
+                .writeString(SASL_EXTERNAL)
+                .endSequence()
+                .endSequence(), null, true, true);
+        Response response = op.next();
+        if (response.getResultCode() != 0) {
+            throw response.toException();
+        }
+    }
+
+    /**
+     * Sends a search request.
+     *
+     * @param base Base object of the search
+     * @param scope Scope as defined by {@code SearchControls}
+     * @param derefAliases Alias dereferencing, {@code 0} to {@code 3}
+     * @param sizeLimit Maximum number of entries, {@code 0} for no limit
+     * @param timeLimit Time limit in seconds, {@code 0} for no limit
+     * @param filter Filter in its string representation
+     * @param attributes Requested attributes, {@code null} for all user
+     * attributes
+     * @param controls Request controls, may be {@code null}
+     * @return Operation receiving the results
+     * @throws NamingException If the request could not be sent
+     */
+    Operation search(String base, int scope, int derefAliases, int sizeLimit,
+            int timeLimit, String filter, String[] attributes, Control[] controls)
+            throws NamingException {
+        return send(encodeSearch(base, scope, derefAliases, sizeLimit, timeLimit,
+                filter, attributes), controls, true, true);
+    }
+
+    /**
+     * Sends base scope searches for the given entries in one go, without
+     * waiting for any response in between.
+     *
+     * @param dns Distinguished names of the entries
+     * @param attributes Requested attributes, {@code null} for all user
+     * attributes
+     * @return Operations receiving the entries, in the order of the names
+     * @throws NamingException If the requests could not be sent
+     */
+    List<Operation> read(List<String> dns, String[] attributes) throws NamingException {
+        List<Operation> reads = new ArrayList<>(dns.size());
+        try {
+            for (int i = 0; i < dns.size(); i++) {
+                reads.add(send(encodeSearch(dns.get(i), 0, 3, 0, 0,
+                        "(objectClass=*)", attributes), null,
+                        i == dns.size() - 1, true));
+            }
+        } catch (NamingException ex) {
+            for (Operation op : reads) {
+                op.abandon();
+            }
+            throw ex;
+        }
+        return reads;
+    }
+
+    private static Request encodeSearch(String base, int scope,
+            int derefAliases, int sizeLimit, int timeLimit, String filter,
+            String[] attributes) {
+        return encoder -> {
+            encoder.beginSequence(SEARCH_REQUEST)
+                    .writeString(base)
+                    .writeEnumerated(scope)
+                    .writeEnumerated(derefAliases)
+                    .writeInt(sizeLimit)
+                    .writeInt(timeLimit)
+                    .writeBoolean(BerEncoder.BOOLEAN, false);
+            LdapFilterEncoder.encode(filter, encoder);
+            encoder.beginSequence(BerEncoder.SEQUENCE);
+            if (attributes != null) {
+                if (attributes.length == 0) {
+                    // No attributes at all
+                    encoder.writeString("1.1");
+                }
+                for (String attribute : attributes) {
+                    encoder.writeString(attribute);
+                }
+            }
+            encoder.endSequence();
+            encoder.endSequence();
+        };
+    }
+
+    /**
+     * Encoder of the protocol operation of a request.
+     */
+    @FunctionalInterface
+    interface Request {
+
+        void encode(BerEncoder encoder) throws InvalidSearchFilterException;
+    }
+
+    /**
+     * Encodes and writes a request.
+     *
+     * @param request Protocol operation of the request
+     * @param controls Request controls, may be {@code null}
+     * @param flush Whether to send the buffered requests right away
+     * @param response Whether the server responds to the request
+     * @return Operation receiving the responses, {@code null} if the server
+     * does not respond
+     */
+    private Operation send(Request request, Control[] controls, boolean flush,
+            boolean response) throws NamingException {
+        NamingException failed = failure;
+        if (failed != null) {
+            throw failed;
+        }
+        int id = messageIds.updateAndGet(i -> i == Integer.MAX_VALUE ? 1 : i + 1);
+        BerEncoder encoder = new BerEncoder(BerBufferPool.SHARED);
+        try {
+            encoder.beginSequence(BerEncoder.SEQUENCE).writeInt(id);
+            request.encode(encoder);
+            encodeControls(encoder, controls);
+            encoder.endSequence();
+
+            Operation op = response ? new Operation(id) : null;
+            if (op != null) {
+                operations.put(id, op);
+                if (failure != null) {
+                    // Failed concurrently, after the operations were notified
+                    operations.remove(id);
+                    throw failure;
+                }
+            }
+            try {
+                synchronized (out) {
+                    encoder.writeTo(out);
+                    if (flush) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException ex) {
+                operations.remove(id);
+                fail(ex);
+                throw failure;
+            }
+            return op;
+        } finally {
+            encoder.release();
+        }
+    }
+
+    private static void encodeControls(BerEncoder encoder, Control[] controls) {
+        if (controls == null || controls.length == 0) {
+            return;
+        }
+        encoder.beginSequence(CONTROLS);
+        for (Control control : controls) {
+            encoder.beginSequence(BerEncoder.SEQUENCE);
+            encoder.writeString(control.getID());
+            if (control.isCritical()) {
+                encoder.writeBoolean(BerEncoder.BOOLEAN, true);
+            }
+            if (control.getEncodedValue() != null) {
+                encoder.writeOctets(BerEncoder.OCTET_STRING, control.getEncodedValue());
+            }
+            encoder.endSequence();
+        }
+        encoder.endSequence();
+    }
+
+    private void abandon(int id) {
+        if (operations.remove(id) == null || failure != null) {
+            return;
+        }
+        try {
+            send(encoder -> encoder.writeInt(ABANDON_REQUEST, id), null,
+                    true, false);
+        } catch (NamingException ex) {
+            LOG.log(Level.FINE, "Failed to abandon operation", ex);
+        }
+    }
+
+    /**
+     * Closes the connection. Outstanding operations fail with a
+     * {@link CommunicationException}.
+     */
+    void close() {
+        if (failure == null) {
+            try {
+                send(encoder -> encoder.writeNull(UNBIND_REQUEST), null,
+                        true, false);
+            } catch (NamingException ex) {
+                LOG.log(Level.FINE, "Failed to unbind", ex);
+            }
+        }
+        fail(new IOException("Connection closed"));
+    }
+
+    private void fail(IOException cause) {
+        synchronized (this) {
+            if (failure == null) {
+                CommunicationException ex = new CommunicationException(cause.getMessage());
+                ex.setRootCause(cause);
+                failure = ex;
+            }
+        }
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Failed to close socket", ex);
+        }
+        for (Operation op : new ArrayList<>(operations.values())) {
+            op.responses.add(failure);
+        }
+        operations.clear();
+    }
+
+    /**
+     * Reads the messages of the server and passes them to their operations.
+     */
+    private void read() {
+        try {
+            while (true) {
+                BerDecoder message = in.next();
+                if (message == null) {
+                    throw new IOException("Connection closed by the server");
+                }
+                message.readSequence(BerEncoder.SEQUENCE);
+                int id = message.readInt();
+                if (id == 0) {
+                    // Unsolicited notification, the only one defined is the
+                    // notice of disconnection
+                    throw new IOException("Connection closed by the server");
+                }
+                int type = message.peekTag();
+                Operation op = type == SEARCH_ENTRY || type == SEARCH_REFERENCE
+                        ? operations.get(id) : operations.remove(id);
+                if (op != null) {
+                    op.responses.add(message);
+                }
+            }
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Outstanding operation, receiving the responses of the server.
+     */
+    class Operation {
+
+        private final int id;
+        /** Undecoded messages, or the failure of the connection. */
+        private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+        private boolean done = false;
+
+        Operation(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Waits for the next response.
+         *
+         * @return Next response
+         * @throws NamingException If the connection failed or no response was
+         * received within the read timeout
+         */
+        Response next() throws NamingException {
+            if (done) {
+                throw new IllegalStateException("Operation is complete");
+            }
+            Object next;
+            try {
+                next = readTimeout > 0
+                        ? responses.poll(readTimeout, TimeUnit.MILLISECONDS)
+                        : responses.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                abandon();
+                throw new InterruptedNamingException("Interrupted while waiting for the server");
+            }
+            if (next == null) {
+                abandon();
+                throw new NamingException("LDAP response read timed out, timeout used: "
+                        + readTimeout + " ms.");
+            } else if (next instanceof NamingException) {
+                done = true;
+                throw (NamingException) next;
+            }
+            try {
+                Response response = decode((BerDecoder) next);
+                done = response.isFinal();
+                return response;
+            } catch (IOException ex) {
+                // The connection state is unknown after a malformed message
+                fail(ex);
+                done = true;
+                throw failure;
+            }
+        }
+
+        /**
+         * Abandons the operation if it is not complete yet.
+         */
+        void abandon() {
+            if (!done) {
+                done = true;
+                PipelinedConnection.this.abandon(id);
+            }
+        }
+    }
+
+    private Response decode(BerDecoder message) throws IOException {
+        int type = message.peekTag();
+        int end = message.readSequence(-1);
+        Response response;
+        switch (type) {
+            case SEARCH_ENTRY:
+                response = new Response(type, message.readString(),
+                        decodeAttributes(message), null);
+                break;
+            case SEARCH_REFERENCE:
+                List<String> urls = new ArrayList<>();
+                while (message.position() < end) {
+                    urls.add(message.readString());
+                }
+                response = new Response(type, null, null, urls);
+                break;
+            case BIND_RESPONSE:
+            case SEARCH_DONE:
+            case EXTENDED_RESPONSE:
+                response = new Response(type, message.readEnumerated(),
+                        message.readString(), message.readString());
+                if (message.position() < end && message.peekTag() == REFERRAL) {
+                    int referralEnd = message.readSequence(REFERRAL);
+                    List<String> referrals = new ArrayList<>();
+                    while (message.position() < referralEnd) {
+                        referrals.add(message.readString());
+                    }
+                    response.referrals = referrals;
+                }
+                break;
+            default:
+                throw new IOException(String.format("Unexpected response 0x%02x", type));
+        }
+        // Skip trailing elements like server SASL credentials
+        while (message.position() < end) {
+            message.skip();
+        }
+        if (message.hasRemaining() && message.peekTag() == CONTROLS) {
+            response.controls = decodeControls(message);
+        }
+        return response;
+    }
+
+    private Attributes decodeAttributes(BerDecoder message) throws IOException {
+        Attributes attributes = new BasicAttributes(true);
+        int end = message.readSequence(BerEncoder.SEQUENCE);
+        while (message.position() < end) {
+            message.readSequence(BerEncoder.SEQUENCE);
+            int length = message.skipContent(BerEncoder.OCTET_STRING);
+            AttributeId id = decodeAttributeId(message.array(),
+                    message.position() - length, length);
+            BerAttribute attribute = new BerAttribute(id.name, id.binary,
+                    message.array());
+            int valuesEnd = message.readSequence(BerEncoder.SET);
+            while (message.position() < valuesEnd) {
+                length = message.skipContent(BerEncoder.OCTET_STRING);
+                attribute.addValue(message.position() - length, length);
+            }
+            attributes.put(attribute);
+        }
+        return attributes;
+    }
+
+    /**
+     * Decodes an attribute description. Every entry repeats the same few
+     * descriptions, so they are decoded once and looked up by their encoding
+     * afterwards. Colliding descriptions replace each other.
+     */
+    private AttributeId decodeAttributeId(byte[] buffer, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (ATTRIBUTE_ID_SLOTS - 1);
+        // Racy, but the descriptions are immutable
+        AttributeId id = attributeIds[slot];
+        if (id == null || !id.matches(buffer, offset, length)) {
+            String name = new String(buffer, offset, length, StandardCharsets.UTF_8);
+            id = new AttributeId(name, isBinary(name),
+                    Arrays.copyOfRange(buffer, offset, offset + length));
+            attributeIds[slot] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Decoded attribute description.
+     */
+    private static class AttributeId {
+
+        private final String name;
+        private final boolean binary;
+        private final byte[] encoded;
+
+        AttributeId(String name, boolean binary, byte[] encoded) {
+            this.name = name;
+            this.binary = binary;
+            this.encoded = encoded;
+        }
+
+        boolean matches(byte[] buffer, int offset, int length) {
+            if (length != encoded.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer[offset + i] != encoded[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private boolean isBinary(String id) {
+        String lower = id.toLowerCase(Locale.ROOT);
+        return lower.endsWith(";binary") || binaryAttributes.contains(lower);
+    }
+
+    private static Control[] decodeControls(BerDecoder message) throws IOException {
+        List<Control> controls = new ArrayList<>();
+        int end = message.readSequence(CONTROLS);
+        while (message.position() < end) {
+            int controlEnd = message.readSequence(BerEncoder.SEQUENCE);
+            String oid = message.readString();
+            boolean critical = false;
+            byte[] value = null;
+            if (message.position() < controlEnd
+                    && message.peekTag() == BerEncoder.BOOLEAN) {
+                critical = message.readBoolean(BerEncoder.BOOLEAN);
+            }
+            if (message.position() < controlEnd) {
+                value = message.readOctets(BerEncoder.OCTET_STRING);
+            }
+            if (PagedResultsResponseControl.OID.equals(oid)) {
+                controls.add(new PagedResultsResponseControl(oid, critical, value));
+            } else {
+                controls.add(new BasicControl(oid, critical, value));
+            }
+        }
+        return controls.toArray(new Control[0]);
+    }
+
+    /**
+     * Decoded response of the server.
+     */
+    static class Response {
+
+        private final int type;
+        private final String dn;
+        private final Attributes attributes;
+        private final int resultCode;
+        private final String message;
+        private List<String> referrals;
+        private Control[] controls = null;
+
+        Response(int type, String dn, Attributes attributes, List<String> urls) {
+            this.type = type;
+            this.dn = dn;
+            this.attributes = attributes;
+            this.referrals = urls;
+            this.resultCode = 0;
+            this.message = null;
+        }
+
+        Response(int type, int resultCode, String matchedDn, String message) {
+            this.type = type;
+            this.dn = matchedDn;
+            this.attributes = null;
+            this.resultCode = resultCode;
+            this.message = message;
+        }
+
+        /**
+         * @return Protocol operation tag of the response
+         */
+        int getType() {
+            return type;
+        }
+
+        /**
+         * @return {@code true} if no further responses follow
+         */
+        boolean isFinal() {
+            return type != SEARCH_ENTRY && type != SEARCH_REFERENCE;
+        }
+
+        /**
+         * @return Name of the entry, or the matched name of a result
+         */
+        String getDn() {
+            return dn;
+        }
+
+        Attributes getAttributes() {
+            return attributes;
+        }
+
+        int getResultCode() {
+            return resultCode;
+        }
+
+        List<String> getReferrals() {
+            return referrals == null ? Collections.emptyList() : referrals;
+        }
+
+        Control[] getControls() {
+            return controls;
+        }
+
+        /**
+         * Maps the result to the exception JNDI throws for it.
+         *
+         * @return Exception describing the failed result
+         */
+        NamingException toException() {
+            String text = "[LDAP: error code " + resultCode
+                    + (message == null || message.isEmpty() ? "" : " - " + message)
+                    + "]";
+            NamingException ex;
+            switch (resultCode) {
+                case 2:
+                    ex = new CommunicationException(text);
+                    break;
+                case 3:
+                    ex = new TimeLimitExceededException(text);
+                    break;
+                case 4:
+                    ex = new SizeLimitExceededException(text);
+                    break;
+                case 7:
+                case 8:
+                case 13:
+                    ex = new AuthenticationNotSupportedException(text);
+                    break;
+                case 11:
+                    ex = new LimitExceededException(text);
+                    break;
+                case 12:
+                case 53:
+                    ex = new OperationNotSupportedException(text);
+                    break;
+                case 16:
+                    ex = new NoSuchAttributeException(text);
+                    break;
+                case 17:
+                    ex = new InvalidAttributeIdentifierException(text);
+                    break;
+                case 18:
+                    ex = new InvalidSearchFilterException(text);
+                    break;
+                case 21:
+                    ex = new InvalidAttributeValueException(text);
+                    break;
+                case 32:
+                    ex = new NameNotFoundException(text);
+                    break;
+                case 34:
+                    ex = new InvalidNameException(text);
+                    break;
+                case 48:
+                case 49:
+                    ex = new AuthenticationException(text);
+                    break;
+                case 50:
+                    ex = new NoPermissionException(text);
+                    break;
+                case 51:
+                case 52:
+                    ex = new ServiceUnavailableException(text);
+                    break;
+                default:
+                    ex = new NamingException(text);
+            }
+            return ex;
+        }
+    }
+}
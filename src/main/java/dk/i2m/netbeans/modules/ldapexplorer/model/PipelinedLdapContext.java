@@ -0,0 +1,639 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.Binding;
+import javax.naming.Context;
+import javax.naming.Name;
+import javax.naming.NameClassPair;
+import javax.naming.NameParser;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.OperationNotSupportedException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.ExtendedRequest;
+import javax.naming.ldap.ExtendedResponse;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+
+/**
+ * {@link LdapContext} issuing its operations on a shared
+ * {@link PipelinedConnection}.
+ *
+ * <p>Contexts are cheap handles, closing one leaves the connection open for
+ * the other contexts. Searches and attribute reads are supported, the
+ * explorer does not use other operations.</p>
+ */
+class PipelinedLdapContext implements LdapContext {
+
+    private static final Logger LOG = Logger.getLogger(PipelinedLdapContext.class.getName());
+
+    private static final String DEREF_ALIASES = "java.naming.ldap.derefAliases";
+    private static final int RESULT_REFERRAL = 10;
+
+    private final PipelinedConnection connection;
+    private final Hashtable<Object, Object> environment;
+    private Control[] requestControls = null;
+    private volatile Control[] responseControls = null;
+    private volatile boolean closed = false;
+
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    PipelinedLdapContext(PipelinedConnection connection, Hashtable<?, ?> environment) {
+        this.connection = connection;
+        this.environment = new Hashtable<>(environment);
+    }
+
+    /**
+     * @return Connection carrying the operations of this context
+     */
+    PipelinedConnection getConnection() {
+        return connection;
+    }
+
+    private void ensureOpen() throws NamingException {
+        if (closed) {
+            throw new NamingException("Context is closed");
+        }
+    }
+
+    private int getDerefAliases() {
+        Object deref = environment.get(DEREF_ALIASES);
+        if ("never".equals(deref)) {
+            return 0;
+        } else if ("searching".equals(deref)) {
+            return 1;
+        } else if ("finding".equals(deref)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private boolean isThrowingReferrals() {
+        return "throw".equals(environment.get(Context.REFERRAL));
+    }
+
+    /**
+     * Throws the failure of a final response. In the {@code "throw"}
+     * referral mode the referrals of the operation are thrown once its
+     * entries are passed, like JNDI does, otherwise a referral fails the
+     * operation like any other result code.
+     *
+     * @param references Continuation references received before the final
+     * response, {@code null} if none
+     */
+    private void checkResult(PipelinedConnection.Response response,
+            List<List<String>> references) throws NamingException {
+        boolean referred = response.getResultCode() == RESULT_REFERRAL
+                && isThrowingReferrals();
+        if (response.getResultCode() != 0 && !referred) {
+            throw response.toException();
+        }
+        if (referred) {
+            List<List<String>> all = references == null
+                    ? new ArrayList<>() : references;
+            all.add(response.getReferrals());
+            throw new PipelinedReferralException(
+                    response.toException().getMessage(), all);
+        }
+        if (references != null) {
+            throw new PipelinedReferralException(
+                    "Continuation references received", references);
+        }
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(String name, String filter,
+            SearchControls cons) throws NamingException {
+        ensureOpen();
+        SearchControls controls = cons == null ? new SearchControls() : cons;
+        int timeLimit = (controls.getTimeLimit() + 999) / 1000;
+        PipelinedConnection.Operation op = connection.search(name,
+                controls.getSearchScope(), getDerefAliases(),
+                (int) controls.getCountLimit(), timeLimit, filter,
+                controls.getReturningAttributes(), requestControls);
+        return new Results(op, name);
+    }
+
+    @Override
+    public Attributes getAttributes(String name, String[] attrIds) throws NamingException {
+        ensureOpen();
+        return collect(connection.search(name, SearchControls.OBJECT_SCOPE,
+                getDerefAliases(), 0, 0, "(objectClass=*)", attrIds,
+                requestControls));
+    }
+
+    /**
+     * Reads the attributes of several entries. All requests are sent before
+     * the first response is awaited, so that the entries are read in a
+     * single round trip.
+     *
+     * @param names Distinguished names of the entries
+     * @param attrIds Attributes to read, {@code null} for all user attributes
+     * @return Attributes of the entries in the order of the names
+     * @throws NamingException If any entry could not be read
+     */
+    List<Attributes> getAttributes(List<String> names, String[] attrIds)
+            throws NamingException {
+        ensureOpen();
+        List<PipelinedConnection.Operation> reads = connection.read(names, attrIds);
+        List<Attributes> result = new ArrayList<>(reads.size());
+        try {
+            for (PipelinedConnection.Operation op : reads) {
+                result.add(collect(op));
+            }
+        } finally {
+            for (PipelinedConnection.Operation op : reads) {
+                op.abandon();
+            }
+        }
+        return result;
+    }
+
+    private Attributes collect(PipelinedConnection.Operation op) throws NamingException {
+        Attributes attributes = null;
+        while (true) {
+            PipelinedConnection.Response response = op.next();
+            if (response.getType() == PipelinedConnection.SEARCH_ENTRY) {
+                attributes = response.getAttributes();
+            } else if (response.isFinal()) {
+                responseControls = response.getControls();
+                checkResult(response, null);
+                return attributes != null ? attributes : new BasicAttributes(true);
+            }
+        }
+    }
+
+    /**
+     * Converts a distinguished name into a name relative to the search base,
+     * as returned by {@link SearchResult#getName()}.
+     */
+    static String relativeName(String dn, String base) {
+        if (base == null || base.isEmpty()) {
+            return dn;
+        }
+        if (dn.length() > base.length()
+                && dn.regionMatches(true, dn.length() - base.length(), base, 0, base.length())
+                && dn.charAt(dn.length() - base.length() - 1) == ',') {
+            return dn.substring(0, dn.length() - base.length() - 1);
+        }
+        return dn.equalsIgnoreCase(base) ? "" : dn;
+    }
+
+    /**
+     * Results of a search, received as they are consumed.
+     */
+    private class Results implements NamingEnumeration<SearchResult> {
+
+        private final PipelinedConnection.Operation op;
+        private final String base;
+        private SearchResult next = null;
+        private List<List<String>> references = null;
+        private boolean done = false;
+
+        Results(PipelinedConnection.Operation op, String base) {
+            this.op = op;
+            this.base = base;
+        }
+
+        @Override
+        public boolean hasMore() throws NamingException {
+            while (next == null && !done) {
+                PipelinedConnection.Response response = op.next();
+                switch (response.getType()) {
+                    case PipelinedConnection.SEARCH_ENTRY:
+                        String dn = response.getDn();
+                        next = new SearchResult(relativeName(dn, base), null,
+                                response.getAttributes());
+                        next.setNameInNamespace(dn);
+                        break;
+                    case PipelinedConnection.SEARCH_REFERENCE:
+                        if (!isThrowingReferrals()) {
+                            LOG.log(Level.FINE, "Ignoring continuation reference {0}",
+                                    response.getReferrals());
+                        } else {
+                            if (references == null) {
+                                references = new ArrayList<>();
+                            }
+                            references.add(response.getReferrals());
+                        }
+                        break;
+                    default:
+                        done = true;
+                        responseControls = response.getControls();
+                        checkResult(response, references);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public SearchResult next() throws NamingException {
+            if (!hasMore()) {
+                throw new NoSuchElementException();
+            }
+            SearchResult result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            try {
+                return hasMore();
+            } catch (NamingException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public SearchResult nextElement() {
+            try {
+                return next();
+            } catch (NamingException ex) {
+                NoSuchElementException nse = new NoSuchElementException(ex.getMessage());
+                nse.initCause(ex);
+                throw nse;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!done) {
+                done = true;
+                op.abandon();
+            }
+        }
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(String name, String filterExpr,
+            Object[] filterArgs, SearchControls cons) throws NamingException {
+        StringBuilder filter = new StringBuilder();
+        int from = 0;
+        for (int i = filterExpr.indexOf('{'); i >= 0; i = filterExpr.indexOf('{', from)) {
+            int end = filterExpr.indexOf('}', i);
+            filter.append(filterExpr, from, i);
+            Object arg = filterArgs[Integer.parseInt(filterExpr.substring(i + 1, end))];
+            filter.append(escape(arg));
+            from = end + 1;
+        }
+        filter.append(filterExpr.substring(from));
+        return search(name, filter.toString(), cons);
+    }
+
+    private static String escape(Object value) {
+        StringBuilder escaped = new StringBuilder();
+        if (value instanceof byte[]) {
+            for (byte b : (byte[]) value) {
+                escaped.append(String.format(Locale.ROOT, "\\%02x", b & 0xff));
+            }
+            return escaped.toString();
+        }
+        for (char c : String.valueOf(value).toCharArray()) {
+            if (c == '*' || c == '(' || c == ')' || c == '\\' || c == 0) {
+                escaped.append(String.format(Locale.ROOT, "\\%02x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(Name name, String filter,
+            SearchControls cons) throws NamingException {
+        return search(name.toString(), filter, cons);
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(Name name, String filterExpr,
+            Object[] filterArgs, SearchControls cons) throws NamingException {
+        return search(name.toString(), filterExpr, filterArgs, cons);
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(String name,
+            Attributes matchingAttributes, String[] attributesToReturn)
+            throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(Name name,
+            Attributes matchingAttributes, String[] attributesToReturn)
+            throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(String name,
+            Attributes matchingAttributes) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<SearchResult> search(Name name,
+            Attributes matchingAttributes) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Attributes getAttributes(String name) throws NamingException {
+        return getAttributes(name, (String[]) null);
+    }
+
+    @Override
+    public Attributes getAttributes(Name name) throws NamingException {
+        return getAttributes(name.toString());
+    }
+
+    @Override
+    public Attributes getAttributes(Name name, String[] attrIds) throws NamingException {
+        return getAttributes(name.toString(), attrIds);
+    }
+
+    @Override
+    public void setRequestControls(Control[] requestControls) throws NamingException {
+        this.requestControls = requestControls == null ? null : requestControls.clone();
+    }
+
+    @Override
+    public Control[] getRequestControls() throws NamingException {
+        return requestControls == null ? null : requestControls.clone();
+    }
+
+    @Override
+    public Control[] getResponseControls() throws NamingException {
+        Control[] controls = responseControls;
+        return controls == null ? null : controls.clone();
+    }
+
+    @Override
+    public Control[] getConnectControls() throws NamingException {
+        return null;
+    }
+
+    @Override
+    public LdapContext newInstance(Control[] requestControls) throws NamingException {
+        ensureOpen();
+        PipelinedLdapContext ctx = new PipelinedLdapContext(connection, environment);
+        ctx.setRequestControls(requestControls);
+        return ctx;
+    }
+
+    @Override
+    public void reconnect(Control[] connCtls) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public ExtendedResponse extendedOperation(ExtendedRequest request) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Hashtable<?, ?> getEnvironment() throws NamingException {
+        return (Hashtable<?, ?>) environment.clone();
+    }
+
+    @Override
+    public Object addToEnvironment(String propName, Object propVal) throws NamingException {
+        return environment.put(propName, propVal);
+    }
+
+    @Override
+    public Object removeFromEnvironment(String propName) throws NamingException {
+        return environment.remove(propName);
+    }
+
+    @Override
+    public void close() throws NamingException {
+        closed = true;
+    }
+
+    @Override
+    public String getNameInNamespace() throws NamingException {
+        return "";
+    }
+
+    @Override
+    public String composeName(String name, String prefix) throws NamingException {
+        if (prefix == null || prefix.isEmpty()) {
+            return name;
+        } else if (name == null || name.isEmpty()) {
+            return prefix;
+        }
+        return name + "," + prefix;
+    }
+
+    @Override
+    public Name composeName(Name name, Name prefix) throws NamingException {
+        return ((Name) prefix.clone()).addAll(name);
+    }
+
+    @Override
+    public NameParser getNameParser(String name) throws NamingException {
+        return LdapName::new;
+    }
+
+    @Override
+    public NameParser getNameParser(Name name) throws NamingException {
+        return getNameParser(name.toString());
+    }
+
+    @Override
+    public Object lookup(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Object lookup(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Object lookupLink(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Object lookupLink(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<NameClassPair> list(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<NameClassPair> list(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<Binding> listBindings(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public NamingEnumeration<Binding> listBindings(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void bind(Name name, Object obj) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void bind(String name, Object obj) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void bind(Name name, Object obj, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void bind(String name, Object obj, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rebind(Name name, Object obj) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rebind(String name, Object obj) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rebind(Name name, Object obj, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rebind(String name, Object obj, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void unbind(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void unbind(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rename(Name oldName, Name newName) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void rename(String oldName, String newName) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void destroySubcontext(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void destroySubcontext(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Context createSubcontext(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public Context createSubcontext(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext createSubcontext(Name name, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext createSubcontext(String name, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void modifyAttributes(Name name, int modOp, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void modifyAttributes(String name, int modOp, Attributes attrs) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void modifyAttributes(Name name, ModificationItem[] mods) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public void modifyAttributes(String name, ModificationItem[] mods) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext getSchema(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext getSchema(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext getSchemaClassDefinition(Name name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+
+    @Override
+    public DirContext getSchemaClassDefinition(String name) throws NamingException {
+        throw new OperationNotSupportedException();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.OperationNotSupportedException;
+import javax.naming.ReferralException;
+
+/**
+ * Referrals received by the {@link Transport#PIPELINED} transport in the
+ * {@code "throw"} referral mode, the continuation references of a search or
+ * the referral of an operation on an entry held by another server.
+ *
+ * <p>Unlike JNDI, which hands out one reference per exception and chains
+ * the others, the exception carries all references at once. The transport
+ * does not open connections of its own, so the references are chased by
+ * {@link ReferralChaser} and {@link #getReferralContext()} is not
+ * supported.</p>
+ */
+class PipelinedReferralException extends ReferralException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<List<String>> references;
+    private int reference = 0;
+    private int alternative = 0;
+
+    /**
+     * Creates a new {@link PipelinedReferralException}.
+     *
+     * @param message Diagnostic message
+     * @param references URLs of the references, each with its alternatives
+     */
+    PipelinedReferralException(String message, List<List<String>> references) {
+        super(message);
+        this.references = references;
+    }
+
+    /**
+     * Gets the URLs of the references.
+     *
+     * @return References, each a list of alternative URLs
+     */
+    List<List<String>> getReferences() {
+        return Collections.unmodifiableList(references);
+    }
+
+    @Override
+    public Object getReferralInfo() {
+        if (reference < references.size()
+                && alternative < references.get(reference).size()) {
+            return references.get(reference).get(alternative);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean skipReferral() {
+        if (reference >= references.size()) {
+            return false;
+        }
+        if (++alternative >= references.get(reference).size()) {
+            reference++;
+            alternative = 0;
+        }
+        return reference < references.size();
+    }
+
+    @Override
+    public void retryReferral() {
+    }
+
+    @Override
+    public Context getReferralContext() throws NamingException {
+        throw new OperationNotSupportedException(
+                "Referrals of the pipelined transport are not followed");
+    }
+
+    @Override
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    public Context getReferralContext(Hashtable<?, ?> env) throws NamingException {
+        return getReferralContext();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.naming.Context;
+import javax.naming.InterruptedNamingException;
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
+import javax.naming.ldap.LdapContext;
+
+/**
+ * {@link LdapTransport} handing out contexts that share one
+ * {@link PipelinedConnection} per server, e.g. per replica or per referred
+ * server. A broken connection is replaced when the next context is opened.
+ * Connections are opened outside the lock of the transport, so that a server
+ * that does not answer only delays the contexts of that server.
+ */
+class PipelinedTransport implements LdapTransport {
+
+    /** Connections by the URL of their server, completed once open. */
+    private final Map<String, CompletableFuture<PipelinedConnection>> connections
+            = new HashMap<>();
+    private boolean closed = false;
+
+    @Override
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    public LdapContext connect(Hashtable<String, String> env) throws NamingException {
+        String url = String.valueOf(env.get(Context.PROVIDER_URL));
+        CompletableFuture<PipelinedConnection> shared;
+        boolean opening = false;
+        synchronized (this) {
+            if (closed) {
+                throw new NamingException("Transport is closed");
+            }
+            shared = connections.get(url);
+            if (shared == null || shared.isDone() && !shared.join().isOpen()) {
+                // Failed opens are removed, a completed one is open or broken
+                shared = new CompletableFuture<>();
+                connections.put(url, shared);
+                opening = true;
+            }
+        }
+        PipelinedConnection connection = opening ? open(url, env, shared)
+                : await(shared);
+        return new PipelinedLdapContext(connection, env);
+    }
+
+    /**
+     * Opens the connection to a server and completes the future the other
+     * contexts of the server wait for.
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    private PipelinedConnection open(String url, Hashtable<String, String> env,
+            CompletableFuture<PipelinedConnection> shared) throws NamingException {
+        PipelinedConnection connection;
+        try {
+            connection = PipelinedConnection.open(env);
+        } catch (NamingException | RuntimeException ex) {
+            synchronized (this) {
+                connections.remove(url, shared);
+            }
+            shared.completeExceptionally(ex);
+            throw ex;
+        }
+        synchronized (this) {
+            // Completed under the lock, so that close() sees the connection
+            if (!closed) {
+                shared.complete(connection);
+                return connection;
+            }
+        }
+        // Closed while connecting
+        connection.close();
+        NamingException ex = new NamingException("Transport is closed");
+        shared.completeExceptionally(ex);
+        throw ex;
+    }
+
+    private static PipelinedConnection await(
+            CompletableFuture<PipelinedConnection> shared) throws NamingException {
+        try {
+            return shared.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            InterruptedNamingException ine = new InterruptedNamingException(
+                    "Interrupted while connecting");
+            ine.setRootCause(ex);
+            throw ine;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof NamingException) {
+                throw (NamingException) ex.getCause();
+            }
+            NamingException ne = new NamingException(ex.getCause().getMessage());
+            ne.setRootCause(ex.getCause());
+            throw ne;
+        }
+    }
+
+    @Override
+    public List<Attributes> getAttributes(LdapContext ctx, List<String> names,
+            String[] attrIds) throws NamingException {
+        if (ctx instanceof PipelinedLdapContext) {
+            return ((PipelinedLdapContext) ctx).getAttributes(names, attrIds);
+        }
+        return LdapTransport.super.getAttributes(ctx, names, attrIds);
+    }
+
+    @Override
+    public void close() {
+        List<CompletableFuture<PipelinedConnection>> open;
+        synchronized (this) {
+            closed = true;
+            open = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+        // Connections still opening are closed by their opener
+        for (CompletableFuture<PipelinedConnection> connection : open) {
+            if (connection.isDone() && !connection.isCompletedExceptionally()) {
+                connection.join().close();
+            }
+        }
+    }
+}
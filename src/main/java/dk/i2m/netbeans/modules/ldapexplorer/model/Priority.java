@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Priority of an operation on an {@link LdapServer}. Waiting operations are
+ * admitted in the order of their priority, operations of the same priority
+ * in the order they were started.
+ */
+public enum Priority {
+
+    /** Answers a user waiting for it, e.g. showing the selected entry. */
+    INTERACTIVE,
+    /** Lists the children of a node the user expanded. */
+    VISIBLE_EXPAND,
+    /**
+     * Fetches data before the user asks for it. Background operations never
+     * take the last free slot of a server and yield between pages to
+     * operations of a higher priority.
+     */
+    PREFETCH,
+    /**
+     * Processes many entries, e.g. an export. Runs like {@link #PREFETCH},
+     * after it.
+     */
+    BULK;
+
+    /**
+     * Determines if operations of this priority run in the background and
+     * give way to the operations of the user.
+     *
+     * @return {@code true} for {@link #PREFETCH} and {@link #BULK}
+     */
+    public boolean isBackground() {
+        return this == PREFETCH || this == BULK;
+    }
+}
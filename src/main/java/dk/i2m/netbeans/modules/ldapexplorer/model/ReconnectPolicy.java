@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.naming.ServiceUnavailableException;
+
+/**
+ * Decides when an {@link LdapServer} is contacted again after a
+ * communication failure. This is the single place defining how operations
+ * and the {@link HealthMonitor} reconnect.
+ *
+ * <p>The first retry of an operation runs right away, as a connection
+ * dropped while idle is the common cause. Further retries wait for an
+ * exponentially growing delay with jitter, so that many explorers do not
+ * reconnect to a restarting server in lockstep. After
+ * {@code failureThreshold} consecutive failures the circuit opens and
+ * operations fail right away instead of each waiting for the connect
+ * timeout. Once the cooldown passed a single trial is let through, its
+ * success closes the circuit, its failure opens it again for a longer
+ * cooldown.</p>
+ */
+class ReconnectPolicy {
+
+    /** Retries of an operation failing with a communication error. */
+    static final int MAX_RETRIES = 2;
+    /** Delay in milliseconds before the second retry. */
+    static final long BASE_DELAY = 250;
+    /** Maximum delay in milliseconds between two attempts. */
+    static final long MAX_DELAY = 30000;
+    /** Consecutive failures opening the circuit. */
+    static final int FAILURE_THRESHOLD = 3;
+
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxRetries;
+    private final int failureThreshold;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private CircuitState state = CircuitState.CLOSED;
+    private int failures = 0;
+    /** End of the cooldown, or of the current trial when half open. */
+    private long openUntil = 0;
+    private long retries = 0;
+    private long rejected = 0;
+
+    /**
+     * Waits for the backoff delay of a retry.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+
+        /**
+         * Waits for the given delay.
+         *
+         * @param millis Delay in milliseconds
+         * @throws InterruptedException If interrupted while waiting
+         */
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Creates a new {@link ReconnectPolicy} with the default delays and
+     * thresholds.
+     */
+    ReconnectPolicy() {
+        this(BASE_DELAY, MAX_DELAY, MAX_RETRIES, FAILURE_THRESHOLD,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()),
+                Thread::sleep);
+    }
+
+    /**
+     * Creates a new {@link ReconnectPolicy}.
+     *
+     * @param baseDelay Delay in milliseconds before the second retry
+     * @param maxDelay Maximum delay in milliseconds between two attempts
+     * @param maxRetries Retries of an operation
+     * @param failureThreshold Consecutive failures opening the circuit
+     * @param clock Current time in milliseconds
+     * @param sleeper Waits for the backoff delay of a retry
+     */
+    ReconnectPolicy(long baseDelay, long maxDelay, int maxRetries,
+            int failureThreshold, LongSupplier clock, Sleeper sleeper) {
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxRetries = maxRetries;
+        this.failureThreshold = failureThreshold;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Gets the delay before the given attempt. The delay doubles with every
+     * attempt up to the maximum delay, and is randomly shortened by up to
+     * half.
+     *
+     * @param attempt Number of the attempt, {@code 0} for the first retry
+     * which does not wait
+     * @return Delay in milliseconds
+     */
+    long getDelay(int attempt) {
+        if (attempt <= 0) {
+            return 0;
+        }
+        long delay = attempt > 30 ? maxDelay
+                : Math.min(maxDelay, baseDelay << (attempt - 1));
+        return delay - ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Checks that the server may be contacted. When the cooldown of an open
+     * circuit passed the calling operation becomes the trial.
+     *
+     * @throws ServiceUnavailableException If the circuit is open, or the
+     * trial of a half open circuit is running
+     */
+    synchronized void checkAvailable() throws ServiceUnavailableException {
+        if (state == CircuitState.CLOSED) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (now >= openUntil) {
+            // A trial that did not report back within the cooldown does not
+            // keep the circuit half open forever
+            state = CircuitState.HALF_OPEN;
+            openUntil = now + getDelay(failures);
+            return;
+        }
+        rejected++;
+        throw new ServiceUnavailableException(String.format(
+                "The server failed %d times, next attempt in %d s", failures,
+                TimeUnit.MILLISECONDS.toSeconds(openUntil - now + 999)));
+    }
+
+    /**
+     * Records that the server answered, closing the circuit.
+     */
+    synchronized void succeeded() {
+        failures = 0;
+        state = CircuitState.CLOSED;
+    }
+
+    /**
+     * Records a communication failure, opening the circuit after
+     * {@code failureThreshold} consecutive failures or when the trial of a
+     * half open circuit failed.
+     */
+    synchronized void failed() {
+        failures++;
+        if (state == CircuitState.HALF_OPEN || failures >= failureThreshold) {
+            state = CircuitState.OPEN;
+            openUntil = clock.getAsLong() + getDelay(failures);
+        }
+    }
+
+    /**
+     * Records a communication failure of an operation and decides whether it
+     * is tried again on a fresh connection. Waits for the backoff delay of
+     * the attempt before returning.
+     *
+     * @param attempt Number of the failed attempt, {@code 1} for the first
+     * @return {@code true} if the operation should be tried again
+     * @throws InterruptedException If interrupted while waiting
+     */
+    boolean retry(int attempt) throws InterruptedException {
+        long delay;
+        synchronized (this) {
+            failed();
+            if (attempt > maxRetries || state == CircuitState.OPEN) {
+                return false;
+            }
+            retries++;
+            delay = getDelay(attempt - 1);
+        }
+        if (delay > 0) {
+            sleeper.sleep(delay);
+        }
+        return true;
+    }
+
+    synchronized CircuitState getState() {
+        return state;
+    }
+
+    synchronized int getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Number of operations tried again after a communication failure
+     */
+    synchronized long getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return Number of operations failed right away by the open circuit
+     */
+    synchronized long getRejected() {
+        return rejected;
+    }
+}
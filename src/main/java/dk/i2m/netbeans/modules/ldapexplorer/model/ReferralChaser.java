@@ -0,0 +1,643 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.CommunicationException;
+import javax.naming.InvalidNameException;
+import javax.naming.LimitExceededException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.ReferralException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapContext;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Chases the referrals of the {@code "throw"} referral mode.
+ *
+ * <p>JNDI following referrals opens a connection for every referral, one
+ * after the other, and closes it afterwards, so that searches in a directory
+ * partitioned across servers are dominated by connecting and binding. The
+ * chaser keeps a {@link LdapConnectionPool} per referred server as long as
+ * the directory is connected, and searches the continuation references of a
+ * search concurrently, at most {@link #MAX_PARALLEL} at a time. The results
+ * are handed to the calling thread, which merges them into the results of
+ * the search.</p>
+ */
+class ReferralChaser {
+
+    /** Maximum number of referrals followed in a row, the default of JNDI. */
+    static final int MAX_HOPS = 10;
+    /** Maximum number of references of a search chased at the same time. */
+    static final int MAX_PARALLEL = 4;
+    /** Number of results buffered for the calling thread. */
+    private static final int QUEUE_CAPACITY = 1000;
+    /** Interval in milliseconds cancellation is checked while waiting. */
+    private static final long POLL_INTERVAL = 100;
+
+    private static final Logger LOG = Logger.getLogger(ReferralChaser.class.getName());
+
+    /** Chases block in their searches, a virtual thread each where available. */
+    private static final Executor CHASES;
+
+    static {
+        Executor virtual = VirtualThreads.newExecutor("LDAP referral");
+        CHASES = virtual != null ? virtual : new RequestProcessor(
+                ReferralChaser.class.getName(), 16, true);
+    }
+
+    /**
+     * Receives the results of the chased searches on the calling thread.
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        /**
+         * Receives a result. Its name is relative to the base of the
+         * original search.
+         *
+         * @param result Result of a chased search
+         * @return {@code false} if no further results are wanted
+         * @throws NamingException If the result could not be processed
+         */
+        boolean accept(SearchResult result) throws NamingException;
+    }
+
+    /**
+     * Referral URL as defined by RFC 4516. The parts absent from the URL are
+     * taken from the referred operation.
+     */
+    static final class Referral {
+
+        private final String server;
+        private final String base;
+        private final int scope;
+        private final String filter;
+
+        private Referral(String server, String base, int scope, String filter) {
+            this.server = server;
+            this.base = base;
+            this.scope = scope;
+            this.filter = filter;
+        }
+
+        /**
+         * Parses a referral URL.
+         *
+         * @param url URL of the referral
+         * @return The referral, {@code null} if the URL is not an LDAP URL
+         * naming a server
+         */
+        static Referral parse(String url) {
+            int separator = url.indexOf("://");
+            if (separator < 0) {
+                return null;
+            }
+            String scheme = url.substring(0, separator).toLowerCase(Locale.ROOT);
+            int defaultPort;
+            switch (scheme) {
+                case "ldap":
+                    defaultPort = 389;
+                    break;
+                case "ldaps":
+                    defaultPort = 636;
+                    break;
+                case "ldapi":
+                    defaultPort = -1;
+                    break;
+                default:
+                    return null;
+            }
+            String rest = url.substring(separator + 3);
+            int slash = rest.indexOf('/');
+            String hostPort = slash < 0 ? rest : rest.substring(0, slash);
+            if (hostPort.isEmpty()) {
+                return null;
+            }
+            if (defaultPort > 0) {
+                hostPort = hostPort.toLowerCase(Locale.ROOT);
+                if (hostPort.lastIndexOf(':') <= hostPort.lastIndexOf(']')) {
+                    hostPort += ":" + defaultPort;
+                }
+            }
+            String[] parts = slash < 0 ? new String[0]
+                    : rest.substring(slash + 1).split("\\?", -1);
+            String base = parts.length > 0 && !parts[0].isEmpty()
+                    ? decode(parts[0]) : null;
+            int scope = parts.length > 2 ? parseScope(parts[2]) : -1;
+            String filter = parts.length > 3 && !parts[3].isEmpty()
+                    ? decode(parts[3]) : null;
+            return new Referral(scheme + "://" + hostPort, base, scope, filter);
+        }
+
+        private static int parseScope(String scope) {
+            switch (scope.toLowerCase(Locale.ROOT)) {
+                case "base":
+                    return SearchControls.OBJECT_SCOPE;
+                case "one":
+                    return SearchControls.ONELEVEL_SCOPE;
+                case "sub":
+                    return SearchControls.SUBTREE_SCOPE;
+                default:
+                    return -1;
+            }
+        }
+
+        /**
+         * Decodes the percent encoded UTF-8 octets of a URL part. Unlike
+         * form encoding a {@code '+'} stands for itself, as it does in
+         * distinguished names.
+         */
+        private static String decode(String part) {
+            if (part.indexOf('%') < 0) {
+                return part;
+            }
+            byte[] encoded = part.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream(encoded.length);
+            for (int i = 0; i < encoded.length; i++) {
+                int high = i + 2 < encoded.length ? Character.digit(encoded[i + 1], 16) : -1;
+                int low = high >= 0 ? Character.digit(encoded[i + 2], 16) : -1;
+                if (encoded[i] == '%' && low >= 0) {
+                    decoded.write(high << 4 | low);
+                    i += 2;
+                } else {
+                    decoded.write(encoded[i]);
+                }
+            }
+            return new String(decoded.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return URL of the referred server, the scheme, host and port
+         */
+        String getServer() {
+            return server;
+        }
+
+        /**
+         * @param base Base of the referred operation
+         * @return Base of the referral, the given base if the URL has none
+         */
+        String getBase(String base) {
+            return this.base != null ? this.base : base;
+        }
+
+        /**
+         * @param scope Scope of the referred search
+         * @return Scope of the referral, the given scope if the URL has none
+         */
+        int getScope(int scope) {
+            return this.scope >= 0 ? this.scope : scope;
+        }
+
+        /**
+         * @param filter Filter of the referred search
+         * @return Filter of the referral, the given filter if the URL has none
+         */
+        String getFilter(String filter) {
+            return this.filter != null ? this.filter : filter;
+        }
+    }
+
+    /**
+     * Reference waiting to be chased.
+     */
+    private static final class Pending {
+
+        private final List<String> urls;
+        private final int hops;
+
+        Pending(List<String> urls, int hops) {
+            this.urls = urls;
+            this.hops = hops;
+        }
+    }
+
+    /**
+     * Message from a chasing thread to the calling thread: a result, the
+     * references returned by a chased search, or the end of a chased search.
+     */
+    private static final class Item {
+
+        private static final Item DONE = new Item(null, null, 0);
+
+        private final SearchResult result;
+        private final List<List<String>> references;
+        private final int hops;
+
+        Item(SearchResult result, List<List<String>> references, int hops) {
+            this.result = result;
+            this.references = references;
+            this.hops = hops;
+        }
+    }
+
+    /**
+     * State of the chase of the references of a search. Only the results
+     * and the stopped flag are shared with the chasing threads.
+     */
+    private static final class Chase {
+
+        private final String base;
+        private final String filter;
+        private final SearchControls controls;
+        private final BlockingQueue<Item> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        private final Set<String> visited = new HashSet<>();
+        private int running = 0;
+        private volatile boolean stopped = false;
+
+        Chase(String base, String filter, SearchControls controls) {
+            this.base = base;
+            this.filter = filter;
+            this.controls = controls;
+        }
+
+        /**
+         * Queues the references not chased before.
+         *
+         * @param hops Number of referrals followed to reach the references
+         */
+        void add(List<List<String>> references, int hops) {
+            for (List<String> urls : references) {
+                boolean seen = urls.isEmpty();
+                for (String url : urls) {
+                    seen |= !visited.add(url.toLowerCase(Locale.ROOT));
+                }
+                if (seen) {
+                    continue;
+                }
+                if (hops > MAX_HOPS) {
+                    LOG.log(Level.WARNING, "Not chasing {0}, more than {1} referrals in a row",
+                            new Object[]{urls, MAX_HOPS});
+                    continue;
+                }
+                pending.add(new Pending(urls, hops));
+            }
+        }
+
+        /**
+         * Passes an item to the calling thread, waiting while the results
+         * are full.
+         *
+         * @return {@code false} if the chase was stopped
+         */
+        boolean put(Item item) {
+            try {
+                while (!stopped) {
+                    if (results.offer(item, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    private final ReplicaPool.PoolFactory factory;
+    private final Executor executor;
+    private final Map<String, LdapConnectionPool> pools = new HashMap<>();
+    private boolean closed = false;
+
+    /**
+     * Creates a new {@link ReferralChaser}.
+     *
+     * @param factory Creates the connection pool of a referred server, the
+     * same way the pools of the replicas are created
+     */
+    ReferralChaser(ReplicaPool.PoolFactory factory) {
+        this(factory, CHASES);
+    }
+
+    /**
+     * Creates a new {@link ReferralChaser}.
+     *
+     * @param factory Creates the connection pool of a referred server
+     * @param executor Executor running the chased searches
+     */
+    ReferralChaser(ReplicaPool.PoolFactory factory, Executor executor) {
+        this.factory = factory;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the references of a referral exception. JNDI hands out a single
+     * reference per exception, and the next one only by throwing it from
+     * {@link ReferralException#getReferralContext()} once the alternatives
+     * of the current one are skipped.
+     *
+     * @param referral Referral exception thrown in the {@code "throw"}
+     * referral mode
+     * @return References, each a list of alternative URLs
+     */
+    static List<List<String>> getReferences(ReferralException referral) {
+        if (referral instanceof PipelinedReferralException) {
+            return ((PipelinedReferralException) referral).getReferences();
+        }
+        List<List<String>> references = new ArrayList<>();
+        ReferralException current = referral;
+        while (current != null) {
+            List<String> urls = new ArrayList<>();
+            boolean more;
+            Object info = current.getReferralInfo();
+            if (info == null) {
+                more = current.skipReferral();
+            } else {
+                do {
+                    urls.add(String.valueOf(info));
+                    more = current.skipReferral();
+                    info = current.getReferralInfo();
+                } while (info != null);
+            }
+            if (!urls.isEmpty()) {
+                references.add(urls);
+            }
+            current = more ? next(current) : null;
+        }
+        return references;
+    }
+
+    /**
+     * Gets the exception of the next reference from a JNDI referral
+     * exception whose alternatives were all skipped.
+     *
+     * @return The next exception, {@code null} if there is none
+     */
+    private static ReferralException next(ReferralException referral) {
+        try {
+            // The first call only clears the skipped state and returns a
+            // context without a referral
+            referral.getReferralContext().close();
+            referral.getReferralContext().close();
+        } catch (ReferralException ex) {
+            return ex;
+        } catch (NamingException ex) {
+            LOG.log(Level.FINE, "No further reference", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Chases the continuation references of a search and the references
+     * the chased searches return in turn. Each reference is chased once,
+     * an alternative URL only if the server of the previous one could not
+     * be reached. References that cannot be chased are logged, so that the
+     * entries of the reachable servers are still shown.
+     *
+     * @param references References, each a list of alternative URLs
+     * @param base Base of the search, used unless a reference names a base
+     * @param filter Filter of the search, used unless a reference names one
+     * @param controls Controls of the search, the scope used unless a
+     * reference names one
+     * @param sink Receives the results on the calling thread
+     * @param canceled Determines if the search was canceled
+     * @throws NamingException If the sink failed
+     * @throws InterruptedException If interrupted while waiting for results
+     */
+    void chase(List<List<String>> references, String base, String filter,
+            SearchControls controls, Sink sink, BooleanSupplier canceled)
+            throws NamingException, InterruptedException {
+        Chase chase = new Chase(base, filter, controls);
+        chase.add(references, 1);
+        try {
+            while (start(chase) > 0) {
+                Item item = chase.results.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (canceled.getAsBoolean()) {
+                    return;
+                }
+                if (item == null) {
+                    continue;
+                }
+                if (item.result != null) {
+                    if (!sink.accept(item.result)) {
+                        return;
+                    }
+                } else if (item.references != null) {
+                    chase.add(item.references, item.hops);
+                } else {
+                    chase.running--;
+                }
+            }
+        } finally {
+            chase.stopped = true;
+        }
+    }
+
+    /**
+     * Starts chasing pending references, up to {@link #MAX_PARALLEL}.
+     *
+     * @return Number of running chases
+     */
+    private int start(Chase chase) {
+        while (chase.running < MAX_PARALLEL && !chase.pending.isEmpty()) {
+            Pending next = chase.pending.poll();
+            try {
+                executor.execute(() -> chase(chase, next));
+                chase.running++;
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.WARNING, "Could not chase " + next.urls, ex);
+            }
+        }
+        return chase.running;
+    }
+
+    /**
+     * Chases a reference on a chasing thread, trying its alternatives until
+     * one is reached.
+     */
+    private void chase(Chase chase, Pending reference) {
+        try {
+            NamingException failure = null;
+            for (String url : reference.urls) {
+                Referral referral = Referral.parse(url);
+                if (referral == null) {
+                    failure = new InvalidNameException("Not an LDAP URL: " + url);
+                    continue;
+                }
+                try {
+                    search(chase, referral, reference.hops);
+                    return;
+                } catch (CommunicationException | ServiceUnavailableException ex) {
+                    failure = ex;
+                } catch (NamingException ex) {
+                    failure = ex;
+                    break;
+                }
+            }
+            if (!chase.stopped) {
+                LOG.log(Level.WARNING, "Could not chase referral " + reference.urls,
+                        failure);
+            }
+        } finally {
+            chase.put(Item.DONE);
+        }
+    }
+
+    private void search(Chase chase, Referral referral, int hops)
+            throws NamingException {
+        LdapConnectionPool p = getPool(referral.getServer());
+        LdapContext ctx = null;
+        try {
+            ctx = p.borrow();
+            SearchControls controls = new SearchControls(
+                    referral.getScope(chase.controls.getSearchScope()),
+                    chase.controls.getCountLimit(),
+                    chase.controls.getTimeLimit(),
+                    chase.controls.getReturningAttributes(),
+                    chase.controls.getReturningObjFlag(),
+                    chase.controls.getDerefLinkFlag());
+            NamingEnumeration<SearchResult> results = ctx.search(
+                    referral.getBase(chase.base),
+                    referral.getFilter(chase.filter), controls);
+            while (results.hasMore()) {
+                SearchResult sr = results.next();
+                sr.setName(PipelinedLdapContext.relativeName(
+                        sr.getNameInNamespace(), chase.base));
+                if (!chase.put(new Item(sr, null, 0))) {
+                    results.close();
+                    return;
+                }
+            }
+        } catch (ReferralException ex) {
+            chase.put(new Item(null, getReferences(ex), hops + 1));
+        } catch (CommunicationException ex) {
+            p.invalidate(ctx);
+            ctx = null;
+            throw ex;
+        } finally {
+            p.release(ctx);
+        }
+    }
+
+    /**
+     * Reads the attributes of the entry an operation was referred to,
+     * following further referrals up to {@link #MAX_HOPS}.
+     *
+     * @param referral Referral of the operation
+     * @param dn Name of the entry, used unless the referral names one
+     * @param attrIds Attributes to read, {@code null} for all user attributes
+     * @return Attributes of the entry
+     * @throws NamingException If the entry could not be read
+     */
+    Attributes read(ReferralException referral, String dn, String[] attrIds)
+            throws NamingException {
+        ReferralException current = referral;
+        for (int hops = 1;; hops++) {
+            try {
+                return read(getReferences(current), dn, attrIds);
+            } catch (ReferralException ex) {
+                if (hops >= MAX_HOPS) {
+                    throw new LimitExceededException("More than " + MAX_HOPS
+                            + " referrals in a row");
+                }
+                current = ex;
+            }
+        }
+    }
+
+    private Attributes read(List<List<String>> references, String dn,
+            String[] attrIds) throws NamingException {
+        NamingException failure = new InvalidNameException("Empty referral");
+        for (List<String> urls : references) {
+            for (String url : urls) {
+                Referral referral = Referral.parse(url);
+                if (referral == null) {
+                    failure = new InvalidNameException("Not an LDAP URL: " + url);
+                    continue;
+                }
+                LdapConnectionPool p = getPool(referral.getServer());
+                LdapContext ctx = null;
+                try {
+                    ctx = p.borrow();
+                    return ctx.getAttributes(referral.getBase(dn), attrIds);
+                } catch (CommunicationException ex) {
+                    p.invalidate(ctx);
+                    ctx = null;
+                    failure = ex;
+                } finally {
+                    p.release(ctx);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Gets the connection pool of a referred server, creating it on first
+     * use.
+     */
+    private LdapConnectionPool getPool(String server) throws NamingException {
+        synchronized (pools) {
+            if (closed) {
+                throw new ServiceUnavailableException("Disconnected from the directory");
+            }
+            LdapConnectionPool p = pools.get(server);
+            if (p == null) {
+                p = factory.create(server);
+                pools.put(server, p);
+            }
+            return p;
+        }
+    }
+
+    /**
+     * @return Number of referred servers with a connection pool
+     */
+    int getPoolCount() {
+        synchronized (pools) {
+            return pools.size();
+        }
+    }
+
+    /**
+     * Closes the connections to the referred servers.
+     */
+    void close() {
+        List<LdapConnectionPool> open;
+        synchronized (pools) {
+            closed = true;
+            open = new ArrayList<>(pools.values());
+            pools.clear();
+        }
+        for (LdapConnectionPool p : open) {
+            p.close();
+        }
+    }
+}
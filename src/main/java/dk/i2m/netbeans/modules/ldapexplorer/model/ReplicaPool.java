@@ -0,0 +1,412 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+
+/**
+ * Connections to the replicas of a single logical {@link LdapServer}, an
+ * {@link LdapConnectionPool} per replica.
+ *
+ * <p>Contexts are borrowed from the healthy replica with the lowest latency,
+ * an exponentially weighted moving average of the round trip times observed
+ * by validations and reads. A replica that was not measured yet is preferred,
+ * so that every replica gets measured. A replica whose pool is exhausted is
+ * passed over for one that can serve right away. A replica that failed with
+ * a communication error is skipped until the backoff delay of the
+ * {@link ReconnectPolicy} passed, its operations fail over to the other
+ * replicas.</p>
+ *
+ * <p>A context is given back to the pool of the replica it was borrowed
+ * from. Operations bound to a replica, e.g. a paged search whose cookie is
+ * only valid on the replica that issued it, borrow from that replica by
+ * {@link #borrow(Replica)}.</p>
+ */
+class ReplicaPool {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaPool.class.getName());
+
+    /** Weight of the newest round trip time in the latency average. */
+    static final double LATENCY_WEIGHT = 0.3;
+
+    /**
+     * Creates the connection pool of a replica.
+     */
+    @FunctionalInterface
+    interface PoolFactory {
+
+        /**
+         * Creates the connection pool of a replica.
+         *
+         * @param url URL of the replica
+         * @return Pool opening connections to the replica
+         */
+        LdapConnectionPool create(String url);
+    }
+
+    /**
+     * Replica of the directory.
+     */
+    static final class Replica {
+
+        private final String url;
+        private final LdapConnectionPool pool;
+        /** Average round trip time in nanoseconds, {@code NaN} if unknown. */
+        private double latency = Double.NaN;
+        private int failures = 0;
+        private long retryAt = 0;
+
+        private Replica(String url, LdapConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+
+        /**
+         * @return URL of the replica
+         */
+        String getUrl() {
+            return url;
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Map<LdapContext, Replica> borrowed = new IdentityHashMap<>();
+    private final ReconnectPolicy policy;
+
+    /**
+     * Creates a new {@link ReplicaPool}.
+     *
+     * @param urls URLs of the replicas, in the order they are preferred
+     * while their latency is unknown
+     * @param factory Creates the connection pools of the replicas
+     * @param policy Policy providing the backoff delays of failed replicas
+     */
+    ReplicaPool(List<String> urls, PoolFactory factory, ReconnectPolicy policy) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.policy = policy;
+        for (String url : urls) {
+            Replica replica = new Replica(url, factory.create(url));
+            replica.pool.setLatencyListener(rtt -> recordLatency(replica, rtt));
+            replicas.add(replica);
+        }
+    }
+
+    /**
+     * Borrows a context from the best replica, failing over to the next one
+     * if a replica cannot be reached.
+     *
+     * @return Context which must be returned to this pool after use
+     * @throws NamingException If no replica could be reached
+     */
+    LdapContext borrow() throws NamingException {
+        NamingException failure = null;
+        for (Replica replica : rank()) {
+            try {
+                return borrow(replica);
+            } catch (CommunicationException ex) {
+                LOG.log(Level.FINE, "Failing over from {0}: {1}",
+                        new Object[]{replica.url, ex.getMessage()});
+                failure = ex;
+            }
+        }
+        throw failure != null ? failure
+                : new ServiceUnavailableException("No replica available");
+    }
+
+    /**
+     * Borrows a context from the given replica.
+     *
+     * @param replica Replica to connect to
+     * @return Context which must be returned to this pool after use
+     * @throws NamingException If the replica could not be reached
+     */
+    LdapContext borrow(Replica replica) throws NamingException {
+        LdapContext ctx;
+        try {
+            ctx = replica.pool.borrow();
+        } catch (CommunicationException ex) {
+            failed(replica);
+            throw ex;
+        }
+        synchronized (this) {
+            borrowed.put(ctx, replica);
+        }
+        return ctx;
+    }
+
+    /**
+     * Gets the replica a context was borrowed from.
+     *
+     * @param ctx Context obtained from this pool
+     * @return Replica of the context, {@code null} if unknown
+     */
+    synchronized Replica getReplica(LdapContext ctx) {
+        return borrowed.get(ctx);
+    }
+
+    /**
+     * Returns a healthy context to the pool of its replica.
+     *
+     * @param ctx Context obtained from this pool, may be {@code null}
+     */
+    void release(LdapContext ctx) {
+        if (ctx == null) {
+            return;
+        }
+        Replica replica;
+        synchronized (this) {
+            replica = borrowed.remove(ctx);
+            if (replica != null) {
+                replica.failures = 0;
+            }
+        }
+        if (replica != null) {
+            replica.pool.release(ctx);
+        } else {
+            close(ctx);
+        }
+    }
+
+    /**
+     * Removes a context that must not be reused, e.g. of an aborted search,
+     * and closes it.
+     *
+     * @param ctx Context obtained from this pool, may be {@code null}
+     */
+    void invalidate(LdapContext ctx) {
+        if (ctx == null) {
+            return;
+        }
+        Replica replica;
+        synchronized (this) {
+            replica = borrowed.remove(ctx);
+        }
+        if (replica != null) {
+            replica.pool.invalidate(ctx);
+        } else {
+            close(ctx);
+        }
+    }
+
+    /**
+     * Discards a context that failed with a communication error, together
+     * with the idle contexts of its replica, which most probably went stale
+     * for the same reason. The replica is skipped until its backoff delay
+     * passed.
+     *
+     * @param ctx Context obtained from this pool, may be {@code null}
+     */
+    void fail(LdapContext ctx) {
+        if (ctx == null) {
+            return;
+        }
+        Replica replica;
+        synchronized (this) {
+            replica = borrowed.get(ctx);
+        }
+        invalidate(ctx);
+        if (replica != null) {
+            replica.pool.purgeIdle();
+            failed(replica);
+        }
+    }
+
+    /**
+     * Records the round trip time of an operation on a context.
+     *
+     * @param ctx Context obtained from this pool
+     * @param nanos Round trip time in nanoseconds
+     */
+    void recordLatency(LdapContext ctx, long nanos) {
+        Replica replica = getReplica(ctx);
+        if (replica != null) {
+            recordLatency(replica, nanos);
+        }
+    }
+
+    /**
+     * Validates the idle contexts of all replicas, and measures the replicas
+     * that were not measured yet or whose backoff delay passed, so that a
+     * recovered replica takes load again.
+     *
+     * @return Number of closed stale contexts
+     * @see LdapConnectionPool#probeIdle()
+     */
+    int probeIdle() {
+        int closed = 0;
+        for (Replica replica : replicas) {
+            closed += replica.pool.probeIdle();
+            boolean measure;
+            synchronized (this) {
+                measure = Double.isNaN(replica.latency) || replica.failures > 0
+                        && System.nanoTime() - replica.retryAt >= 0;
+            }
+            if (measure && replicas.size() > 1) {
+                measure(replica);
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * @return {@code true} if a context can be borrowed from an available
+     * replica without waiting
+     */
+    boolean hasCapacity() {
+        for (Replica replica : replicas) {
+            if (isAvailable(replica) && replica.pool.hasCapacity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Number of replicas, the configured host included
+     */
+    int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * @return Number of idle contexts of all replicas
+     */
+    int getIdleCount() {
+        int idle = 0;
+        for (Replica replica : replicas) {
+            idle += replica.pool.getIdleCount();
+        }
+        return idle;
+    }
+
+    /**
+     * Closes the pools of all replicas.
+     */
+    void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * Gets the latency and the load of every replica.
+     *
+     * @return Snapshots of the replicas in the configured order
+     */
+    List<ReplicaStatistics> getStatistics() {
+        List<ReplicaStatistics> statistics = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            double latency;
+            int failures;
+            boolean available;
+            synchronized (this) {
+                latency = replica.latency / 1e6;
+                failures = replica.failures;
+                available = isAvailable(replica);
+            }
+            statistics.add(new ReplicaStatistics(replica.url, latency,
+                    failures, available, replica.pool.getIdleCount(),
+                    replica.pool.getBorrowedCount()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Orders the replicas by preference: available replicas before the ones
+     * waiting for their backoff delay, replicas with a free connection
+     * first, then by latency. Replicas waiting for their backoff delay are
+     * only tried as a last resort, the one due first.
+     */
+    private synchronized List<Replica> rank() {
+        if (replicas.size() == 1) {
+            return replicas;
+        }
+        List<Replica> available = new ArrayList<>();
+        Replica due = null;
+        for (Replica replica : replicas) {
+            if (isAvailable(replica)) {
+                available.add(replica);
+            } else if (due == null || replica.retryAt - due.retryAt < 0) {
+                due = replica;
+            }
+        }
+        Collections.sort(available, Comparator
+                .comparing((Replica r) -> !r.pool.hasCapacity())
+                .thenComparingDouble(r -> Double.isNaN(r.latency) ? 0 : r.latency));
+        if (available.isEmpty()) {
+            available.add(due);
+        }
+        return available;
+    }
+
+    private boolean isAvailable(Replica replica) {
+        return replica.failures == 0 || System.nanoTime() - replica.retryAt >= 0;
+    }
+
+    private synchronized void recordLatency(Replica replica, long nanos) {
+        replica.latency = Double.isNaN(replica.latency) ? nanos
+                : replica.latency + LATENCY_WEIGHT * (nanos - replica.latency);
+    }
+
+    private synchronized void failed(Replica replica) {
+        replica.failures++;
+        replica.retryAt = System.nanoTime()
+                + policy.getDelay(replica.failures) * 1000000L;
+    }
+
+    /**
+     * Measures a replica with the same root DSE read that validates idle
+     * connections.
+     */
+    private void measure(Replica replica) {
+        LdapContext ctx = null;
+        try {
+            ctx = borrow(replica);
+            long start = System.nanoTime();
+            ctx.getAttributes("", new String[]{"1.1"});
+            recordLatency(replica, System.nanoTime() - start);
+            release(ctx);
+        } catch (CommunicationException ex) {
+            LOG.log(Level.FINE, "Replica {0} not reachable: {1}",
+                    new Object[]{replica.url, ex.getMessage()});
+            fail(ctx);
+        } catch (NamingException ex) {
+            // Refused, but the replica answered
+            release(ctx);
+        }
+    }
+
+    private static void close(LdapContext ctx) {
+        try {
+            ctx.close();
+        } catch (NamingException ex) {
+            LOG.log(Level.FINE, "Failed to close connection", ex);
+        }
+    }
+}
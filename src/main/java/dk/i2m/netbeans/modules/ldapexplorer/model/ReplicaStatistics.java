@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * Snapshot of the latency and the load of a replica of an
+ * {@link LdapServer}.
+ */
+public final class ReplicaStatistics {
+
+    private final String url;
+    private final double latency;
+    private final int failures;
+    private final boolean available;
+    private final int idle;
+    private final int borrowed;
+
+    ReplicaStatistics(String url, double latency, int failures,
+            boolean available, int idle, int borrowed) {
+        this.url = url;
+        this.latency = latency;
+        this.failures = failures;
+        this.available = available;
+        this.idle = idle;
+        this.borrowed = borrowed;
+    }
+
+    /**
+     * @return URL of the replica
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the moving average of the round trip times to the replica.
+     *
+     * @return Latency in milliseconds, {@code NaN} if not measured yet
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return Number of consecutive communication failures
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Determines if operations are routed to the replica. A failed replica
+     * is skipped until its backoff delay passed.
+     *
+     * @return {@code true} if the replica takes operations
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return Number of open connections waiting in the pool of the replica
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return Number of connections to the replica currently in use
+     */
+    public int getBorrowed() {
+        return borrowed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s, %d failures%s, %d idle, %d in use", url,
+                Double.isNaN(latency) ? "not measured"
+                : String.format("%.1f ms", latency),
+                failures, available ? "" : " (skipped)", idle, borrowed);
+    }
+}
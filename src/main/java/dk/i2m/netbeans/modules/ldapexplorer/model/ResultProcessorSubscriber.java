@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link LdapFlow.Subscriber} passing all entries to a
+ * {@link LdapResultProcessor}. Canceling the processor cancels the
+ * subscription.
+ */
+class ResultProcessorSubscriber implements LdapFlow.Subscriber<LdapEntry> {
+
+    private final LdapResultProcessor lrp;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private volatile Runnable cancelAction = null;
+
+    ResultProcessorSubscriber(LdapResultProcessor lrp) {
+        this.lrp = lrp;
+    }
+
+    /**
+     * Subscribes a {@link LdapResultProcessor} to the given publisher and
+     * waits until all entries were passed to it or it was canceled.
+     *
+     * @param publisher Publisher of the entries
+     * @param lrp Receiver of the entries
+     * @throws QueryException If the publisher failed
+     */
+    static void process(LdapFlow.Publisher<LdapEntry> publisher,
+            LdapResultProcessor lrp) throws QueryException {
+        CompletableFuture<Void> finished = processAsync(publisher, lrp);
+        try {
+            finished.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lrp.cancel();
+        } catch (ExecutionException ee) {
+            Throwable ex = ee.getCause();
+            if (ex instanceof QueryException) {
+                throw (QueryException) ex;
+            } else if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            throw new QueryException(ex);
+        }
+    }
+
+    /**
+     * Subscribes a {@link LdapResultProcessor} to the given publisher without
+     * waiting for the entries.
+     *
+     * @param publisher Publisher of the entries
+     * @param lrp Receiver of the entries
+     * @return Future completed when all entries were passed to the processor
+     * or it was canceled, completed exceptionally if the publisher failed
+     */
+    static CompletableFuture<Void> processAsync(
+            LdapFlow.Publisher<LdapEntry> publisher, LdapResultProcessor lrp) {
+        ResultProcessorSubscriber subscriber = new ResultProcessorSubscriber(lrp);
+        subscriber.finished.whenComplete((result, ex) -> {
+            Runnable action = subscriber.cancelAction;
+            if (action != null) {
+                lrp.removeCancelAction(action);
+            }
+        });
+        publisher.subscribe(subscriber);
+        return subscriber.finished;
+    }
+
+    @Override
+    public void onSubscribe(LdapFlow.Subscription subscription) {
+        Runnable action = () -> {
+            subscription.cancel();
+            finished.complete(null);
+        };
+        cancelAction = action;
+        lrp.addCancelAction(action);
+        if (finished.isDone()) {
+            lrp.removeCancelAction(action);
+        }
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(LdapEntry item) {
+        lrp.addEntry(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        finished.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        finished.complete(null);
+    }
+}
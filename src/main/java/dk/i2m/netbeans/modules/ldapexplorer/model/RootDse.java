@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+
+/**
+ * Snapshot of the capabilities an {@link LdapServer} announces in its root
+ * DSE, together with the page size learned while querying the server.
+ *
+ * <p>Instances are immutable, the snapshot is replaced as a whole when it is
+ * refreshed.</p>
+ */
+public final class RootDse {
+
+    /** Attributes read from the root DSE. */
+    static final String[] ATTRIBUTES = {
+        "supportedControl",
+        "supportedExtension",
+        "supportedSASLMechanisms",
+        "namingContexts",
+        "vendorName"
+    };
+
+    private final Set<String> supportedControls;
+    private final Set<String> supportedExtensions;
+    private final Set<String> supportedSaslMechanisms;
+    private final List<String> namingContexts;
+    private final String vendorName;
+    private final Integer pageSize;
+    private final long fetched;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param supportedControls OIDs of the supported controls
+     * @param supportedExtensions OIDs of the supported extended operations
+     * @param supportedSaslMechanisms Names of the supported SASL mechanisms
+     * @param namingContexts Naming contexts held by the server
+     * @param vendorName Name of the server vendor, may be {@code null}
+     * @param pageSize Page size learned from the server, {@code null} if
+     * unknown
+     * @param fetched Time the root DSE was read in milliseconds since the
+     * epoch
+     */
+    public RootDse(Collection<String> supportedControls,
+            Collection<String> supportedExtensions,
+            Collection<String> supportedSaslMechanisms,
+            Collection<String> namingContexts, String vendorName,
+            Integer pageSize, long fetched) {
+        this.supportedControls = unmodifiableSet(supportedControls);
+        this.supportedExtensions = unmodifiableSet(supportedExtensions);
+        this.supportedSaslMechanisms = unmodifiableSet(supportedSaslMechanisms);
+        this.namingContexts = Collections.unmodifiableList(
+                new ArrayList<>(namingContexts));
+        this.vendorName = vendorName;
+        this.pageSize = pageSize;
+        this.fetched = fetched;
+    }
+
+    /**
+     * Reads the root DSE of the server.
+     *
+     * @param ctx Context connected to the server
+     * @return Snapshot of the root DSE
+     * @throws NamingException If the root DSE could not be read
+     */
+    static RootDse read(LdapContext ctx) throws NamingException {
+        Attributes attrs = ctx.getAttributes("", ATTRIBUTES);
+        List<String> vendor = values(attrs.get("vendorName"));
+        return new RootDse(
+                values(attrs.get("supportedControl")),
+                values(attrs.get("supportedExtension")),
+                values(attrs.get("supportedSASLMechanisms")),
+                values(attrs.get("namingContexts")),
+                vendor.isEmpty() ? null : vendor.get(0),
+                null,
+                System.currentTimeMillis());
+    }
+
+    private static List<String> values(Attribute attr) throws NamingException {
+        List<String> values = new ArrayList<>();
+        if (attr != null) {
+            for (NamingEnumeration<?> ne = attr.getAll(); ne.hasMore();) {
+                values.add(String.valueOf(ne.next()));
+            }
+        }
+        return values;
+    }
+
+    private static Set<String> unmodifiableSet(Collection<String> values) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(values));
+    }
+
+    /**
+     * @return OIDs of the controls supported by the server
+     */
+    public Set<String> getSupportedControls() {
+        return supportedControls;
+    }
+
+    /**
+     * @return OIDs of the extended operations supported by the server
+     */
+    public Set<String> getSupportedExtensions() {
+        return supportedExtensions;
+    }
+
+    /**
+     * @return Names of the SASL mechanisms supported by the server
+     */
+    public Set<String> getSupportedSaslMechanisms() {
+        return supportedSaslMechanisms;
+    }
+
+    /**
+     * @return Naming contexts held by the server
+     */
+    public List<String> getNamingContexts() {
+        return namingContexts;
+    }
+
+    /**
+     * @return Name of the server vendor or {@code null} if not announced
+     */
+    public String getVendorName() {
+        return vendorName;
+    }
+
+    /**
+     * Gets the page size learned from the server, i.e. the page size which
+     * gave the best throughput in earlier paged searches.
+     *
+     * @return Learned page size or {@code null} if unknown
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return Time the root DSE was read in milliseconds since the epoch
+     */
+    public long getFetched() {
+        return fetched;
+    }
+
+    /**
+     * Determines if the server announced support for the given control.
+     *
+     * @param oid OID of the control
+     * @return {@code true} if the control is supported
+     */
+    public boolean isControlSupported(String oid) {
+        return supportedControls.contains(oid);
+    }
+
+    /**
+     * @return {@code true} if the server supports the paged results control
+     */
+    public boolean isPagingSupported() {
+        return isControlSupported(PagedResultsControl.OID);
+    }
+
+    /**
+     * Determines if the snapshot should be refreshed.
+     *
+     * @param maxAge Maximum age in milliseconds
+     * @return {@code true} if the snapshot is older than {@code maxAge}
+     */
+    public boolean isOlderThan(long maxAge) {
+        return System.currentTimeMillis() - fetched > maxAge;
+    }
+
+    /**
+     * Creates a copy of the snapshot with a learned page size.
+     *
+     * @param pageSize Page size learned from the server
+     * @return Copy of this snapshot with the given page size
+     */
+    public RootDse withPageSize(Integer pageSize) {
+        return new RootDse(supportedControls, supportedExtensions,
+                supportedSaslMechanisms, namingContexts, vendorName, pageSize,
+                fetched);
+    }
+
+    @Override
+    public String toString() {
+        return (vendorName == null ? "LDAP server" : vendorName)
+                + " " + namingContexts
+                + ", controls " + supportedControls;
+    }
+}
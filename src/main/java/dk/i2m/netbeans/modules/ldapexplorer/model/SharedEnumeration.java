@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link LdapResultProcessor} passing the entries of a single listing or
+ * search to all subscribers of identical concurrent enumerations.
+ *
+ * <p>Entries received before a subscriber joined are replayed to it, so
+ * every subscriber receives the complete result. Once more entries were
+ * received than a sink buffers, the enumeration forgets them and no longer
+ * accepts subscribers, a later subscriber runs an enumeration of its own.
+ * Replaying thus never waits for a subscriber. A subscriber leaves by
+ * canceling its sink, the enumeration is canceled when the last subscriber
+ * left.</p>
+ */
+class SharedEnumeration extends LdapResultProcessor {
+
+    private final Priority priority;
+    private final int maxReplay;
+    private final List<LdapResultProcessor> sinks = new ArrayList<>();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    /** Entries to replay, {@code null} once no subscriber may join. */
+    private List<LdapEntry> received = new ArrayList<>();
+
+    /**
+     * Creates a new {@link SharedEnumeration}.
+     *
+     * @param priority Priority the enumeration runs with
+     * @param maxReplay Maximum number of received entries kept for joining
+     * subscribers, at most the capacity of their sinks
+     */
+    SharedEnumeration(Priority priority, int maxReplay) {
+        this.priority = priority;
+        this.maxReplay = maxReplay;
+    }
+
+    /**
+     * Adds a subscriber, passing the entries received so far to its sink.
+     * A subscriber of a higher priority does not join, so that it is not
+     * kept waiting behind background work.
+     *
+     * @param sink Receiver of the entries
+     * @param subscriberPriority Priority of the subscriber
+     * @return Future completed when the enumeration finished, or
+     * {@code null} if the subscriber cannot join
+     */
+    CompletableFuture<Void> join(LdapResultProcessor sink,
+            Priority subscriberPriority) {
+        synchronized (sinks) {
+            if (received == null || subscriberPriority.compareTo(priority) < 0) {
+                return null;
+            }
+            for (LdapEntry entry : received) {
+                sink.addEntry(entry);
+            }
+            sinks.add(sink);
+        }
+        sink.addCancelAction(() -> leave(sink));
+        return finished.thenApply(result -> result);
+    }
+
+    /**
+     * Runs the enumeration unless all subscribers left before.
+     *
+     * @param query Enumeration passing its entries to this processor
+     */
+    void run(LdapEntryPublisher.Query query) {
+        try {
+            if (!isCanceled()) {
+                query.run(this);
+            }
+            finish(null);
+        } catch (QueryException | RuntimeException ex) {
+            finish(ex);
+        }
+    }
+
+    /**
+     * Completes the enumeration.
+     *
+     * @param failure Failure of the enumeration, {@code null} if it
+     * succeeded
+     */
+    void finish(Throwable failure) {
+        synchronized (sinks) {
+            received = null;
+        }
+        if (failure == null) {
+            finished.complete(null);
+        } else {
+            finished.completeExceptionally(failure);
+        }
+    }
+
+    @Override
+    public void addEntry(LdapEntry entry) {
+        List<LdapResultProcessor> receivers;
+        synchronized (sinks) {
+            if (received != null) {
+                if (received.size() < maxReplay) {
+                    received.add(entry);
+                } else {
+                    received = null;
+                }
+            }
+            receivers = new ArrayList<>(sinks);
+        }
+        // Passed on without holding the lock, as a sink waits while its
+        // subscriber does not keep up
+        for (LdapResultProcessor sink : receivers) {
+            if (!sink.isCanceled()) {
+                sink.addEntry(entry);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        List<LdapResultProcessor> receivers;
+        synchronized (sinks) {
+            if (received != null) {
+                received.clear();
+            }
+            receivers = new ArrayList<>(sinks);
+        }
+        for (LdapResultProcessor sink : receivers) {
+            sink.reset();
+        }
+    }
+
+    /**
+     * Gets the number of subscribers receiving the entries.
+     *
+     * @return Number of subscribers
+     */
+    int getSubscribers() {
+        synchronized (sinks) {
+            return sinks.size();
+        }
+    }
+
+    private void leave(LdapResultProcessor sink) {
+        synchronized (sinks) {
+            if (!sinks.remove(sink) || !sinks.isEmpty()) {
+                return;
+            }
+            received = null;
+        }
+        cancel();
+    }
+}
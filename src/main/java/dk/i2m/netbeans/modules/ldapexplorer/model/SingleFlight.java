@@ -0,0 +1,257 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical operations, so that they share a single
+ * call to the server.
+ *
+ * <p>Operations are identified by a key, e.g. the distinguished name and the
+ * requested attributes of a read. An operation started while an operation of
+ * the same key is in flight waits for the result of the running operation
+ * instead of calling the server again. An operation does not join a running
+ * operation of a lower {@link Priority}, which could keep it waiting behind
+ * background work, it replaces that operation for the following callers
+ * instead.</p>
+ *
+ * <p>Each caller gets its own future. Canceling it only detaches the caller,
+ * the shared operation is canceled when all of its callers detached.</p>
+ *
+ * @param <T> Result of the operations
+ */
+class SingleFlight<T> {
+
+    /**
+     * Operation run by {@link SingleFlight}.
+     *
+     * @param <T> Result of the operation
+     */
+    @FunctionalInterface
+    interface Call<T> {
+
+        /**
+         * Runs the operation.
+         *
+         * @return Result of the operation
+         * @throws QueryException If the operation failed
+         */
+        T call() throws QueryException;
+    }
+
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    /**
+     * Runs an operation on the calling thread, or waits for the result of
+     * the identical operation in flight.
+     *
+     * @param key Key of the operation
+     * @param priority Priority of the operation
+     * @param call Operation to run if none is in flight
+     * @return Result of the operation
+     * @throws QueryException If the operation failed, or the thread was
+     * interrupted while waiting for the result
+     */
+    T run(String key, Priority priority, Call<T> call) throws QueryException {
+        Flight flight;
+        boolean lead;
+        synchronized (flights) {
+            flight = join(key, priority);
+            lead = flight == null;
+            flight = lead ? lead(key, priority) : waitFor(flight);
+        }
+        if (lead) {
+            try {
+                T result = call.call();
+                flight.settle(result, null);
+                return result;
+            } catch (Throwable ex) {
+                flight.settle(null, ex);
+                throw ex;
+            }
+        }
+        try {
+            return flight.result.get();
+        } catch (InterruptedException ex) {
+            flight.leave();
+            Thread.currentThread().interrupt();
+            throw new QueryException("Interrupted while waiting for the server", ex);
+        } catch (CancellationException ex) {
+            throw new QueryException("Canceled", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof QueryException) {
+                throw (QueryException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new QueryException(cause);
+        }
+    }
+
+    /**
+     * Starts an operation, or joins the identical operation in flight.
+     *
+     * @param key Key of the operation
+     * @param priority Priority of the operation
+     * @param call Starts the operation if none is in flight
+     * @return Future of the result, canceling it detaches the caller from
+     * the operation
+     */
+    CompletableFuture<T> runAsync(String key, Priority priority,
+            Supplier<CompletableFuture<T>> call) {
+        Flight flight;
+        boolean lead;
+        synchronized (flights) {
+            flight = join(key, priority);
+            lead = flight == null;
+            flight = lead ? lead(key, priority) : waitFor(flight);
+        }
+        CompletableFuture<T> subscription = new CompletableFuture<>();
+        flight.result.whenComplete((result, ex) -> {
+            if (ex == null) {
+                subscription.complete(result);
+            } else {
+                subscription.completeExceptionally(
+                        ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            }
+        });
+        Flight joined = flight;
+        subscription.whenComplete((result, ex) -> {
+            if (subscription.isCancelled()) {
+                joined.leave();
+            }
+        });
+        if (lead) {
+            CompletableFuture<T> source;
+            try {
+                source = call.get();
+            } catch (RuntimeException ex) {
+                source = new CompletableFuture<>();
+                source.completeExceptionally(ex);
+            }
+            flight.start(source);
+        }
+        return subscription;
+    }
+
+    /**
+     * Gets the number of operations in flight.
+     *
+     * @return Number of operations in flight
+     */
+    int size() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+
+    /**
+     * Gets the number of callers waiting for the operation in flight.
+     *
+     * @param key Key of the operation
+     * @return Number of callers, {@code 0} if no operation is in flight
+     */
+    int getCallers(String key) {
+        synchronized (flights) {
+            Flight flight = flights.get(key);
+            return flight == null ? 0 : flight.callers;
+        }
+    }
+
+    private Flight join(String key, Priority priority) {
+        Flight flight = flights.get(key);
+        return flight != null && priority.compareTo(flight.priority) >= 0
+                ? flight : null;
+    }
+
+    private Flight lead(String key, Priority priority) {
+        Flight flight = new Flight(key, priority);
+        flights.put(key, flight);
+        return flight;
+    }
+
+    private Flight waitFor(Flight flight) {
+        flight.callers++;
+        return flight;
+    }
+
+    /**
+     * Operation in flight.
+     */
+    private class Flight {
+
+        private final String key;
+        private final Priority priority;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /** Callers waiting for the result, guarded by {@link #flights}. */
+        private int callers = 1;
+        /** Future of the asynchronous operation, guarded by {@link #flights}. */
+        private CompletableFuture<T> source = null;
+
+        Flight(String key, Priority priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+
+        void start(CompletableFuture<T> operation) {
+            boolean abandoned;
+            synchronized (flights) {
+                source = operation;
+                abandoned = callers == 0;
+            }
+            if (abandoned) {
+                operation.cancel(false);
+            }
+            operation.whenComplete(this::settle);
+        }
+
+        void settle(T value, Throwable failure) {
+            synchronized (flights) {
+                flights.remove(key, this);
+            }
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+
+        void leave() {
+            CompletableFuture<T> abandoned;
+            synchronized (flights) {
+                if (--callers > 0) {
+                    return;
+                }
+                flights.remove(key, this);
+                abandoned = source;
+            }
+            if (abandoned != null) {
+                abandoned.cancel(false);
+            }
+        }
+    }
+}
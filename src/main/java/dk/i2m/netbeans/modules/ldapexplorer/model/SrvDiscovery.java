@@ -0,0 +1,324 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.naming.Context;
+import javax.naming.InterruptedNamingException;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Discovers the servers of a directory published by DNS SRV records, e.g.
+ * the domain controllers of an Active Directory domain.
+ *
+ * <p>The records are ordered as RFC 2782 defines, by priority and, within a
+ * priority, by a random selection weighted by their weight. All candidates
+ * are probed in parallel by connecting to them. The servers of the best
+ * priority that has a reachable server are used, fastest first; servers
+ * answering within the same millisecond keep their weighted order. The
+ * ranking is cached for the time to live of the records, so that the probes
+ * do not delay every connect.</p>
+ */
+class SrvDiscovery {
+
+    /**
+     * Time to live in seconds of records resolved by the JNDI DNS provider,
+     * which does not report the time to live of the records.
+     */
+    static final long DNS_TTL = TimeUnit.MINUTES.toSeconds(10);
+    /** Maximum number of records probed. */
+    static final int MAX_CANDIDATES = 64;
+
+    /** Probes block in connect, a virtual thread each where available. */
+    private static final Executor PROBES;
+
+    static {
+        Executor virtual = VirtualThreads.newExecutor("LDAP probe");
+        PROBES = virtual != null ? virtual : new RequestProcessor(
+                SrvDiscovery.class.getName(), 16, true);
+    }
+
+    /** Resolves the records by DNS and probes by connecting via TCP. */
+    static final SrvDiscovery DEFAULT = new SrvDiscovery(
+            SrvDiscovery::lookup, SrvDiscovery::connect);
+
+    /**
+     * Measures how fast a server answers.
+     */
+    @FunctionalInterface
+    interface Prober {
+
+        /**
+         * Probes a server.
+         *
+         * @param host Host name of the server
+         * @param port Port of the server
+         * @param timeout Timeout of the probe in milliseconds
+         * @return Round trip time in nanoseconds
+         * @throws IOException If the server could not be reached
+         */
+        long probe(String host, int port, int timeout) throws IOException;
+    }
+
+    /**
+     * Ranked servers of a service.
+     */
+    private static final class Ranking {
+
+        private final List<SrvRecord> records;
+        private final long expiresAt;
+
+        Ranking(List<SrvRecord> records, long expiresAt) {
+            this.records = records;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SrvResolver resolver;
+    private final Prober prober;
+    private final Random random = new Random();
+    private final Map<String, Ranking> rankings = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link SrvDiscovery}.
+     *
+     * @param resolver Resolves the records of a service
+     * @param prober Measures how fast a server answers
+     */
+    SrvDiscovery(SrvResolver resolver, Prober prober) {
+        this.resolver = resolver;
+        this.prober = prober;
+    }
+
+    /**
+     * Gets the servers of a service, resolving and probing them unless a
+     * ranking of the service is cached.
+     *
+     * @param name Name of the service, e.g. {@code _ldap._tcp.example.com}
+     * @param timeout Timeout of the probes in milliseconds
+     * @return Servers of the best priority that has a reachable server,
+     * fastest first. If no server is reachable, all servers in the order of
+     * RFC 2782.
+     * @throws NamingException If the service has no servers, or its records
+     * could not be resolved
+     */
+    List<SrvRecord> discover(String name, int timeout) throws NamingException {
+        Ranking ranking = rankings.get(name);
+        if (ranking != null && System.nanoTime() - ranking.expiresAt < 0) {
+            return ranking.records;
+        }
+        // Concurrent connects to the same domain share the probes
+        synchronized (locks.computeIfAbsent(name, n -> new Object())) {
+            ranking = rankings.get(name);
+            if (ranking != null && System.nanoTime() - ranking.expiresAt < 0) {
+                return ranking.records;
+            }
+            List<SrvRecord> records = resolver.resolve(name);
+            // A single record with the target "." means "not available"
+            if (records.isEmpty() || records.size() == 1
+                    && records.get(0).getTarget().isEmpty()) {
+                throw new NameNotFoundException("No servers are published for "
+                        + name);
+            }
+            long ttl = Long.MAX_VALUE;
+            for (SrvRecord record : records) {
+                ttl = Math.min(ttl, record.getTtl());
+            }
+            List<SrvRecord> ranked = Collections.unmodifiableList(
+                    rank(order(records), timeout));
+            if (ttl > 0) {
+                rankings.put(name, new Ranking(ranked,
+                        System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl)));
+            } else {
+                rankings.remove(name);
+            }
+            return ranked;
+        }
+    }
+
+    /**
+     * Orders records as RFC 2782 defines: by priority, and within a
+     * priority by repeated random selection, the chance of a record being
+     * selected next being proportional to its weight.
+     *
+     * @param records Records of a service
+     * @return Records in the order they are to be tried
+     */
+    List<SrvRecord> order(List<SrvRecord> records) {
+        List<SrvRecord> sorted = new ArrayList<>(records);
+        // Records of weight 0 go first, so they have a small chance too
+        sorted.sort(Comparator.comparingInt(SrvRecord::getPriority)
+                .thenComparing(r -> r.getWeight() != 0));
+        List<SrvRecord> ordered = new ArrayList<>(sorted.size());
+        int start = 0;
+        while (start < sorted.size()) {
+            int end = start;
+            while (end < sorted.size()
+                    && sorted.get(end).getPriority() == sorted.get(start).getPriority()) {
+                end++;
+            }
+            List<SrvRecord> group = new ArrayList<>(sorted.subList(start, end));
+            while (!group.isEmpty()) {
+                int sum = 0;
+                for (SrvRecord record : group) {
+                    sum += record.getWeight();
+                }
+                int selected = random.nextInt(sum + 1);
+                int running = 0;
+                for (Iterator<SrvRecord> it = group.iterator(); it.hasNext();) {
+                    SrvRecord record = it.next();
+                    running += record.getWeight();
+                    if (running >= selected) {
+                        it.remove();
+                        ordered.add(record);
+                        break;
+                    }
+                }
+            }
+            start = end;
+        }
+        return ordered;
+    }
+
+    /**
+     * Probes the ordered records in parallel and keeps the reachable servers
+     * of the best priority, fastest first.
+     */
+    private List<SrvRecord> rank(List<SrvRecord> ordered, int timeout)
+            throws NamingException {
+        List<SrvRecord> candidates = ordered.size() > MAX_CANDIDATES
+                ? ordered.subList(0, MAX_CANDIDATES) : ordered;
+        List<CompletableFuture<Long>> probes = new ArrayList<>(candidates.size());
+        for (SrvRecord record : candidates) {
+            probes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return prober.probe(record.getTarget(), record.getPort(), timeout);
+                } catch (IOException ex) {
+                    return -1L;
+                }
+            }, PROBES));
+        }
+        long[] rtt = new long[candidates.size()];
+        try {
+            for (int i = 0; i < rtt.length; i++) {
+                rtt[i] = probes.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedNamingException("Probing the servers was interrupted");
+        } catch (ExecutionException ex) {
+            NamingException ne = new NamingException(ex.getCause().getMessage());
+            ne.setRootCause(ex.getCause());
+            throw ne;
+        }
+        int best = -1;
+        List<SrvRecord> reachable = new ArrayList<>();
+        List<Long> millis = new ArrayList<>();
+        for (int i = 0; i < rtt.length; i++) {
+            SrvRecord record = candidates.get(i);
+            if (rtt[i] < 0 || best >= 0 && record.getPriority() != best) {
+                continue;
+            }
+            best = record.getPriority();
+            reachable.add(record);
+            millis.add(TimeUnit.NANOSECONDS.toMillis(rtt[i]));
+        }
+        if (reachable.isEmpty()) {
+            // Let the connect report why the servers are unreachable
+            return ordered;
+        }
+        // Stable, so servers answering as fast keep their weighted order
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < reachable.size(); i++) {
+            indices.add(i);
+        }
+        indices.sort(Comparator.comparingLong(millis::get));
+        List<SrvRecord> ranked = new ArrayList<>(reachable.size());
+        for (int i : indices) {
+            ranked.add(reachable.get(i));
+        }
+        return ranked;
+    }
+
+    /**
+     * Resolves SRV records by the JNDI DNS provider, using the name servers
+     * of the operating system.
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    private static List<SrvRecord> lookup(String name) throws NamingException {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+        env.put(Context.PROVIDER_URL, "dns:");
+        DirContext ctx = new InitialDirContext(env);
+        try {
+            Attribute srv = ctx.getAttributes(name, new String[]{"SRV"}).get("SRV");
+            List<SrvRecord> records = new ArrayList<>();
+            if (srv == null) {
+                return records;
+            }
+            NamingEnumeration<?> values = srv.getAll();
+            while (values.hasMore()) {
+                String[] fields = String.valueOf(values.next()).trim().split("\\s+");
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    records.add(new SrvRecord(Integer.parseInt(fields[0]),
+                            Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                            fields[3], DNS_TTL));
+                } catch (NumberFormatException ex) {
+                    // Not a valid record, skip it
+                }
+            }
+            return records;
+        } finally {
+            ctx.close();
+        }
+    }
+
+    /**
+     * Probes a server by connecting to it, racing its addresses.
+     */
+    private static long connect(String host, int port, int timeout)
+            throws IOException {
+        long start = System.nanoTime();
+        try (Socket socket = HappyEyeballs.DEFAULT.connect(host, port, timeout,
+                Socket::new)) {
+            return System.nanoTime() - start;
+        }
+    }
+}
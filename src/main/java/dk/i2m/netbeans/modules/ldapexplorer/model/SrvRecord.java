@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+/**
+ * DNS SRV record of a directory server, as defined by RFC 2782.
+ */
+final class SrvRecord {
+
+    private final int priority;
+    private final int weight;
+    private final int port;
+    private final String target;
+    private final long ttl;
+
+    /**
+     * Creates a new {@link SrvRecord}.
+     *
+     * @param priority Priority, servers with the lowest priority are used
+     * @param weight Relative weight of servers with the same priority
+     * @param port Port of the server
+     * @param target Host name of the server
+     * @param ttl Time to live of the record in seconds
+     */
+    SrvRecord(int priority, int weight, int port, String target, long ttl) {
+        this.priority = priority;
+        this.weight = weight;
+        this.port = port;
+        // Names from DNS are absolute
+        this.target = target.endsWith(".")
+                ? target.substring(0, target.length() - 1) : target;
+        this.ttl = ttl;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getTarget() {
+        return target;
+    }
+
+    long getTtl() {
+        return ttl;
+    }
+
+    @Override
+    public String toString() {
+        return priority + " " + weight + " " + port + " " + target;
+    }
+}
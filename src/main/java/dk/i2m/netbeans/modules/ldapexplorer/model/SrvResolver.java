@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.List;
+import javax.naming.NamingException;
+
+/**
+ * Resolves the DNS SRV records of a service, see {@link SrvDiscovery}.
+ */
+@FunctionalInterface
+interface SrvResolver {
+
+    /**
+     * Resolves the SRV records of a service.
+     *
+     * @param name Name of the service, e.g. {@code _ldap._tcp.example.com}
+     * @return Records of the service
+     * @throws NamingException If the records could not be resolved
+     */
+    List<SrvRecord> resolve(String name) throws NamingException;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Hashtable;
+import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.StartTlsRequest;
+import javax.naming.ldap.StartTlsResponse;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Upgrade of plain connections to TLS by the StartTLS extended operation
+ * (RFC 4511, section 4.14).
+ *
+ * <p>The upgrade is requested by {@link #START_TLS} in the JNDI environment
+ * of a connection. The TLS socket is layered by the socket factory of the
+ * environment, so that the upgraded connections of all servers resume their
+ * TLS sessions from the shared session cache of
+ * {@link TunedSocketFactory}.</p>
+ */
+final class StartTls {
+
+    /** Environment property requesting the upgrade of a plain connection. */
+    static final String START_TLS = "dk.i2m.netbeans.modules.ldapexplorer.starttls";
+    /** Object identifier of the StartTLS extended operation. */
+    static final String OID = StartTlsRequest.OID;
+
+    private static final String[] NO_ATTRIBUTES = {"1.1"};
+
+    private StartTls() {
+    }
+
+    /**
+     * Determines if a connection is upgraded to TLS.
+     *
+     * @param env JNDI environment of the connection
+     * @return {@code true} if StartTLS is requested
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    static boolean isRequested(Hashtable<?, ?> env) {
+        return Boolean.parseBoolean(String.valueOf(env.get(START_TLS)));
+    }
+
+    /**
+     * Opens a JNDI context, upgrading the connection to TLS before binding
+     * if requested by the environment.
+     *
+     * @param env JNDI environment of the connection
+     * @return Connected and authenticated context
+     * @throws NamingException If the context could not be opened or the
+     * server refused the upgrade
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    static LdapContext connect(Hashtable<String, String> env) throws NamingException {
+        if (!isRequested(env)) {
+            return new InitialLdapContext(env, null);
+        }
+        // Connect anonymously, the credentials must not be sent before the
+        // connection is encrypted
+        Hashtable<String, String> plain = new Hashtable<>(env);
+        plain.remove(Context.SECURITY_PRINCIPAL);
+        plain.remove(Context.SECURITY_CREDENTIALS);
+        plain.put(Context.SECURITY_AUTHENTICATION, "none");
+        LdapContext ctx = new InitialLdapContext(plain, null);
+        try {
+            StartTlsResponse tls = (StartTlsResponse) ctx.extendedOperation(
+                    new StartTlsRequest());
+            SSLSocketFactory factory = getSocketFactory(env);
+            if (factory instanceof TunedSocketFactory) {
+                // The handshake verifies the host name, unless TLS errors
+                // are ignored
+                tls.setHostnameVerifier((host, session) -> true);
+            }
+            tls.negotiate(factory);
+
+            // Bind over the encrypted connection, JNDI authenticates again
+            // with the changed environment on the next operation
+            String authentication = env.get(Context.SECURITY_AUTHENTICATION);
+            if (authentication != null && !"none".equalsIgnoreCase(authentication)) {
+                ctx.addToEnvironment(Context.SECURITY_AUTHENTICATION, authentication);
+                for (String property : new String[]{Context.SECURITY_PRINCIPAL,
+                    Context.SECURITY_CREDENTIALS}) {
+                    if (env.get(property) != null) {
+                        ctx.addToEnvironment(property, env.get(property));
+                    }
+                }
+                // Report invalid credentials when connecting
+                ctx.getAttributes("", NO_ATTRIBUTES);
+            }
+            return ctx;
+        } catch (IOException ex) {
+            close(ctx);
+            CommunicationException ce = new CommunicationException(
+                    "StartTLS failed: " + ex.getMessage());
+            ce.setRootCause(ex);
+            throw ce;
+        } catch (NamingException | RuntimeException ex) {
+            close(ctx);
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the factory layering TLS sockets over upgraded connections, the
+     * socket factory named in the environment if it is one, like JNDI by
+     * invoking its static {@code getDefault()} method.
+     *
+     * @param env JNDI environment of the connection
+     * @return Factory creating TLS sockets over plain ones
+     * @throws IOException If the factory named in the environment is not
+     * usable
+     */
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    static SSLSocketFactory getSocketFactory(Hashtable<?, ?> env) throws IOException {
+        Object name = env.get(PipelinedConnection.SOCKET_FACTORY);
+        if (name != null) {
+            try {
+                Class<?> factoryClass = Class.forName(String.valueOf(name), true,
+                        StartTls.class.getClassLoader());
+                Method getDefault = factoryClass.getMethod("getDefault");
+                Object factory = getDefault.invoke(null);
+                if (factory instanceof SSLSocketFactory) {
+                    return (SSLSocketFactory) factory;
+                }
+            } catch (ReflectiveOperationException ex) {
+                throw new IOException("Socket factory " + name + " is not usable", ex);
+            }
+        }
+        return (SSLSocketFactory) SSLSocketFactory.getDefault();
+    }
+
+    private static void close(LdapContext ctx) {
+        try {
+            ctx.close();
+        } catch (NamingException ex) {
+            // Already failed
+        }
+    }
+}
@@ -20,8 +20,7 @@ import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
@@ -40,62 +39,72 @@ public class TLSUncheckedSocketFactory extends SSLSocketFactory {
 
     static {
         try {
-            TrustManager[] byPassTrustManagers = new TrustManager[]{
-                new X509ExtendedTrustManager() {
-                    @Override
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-
-                    @Override
-                    public void checkClientTrusted(X509Certificate[] chain,
-                            String authType) {
-                        // Don't check
-                    }
-
-                    @Override
-                    public void checkServerTrusted(X509Certificate[] chain,
-                            String authType) {
-                        // Don't check
-                    }
-
-                    @Override
-                    public void checkClientTrusted(X509Certificate[] chain,
-                            String authType, Socket socket) throws
-                            CertificateException {
-                        // Don't check
-                    }
-
-                    @Override
-                    public void checkServerTrusted(X509Certificate[] chain,
-                            String authType, Socket socket) throws
-                            CertificateException {
-                        // Don't check
-                    }
-
-                    @Override
-                    public void checkClientTrusted(X509Certificate[] chain,
-                            String authType, SSLEngine engine) throws
-                            CertificateException {
-                        // Don't check
-                    }
-
-                    @Override
-                    public void checkServerTrusted(X509Certificate[] chain,
-                            String authType, SSLEngine engine) throws
-                            CertificateException {
-                        // Don't check
-                    }
+            DELEGATING_FACTORY = createSslContext().getSocketFactory();
+        } catch (GeneralSecurityException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
 
+    /**
+     * Creates a new {@link SSLContext} accepting any certificate.
+     *
+     * @return Initialized context
+     * @throws GeneralSecurityException If TLS is not available
+     */
+    static SSLContext createSslContext() throws GeneralSecurityException {
+        TrustManager[] byPassTrustManagers = new TrustManager[]{
+            new X509ExtendedTrustManager() {
+                @Override
+                public X509Certificate[] getAcceptedIssuers() {
+                    return new X509Certificate[0];
                 }
-            };
 
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, byPassTrustManagers, new SecureRandom());
-            DELEGATING_FACTORY = sslContext.getSocketFactory();
-        } catch (NoSuchAlgorithmException | KeyManagementException ex) {
-            Exceptions.printStackTrace(ex);
-        }
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain,
+                        String authType) {
+                    // Don't check
+                }
+
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain,
+                        String authType) {
+                    // Don't check
+                }
+
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain,
+                        String authType, Socket socket) throws
+                        CertificateException {
+                    // Don't check
+                }
+
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain,
+                        String authType, Socket socket) throws
+                        CertificateException {
+                    // Don't check
+                }
+
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain,
+                        String authType, SSLEngine engine) throws
+                        CertificateException {
+                    // Don't check
+                }
+
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain,
+                        String authType, SSLEngine engine) throws
+                        CertificateException {
+                    // Don't check
+                }
+
+            }
+        };
+
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, byPassTrustManagers, new SecureRandom());
+        return sslContext;
     }
 
     public static SocketFactory getDefault() {
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+
+/**
+ * {@link LdapTransport}s available for connecting to an {@link LdapServer}.
+ */
+public enum Transport {
+
+    /** One JNDI connection per pooled context, one request at a time. */
+    JNDI {
+        @Override
+        LdapTransport create() {
+            return StartTls::connect;
+        }
+    },
+    /**
+     * Single connection multiplexing the requests of all contexts. Kerberos
+     * authentication is not supported. Received entries are buffered without
+     * backpressure, so unpaged searches buffer their complete result.
+     */
+    PIPELINED {
+        @Override
+        LdapTransport create() {
+            return new PipelinedTransport();
+        }
+    };
+
+    /**
+     * Creates a transport instance for a connect of a server.
+     *
+     * @return New transport
+     */
+    abstract LdapTransport create();
+}
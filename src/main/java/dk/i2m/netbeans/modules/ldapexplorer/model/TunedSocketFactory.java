@@ -0,0 +1,394 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.TimeUnit;
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Socket factory used for every connection to an {@link LdapServer}, so that
+ * the socket options are not left to the defaults of JNDI.
+ *
+ * <p>JNDI instantiates socket factories by their class name through the
+ * static {@link #getDefault()} method, there is no way to hand it a
+ * configured instance. The {@link Settings} of a server are therefore
+ * passed on the thread opening the connection, see
+ * {@link #connect(Settings, PrivilegedExceptionAction)}.</p>
+ *
+ * <p>TLS connections are opened from one {@link SSLContext} shared by all
+ * servers, whose client session cache lets reconnects and a growing
+ * connection pool resume the TLS session instead of doing a full
+ * handshake.</p>
+ */
+public class TunedSocketFactory extends SSLSocketFactory {
+
+    /** Maximum number of TLS sessions kept for resumption. */
+    static final int SESSION_CACHE_SIZE = 1000;
+    /** Time in seconds a TLS session may be resumed. */
+    static final int SESSION_TIMEOUT = (int) TimeUnit.HOURS.toSeconds(8);
+
+    private static final ThreadLocal<Settings> SETTINGS = new ThreadLocal<>();
+    private static SSLContext verifyingContext;
+    private static SSLContext uncheckedContext;
+
+    /**
+     * Socket options of the connections to a server.
+     */
+    static final class Settings {
+
+        /** Plain connections with the default options of the factory. */
+        static final Settings DEFAULT = new Settings(false, false, true, true, 0, 0);
+
+        private final boolean secure;
+        private final boolean ignoreTlsErrors;
+        private final boolean tcpNoDelay;
+        private final boolean keepAlive;
+        private final int sendBufferSize;
+        private final int receiveBufferSize;
+        private final int connectTimeout;
+        private final String unixSocket;
+
+        /**
+         * Creates new socket settings.
+         *
+         * @param secure {@code true} to open TLS connections
+         * @param ignoreTlsErrors {@code true} to accept any certificate
+         * @param tcpNoDelay {@code true} to send requests without waiting to
+         * fill a segment
+         * @param keepAlive {@code true} to let the operating system detect
+         * dead idle connections
+         * @param sendBufferSize Size of the send buffer in bytes, {@code 0}
+         * for the default of the operating system
+         * @param receiveBufferSize Size of the receive buffer in bytes,
+         * {@code 0} for the default of the operating system
+         */
+        Settings(boolean secure, boolean ignoreTlsErrors, boolean tcpNoDelay,
+                boolean keepAlive, int sendBufferSize, int receiveBufferSize) {
+            this(secure, ignoreTlsErrors, tcpNoDelay, keepAlive,
+                    sendBufferSize, receiveBufferSize, 0, null);
+        }
+
+        /**
+         * Creates new socket settings.
+         *
+         * @param secure {@code true} to open TLS connections
+         * @param ignoreTlsErrors {@code true} to accept any certificate
+         * @param tcpNoDelay {@code true} to send requests without waiting to
+         * fill a segment
+         * @param keepAlive {@code true} to let the operating system detect
+         * dead idle connections
+         * @param sendBufferSize Size of the send buffer in bytes, {@code 0}
+         * for the default of the operating system
+         * @param receiveBufferSize Size of the receive buffer in bytes,
+         * {@code 0} for the default of the operating system
+         * @param connectTimeout Timeout in milliseconds of connecting to a
+         * host, including the TLS handshake, {@code 0} for none
+         * @param unixSocket Path of the Unix domain socket to connect to
+         * instead of the address of the provider URL, {@code null} for TCP
+         */
+        Settings(boolean secure, boolean ignoreTlsErrors, boolean tcpNoDelay,
+                boolean keepAlive, int sendBufferSize, int receiveBufferSize,
+                int connectTimeout, String unixSocket) {
+            this.secure = secure;
+            this.ignoreTlsErrors = ignoreTlsErrors;
+            this.tcpNoDelay = tcpNoDelay;
+            this.keepAlive = keepAlive;
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+            this.connectTimeout = connectTimeout;
+            this.unixSocket = unixSocket;
+        }
+    }
+
+    private final Settings settings;
+    private final SSLSocketFactory delegate;
+
+    private TunedSocketFactory(Settings settings) throws IOException {
+        this.settings = settings;
+        this.delegate = settings.secure ? getSslContext(settings.ignoreTlsErrors)
+                .getSocketFactory() : null;
+    }
+
+    /**
+     * Gets the factory for the connection opened by the current thread. This
+     * is the method JNDI calls.
+     *
+     * @return Factory applying the settings passed to
+     * {@link #connect(Settings, PrivilegedExceptionAction)}, or
+     * {@link Settings#DEFAULT} outside of it
+     */
+    public static SocketFactory getDefault() {
+        Settings settings = SETTINGS.get();
+        try {
+            return new TunedSocketFactory(settings != null ? settings : Settings.DEFAULT);
+        } catch (IOException ex) {
+            // JNDI does not expect a failure here, report it when connecting
+            return new FailingSocketFactory(ex);
+        }
+    }
+
+    /**
+     * Opens a connection with the given socket settings.
+     *
+     * @param <T> Type of the connection
+     * @param settings Socket options of the connection
+     * @param action Opens the connection on the current thread
+     * @return Result of the action
+     * @throws Exception If the action failed
+     */
+    static <T> T connect(Settings settings, PrivilegedExceptionAction<T> action)
+            throws Exception {
+        Settings previous = SETTINGS.get();
+        SETTINGS.set(settings);
+        try {
+            return action.run();
+        } finally {
+            if (previous == null) {
+                SETTINGS.remove();
+            } else {
+                SETTINGS.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Gets the shared context TLS connections are opened from.
+     *
+     * @param ignoreTlsErrors {@code true} for the context accepting any
+     * certificate
+     * @return Context whose client sessions are resumed on reconnect
+     * @throws IOException If TLS is not available
+     */
+    static synchronized SSLContext getSslContext(boolean ignoreTlsErrors)
+            throws IOException {
+        try {
+            if (ignoreTlsErrors) {
+                if (uncheckedContext == null) {
+                    uncheckedContext = configure(
+                            TLSUncheckedSocketFactory.createSslContext());
+                }
+                return uncheckedContext;
+            }
+            if (verifyingContext == null) {
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, null, null);
+                verifyingContext = configure(context);
+            }
+            return verifyingContext;
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("TLS is not available", ex);
+        }
+    }
+
+    /**
+     * Drops the shared contexts, so that the next TLS connection is opened
+     * from a new context reading the current trust store settings.
+     */
+    static synchronized void resetSslContexts() {
+        verifyingContext = null;
+        uncheckedContext = null;
+    }
+
+    private static SSLContext configure(SSLContext context) {
+        SSLSessionContext sessions = context.getClientSessionContext();
+        sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+        sessions.setSessionTimeout(SESSION_TIMEOUT);
+        return context;
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        if (settings.unixSocket != null) {
+            return UnixDomainSockets.newSocket(settings.unixSocket);
+        }
+        return tune(settings.secure ? delegate.createSocket() : new Socket());
+    }
+
+    /**
+     * Connects to a host, racing the connects to all of its addresses, see
+     * {@link HappyEyeballs}. JNDI calls this method when no connect timeout
+     * is set in the environment, the timeout of the {@link Settings} applies.
+     * TLS connections are handshaken before they are returned.
+     */
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        if (settings.unixSocket != null) {
+            return connect(createSocket(), new InetSocketAddress(host, port));
+        }
+        Socket socket = HappyEyeballs.DEFAULT.connect(host, port,
+                settings.connectTimeout, () -> tune(new Socket()));
+        if (!settings.secure) {
+            return socket;
+        }
+        SSLSocket ssl = (SSLSocket) identify(
+                delegate.createSocket(socket, host, port, true));
+        try {
+            ssl.setSoTimeout(settings.connectTimeout);
+            ssl.startHandshake();
+            ssl.setSoTimeout(0);
+            return ssl;
+        } catch (IOException ex) {
+            ssl.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost,
+            int localPort) throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localHost, localPort));
+        return connect(socket, new InetSocketAddress(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return connect(createSocket(), new InetSocketAddress(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port,
+            InetAddress localAddress, int localPort) throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localAddress, localPort));
+        return connect(socket, new InetSocketAddress(address, port));
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port,
+            boolean autoClose) throws IOException {
+        // Upgrade by StartTLS, the options were applied to the layered
+        // socket
+        return identify(getSslContext(settings.ignoreTlsErrors)
+                .getSocketFactory().createSocket(s, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(Socket s, InputStream consumed, boolean autoClose)
+            throws IOException {
+        return getSslContext(settings.ignoreTlsErrors).getSocketFactory()
+                .createSocket(s, consumed, autoClose);
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return getDefaultSocketFactory().getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return getDefaultSocketFactory().getSupportedCipherSuites();
+    }
+
+    private SSLSocketFactory getDefaultSocketFactory() {
+        return delegate != null ? delegate
+                : (SSLSocketFactory) SSLSocketFactory.getDefault();
+    }
+
+    /**
+     * Applies the socket options. The buffer sizes are set before
+     * connecting, as the receive buffer determines the TCP window scale
+     * negotiated in the handshake.
+     */
+    private Socket tune(Socket socket) throws IOException {
+        socket.setTcpNoDelay(settings.tcpNoDelay);
+        socket.setKeepAlive(settings.keepAlive);
+        if (settings.sendBufferSize > 0) {
+            socket.setSendBufferSize(settings.sendBufferSize);
+        }
+        if (settings.receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(settings.receiveBufferSize);
+        }
+        return identify(socket);
+    }
+
+    /**
+     * Lets the TLS handshake verify the host name of the server, unless TLS
+     * errors are ignored.
+     */
+    private Socket identify(Socket socket) {
+        if (socket instanceof SSLSocket && !settings.ignoreTlsErrors) {
+            SSLSocket ssl = (SSLSocket) socket;
+            SSLParameters parameters = ssl.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("LDAPS");
+            ssl.setSSLParameters(parameters);
+        }
+        return socket;
+    }
+
+    private static Socket connect(Socket socket, InetSocketAddress address)
+            throws IOException {
+        try {
+            socket.connect(address);
+            return socket;
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Factory reporting that TLS is not available when a connection is
+     * opened.
+     */
+    private static final class FailingSocketFactory extends SocketFactory {
+
+        private final IOException failure;
+
+        FailingSocketFactory(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost,
+                int localPort) throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port,
+                InetAddress localAddress, int localPort) throws IOException {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * Access to Unix domain sockets, used for {@code ldapi://} connections to a
+ * directory on the same host. This is the implementation for runtimes
+ * without Unix domain socket channels, the module JAR carries another
+ * implementation for Java 21 and later in {@code META-INF/versions/21}.
+ */
+final class UnixDomainSockets {
+
+    private UnixDomainSockets() {
+    }
+
+    /**
+     * Determines if the runtime supports Unix domain sockets.
+     *
+     * @return {@code true} if {@link #newSocket(String)} can be used
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an unconnected socket which connects to the given Unix domain
+     * socket, whatever address it is connected to.
+     *
+     * @param path Path of the Unix domain socket
+     * @return Unconnected socket
+     * @throws IOException If the runtime has no Unix domain sockets
+     */
+    static Socket newSocket(String path) throws IOException {
+        throw new SocketException("ldapi:// connections need Java 21 or later");
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Access to virtual threads. This is the implementation for runtimes without
+ * virtual threads, the module JAR carries another implementation for Java 21
+ * and later in {@code META-INF/versions/21}.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an executor running every task on a virtual thread of its own.
+     *
+     * @param name Name prefix of the threads
+     * @return Executor, {@code null} if the runtime has no virtual threads
+     */
+    static Executor newExecutor(String name) {
+        return null;
+    }
+}
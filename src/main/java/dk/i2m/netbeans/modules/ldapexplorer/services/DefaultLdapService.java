@@ -19,9 +19,12 @@ package dk.i2m.netbeans.modules.ldapexplorer.services;
 import dk.i2m.netbeans.modules.ldapexplorer.model.Authentication;
 import dk.i2m.netbeans.modules.ldapexplorer.model.Krb5LoginConf;
 import dk.i2m.netbeans.modules.ldapexplorer.model.LdapServer;
+import dk.i2m.netbeans.modules.ldapexplorer.model.RootDse;
+import dk.i2m.netbeans.modules.ldapexplorer.model.Transport;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -67,6 +70,70 @@ public class DefaultLdapService extends LdapService {
     public static final String FO_ATTR_KRB5KEYTAB = "krb5keytab";
     /** FileObject attribute containing the Kerberos 5 Keytab for the LdapServer */
     public static final String FO_ATTR_IGNORE_TLS_ERRORS = "ignoreTlsErrors";
+    /** FileObject attribute containing if connections are upgraded by StartTLS */
+    public static final String FO_ATTR_START_TLS = "start-tls";
+    /** FileObject attribute containing the maximum number of pooled connections */
+    public static final String FO_ATTR_POOL_MAX_SIZE = "pool-max-size";
+    /** FileObject attribute containing the idle timeout of pooled connections */
+    public static final String FO_ATTR_POOL_IDLE_TIMEOUT = "pool-idle-timeout";
+    /** FileObject attribute containing the maximum lifetime of pooled connections */
+    public static final String FO_ATTR_POOL_MAX_LIFETIME = "pool-max-lifetime";
+    /** FileObject attribute containing the time to wait for a pooled connection */
+    public static final String FO_ATTR_POOL_BORROW_TIMEOUT = "pool-borrow-timeout";
+    /** FileObject attribute containing the maximum number of concurrent operations */
+    public static final String FO_ATTR_MAX_IN_FLIGHT = "max-in-flight";
+    /** FileObject attribute containing the maximum number of waiting operations */
+    public static final String FO_ATTR_MAX_QUEUED = "max-queued";
+    /** FileObject attribute containing the rate limit of listings and searches */
+    public static final String FO_ATTR_SEARCH_RATE_LIMIT = "search-rate-limit";
+    /** FileObject attribute containing the rate limit of entry reads */
+    public static final String FO_ATTR_READ_RATE_LIMIT = "read-rate-limit";
+    /** FileObject attribute containing the interval of the connection health probes */
+    public static final String FO_ATTR_HEALTH_CHECK_INTERVAL = "health-check-interval";
+    /** FileObject attribute containing the attributes fetched for tree entries */
+    public static final String FO_ATTR_TREE_ATTRIBUTES = "tree-attributes";
+    /** FileObject attribute containing the replicas of the server */
+    public static final String FO_ATTR_REPLICAS = "replicas";
+    /** FileObject attribute containing the domain publishing the servers by DNS SRV records */
+    public static final String FO_ATTR_SRV_DOMAIN = "srv-domain";
+    /** FileObject attribute containing the initial page size of paged searches */
+    public static final String FO_ATTR_PAGE_SIZE = "page-size";
+    /** FileObject attribute containing the time limit of search requests */
+    public static final String FO_ATTR_SEARCH_TIME_LIMIT = "search-time-limit";
+    /** FileObject attribute containing the size limit of listings and searches */
+    public static final String FO_ATTR_SEARCH_SIZE_LIMIT = "search-size-limit";
+    /** FileObject attribute containing the read timeout of connections */
+    public static final String FO_ATTR_READ_TIMEOUT = "read-timeout";
+    /** FileObject attribute containing if TCP_NODELAY is set on connections */
+    public static final String FO_ATTR_TCP_NO_DELAY = "tcp-no-delay";
+    /** FileObject attribute containing if SO_KEEPALIVE is set on connections */
+    public static final String FO_ATTR_KEEP_ALIVE = "keep-alive";
+    /** FileObject attribute containing the send buffer size of connections */
+    public static final String FO_ATTR_SEND_BUFFER_SIZE = "send-buffer-size";
+    /** FileObject attribute containing the receive buffer size of connections */
+    public static final String FO_ATTR_RECEIVE_BUFFER_SIZE = "receive-buffer-size";
+    /** FileObject attribute containing the transport carrying the operations */
+    public static final String FO_ATTR_TRANSPORT = "transport";
+    /** FileObject attribute containing the maximum number of cached entries */
+    public static final String FO_ATTR_ENTRY_CACHE_SIZE = "entry-cache-size";
+    /** FileObject attribute containing the maximum memory used by cached entries */
+    public static final String FO_ATTR_ENTRY_CACHE_MAX_BYTES = "entry-cache-max-bytes";
+    /** FileObject attribute containing the time to live of cached entries */
+    public static final String FO_ATTR_ENTRY_CACHE_TTL = "entry-cache-ttl";
+    /** FileObject attribute containing the time the root DSE was read */
+    public static final String FO_ATTR_ROOT_DSE_FETCHED = "root-dse-fetched";
+    /** FileObject attribute containing the controls announced in the root DSE */
+    public static final String FO_ATTR_ROOT_DSE_CONTROLS = "root-dse-supported-controls";
+    /** FileObject attribute containing the extensions announced in the root DSE */
+    public static final String FO_ATTR_ROOT_DSE_EXTENSIONS = "root-dse-supported-extensions";
+    /** FileObject attribute containing the SASL mechanisms announced in the root DSE */
+    public static final String FO_ATTR_ROOT_DSE_SASL_MECHANISMS = "root-dse-supported-sasl-mechanisms";
+    /** FileObject attribute containing the naming contexts announced in the root DSE */
+    public static final String FO_ATTR_ROOT_DSE_NAMING_CONTEXTS = "root-dse-naming-contexts";
+    /** FileObject attribute containing the vendor name announced in the root DSE */
+    public static final String FO_ATTR_ROOT_DSE_VENDOR_NAME = "root-dse-vendor-name";
+    /** FileObject attribute containing the page size learned from the server */
+    public static final String FO_ATTR_ROOT_DSE_PAGE_SIZE = "root-dse-page-size";
 
     /** {@inheritDoc} */
     @Override
@@ -109,6 +176,32 @@ public class DefaultLdapService extends LdapService {
         server.setAttribute(FO_ATTR_BIND, ldapServer.getBinding());
         server.setAttribute(FO_ATTR_SSL, ldapServer.isSecure());
         server.setAttribute(FO_ATTR_IGNORE_TLS_ERRORS, ldapServer.isIgnoreTlsErrors());
+        server.setAttribute(FO_ATTR_START_TLS, ldapServer.isStartTls());
+        server.setAttribute(FO_ATTR_POOL_MAX_SIZE, ldapServer.getPoolMaxSize());
+        server.setAttribute(FO_ATTR_POOL_IDLE_TIMEOUT, ldapServer.getPoolIdleTimeout());
+        server.setAttribute(FO_ATTR_POOL_MAX_LIFETIME, ldapServer.getPoolMaxLifetime());
+        server.setAttribute(FO_ATTR_POOL_BORROW_TIMEOUT, ldapServer.getPoolBorrowTimeout());
+        server.setAttribute(FO_ATTR_MAX_IN_FLIGHT, ldapServer.getMaxInFlight());
+        server.setAttribute(FO_ATTR_MAX_QUEUED, ldapServer.getMaxQueued());
+        server.setAttribute(FO_ATTR_SEARCH_RATE_LIMIT, ldapServer.getSearchRateLimit());
+        server.setAttribute(FO_ATTR_READ_RATE_LIMIT, ldapServer.getReadRateLimit());
+        server.setAttribute(FO_ATTR_HEALTH_CHECK_INTERVAL, ldapServer.getHealthCheckInterval());
+        server.setAttribute(FO_ATTR_TREE_ATTRIBUTES, ldapServer.getTreeAttributes());
+        server.setAttribute(FO_ATTR_REPLICAS, ldapServer.getReplicas());
+        server.setAttribute(FO_ATTR_SRV_DOMAIN, ldapServer.getSrvDomain());
+        server.setAttribute(FO_ATTR_PAGE_SIZE, ldapServer.getPageSize());
+        server.setAttribute(FO_ATTR_SEARCH_TIME_LIMIT, ldapServer.getSearchTimeLimit());
+        server.setAttribute(FO_ATTR_SEARCH_SIZE_LIMIT, ldapServer.getSearchSizeLimit());
+        server.setAttribute(FO_ATTR_READ_TIMEOUT, ldapServer.getReadTimeout());
+        server.setAttribute(FO_ATTR_TCP_NO_DELAY, ldapServer.isTcpNoDelay());
+        server.setAttribute(FO_ATTR_KEEP_ALIVE, ldapServer.isKeepAlive());
+        server.setAttribute(FO_ATTR_SEND_BUFFER_SIZE, ldapServer.getSendBufferSize());
+        server.setAttribute(FO_ATTR_RECEIVE_BUFFER_SIZE, ldapServer.getReceiveBufferSize());
+        server.setAttribute(FO_ATTR_TRANSPORT, ldapServer.getTransport().name());
+        server.setAttribute(FO_ATTR_ENTRY_CACHE_SIZE, ldapServer.getEntryCacheSize());
+        server.setAttribute(FO_ATTR_ENTRY_CACHE_MAX_BYTES, ldapServer.getEntryCacheMaxBytes());
+        server.setAttribute(FO_ATTR_ENTRY_CACHE_TTL, ldapServer.getEntryCacheTtl());
+        saveRootDse(server, ldapServer.getRootDse());
         server.setAttribute(FO_ATTR_LOGINCONF, Krb5LoginConf.values()[ldapServer.getKrb5LoginConf().ordinal()]);
         server.setAttribute(FO_ATTR_KRB5USERNAME, ldapServer.getKrb5username());
         if(ldapServer.getKrb5keytab() != null) {
@@ -138,6 +231,19 @@ public class DefaultLdapService extends LdapService {
         return ldapServer;
     }
 
+    /**
+     * {@inheritDoc} Only the attributes of the snapshot are written, a server
+     * that is not registered yet is left alone.
+     */
+    @Override
+    public void saveRootDse(LdapServer ldapServer) throws IOException {
+        FileObject server = FileUtil.getConfigRoot().getFileObject(
+                LdapService.SERVER_FOLDER + "/" + ldapServer.getIdentifier());
+        if (server != null) {
+            saveRootDse(server, ldapServer.getRootDse());
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void delete(LdapServer server) throws IOException {
@@ -186,6 +292,7 @@ public class DefaultLdapService extends LdapService {
         }
         Boolean secure = getAttributeAsBoolean(fo, FO_ATTR_SSL, false);
         Boolean ignoreTlsErrors = getAttributeAsBoolean(fo, FO_ATTR_IGNORE_TLS_ERRORS, false);
+        Boolean startTls = getAttributeAsBoolean(fo, FO_ATTR_START_TLS, false);
         Krb5LoginConf loginConfig = Krb5LoginConf.SYSTEM_ACCOUNT;
         // Wenn die Config Daten nicht vorhanden sind oder nicht auflösbar sind,
         // ersetzen wir durch einen Standard-Wert
@@ -209,6 +316,36 @@ public class DefaultLdapService extends LdapService {
             }
         }
         File krb5keytab = new File(getAttributeAsString(fo, FO_ATTR_KRB5KEYTAB, ""));
+        int poolMaxSize = getAttributeAsInteger(fo, FO_ATTR_POOL_MAX_SIZE, 4);
+        int poolIdleTimeout = getAttributeAsInteger(fo, FO_ATTR_POOL_IDLE_TIMEOUT, 60000);
+        int poolMaxLifetime = getAttributeAsInteger(fo, FO_ATTR_POOL_MAX_LIFETIME, 600000);
+        int poolBorrowTimeout = getAttributeAsInteger(fo, FO_ATTR_POOL_BORROW_TIMEOUT, 30000);
+        int maxInFlight = getAttributeAsInteger(fo, FO_ATTR_MAX_IN_FLIGHT, 4);
+        int maxQueued = getAttributeAsInteger(fo, FO_ATTR_MAX_QUEUED, 100);
+        int searchRateLimit = getAttributeAsInteger(fo, FO_ATTR_SEARCH_RATE_LIMIT, 0);
+        int readRateLimit = getAttributeAsInteger(fo, FO_ATTR_READ_RATE_LIMIT, 0);
+        int healthCheckInterval = getAttributeAsInteger(fo, FO_ATTR_HEALTH_CHECK_INTERVAL, 30000);
+        String[] treeAttributes = getAttributeAsStringArray(fo, FO_ATTR_TREE_ATTRIBUTES, new String[0]);
+        String[] replicas = getAttributeAsStringArray(fo, FO_ATTR_REPLICAS, new String[0]);
+        String srvDomain = getAttributeAsString(fo, FO_ATTR_SRV_DOMAIN, "");
+        int pageSize = getAttributeAsInteger(fo, FO_ATTR_PAGE_SIZE, 500);
+        int searchTimeLimit = getAttributeAsInteger(fo, FO_ATTR_SEARCH_TIME_LIMIT, 0);
+        int searchSizeLimit = getAttributeAsInteger(fo, FO_ATTR_SEARCH_SIZE_LIMIT, 0);
+        int readTimeout = getAttributeAsInteger(fo, FO_ATTR_READ_TIMEOUT, 120000);
+        Boolean tcpNoDelay = getAttributeAsBoolean(fo, FO_ATTR_TCP_NO_DELAY, true);
+        Boolean keepAlive = getAttributeAsBoolean(fo, FO_ATTR_KEEP_ALIVE, true);
+        int sendBufferSize = getAttributeAsInteger(fo, FO_ATTR_SEND_BUFFER_SIZE, 0);
+        int receiveBufferSize = getAttributeAsInteger(fo, FO_ATTR_RECEIVE_BUFFER_SIZE, 0);
+        Transport transport = Transport.JNDI;
+        try {
+            transport = Transport.valueOf(getAttributeAsString(fo,
+                    FO_ATTR_TRANSPORT, Transport.JNDI.name()));
+        } catch (IllegalArgumentException ex) {
+            LOG.log(Level.WARNING, "Unknown transport, using JNDI", ex);
+        }
+        int entryCacheSize = getAttributeAsInteger(fo, FO_ATTR_ENTRY_CACHE_SIZE, 1000);
+        int entryCacheMaxBytes = getAttributeAsInteger(fo, FO_ATTR_ENTRY_CACHE_MAX_BYTES, 8 * 1024 * 1024);
+        int entryCacheTtl = getAttributeAsInteger(fo, FO_ATTR_ENTRY_CACHE_TTL, 30000);
 
         LdapServer server = new LdapServer(host, port, baseDn);
         server.setLabel(label);
@@ -219,10 +356,36 @@ public class DefaultLdapService extends LdapService {
         server.setPassword(password);
         server.setSecure(secure);
         server.setIgnoreTlsErrors(ignoreTlsErrors);
+        server.setStartTls(startTls);
         server.setKrb5LoginConf(loginConfig);
         server.setKrb5username(krb5username);
         server.setKrb5password(krb5password);
         server.setKrb5keytab(krb5keytab);
+        server.setPoolMaxSize(poolMaxSize);
+        server.setPoolIdleTimeout(poolIdleTimeout);
+        server.setPoolMaxLifetime(poolMaxLifetime);
+        server.setPoolBorrowTimeout(poolBorrowTimeout);
+        server.setMaxInFlight(maxInFlight);
+        server.setMaxQueued(maxQueued);
+        server.setSearchRateLimit(searchRateLimit);
+        server.setReadRateLimit(readRateLimit);
+        server.setHealthCheckInterval(healthCheckInterval);
+        server.setTreeAttributes(treeAttributes);
+        server.setReplicas(replicas);
+        server.setSrvDomain(srvDomain);
+        server.setPageSize(pageSize);
+        server.setSearchTimeLimit(searchTimeLimit);
+        server.setSearchSizeLimit(searchSizeLimit);
+        server.setReadTimeout(readTimeout);
+        server.setTcpNoDelay(tcpNoDelay);
+        server.setKeepAlive(keepAlive);
+        server.setSendBufferSize(sendBufferSize);
+        server.setReceiveBufferSize(receiveBufferSize);
+        server.setTransport(transport);
+        server.setEntryCacheSize(entryCacheSize);
+        server.setEntryCacheMaxBytes(entryCacheMaxBytes);
+        server.setEntryCacheTtl(entryCacheTtl);
+        server.setRootDse(loadRootDse(fo));
 
         char[] keyringPass = Keyring.read(passwordKey(fo.getName()));
         char[] keyringKrb5Pass = Keyring.read(krb5passwordKey(fo.getName()));
@@ -237,6 +400,40 @@ public class DefaultLdapService extends LdapService {
         return server;
     }
 
+    private void saveRootDse(FileObject fo, RootDse rootDse) throws IOException {
+        if (rootDse == null) {
+            fo.setAttribute(FO_ATTR_ROOT_DSE_FETCHED, null);
+            return;
+        }
+        fo.setAttribute(FO_ATTR_ROOT_DSE_FETCHED, rootDse.getFetched());
+        fo.setAttribute(FO_ATTR_ROOT_DSE_CONTROLS,
+                rootDse.getSupportedControls().toArray(new String[0]));
+        fo.setAttribute(FO_ATTR_ROOT_DSE_EXTENSIONS,
+                rootDse.getSupportedExtensions().toArray(new String[0]));
+        fo.setAttribute(FO_ATTR_ROOT_DSE_SASL_MECHANISMS,
+                rootDse.getSupportedSaslMechanisms().toArray(new String[0]));
+        fo.setAttribute(FO_ATTR_ROOT_DSE_NAMING_CONTEXTS,
+                rootDse.getNamingContexts().toArray(new String[0]));
+        fo.setAttribute(FO_ATTR_ROOT_DSE_VENDOR_NAME, rootDse.getVendorName());
+        fo.setAttribute(FO_ATTR_ROOT_DSE_PAGE_SIZE, rootDse.getPageSize());
+    }
+
+    private RootDse loadRootDse(FileObject fo) {
+        Object fetched = fo.getAttribute(FO_ATTR_ROOT_DSE_FETCHED);
+        if (!(fetched instanceof Long)) {
+            return null;
+        }
+        String[] none = new String[0];
+        return new RootDse(
+                Arrays.asList(getAttributeAsStringArray(fo, FO_ATTR_ROOT_DSE_CONTROLS, none)),
+                Arrays.asList(getAttributeAsStringArray(fo, FO_ATTR_ROOT_DSE_EXTENSIONS, none)),
+                Arrays.asList(getAttributeAsStringArray(fo, FO_ATTR_ROOT_DSE_SASL_MECHANISMS, none)),
+                Arrays.asList(getAttributeAsStringArray(fo, FO_ATTR_ROOT_DSE_NAMING_CONTEXTS, none)),
+                getAttributeAsString(fo, FO_ATTR_ROOT_DSE_VENDOR_NAME, null),
+                getAttributeAsInteger(fo, FO_ATTR_ROOT_DSE_PAGE_SIZE, null),
+                (Long) fetched);
+    }
+
     private String[] getAttributeAsStringArray(FileObject fo, String key,
             String[] defaultValue) {
         Object obj = fo.getAttribute(key);
@@ -56,6 +56,20 @@ public abstract class LdapService {
      */
     public abstract LdapServer save(LdapServer ldapServer) throws IOException;
 
+    /**
+     * Saves the snapshot of the root DSE of a registered {@link LdapServer},
+     * e.g. after it was read again or a better page size was learned. The
+     * default implementation saves the complete {@link LdapServer}.
+     *
+     * @param ldapServer
+     *          {@link LdapServer} whose snapshot to save
+     * @throws IOException
+     *          If the snapshot could not be saved
+     */
+    public void saveRootDse(LdapServer ldapServer) throws IOException {
+        save(ldapServer);
+    }
+
     /**
      * Deletes an {@link LdapServer} from the registry.
      *
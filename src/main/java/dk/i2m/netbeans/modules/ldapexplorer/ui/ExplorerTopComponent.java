@@ -24,13 +24,16 @@ import dk.i2m.netbeans.modules.ldapexplorer.model.LdapEntryNode;
 import dk.i2m.netbeans.modules.ldapexplorer.model.LdapSearchEntryChildren;
 import dk.i2m.netbeans.modules.ldapexplorer.model.LdapSearchEntryNode;
 import dk.i2m.netbeans.modules.ldapexplorer.model.LdapServer;
-import dk.i2m.netbeans.modules.ldapexplorer.model.QueryException;
 import dk.i2m.netbeans.modules.ldapexplorer.model.SearchContext;
+import java.awt.EventQueue;
 import java.awt.Rectangle;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.Collection;
 import java.util.ResourceBundle;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
@@ -57,10 +60,23 @@ public final class ExplorerTopComponent extends CloneableTopComponent implements
     private ResourceBundle bundle = NbBundle.getBundle(
             ExplorerTopComponent.class);
     private static final String PREFERRED_ID = "ExplorerTopComponent";
+    /** Loads the details of the selected entry, one entry at a time. */
+    private static final RequestProcessor DETAILS_RP = new RequestProcessor(
+            ExplorerTopComponent.class.getName(), 1, true);
+    /**
+     * Delay in milliseconds before the selected entry is fetched, so that
+     * quickly moving through the tree does not issue a request per entry.
+     */
+    private static final int DETAILS_DELAY = 75;
     private LdapServer server;
     private Lookup.Result result = null;
     private boolean inQuery = false;
     private SearchContext searchContext = new SearchContext();
+    /** Incremented on the EDT whenever the selection changes. */
+    private volatile long detailsGeneration = 0;
+    private RequestProcessor.Task detailsTask = null;
+    /** Read of the selected entry, canceled when the selection changes. */
+    private volatile CompletableFuture<LdapEntry> detailsRead = null;
 
     /**
      * Creates a new instance of {@link ExplorerTopComponent}.
@@ -119,6 +135,8 @@ public final class ExplorerTopComponent extends CloneableTopComponent implements
     @Override
     public void componentClosed() {
         result.removeLookupListener(this);
+        detailsGeneration++;
+        cancelDetails();
         if (this.searchContext != null) {
             try {
                 this.searchContext.cancel();
@@ -142,7 +160,9 @@ public final class ExplorerTopComponent extends CloneableTopComponent implements
     }
 
     /**
-     * Event handler for when an {@link LdapEntryNode} is selected.
+     * Event handler for when an {@link LdapEntryNode} is selected. Cached
+     * entries are displayed immediately, other entries are fetched in the
+     * background and only the most recent selection is displayed.
      *
      * @param ev Event that invoked the handler
      */
@@ -151,58 +171,151 @@ public final class ExplorerTopComponent extends CloneableTopComponent implements
 
         Collection c = result.allInstances();
 
-        // Get the model of the attribute table
+        LdapEntry entry = null;
+        if (!c.isEmpty()) {
+            LdapEntryNode e = (LdapEntryNode) c.iterator().next();
+            entry = e.getLookup().lookup(LdapEntry.class);
+        }
+
+        final long generation = ++detailsGeneration;
+        cancelDetails();
+
         DefaultTableModel model =
                 (DefaultTableModel) tblAttributes.getModel();
         model.setRowCount(0);
 
-        txtLdif.setText("");
+        if (entry == null || server == null) {
+            txtLdif.setText("");
+            return;
+        }
 
-        if (!c.isEmpty()) {
-            LdapEntryNode e = (LdapEntryNode) c.iterator().next();
+        final String dn = entry.getDn();
+        LdapEntry cached = server.getCachedEntry(dn);
+        if (cached != null) {
+            showDetails(createRows(cached), cached.toLDIF());
+            return;
+        }
 
-            try {
-            // Get the LdapEntry associated with this node
-            LdapEntry entry = e.getLookup().lookup(LdapEntry.class);
-
-            // Show LdapEntry if it was found for this node
-            // Note: On the root node there is no LdapEntry, hence the check
-            if (entry != null) {
-                    entry = server.getEntry(entry.getDn());
-                    ldifPane.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
-                    txtLdif.setText(entry.toLDIF());
-
-                    // Add the DN as it is not part of the attributes
-                    addRow(model, "dn", entry.getDn());
-
-                    for (String att : entry.getAttributes().keySet()) {
-                        for (Object val : entry.getAttributes().get(att)) {
-                            addRow(model, att, val);
+        txtLdif.setText(NbBundle.getMessage(ExplorerTopComponent.class,
+                "ExplorerTopComponent.txtLdif.loading", dn));
+        detailsTask = DETAILS_RP.post(new Runnable() {
+            @Override
+            public void run() {
+                loadDetails(generation, dn);
+            }
+        }, DETAILS_DELAY);
+    }
+
+    /**
+     * Cancels the loading of the details of a passed selection, so that its
+     * read does not queue ahead of the read of the current selection.
+     */
+    private void cancelDetails() {
+        if (detailsTask != null) {
+            detailsTask.cancel();
+            detailsTask = null;
+        }
+        CompletableFuture<LdapEntry> read = detailsRead;
+        if (read != null) {
+            read.cancel(false);
+            detailsRead = null;
+        }
+    }
+
+    /**
+     * Fetches an entry and prepares its rows and LDIF outside the EDT, then
+     * applies both in a single EDT update unless a newer selection was made
+     * in the meantime. No thread is held while waiting for the server.
+     *
+     * @param generation Selection the entry is loaded for
+     * @param dn Distinguished name of the entry to load
+     */
+    private void loadDetails(final long generation, String dn) {
+        CompletableFuture<LdapEntry> read = server.getEntryAsync(dn);
+        detailsRead = read;
+        if (generation != detailsGeneration) {
+            // The selection changed while the read was started
+            read.cancel(false);
+            return;
+        }
+        read.whenComplete((entry, failure) -> {
+            if (failure != null) {
+                final Throwable cause = failure instanceof CompletionException
+                        ? failure.getCause() : failure;
+                EventQueue.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == detailsGeneration) {
+                            txtLdif.setText("");
+                            JOptionPane.showMessageDialog(null, cause.getMessage());
                         }
                     }
-            } else {
-                txtLdif.setText("");
+                });
+                return;
+            }
+            if (generation != detailsGeneration) {
+                return;
+            }
+
+            final String ldif = entry.toLDIF();
+            final Vector<Vector<Object>> rows = createRows(entry);
+
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (generation == detailsGeneration) {
+                        detailsTask = null;
+                        showDetails(rows, ldif);
+                    }
+                }
+            });
+        });
+    }
+
+    private Vector<Vector<Object>> createRows(LdapEntry entry) {
+        Vector<Vector<Object>> rows = new Vector<>();
+        rows.add(createRow("dn", entry.getDn()));
+        for (String att : entry.getAttributes().keySet()) {
+            for (Object val : entry.getAttributes().get(att)) {
+                rows.add(createRow(att, val));
             }
-            } catch (QueryException ex) {
-                JOptionPane.showMessageDialog(null, ex.getMessage());
         }
+        return rows;
     }
+
+    /**
+     * Replaces the displayed attributes and LDIF. Must be called on the EDT.
+     */
+    private void showDetails(Vector<Vector<Object>> rows, String ldif) {
+        DefaultTableModel model =
+                (DefaultTableModel) tblAttributes.getModel();
+        // Replaces all rows with a single table event, keeping the columns
+        @SuppressWarnings("unchecked")
+        Vector<Object> data = (Vector<Object>) (Vector<?>) model.getDataVector();
+        data.clear();
+        data.addAll(rows);
+        model.fireTableDataChanged();
+        txtLdif.setText(ldif);
+        ldifPane.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+        txtLdif.setCaretPosition(0);
     }
 
-    private void addRow(DefaultTableModel model, String att, Object val) {
+    private Vector<Object> createRow(String att, Object val) {
         final String LBL_PREFIX = "ATTRIBUTE_FRIENDLY_NAME_";
         String attName = att;
         if (bundle.containsKey(LBL_PREFIX + att.toLowerCase())) {
             attName = bundle.getString(LBL_PREFIX + att.toLowerCase());
         }
 
+        Vector<Object> row = new Vector<>(3);
+        row.add(attName);
+        row.add(att);
         if (val instanceof byte[]) {
-            // Field is binary - convert it to hexadecimals
-            model.addRow(
-                    new Object[]{attName, att, Hex.encodeHexString((byte[]) val)});
+            row.add(Hex.encodeHexString((byte[]) val));
         } else {
-            model.addRow(new Object[]{attName, att, val});
+            row.add(val);
         }
+        return row;
     }
 
     private void prepareBrowsing() {
@@ -16,11 +16,12 @@
  */
 package dk.i2m.netbeans.modules.ldapexplorer.ui.actions;
 
-import dk.i2m.netbeans.modules.ldapexplorer.model.ConnectionException;
 import dk.i2m.netbeans.modules.ldapexplorer.model.LdapServerNode;
 import dk.i2m.netbeans.modules.ldapexplorer.ui.ExplorerTopComponent;
+import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -50,7 +51,7 @@ public class ExplorerAction extends AbstractAction {
 
     /**
      * Event handler that connects to the selected server and opens the
-     * explorer window.
+     * explorer window once connected, without blocking the EDT.
      *
      * @param evt
      *          Event that invoked the handler
@@ -64,20 +65,23 @@ public class ExplorerAction extends AbstractAction {
 
         // Ensure that an LdapServerNode is indeed selected or found
         if (node != null) {
-            try {
 
-                // Connect to the server contained in the selected node
-                node.getServer().connect();
-
-                // Open the explorer window for the server connection
-                TopComponent win = new ExplorerTopComponent();
-                win.open();
-                win.requestActive();
-            } catch (ConnectionException ex) {
-                LOG.log(Level.INFO, "Failed to establish connection", ex);
-                JOptionPane.showMessageDialog(null, ex.getMessage(),
-                        "Could not connect", JOptionPane.ERROR_MESSAGE);
-            }
+            // Connect to the server contained in the selected node
+            node.getServer().connectAsync().whenComplete((result, failure) ->
+                    EventQueue.invokeLater(() -> {
+                        if (failure == null) {
+                            // Open the explorer window for the server connection
+                            TopComponent win = new ExplorerTopComponent();
+                            win.open();
+                            win.requestActive();
+                        } else {
+                            Throwable cause = failure instanceof CompletionException
+                                    ? failure.getCause() : failure;
+                            LOG.log(Level.INFO, "Failed to establish connection", cause);
+                            JOptionPane.showMessageDialog(null, cause.getMessage(),
+                                    "Could not connect", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
         }
     }
 }
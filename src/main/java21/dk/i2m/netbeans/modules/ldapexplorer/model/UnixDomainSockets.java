@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Access to Unix domain sockets, the implementation for Java 21 and later.
+ */
+final class UnixDomainSockets {
+
+    private UnixDomainSockets() {
+    }
+
+    /**
+     * Determines if the runtime supports Unix domain sockets.
+     *
+     * @return {@code true}
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates an unconnected socket which connects to the given Unix domain
+     * socket, whatever address it is connected to.
+     *
+     * @param path Path of the Unix domain socket
+     * @return Unconnected socket
+     */
+    static Socket newSocket(String path) {
+        return new ChannelSocket(UnixDomainSocketAddress.of(path));
+    }
+
+    /**
+     * {@link Socket} over a Unix domain {@link SocketChannel}, whose own
+     * socket adaptor is not available for Unix domain channels. JNDI and the
+     * pipelined transport only need the streams. The streams read and write
+     * the channel directly, so that a reader blocked in a read does not
+     * block writes, as the streams of {@code Channels} would.
+     */
+    private static final class ChannelSocket extends Socket {
+
+        private final UnixDomainSocketAddress address;
+        private SocketChannel channel;
+        private int soTimeout = 0;
+        private boolean closed = false;
+
+        ChannelSocket(UnixDomainSocketAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public synchronized void connect(SocketAddress endpoint, int timeout)
+                throws IOException {
+            if (closed) {
+                throw new SocketException("Socket is closed");
+            }
+            // The endpoint of the provider URL only stands in for the path
+            SocketChannel ch = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                ch.connect(address);
+            } catch (IOException ex) {
+                ch.close();
+                SocketException se = new SocketException(
+                        address.getPath() + ": " + ex.getMessage());
+                se.initCause(ex);
+                throw se;
+            }
+            channel = ch;
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint) throws IOException {
+            connect(endpoint, 0);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            SocketChannel ch = getConnectedChannel();
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return len == 0 ? 0 : ch.read(ByteBuffer.wrap(b, off, len));
+                }
+
+                @Override
+                public void close() throws IOException {
+                    ChannelSocket.this.close();
+                }
+            };
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            SocketChannel ch = getConnectedChannel();
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                    while (buffer.hasRemaining()) {
+                        ch.write(buffer);
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    ChannelSocket.this.close();
+                }
+            };
+        }
+
+        @Override
+        public synchronized SocketChannel getChannel() {
+            return channel;
+        }
+
+        private synchronized SocketChannel getConnectedChannel()
+                throws SocketException {
+            if (channel == null) {
+                throw new SocketException("Socket is not connected");
+            }
+            return channel;
+        }
+
+        @Override
+        public synchronized boolean isConnected() {
+            return channel != null && channel.isConnected();
+        }
+
+        @Override
+        public synchronized boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed = true;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        @Override
+        public void shutdownInput() throws IOException {
+            getConnectedChannel().shutdownInput();
+        }
+
+        @Override
+        public void shutdownOutput() throws IOException {
+            getConnectedChannel().shutdownOutput();
+        }
+
+        // Reads block until data arrives, the read timeouts of JNDI and of
+        // the pipelined transport do not rely on the socket timeout
+        @Override
+        public synchronized void setSoTimeout(int timeout) {
+            soTimeout = timeout;
+        }
+
+        @Override
+        public synchronized int getSoTimeout() {
+            return soTimeout;
+        }
+
+        // TCP options do not apply to Unix domain sockets
+        @Override
+        public void setTcpNoDelay(boolean on) {
+        }
+
+        @Override
+        public void setKeepAlive(boolean on) {
+        }
+
+        @Override
+        public void setSoLinger(boolean on, int linger) {
+        }
+
+        @Override
+        public String toString() {
+            return "ldapi:" + address.getPath();
+        }
+    }
+}
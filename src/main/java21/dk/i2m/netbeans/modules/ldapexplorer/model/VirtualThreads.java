@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, the implementation for Java 21 and later.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an executor running every task on a virtual thread of its own.
+     *
+     * @param name Name prefix of the threads
+     * @return Executor starting a virtual thread per task
+     */
+    static Executor newExecutor(String name) {
+        ThreadFactory factory = Thread.ofVirtual().name(name + "-", 0).factory();
+        return task -> factory.newThread(task).start();
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.Context;
+import javax.naming.NameClassPair;
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.Attributes;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Counts the requests the explorer sends to an embedded directory server
+ * when listing and searching entries.
+ */
+public class BaseLdapServerRoundTripTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String PEOPLE_DN = "ou=people," + BASE_DN;
+    private static final int ENTRY_COUNT = 2000;
+    private static final int PAGE_SIZE = 500;
+    private static final AtomicInteger SEARCHES = new AtomicInteger();
+    private static final AtomicInteger ROOT_DSE_READS = new AtomicInteger();
+
+    private static InMemoryDirectoryServer directory;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+            @Override
+            public void processSearchRequest(InMemoryInterceptedSearchRequest request) {
+                SEARCHES.incrementAndGet();
+                if (request.getRequest().getBaseDN().isEmpty()) {
+                    ROOT_DSE_READS.incrementAndGet();
+                }
+            }
+        });
+        directory = new InMemoryDirectoryServer(config);
+        populate(directory);
+        directory.startListening();
+    }
+
+    private static void populate(InMemoryDirectoryServer server) throws Exception {
+        server.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        server.add("dn: " + PEOPLE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            server.add(
+                    "dn: uid=user" + i + "," + PEOPLE_DN,
+                    "objectClass: top",
+                    "objectClass: person",
+                    "objectClass: inetOrgPerson",
+                    "uid: user" + i,
+                    "cn: User " + i,
+                    "sn: " + i);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        directory.shutDown(true);
+    }
+
+    @Before
+    public void setUp() {
+        SEARCHES.set(0);
+        ROOT_DSE_READS.set(0);
+    }
+
+    private BaseLdapServer createServer() {
+        BaseLdapServer server = new BaseLdapServer("localhost", directory.getListenPort(), BASE_DN);
+        server.setAuthentication(Authentication.NONE);
+        server.setPageSize(PAGE_SIZE);
+        return server;
+    }
+
+    private static LdapResultProcessor collector(final List<LdapEntry> entries) {
+        return new LdapResultProcessor() {
+            @Override
+            public void addEntry(LdapEntry entry) {
+                entries.add(entry);
+            }
+
+            @Override
+            public void reset() {
+                fail("Recoverable conditions must not reset the result");
+            }
+        };
+    }
+
+    @Test
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    public void testTreeRoundTrips() throws Exception {
+        // Previous implementation: list() plus one objectClass read per child
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, "ldap://localhost:" + directory.getListenPort());
+        long start = System.nanoTime();
+        LdapContext ctx = new InitialLdapContext(env, null);
+        int legacyCount = 0;
+        try {
+            NamingEnumeration<NameClassPair> children = ctx.list(PEOPLE_DN);
+            while (children.hasMore()) {
+                NameClassPair nc = children.next();
+                Attributes attrs = ctx.getAttributes(nc.getNameInNamespace(),
+                        new String[]{"objectclass"});
+                assertNotNull(attrs.get("objectClass"));
+                legacyCount++;
+            }
+        } finally {
+            ctx.close();
+        }
+        long legacyTime = System.nanoTime() - start;
+        int legacySearches = SEARCHES.getAndSet(0);
+
+        BaseLdapServer server = createServer();
+        List<LdapEntry> entries = new ArrayList<>();
+        start = System.nanoTime();
+        server.connect();
+        try {
+            server.getTree(PEOPLE_DN, collector(entries));
+        } finally {
+            server.disconnect();
+        }
+        long projectedTime = System.nanoTime() - start;
+        int projectedSearches = SEARCHES.get();
+
+        String report = String.format("list+getAttributes: %d requests, %d ms; "
+                + "projected search: %d requests, %d ms",
+                legacySearches, TimeUnit.NANOSECONDS.toMillis(legacyTime),
+                projectedSearches, TimeUnit.NANOSECONDS.toMillis(projectedTime));
+
+        assertEquals(ENTRY_COUNT, legacyCount);
+        assertEquals(ENTRY_COUNT, entries.size());
+        assertTrue(report, legacySearches > ENTRY_COUNT);
+        // Root DSE read for the paging support plus one request per page,
+        // the page size only grows from the configured size
+        assertTrue("Too many requests: " + report,
+                projectedSearches <= 1 + ENTRY_COUNT / PAGE_SIZE);
+        for (LdapEntry entry : entries) {
+            assertEquals(ObjectClass.inetOrgPerson, entry.getPrimaryObjectClass());
+        }
+    }
+
+    @Test
+    public void testSearchRoundTrips() throws Exception {
+        BaseLdapServer server = createServer();
+        server.setTreeAttributes(new String[]{"cn"});
+        List<LdapEntry> entries = new ArrayList<>();
+        server.connect();
+        try {
+            server.search("(uid=user1*)", collector(entries));
+        } finally {
+            server.disconnect();
+        }
+
+        // user1, user10-19, user100-199, user1000-1999
+        assertEquals(1111, entries.size());
+        assertTrue("Too many requests: " + SEARCHES.get(),
+                SEARCHES.get() <= 1 + (1111 + PAGE_SIZE - 1) / PAGE_SIZE);
+        for (LdapEntry entry : entries) {
+            assertTrue(entry.getObjectClasses().contains("person"));
+            assertEquals(1, entry.getAttribute("cn").size());
+            assertFalse(entry.getAttributes().containsKey("sn"));
+        }
+    }
+
+    @Test
+    public void testRootDseIsKeptAcrossReconnects() throws Exception {
+        BaseLdapServer server = createServer();
+        List<LdapEntry> entries = new ArrayList<>();
+        server.connect();
+        try {
+            server.getTree(PEOPLE_DN, collector(entries));
+        } finally {
+            server.disconnect();
+        }
+        RootDse rootDse = server.getRootDse();
+        assertNotNull(rootDse);
+        assertTrue(rootDse.getNamingContexts().contains(BASE_DN));
+
+        entries.clear();
+        SEARCHES.set(0);
+        ROOT_DSE_READS.set(0);
+        server.connect();
+        try {
+            server.getTree(PEOPLE_DN, collector(entries));
+        } finally {
+            server.disconnect();
+        }
+        assertEquals(ENTRY_COUNT, entries.size());
+        assertEquals("Only the listing is expected after reconnecting",
+                0, ROOT_DSE_READS.get());
+        assertSame(rootDse, server.getRootDse());
+    }
+
+    @Test
+    public void testSizeLimitIsResumed() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        config.setMaxSizeLimit(300);
+        InMemoryDirectoryServer limited = new InMemoryDirectoryServer(config);
+        populate(limited);
+        limited.startListening();
+        try {
+            BaseLdapServer server = new BaseLdapServer("localhost",
+                    limited.getListenPort(), BASE_DN);
+            server.setAuthentication(Authentication.NONE);
+            server.setPageSize(PAGE_SIZE);
+            List<LdapEntry> entries = new ArrayList<>();
+            server.connect();
+            try {
+                server.getTree(PEOPLE_DN, collector(entries));
+            } finally {
+                server.disconnect();
+            }
+
+            Set<LdapEntry> unique = new HashSet<>(entries);
+            assertEquals(ENTRY_COUNT, unique.size());
+            assertEquals("Entries must be delivered once", ENTRY_COUNT, entries.size());
+            assertTrue(server.getRootDse().getPageSize() <= 300);
+        } finally {
+            limited.shutDown(true);
+        }
+    }
+
+    @Test
+    public void testCancelAbortsSearch() throws Exception {
+        BaseLdapServer server = createServer();
+        final List<LdapEntry> entries = new ArrayList<>();
+        server.connect();
+        try {
+            server.search("(objectClass=person)", new LdapResultProcessor() {
+                @Override
+                public void addEntry(LdapEntry entry) {
+                    entries.add(entry);
+                    if (entries.size() == 10) {
+                        cancel();
+                    }
+                }
+
+                @Override
+                public void reset() {
+                    fail("Recoverable conditions must not reset the result");
+                }
+            });
+            assertEquals(10, entries.size());
+
+            // The aborted connection is not handed out again
+            entries.clear();
+            server.getTree(PEOPLE_DN, collector(entries));
+            assertEquals(ENTRY_COUNT, entries.size());
+        } finally {
+            server.disconnect();
+        }
+    }
+
+    @Test
+    public void testPublishedTree() throws Exception {
+        BaseLdapServer server = createServer();
+        final List<LdapEntry> entries = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        server.connect();
+        try {
+            server.publishTree(PEOPLE_DN).subscribe(new LdapFlow.Subscriber<LdapEntry>() {
+                private LdapFlow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(LdapFlow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(100);
+                }
+
+                @Override
+                public void onNext(LdapEntry item) {
+                    entries.add(item);
+                    if (entries.size() % 100 == 0) {
+                        subscription.request(100);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    fail(throwable.toString());
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+        } finally {
+            server.disconnect();
+        }
+        assertEquals(ENTRY_COUNT, entries.size());
+    }
+
+    @Test
+    public void testAsyncComposition() throws Exception {
+        final AtomicInteger identities = new AtomicInteger();
+        final BaseLdapServer server = new BaseLdapServer("localhost",
+                directory.getListenPort(), BASE_DN) {
+            @Override
+            protected <T> T runAs(PrivilegedExceptionAction<T> action) throws Exception {
+                identities.incrementAndGet();
+                return action.run();
+            }
+        };
+        server.setAuthentication(Authentication.NONE);
+        server.setPageSize(PAGE_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        server.setExecutor(executor);
+        final List<LdapEntry> entries = Collections.synchronizedList(new ArrayList<>());
+        try {
+            // connect -> listing -> first entry, without blocking in between
+            LdapEntry first = server.connectAsync()
+                    .thenCompose(v -> server.getTreeAsync(PEOPLE_DN, collector(entries)))
+                    .thenCompose(v -> server.getEntryAsync(entries.get(0).getDn()))
+                    .get(30, TimeUnit.SECONDS);
+            assertEquals(ENTRY_COUNT, entries.size());
+            assertEquals(entries.get(0).getDn(), first.getDn());
+            assertTrue("Connections must be opened through runAs", identities.get() > 0);
+
+            try {
+                server.getEntryAsync("uid=missing," + PEOPLE_DN).get(30, TimeUnit.SECONDS);
+                fail("Read a missing entry");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof QueryException);
+            }
+        } finally {
+            server.disconnect();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSizeLimit() throws Exception {
+        BaseLdapServer server = createServer();
+        server.setSearchSizeLimit(25);
+        List<LdapEntry> entries = new ArrayList<>();
+        server.connect();
+        try {
+            server.getTree(PEOPLE_DN, collector(entries));
+        } finally {
+            server.disconnect();
+        }
+        assertEquals(25, entries.size());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Test;
+import org.openide.nodes.AbstractNode;
+import org.openide.nodes.Children;
+import org.openide.nodes.Node;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link BatchingResultProcessor} fills {@link Children.Keys} in
+ * batches instead of entry by entry. The delayed flushes are collected and run
+ * by the tests, so the results do not depend on timing.
+ */
+public class BatchingResultProcessorTest {
+
+    private static final int BATCHED_COUNT = 50000;
+
+    private static class EntryChildren extends Children.Keys<LdapEntry> {
+
+        private int updates = 0;
+
+        void publish(Collection<LdapEntry> keys) {
+            updates++;
+            setKeys(keys);
+        }
+
+        @Override
+        protected Node[] createNodes(LdapEntry key) {
+            AbstractNode node = new AbstractNode(Children.LEAF);
+            node.setName(key.getLabel());
+            return new Node[]{node};
+        }
+    }
+
+    private static LdapEntry entry(int i) {
+        // Reverse order, so the final flush has something to sort
+        String label = String.format("uid=user%06d", BATCHED_COUNT - i);
+        return new LdapEntry(label + ",ou=people,dc=example,dc=com", label);
+    }
+
+    @Test
+    public void testBatchedLoading() {
+        EntryChildren children = new EntryChildren();
+        children.getNodesCount();
+        List<Runnable> flushes = new ArrayList<>();
+        BatchingResultProcessor processor = new BatchingResultProcessor(
+                children::publish, flushes::add);
+        for (int i = 0; i < BATCHED_COUNT; i++) {
+            processor.addEntry(entry(i));
+        }
+        processor.finish();
+        Node[] nodes = children.getNodes();
+
+        // One update per full batch and the final sorted update
+        assertEquals(BATCHED_COUNT / BatchingResultProcessor.BATCH_SIZE + 1,
+                children.updates);
+        assertEquals(1, flushes.size());
+        assertEquals(BATCHED_COUNT, nodes.length);
+        assertEquals(entry(BATCHED_COUNT - 1).getLabel(), nodes[0].getName());
+        assertEquals(entry(0).getLabel(), nodes[BATCHED_COUNT - 1].getName());
+
+        // A flush running after the final update must not publish again
+        flushes.get(0).run();
+        assertEquals(BATCHED_COUNT / BatchingResultProcessor.BATCH_SIZE + 1,
+                children.updates);
+    }
+
+    @Test
+    public void testPendingEntriesArePublishedAfterDelay() {
+        EntryChildren children = new EntryChildren();
+        children.getNodesCount();
+        List<Runnable> flushes = new ArrayList<>();
+        BatchingResultProcessor processor = new BatchingResultProcessor(
+                children::publish, flushes::add);
+        processor.addEntry(entry(1));
+        processor.addEntry(entry(2));
+        assertEquals(0, children.getNodesCount());
+        assertEquals(1, flushes.size());
+        flushes.remove(0).run();
+        assertEquals(1, children.updates);
+        assertEquals(2, children.getNodesCount());
+
+        // The next pending entry schedules a new flush
+        processor.addEntry(entry(3));
+        assertEquals(1, flushes.size());
+    }
+}
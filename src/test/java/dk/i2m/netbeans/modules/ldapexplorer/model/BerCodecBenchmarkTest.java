@@ -0,0 +1,337 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Micro benchmark of decoding search results on the {@link Transport#JNDI}
+ * and {@link Transport#PIPELINED} transports. A local server answers every
+ * search with the same synthetic stream of search result entries, the
+ * entries per second and the bytes allocated per entry by the client threads
+ * are compared.
+ *
+ * <p>The benchmark only runs when the system property
+ * {@code ldapexplorer.benchmark} is {@code true}.</p>
+ */
+public class BerCodecBenchmarkTest {
+
+    private static final String PEOPLE_DN = "ou=people,dc=example,dc=com";
+    private static final int ENTRY_COUNT = 20000;
+    private static final int WARM_UP = 3;
+    private static final int ITERATIONS = 5;
+
+    private static SyntheticServer server;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        assumeTrue(Boolean.getBoolean("ldapexplorer.benchmark"));
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        server = new SyntheticServer();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Encodes a search result entry with the attributes of a typical person.
+     */
+    private static void encodeEntry(BerEncoder encoder, int i) {
+        char[] description = new char[200];
+        Arrays.fill(description, (char) ('a' + i % 26));
+        byte[] photo = new byte[512];
+        Arrays.fill(photo, (byte) i);
+        encoder.beginSequence(PipelinedConnection.SEARCH_ENTRY)
+                .writeString("uid=user" + i + "," + PEOPLE_DN)
+                .beginSequence(BerEncoder.SEQUENCE);
+        encodeAttribute(encoder, "objectClass", "top", "person",
+                "organizationalPerson", "inetOrgPerson");
+        encodeAttribute(encoder, "uid", "user" + i);
+        encodeAttribute(encoder, "cn", "User " + i);
+        encodeAttribute(encoder, "sn", String.valueOf(i));
+        encodeAttribute(encoder, "givenName", "User");
+        encodeAttribute(encoder, "mail", "user" + i + "@example.com");
+        encodeAttribute(encoder, "telephoneNumber", "+45 " + (10000000 + i));
+        encodeAttribute(encoder, "description", new String(description));
+        encoder.beginSequence(BerEncoder.SEQUENCE)
+                .writeString("jpegPhoto")
+                .beginSequence(BerEncoder.SET)
+                .writeOctets(BerEncoder.OCTET_STRING, photo)
+                .endSequence()
+                .endSequence();
+        encoder.endSequence().endSequence();
+    }
+
+    private static void encodeAttribute(BerEncoder encoder, String id, String... values) {
+        encoder.beginSequence(BerEncoder.SEQUENCE).writeString(id)
+                .beginSequence(BerEncoder.SET);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+        encoder.endSequence().endSequence();
+    }
+
+    @SuppressWarnings("UseOfObsoleteCollectionType")
+    private static Hashtable<String, String> environment() {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, "ldap://localhost:" + server.getPort());
+        env.put(Context.SECURITY_AUTHENTICATION, "none");
+        return env;
+    }
+
+    @Test
+    public void testDecoding() throws Exception {
+        LdapContext jndi = new InitialLdapContext(environment(), null);
+        PipelinedTransport transport = new PipelinedTransport();
+        LdapContext pipelined = transport.connect(environment());
+        try {
+            Result jndiNames = measure(jndi, false);
+            Result jndiValues = measure(jndi, true);
+            Result pipelinedNames = measure(pipelined, false);
+            Result pipelinedValues = measure(pipelined, true);
+            String report = "entries/s, bytes/entry: "
+                    + format("jndi, names", jndiNames)
+                    + format("; jndi, all values", jndiValues)
+                    + format("; pipelined, names", pipelinedNames)
+                    + format("; pipelined, all values", pipelinedValues);
+
+            // The undecoded values are the bulk of an entry
+            assertTrue(report, pipelinedNames.bytesPerEntry < jndiNames.bytesPerEntry / 2);
+            assertTrue(report, pipelinedValues.bytesPerEntry < jndiValues.bytesPerEntry);
+        } finally {
+            jndi.close();
+            pipelined.close();
+            transport.close();
+        }
+    }
+
+    private static String format(String name, Result result) {
+        return String.format("%s %d %d", name,
+                (long) result.entriesPerSecond, result.bytesPerEntry);
+    }
+
+    /**
+     * Lists the synthetic entries repeatedly and keeps the fastest run.
+     *
+     * @param ctx Context to search
+     * @param values Whether every value is read, or just the names and the
+     * number of attributes
+     */
+    private static Result measure(LdapContext ctx, boolean values) throws Exception {
+        Result best = null;
+        for (int i = 0; i < WARM_UP + ITERATIONS; i++) {
+            long[] threads = clientThreads();
+            long allocated = allocatedBytes(threads);
+            long start = System.nanoTime();
+            int count = list(ctx, values);
+            long nanos = System.nanoTime() - start;
+            allocated = allocatedBytes(threads) - allocated;
+            assertEquals(ENTRY_COUNT, count);
+            if (i >= WARM_UP) {
+                Result result = new Result(count * (double) TimeUnit.SECONDS.toNanos(1) / nanos,
+                        allocated / count);
+                if (best == null || result.entriesPerSecond > best.entriesPerSecond) {
+                    best = result;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int list(LdapContext ctx, boolean values) throws NamingException {
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
+        NamingEnumeration<SearchResult> results = ctx.search(PEOPLE_DN,
+                "(objectClass=*)", controls);
+        int count = 0;
+        int sum = 0;
+        try {
+            while (results.hasMore()) {
+                SearchResult result = results.next();
+                sum += result.getNameInNamespace().length();
+                sum += result.getAttributes().size();
+                if (values) {
+                    for (NamingEnumeration<? extends Attribute> ae
+                            = result.getAttributes().getAll(); ae.hasMore();) {
+                        for (NamingEnumeration<?> ve = ae.next().getAll(); ve.hasMore();) {
+                            sum += ve.next().hashCode();
+                        }
+                    }
+                }
+                count++;
+            }
+        } finally {
+            results.close();
+        }
+        assertTrue(sum != 0);
+        return count;
+    }
+
+    /**
+     * @return All threads but the threads of the synthetic server
+     */
+    private static long[] clientThreads() {
+        long[] ids = ManagementFactory.getThreadMXBean().getAllThreadIds();
+        return Arrays.stream(ids).filter(id -> !server.threadIds.contains(id)).toArray();
+    }
+
+    private static long allocatedBytes(long[] threads) {
+        long[] allocated = ((com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean()).getThreadAllocatedBytes(threads);
+        long sum = 0;
+        for (long bytes : allocated) {
+            sum += Math.max(bytes, 0);
+        }
+        return sum;
+    }
+
+    private static class Result {
+
+        private final double entriesPerSecond;
+        private final long bytesPerEntry;
+
+        Result(double entriesPerSecond, long bytesPerEntry) {
+            this.entriesPerSecond = entriesPerSecond;
+            this.bytesPerEntry = bytesPerEntry;
+        }
+    }
+
+    /**
+     * Server answering binds with success and every search with the
+     * synthetic entries, on one thread serving one connection at a time.
+     */
+    private static class SyntheticServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final Map<Integer, byte[]> responses = new ConcurrentHashMap<>();
+        private final Set<Long> threadIds = ConcurrentHashMap.newKeySet();
+
+        SyntheticServer() throws IOException {
+            start(this::accept);
+        }
+
+        private void start(Runnable runnable) {
+            Thread thread = new Thread(runnable, SyntheticServer.class.getSimpleName());
+            thread.setDaemon(true);
+            threadIds.add(thread.getId());
+            thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    start(() -> serve(socket));
+                }
+            } catch (IOException ex) {
+                // closed
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (Socket closing = socket) {
+                serve(new BerMessageReader(socket.getInputStream()),
+                        socket.getOutputStream());
+            } catch (IOException ex) {
+                // disconnected
+            }
+        }
+
+        private void serve(BerMessageReader in, OutputStream out) throws IOException {
+            BerDecoder request;
+            while ((request = in.next()) != null) {
+                request.readSequence(BerEncoder.SEQUENCE);
+                int id = request.readInt();
+                int type = request.peekTag();
+                if (type == PipelinedConnection.BIND_REQUEST) {
+                    out.write(result(id, PipelinedConnection.BIND_RESPONSE));
+                    out.flush();
+                } else if (type == PipelinedConnection.SEARCH_REQUEST) {
+                    out.write(responses.computeIfAbsent(id, this::encodeResponses));
+                    out.flush();
+                } else if (type == PipelinedConnection.UNBIND_REQUEST) {
+                    return;
+                }
+            }
+        }
+
+        private byte[] encodeResponses(int id) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BerEncoder encoder = new BerEncoder();
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                encoder.reset();
+                encoder.beginSequence(BerEncoder.SEQUENCE).writeInt(id);
+                encodeEntry(encoder, i);
+                encoder.endSequence();
+                bytes.write(encoder.toByteArray(), 0, encoder.size());
+            }
+            byte[] done = result(id, PipelinedConnection.SEARCH_DONE);
+            bytes.write(done, 0, done.length);
+            return bytes.toByteArray();
+        }
+
+        private static byte[] result(int id, int type) {
+            BerEncoder encoder = new BerEncoder();
+            encoder.beginSequence(BerEncoder.SEQUENCE).writeInt(id)
+                    .beginSequence(type)
+                    .writeEnumerated(0)
+                    .writeString("")
+                    .writeString("")
+                    .endSequence()
+                    .endSequence();
+            return encoder.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
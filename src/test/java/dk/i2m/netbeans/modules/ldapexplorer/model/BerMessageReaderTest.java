@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the framing of {@link BerMessageReader} and the undecoded values of
+ * {@link BerAttribute}.
+ */
+public class BerMessageReaderTest {
+
+    /**
+     * Stream returning the data in chunks of random size.
+     */
+    private static class ChunkedInputStream extends ByteArrayInputStream {
+
+        private final Random random = new Random(42);
+
+        ChunkedInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(3000)));
+        }
+    }
+
+    private static byte[] message(int id, int size) {
+        char[] value = new char[size];
+        Arrays.fill(value, (char) ('a' + id % 26));
+        BerEncoder encoder = new BerEncoder();
+        encoder.beginSequence(BerEncoder.SEQUENCE).writeInt(id)
+                .writeString(new String(value)).endSequence();
+        return encoder.toByteArray();
+    }
+
+    @Test
+    public void testFraming() throws Exception {
+        // Small messages, and messages larger than a block
+        int[] sizes = new int[300];
+        Random random = new Random(7);
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = i % 50 == 0
+                    ? BerMessageReader.BLOCK_SIZE + random.nextInt(BerMessageReader.BLOCK_SIZE)
+                    : random.nextInt(2000);
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] message = message(i, sizes[i]);
+            stream.write(message, 0, message.length);
+        }
+
+        BerMessageReader reader = new BerMessageReader(
+                new ChunkedInputStream(stream.toByteArray()));
+        for (int i = 0; i < sizes.length; i++) {
+            BerDecoder message = reader.next();
+            assertNotNull(message);
+            message.readSequence(BerEncoder.SEQUENCE);
+            assertEquals(i, message.readInt());
+            assertEquals(new String(message(i, sizes[i]), StandardCharsets.UTF_8)
+                    .substring(message(i, sizes[i]).length - sizes[i]),
+                    message.readString());
+            assertFalse(message.hasRemaining());
+        }
+        assertNull(reader.next());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedMessage() throws Exception {
+        byte[] message = message(1, 100);
+        InputStream in = new ByteArrayInputStream(message, 0, message.length - 1);
+        new BerMessageReader(in).next();
+    }
+
+    @Test
+    public void testUndecodedValues() throws Exception {
+        byte[] buffer = "xxUnïcodeabc".getBytes(StandardCharsets.UTF_8);
+        BerAttribute text = new BerAttribute("cn", false, buffer);
+        text.addValue(2, 8);
+        text.addValue(10, 3);
+        assertEquals(2, text.size());
+        ByteBuffer raw = text.getRawValue(1);
+        assertEquals(3, raw.remaining());
+        assertEquals('a', raw.get());
+        assertEquals("Unïcode", text.get(0));
+        assertEquals("abc", text.get(1));
+        assertTrue(text.contains("abc"));
+
+        BerAttribute binary = new BerAttribute("jpegPhoto", true, buffer);
+        binary.addValue(10, 3);
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), (byte[]) binary.get());
+        buffer[10] = 'z';
+        // Decoded values are copies
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), (byte[]) binary.get());
+    }
+
+    @Test
+    public void testPooledEncoder() throws IOException {
+        BerBufferPool pool = new BerBufferPool(10, 12, 2);
+        BerEncoder encoder = new BerEncoder(pool);
+        char[] value = new char[3000];
+        Arrays.fill(value, 'b');
+        // Grows beyond the initial buffer
+        encoder.beginSequence(BerEncoder.SEQUENCE).writeInt(1)
+                .writeString(new String(value)).endSequence();
+        byte[] encoded = encoder.toByteArray();
+        encoder.release();
+        assertArrayEquals(message(1, 3000), encoded);
+
+        ByteBuffer buffer = pool.acquire(4000);
+        assertEquals(4096, buffer.capacity());
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire(2049));
+        // Larger than the largest size class, not pooled
+        assertEquals(5000, pool.acquire(5000).capacity());
+    }
+}
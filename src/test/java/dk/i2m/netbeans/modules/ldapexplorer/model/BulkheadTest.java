@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a {@link Bulkhead} never runs more operations than allowed,
+ * admits them by priority, rejects operations beyond its queue and keeps to
+ * its rate limits.
+ */
+public class BulkheadTest {
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static Runnable await(CountDownLatch latch) {
+        return () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    /**
+     * Waits until the given number of operations is queued.
+     */
+    private static void awaitQueued(Bulkhead bulkhead, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getStatistics().getQueued() != expected) {
+            assertTrue("Expected " + expected + " queued operations",
+                    System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 3, 100);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, maxRunning.get());
+        assertEquals(50, bulkhead.getStatistics().getAdmitted());
+    }
+
+    @Test
+    public void testQueueOrderAndRaisedLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 1, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.INTERACTIVE, 1, await(release));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            int task = i;
+            bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.INTERACTIVE, 1, () -> {
+                order.add(task);
+                started.countDown();
+                await(release).run();
+                done.countDown();
+            });
+        }
+        assertFalse(started.await(50, TimeUnit.MILLISECONDS));
+        assertEquals(4, bulkhead.getStatistics().getQueued());
+
+        // The blocked operation still runs, so raising the limit to 3
+        // admits the first two. Operations admitted together start on
+        // different threads, so only the admitted set is ordered.
+        bulkhead.setLimit(3);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(new HashSet<>(Arrays.asList(0, 1)), new HashSet<>(order));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(new HashSet<>(Arrays.asList(2, 3)),
+                new HashSet<>(order.subList(2, 4)));
+    }
+
+    @Test
+    public void testQueueBound() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, await(release));
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, () -> {
+        });
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, () -> {
+        });
+        try {
+            bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, () -> {
+            });
+            fail("Operation beyond the queue was accepted");
+        } catch (RejectedExecutionException ex) {
+            // Expected
+        }
+        try {
+            bulkhead.acquire(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1);
+            fail("Operation beyond the queue was accepted");
+        } catch (RejectedExecutionException ex) {
+            // Expected
+        }
+        BulkheadStatistics stats = bulkhead.getStatistics();
+        assertEquals(1, stats.getRunning());
+        assertEquals(2, stats.getQueued());
+        assertEquals(2, stats.getRejected());
+        release.countDown();
+    }
+
+    @Test
+    public void testBlockingAcquire() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 1, 10);
+        Bulkhead.Permit permit = bulkhead.acquire(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1);
+
+        // Operations of the holding thread are part of its operation
+        try (Bulkhead.Permit nested = bulkhead.acquire(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1)) {
+            assertEquals(1, bulkhead.getStatistics().getRunning());
+        }
+        CountDownLatch nestedTask = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.INTERACTIVE, 1, nestedTask::countDown);
+        assertTrue(nestedTask.await(5, TimeUnit.SECONDS));
+
+        Future<?> other = pool.submit(() -> {
+            try (Bulkhead.Permit p = bulkhead.acquire(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1)) {
+                return null;
+            }
+        });
+        awaitQueued(bulkhead, 1);
+        assertFalse(other.isDone());
+        permit.close();
+        other.get(5, TimeUnit.SECONDS);
+        assertEquals(0, bulkhead.getStatistics().getRunning());
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 1, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1,
+                await(release));
+        List<Priority> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(5);
+        for (Priority priority : new Priority[]{Priority.BULK,
+            Priority.PREFETCH, Priority.VISIBLE_EXPAND, Priority.INTERACTIVE,
+            Priority.BULK}) {
+            bulkhead.execute(Bulkhead.Kind.READ, priority, 1, () -> {
+                order.add(priority);
+                done.countDown();
+            });
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Priority.INTERACTIVE,
+                Priority.VISIBLE_EXPAND, Priority.PREFETCH, Priority.BULK,
+                Priority.BULK), order);
+    }
+
+    @Test
+    public void testBackgroundLeavesLastSlot() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 3, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.BULK, 1,
+                    await(release));
+        }
+        awaitQueued(bulkhead, 2);
+        assertEquals(2, bulkhead.getStatistics().getRunning());
+
+        CountDownLatch read = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1,
+                read::countDown);
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testBackgroundYieldsBetweenPages() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 1, 100);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstPage = new CountDownLatch(1);
+        CountDownLatch clicked = new CountDownLatch(1);
+        CountDownLatch exported = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.BULK, 1, () -> {
+            try {
+                for (int page = 0; page < 3; page++) {
+                    events.add("page " + page);
+                    if (page == 0) {
+                        firstPage.countDown();
+                        clicked.await(5, TimeUnit.SECONDS);
+                    }
+                    // Interactive work is waiting after the first page only
+                    assertEquals(page == 0, bulkhead.yieldToWaiting());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exported.countDown();
+        });
+        assertTrue(firstPage.await(5, TimeUnit.SECONDS));
+        CountDownLatch read = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, () -> {
+            events.add("read");
+            read.countDown();
+        });
+        clicked.countDown();
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+        assertTrue(exported.await(5, TimeUnit.SECONDS));
+        // The export signals before its slot is released, wait for the slot
+        try (Bulkhead.Permit p = bulkhead.acquire(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1)) {
+            assertEquals(Arrays.asList("page 0", "read", "page 1", "page 2"),
+                    events);
+        }
+        assertEquals(1, bulkhead.getStatistics().getYielded());
+        assertEquals(0, bulkhead.getStatistics().getRunning());
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(pool, 100, 100);
+        bulkhead.setSearchRate(10);
+        CountDownLatch searches = new CountDownLatch(20);
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            bulkhead.execute(Bulkhead.Kind.SEARCH, Priority.INTERACTIVE, 1, searches::countDown);
+        }
+
+        // Reads are not held up by throttled searches
+        CountDownLatch read = new CountDownLatch(1);
+        bulkhead.execute(Bulkhead.Kind.READ, Priority.INTERACTIVE, 1, read::countDown);
+        assertTrue(read.await(100, TimeUnit.MILLISECONDS));
+
+        assertTrue(searches.await(5, TimeUnit.SECONDS));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // A burst of 10, the other 10 at 10 per second
+        assertTrue("20 searches took " + millis + " ms", millis >= 800);
+        long throttled = bulkhead.getStatistics().getThrottled();
+        assertTrue(throttled + " searches throttled",
+                throttled > 0 && throttled <= 10);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConnectProfilerTest {
+
+    @Test
+    public void testCostIsRecordedBySecurity() {
+        ConnectProfiler profiler = new ConnectProfiler();
+        assertEquals("No connects", profiler.getStatistics().toString());
+
+        // A full handshake followed by two resumed sessions
+        profiler.connected(ConnectionSecurity.STARTTLS, TimeUnit.MILLISECONDS.toNanos(90));
+        profiler.connected(ConnectionSecurity.STARTTLS, TimeUnit.MILLISECONDS.toNanos(10));
+        profiler.connected(ConnectionSecurity.STARTTLS, TimeUnit.MILLISECONDS.toNanos(20));
+        profiler.failed(ConnectionSecurity.PLAIN);
+
+        ConnectStatistics statistics = profiler.getStatistics();
+        ConnectStatistics.Mode startTls = statistics.getMode(ConnectionSecurity.STARTTLS);
+        assertEquals(3, startTls.getConnects());
+        assertEquals(0, startTls.getFailures());
+        assertEquals(40.0, startTls.getAverageTime(), 0.001);
+        assertEquals(10.0, startTls.getMinTime(), 0.001);
+        assertEquals(90.0, startTls.getMaxTime(), 0.001);
+
+        ConnectStatistics.Mode plain = statistics.getMode(ConnectionSecurity.PLAIN);
+        assertEquals(0, plain.getConnects());
+        assertEquals(1, plain.getFailures());
+        assertNull(statistics.getMode(ConnectionSecurity.LDAPS));
+    }
+}
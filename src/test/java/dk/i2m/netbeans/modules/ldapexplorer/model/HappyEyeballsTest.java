@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HappyEyeballsTest {
+
+    private ServerSocket live;
+    private InetSocketAddress liveEndpoint;
+    private InetSocketAddress deadEndpoint;
+    private InetSocketAddress refusedEndpoint;
+    private CountDownLatch deadClosed;
+
+    @Before
+    public void setUp() throws Exception {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        live = new ServerSocket(0, 50, loopback);
+        liveEndpoint = new InetSocketAddress(loopback, live.getLocalPort());
+        // Never answers, like an address whose packets are dropped
+        deadEndpoint = new InetSocketAddress(loopback, 1);
+        try (ServerSocket closed = new ServerSocket(0, 50, loopback)) {
+            refusedEndpoint = new InetSocketAddress(loopback, closed.getLocalPort());
+        }
+        deadClosed = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        live.close();
+    }
+
+    /**
+     * Socket whose connects to the dead endpoint hang until it is closed.
+     */
+    private Socket newSocket() {
+        return new Socket() {
+            private final CountDownLatch closed = new CountDownLatch(1);
+
+            @Override
+            public void connect(SocketAddress endpoint, int timeout)
+                    throws IOException {
+                if (!endpoint.equals(deadEndpoint)) {
+                    super.connect(endpoint, timeout);
+                    return;
+                }
+                try {
+                    if (!closed.await(timeout, TimeUnit.MILLISECONDS)) {
+                        throw new SocketTimeoutException("connect timed out");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new SocketException("Socket closed");
+            }
+
+            @Override
+            public synchronized void close() throws IOException {
+                if (closed.getCount() > 0) {
+                    closed.countDown();
+                    deadClosed.countDown();
+                }
+                super.close();
+            }
+        };
+    }
+
+    @Test
+    public void testDeadAddressIsRacedAndRemembered() throws Exception {
+        HappyEyeballs eyeballs = new HappyEyeballs(100);
+        long start = System.nanoTime();
+        try (Socket socket = eyeballs.connect(
+                Arrays.asList(deadEndpoint, liveEndpoint), 5000, this::newSocket)) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(liveEndpoint, socket.getRemoteSocketAddress());
+            assertTrue("Connect took " + millis + " ms", millis < 2000);
+        }
+        // The losing attempt was aborted
+        assertTrue(deadClosed.await(5, TimeUnit.SECONDS));
+        // The address that connected is tried first from now on
+        assertEquals(Arrays.asList(liveEndpoint, deadEndpoint),
+                eyeballs.order(Arrays.asList(deadEndpoint, liveEndpoint)));
+    }
+
+    @Test
+    public void testFailedAddressStartsNextAttemptAtOnce() throws Exception {
+        // Far longer than the test may take
+        HappyEyeballs eyeballs = new HappyEyeballs(60000);
+        long start = System.nanoTime();
+        try (Socket socket = eyeballs.connect(
+                Arrays.asList(refusedEndpoint, liveEndpoint), 5000, this::newSocket)) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(liveEndpoint, socket.getRemoteSocketAddress());
+            assertTrue("Connect took " + millis + " ms", millis < 2000);
+        }
+        assertEquals(Arrays.asList(liveEndpoint, refusedEndpoint),
+                eyeballs.order(Arrays.asList(refusedEndpoint, liveEndpoint)));
+    }
+
+    @Test
+    public void testTimeoutAndFailures() throws Exception {
+        HappyEyeballs eyeballs = new HappyEyeballs(50);
+        try {
+            eyeballs.connect(Arrays.asList(refusedEndpoint, refusedEndpoint),
+                    5000, this::newSocket).close();
+            fail("Connected to a closed port");
+        } catch (SocketException ex) {
+            // expected
+        }
+        long start = System.nanoTime();
+        try {
+            eyeballs.connect(Arrays.asList(deadEndpoint, deadEndpoint), 300,
+                    this::newSocket).close();
+            fail("Connected to a dead address");
+        } catch (SocketTimeoutException ex) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("Timeout took " + millis + " ms", millis < 2000);
+        }
+    }
+
+    @Test
+    public void testAddressFamiliesAlternate() throws Exception {
+        InetSocketAddress v6a = new InetSocketAddress(InetAddress.getByName("2001:db8::1"), 389);
+        InetSocketAddress v6b = new InetSocketAddress(InetAddress.getByName("2001:db8::2"), 389);
+        InetSocketAddress v4a = new InetSocketAddress(InetAddress.getByName("192.0.2.1"), 389);
+        InetSocketAddress v4b = new InetSocketAddress(InetAddress.getByName("192.0.2.2"), 389);
+        List<InetSocketAddress> ordered = new HappyEyeballs(250).order(
+                Arrays.asList(v6a, v6b, v4a, v4b));
+        assertEquals(Arrays.asList(v6a, v4a, v6b, v4b), ordered);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.CommunicationException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LdapConnectionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final AtomicInteger probed = new AtomicInteger();
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    private LdapContext newContext() {
+        opened.incrementAndGet();
+        return (LdapContext) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{LdapContext.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closed.incrementAndGet();
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "getAttributes":
+                            probed.incrementAndGet();
+                            if (stale.get()) {
+                                throw new CommunicationException("Connection reset");
+                            }
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testReleasedContextIsReused() throws Exception {
+        LdapConnectionPool pool = new LdapConnectionPool(this::newContext, 2, 60000, 60000, 100);
+        LdapContext first = pool.borrow();
+        pool.release(first);
+        LdapContext second = pool.borrow();
+        assertSame(first, second);
+        assertEquals(1, opened.get());
+        pool.release(second);
+        pool.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        LdapConnectionPool pool = new LdapConnectionPool(this::newContext, 2, 60000, 60000, 100);
+        LdapContext first = pool.borrow();
+        LdapContext second = pool.borrow();
+        assertNotSame(first, second);
+        try {
+            pool.borrow();
+            fail("Exhausted pool must not hand out a third connection");
+        } catch (ServiceUnavailableException ex) {
+            // expected
+        }
+        pool.invalidate(first);
+        assertEquals(1, closed.get());
+        LdapContext third = pool.borrow();
+        assertEquals(3, opened.get());
+        assertEquals(2, pool.getBorrowedCount());
+        pool.release(second);
+        pool.release(third);
+        pool.close();
+    }
+
+    @Test
+    public void testExpiredContextIsNotReused() throws Exception {
+        LdapConnectionPool pool = new LdapConnectionPool(this::newContext, 2, 60000, 0, 100);
+        LdapContext first = pool.borrow();
+        pool.release(first);
+        assertEquals(1, closed.get());
+        assertEquals(0, pool.getIdleCount());
+        LdapContext second = pool.borrow();
+        assertNotSame(first, second);
+        pool.release(second);
+        pool.close();
+    }
+
+    @Test
+    public void testProbeIdleClosesStaleContexts() throws Exception {
+        LdapConnectionPool pool = new LdapConnectionPool(this::newContext, 3, 60000, 60000, 100);
+        LdapContext first = pool.borrow();
+        LdapContext second = pool.borrow();
+        LdapContext third = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+
+        // Healthy idle contexts stay in the pool
+        assertEquals(0, pool.probeIdle());
+        assertEquals(2, probed.get());
+        assertEquals(2, pool.getIdleCount());
+
+        // A stale context closes the remaining idle ones as well
+        stale.set(true);
+        assertEquals(2, pool.probeIdle());
+        assertEquals(3, probed.get());
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(2, closed.get());
+
+        // Borrowed contexts are not probed
+        assertEquals(1, pool.getBorrowedCount());
+        pool.release(third);
+        pool.close();
+    }
+}
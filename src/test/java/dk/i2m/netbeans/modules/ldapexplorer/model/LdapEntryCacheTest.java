@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LdapEntryCacheTest {
+
+    private static LdapEntry entry(String dn) {
+        LdapEntry entry = new LdapEntry(dn, dn.substring(0, dn.indexOf(',')));
+        entry.setAttribute("cn", dn);
+        return entry;
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        LdapEntryCache cache = new LdapEntryCache(2, Long.MAX_VALUE, 60000);
+        cache.put("cn=a,dc=example", entry("cn=a,dc=example"), null);
+        cache.put("cn=b,dc=example", entry("cn=b,dc=example"), null);
+        assertNotNull(cache.get("cn=a,dc=example"));
+        cache.put("cn=c,dc=example", entry("cn=c,dc=example"), null);
+
+        assertNotNull(cache.get("cn=a,dc=example"));
+        assertNull(cache.get("cn=b,dc=example"));
+        assertNotNull(cache.get("cn=c,dc=example"));
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.getHits());
+        assertEquals(3, statistics.getMisses());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(2, statistics.getEntries());
+    }
+
+    @Test
+    public void testCacheIsBoundedByBytes() {
+        LdapEntry large = entry("cn=large,dc=example");
+        large.setAttribute("jpegPhoto", new byte[100000]);
+        long size = LdapEntryCache.estimateSize(large);
+        assertTrue(size > 100000);
+
+        LdapEntryCache cache = new LdapEntryCache(100, size + 100, 60000);
+        cache.put("cn=a,dc=example", entry("cn=a,dc=example"), null);
+        cache.put("cn=large,dc=example", large, null);
+        assertNull(cache.get("cn=a,dc=example"));
+        assertSame(large, cache.get("cn=large,dc=example"));
+        assertTrue(cache.getStatistics().getEstimatedBytes() <= size + 100);
+    }
+
+    @Test
+    public void testExpiredEntryIsRevalidated() {
+        LdapEntryCache cache = new LdapEntryCache(100, Long.MAX_VALUE, 0);
+        LdapEntry entry = entry("cn=a,dc=example");
+        cache.put("cn=a,dc=example", entry, "entryCSN=1;");
+
+        assertNull(cache.get("cn=a,dc=example"));
+        assertEquals("entryCSN=1;", cache.getVersion("cn=a,dc=example"));
+        assertSame(entry, cache.revalidate("cn=a,dc=example"));
+        assertEquals(1, cache.getStatistics().getRevalidations());
+
+        cache.invalidate("cn=a,dc=example");
+        assertNull(cache.getVersion("cn=a,dc=example"));
+        assertNull(cache.revalidate("cn=a,dc=example"));
+        assertEquals(0, cache.getStatistics().getEstimatedBytes());
+    }
+
+    @Test
+    public void testDisabledCacheKeepsNothing() {
+        LdapEntryCache cache = new LdapEntryCache(0, Long.MAX_VALUE, 60000);
+        cache.put("cn=a,dc=example", entry("cn=a,dc=example"), null);
+        assertNull(cache.get("cn=a,dc=example"));
+        assertEquals(0, cache.getStatistics().getEntries());
+        assertEquals(1, cache.getStatistics().getMisses());
+    }
+}
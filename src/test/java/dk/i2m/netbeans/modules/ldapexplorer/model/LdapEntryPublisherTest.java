@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LdapEntryPublisherTest {
+
+    private static final int ENTRY_COUNT = 10000;
+    private static final int CAPACITY = 100;
+
+    private final AtomicInteger produced = new AtomicInteger();
+    private final CountDownLatch queryFinished = new CountDownLatch(1);
+
+    private static LdapEntry entry(int i) {
+        return new LdapEntry("uid=user" + i + ",dc=example,dc=com", "uid=user" + i);
+    }
+
+    private void produce(LdapResultProcessor sink) {
+        try {
+            for (int i = 0; i < ENTRY_COUNT && !sink.isCanceled(); i++) {
+                produced.incrementAndGet();
+                sink.addEntry(entry(i));
+            }
+        } finally {
+            queryFinished.countDown();
+        }
+    }
+
+    /**
+     * Subscriber requesting a few entries at a time, recording how far the
+     * query ran ahead.
+     */
+    private class SlowSubscriber implements LdapFlow.Subscriber<LdapEntry> {
+
+        final List<LdapEntry> received = Collections.synchronizedList(
+                new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Throwable failure = null;
+        int maxAhead = 0;
+        LdapFlow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(LdapFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(LdapEntry item) {
+            received.add(item);
+            maxAhead = Math.max(maxAhead, produced.get() - received.size());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    @Test
+    public void testDemandLimitsBufferedEntries() throws Exception {
+        LdapEntryPublisher publisher = new LdapEntryPublisher(this::produce, CAPACITY);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        publisher.subscribe(subscriber);
+        Thread.sleep(50);
+        assertEquals("Nothing is fetched before it is requested", 0, produced.get());
+
+        while (subscriber.completed.getCount() > 0) {
+            subscriber.subscription.request(50);
+            Thread.sleep(1);
+        }
+        assertNull(subscriber.failure);
+        assertEquals(ENTRY_COUNT, subscriber.received.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(entry(i), subscriber.received.get(i));
+        }
+        // The entry waiting for buffer space is counted as produced
+        assertTrue("Query ran " + subscriber.maxAhead + " entries ahead",
+                subscriber.maxAhead <= CAPACITY + 1);
+    }
+
+    @Test
+    public void testCancelStopsQuery() throws Exception {
+        LdapEntryPublisher publisher = new LdapEntryPublisher(this::produce, CAPACITY);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(10);
+        while (subscriber.received.size() < 10) {
+            Thread.sleep(1);
+        }
+        subscriber.subscription.cancel();
+        assertTrue(queryFinished.await(5, TimeUnit.SECONDS));
+        assertTrue(produced.get() <= 10 + CAPACITY + 1);
+        assertEquals(10, subscriber.received.size());
+        assertEquals(1, subscriber.completed.getCount());
+    }
+
+    @Test
+    public void testFailureIsSignaled() throws Exception {
+        LdapEntryPublisher publisher = new LdapEntryPublisher(sink -> {
+            sink.addEntry(entry(1));
+            throw new QueryException("Server gone");
+        }, CAPACITY);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.failure instanceof QueryException);
+    }
+
+    @Test
+    public void testResultProcessorAdapter() throws Exception {
+        final List<LdapEntry> entries = new ArrayList<>();
+        LdapResultProcessor lrp = new LdapResultProcessor() {
+            @Override
+            public void addEntry(LdapEntry entry) {
+                entries.add(entry);
+            }
+
+            @Override
+            public void reset() {
+                fail("Entries must not be reset");
+            }
+        };
+        ResultProcessorSubscriber.process(
+                new LdapEntryPublisher(this::produce, CAPACITY), lrp);
+        assertEquals(ENTRY_COUNT, entries.size());
+
+        try {
+            ResultProcessorSubscriber.process(new LdapEntryPublisher(sink -> {
+                throw new QueryException("Server gone");
+            }, CAPACITY), lrp);
+            fail("The failure must be passed on");
+        } catch (QueryException ex) {
+            assertEquals("Server gone", ex.getMessage());
+        }
+    }
+}
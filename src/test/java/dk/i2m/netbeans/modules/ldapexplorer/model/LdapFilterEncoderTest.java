@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import javax.naming.directory.InvalidSearchFilterException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the encoded filters with the encoding JNDI sends for the same
+ * filters.
+ */
+public class LdapFilterEncoderTest {
+
+    private static String encode(String filter) throws Exception {
+        BerEncoder encoder = new BerEncoder();
+        LdapFilterEncoder.encode(filter, encoder);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : encoder.toByteArray()) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    @Test
+    public void testSimpleFilters() throws Exception {
+        assertEquals("870b6f626a656374436c617373", encode("(objectClass=*)"));
+        assertEquals("870b6f626a656374436c617373", encode("objectClass=*"));
+        assertEquals("a20ba5090402736e0403616263", encode("(!(sn>=abc))"));
+        assertEquals("a6070402636e04017a", encode("(cn<=z)"));
+        assertEquals("a80b0402636e0405736d697468", encode("(cn~=smith)"));
+        assertEquals("a30b0402636e0405612a622829", encode("(cn=a\\2ab\\28\\29)"));
+        assertEquals("a30b0402636e0405c39c6ec3af", encode("(cn=Ünï)"));
+    }
+
+    @Test
+    public void testSubstringFilters() throws Exception {
+        assertEquals("a40a0402636e300480026162", encode("(cn=ab*)"));
+        assertEquals("a40a0402636e300482026162", encode("(cn=*ab)"));
+        assertEquals("a036a315040b6f626a656374436c6173730406706572736f6e"
+                + "a11da40c0402636e300680014a82016ea40d0403756964300681017882"
+                + "0179", encode("(&(objectClass=person)(|(cn=J*n)(uid=*x*y)))"));
+    }
+
+    @Test
+    public void testExtensibleFilters() throws Exception {
+        // JNDI adds the default dnAttributes=FALSE, which is omitted here
+        assertEquals("a91a810e6361736545786163744d617463688202636e830446726564",
+                encode("(cn:caseExactMatch:=Fred)"));
+        assertEquals("a915810a322e342e362e382e3130830444696e6f8401ff",
+                encode("(:dn:2.4.6.8.10:=Dino)"));
+    }
+
+    @Test
+    public void testMalformedFilters() throws Exception {
+        String[] malformed = {"(cn=a", "(&(cn=a)", "(cn)", "(=a)", "(cn=a\\2)", "(cn=a))"};
+        for (String filter : malformed) {
+            try {
+                encode(filter);
+                fail("Accepted " + filter);
+            } catch (InvalidSearchFilterException ex) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests {@code ldapi://} connections and compares their latency with
+ * loopback TCP connections to the same directory.
+ *
+ * <p>The benchmark needs a local directory listening on both, for example
+ * slapd started with {@code -h "ldap://localhost:389/ ldapi:///"}, and runs
+ * when it is given by the system properties {@code ldapi.path},
+ * {@code ldapi.port} and {@code ldapi.base}. It reads the entries below the
+ * base with SASL EXTERNAL on the socket and anonymously on TCP, and logs the
+ * average times.</p>
+ */
+public class LdapiTransportTest {
+
+    private static final String PATH = System.getProperty("ldapi.path");
+    private static final int PORT = Integer.getInteger("ldapi.port", 389);
+    private static final String BASE_DN = System.getProperty("ldapi.base");
+    private static final int WARM_UP = 200;
+    private static final int READ_COUNT = 2000;
+    private static final int TREE_COUNT = 50;
+
+    @Test
+    public void testLdapiUrls() {
+        String url = BaseLdapServer.toLdapiUrl("/var/run/slapd/ldapi");
+        assertEquals("ldapi://%2Fvar%2Frun%2Fslapd%2Fldapi", url);
+        assertEquals("/var/run/slapd/ldapi", BaseLdapServer.getUnixSocket(url));
+        assertEquals("/var/run/slapd/ldapi",
+                BaseLdapServer.getUnixSocket(url + "/dc=example,dc=com"));
+        assertNull(BaseLdapServer.getUnixSocket("ldap://localhost:389"));
+
+        BaseLdapServer server = new BaseLdapServer("/var/run/slapd/ldapi", 0,
+                "dc=example,dc=com");
+        server.setStartTls(true);
+        server.setReplicas(new String[]{"/run/ldapi", "replica:1389"});
+        assertEquals(Arrays.asList(url, "ldapi://%2Frun%2Fldapi",
+                "ldap://replica:1389"), server.getReplicaUrls());
+        // The socket is local, StartTLS is only used over the network
+        assertEquals(ConnectionSecurity.PLAIN, server.getConnectionSecurity(url));
+        assertEquals(ConnectionSecurity.STARTTLS,
+                server.getConnectionSecurity("ldap://replica:1389"));
+    }
+
+    @Test
+    public void testLoopbackLatency() throws Exception {
+        assumeTrue(PATH != null && BASE_DN != null);
+        assumeTrue(UnixDomainSockets.isSupported());
+        for (Transport transport : Transport.values()) {
+            BaseLdapServer tcp = new BaseLdapServer("localhost", PORT, BASE_DN);
+            tcp.setAuthentication(Authentication.NONE);
+            BaseLdapServer ldapi = new BaseLdapServer(PATH, 0, BASE_DN);
+            ldapi.setAuthentication(Authentication.EXTERNAL);
+            long[] tcpNanos = measure(tcp, transport);
+            long[] ldapiNanos = measure(ldapi, transport);
+            Logger.getLogger(LdapiTransportTest.class.getName()).log(Level.INFO,
+                    "{0} getEntry: tcp {1} us, ldapi {2} us; getTree: tcp {3} us, ldapi {4} us",
+                    new Object[]{transport,
+                        TimeUnit.NANOSECONDS.toMicros(tcpNanos[0]),
+                        TimeUnit.NANOSECONDS.toMicros(ldapiNanos[0]),
+                        TimeUnit.NANOSECONDS.toMicros(tcpNanos[1]),
+                        TimeUnit.NANOSECONDS.toMicros(ldapiNanos[1])});
+        }
+    }
+
+    /**
+     * @return Average nanoseconds of reading the base entry and of listing
+     * its children
+     */
+    private static long[] measure(BaseLdapServer server, Transport transport)
+            throws Exception {
+        server.setTransport(transport);
+        // Every read has to go to the directory
+        server.setEntryCacheSize(0);
+        server.connect();
+        try {
+            LdapResultProcessor ignore = new LdapResultProcessor() {
+                @Override
+                public void addEntry(LdapEntry entry) {
+                }
+
+                @Override
+                public void reset() {
+                }
+            };
+            for (int i = 0; i < WARM_UP; i++) {
+                assertEquals(BASE_DN, server.getEntry(BASE_DN).getDn());
+                server.getTree(BASE_DN, ignore);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < READ_COUNT; i++) {
+                server.getEntry(BASE_DN);
+            }
+            long entryNanos = (System.nanoTime() - start) / READ_COUNT;
+            start = System.nanoTime();
+            for (int i = 0; i < TREE_COUNT; i++) {
+                server.getTree(BASE_DN, ignore);
+            }
+            long treeNanos = (System.nanoTime() - start) / TREE_COUNT;
+            return new long[]{entryNanos, treeNanos};
+        } finally {
+            server.disconnect();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PageSizeControllerTest {
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void testFastPagesGrowWithinLimit() {
+        PageSizeController pages = new PageSizeController(500, 1500);
+        pages.pageCompleted(500, millis(50), true);
+        assertEquals(1000, pages.getPageSize());
+        pages.pageCompleted(1000, millis(80), true);
+        assertEquals(1500, pages.getPageSize());
+        assertEquals(1000, pages.getBestPageSize());
+    }
+
+    @Test
+    public void testSlowPagesShrink() {
+        PageSizeController pages = new PageSizeController(2000, 10000);
+        pages.pageCompleted(2000, millis(3000), true);
+        assertEquals(1000, pages.getPageSize());
+        assertEquals(1000, pages.getBestPageSize());
+    }
+
+    @Test
+    public void testThroughputDropFallsBackToBestSize() {
+        PageSizeController pages = new PageSizeController(500, 10000);
+        pages.pageCompleted(500, millis(100), true);
+        assertEquals(1000, pages.getPageSize());
+        // Twice the entries took four times as long
+        pages.pageCompleted(1000, millis(400), true);
+        assertEquals(500, pages.getPageSize());
+        assertEquals(500, pages.getBestPageSize());
+    }
+
+    @Test
+    public void testServerCapIsDetected() {
+        PageSizeController pages = new PageSizeController(2000, 10000);
+        pages.pageCompleted(1000, millis(100), true);
+        assertEquals(1000, pages.getLimit());
+        assertEquals(1000, pages.getPageSize());
+        // The last page is partial without lowering the limit
+        pages.pageCompleted(10, millis(10), false);
+        assertEquals(1000, pages.getLimit());
+    }
+}
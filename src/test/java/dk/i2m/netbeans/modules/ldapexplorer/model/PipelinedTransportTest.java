@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the explorer on the {@link Transport#PIPELINED} transport and compares
+ * batch reads with {@link Transport#JNDI} over a connection with latency.
+ *
+ * <p>The latency comparison is a benchmark and only runs when the system
+ * property {@code ldapexplorer.benchmark} is {@code true}.</p>
+ */
+public class PipelinedTransportTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String PEOPLE_DN = "ou=people," + BASE_DN;
+    private static final int ENTRY_COUNT = 1200;
+    private static final int PAGE_SIZE = 500;
+    private static final int READ_COUNT = 50;
+    /** Delay in milliseconds added in each direction by the proxy. */
+    private static final int LATENCY = 10;
+
+    private static InMemoryDirectoryServer directory;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        directory = new InMemoryDirectoryServer(config);
+        directory.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        directory.add("dn: " + PEOPLE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            directory.add(
+                    "dn: uid=user" + i + "," + PEOPLE_DN,
+                    "objectClass: top",
+                    "objectClass: person",
+                    "objectClass: inetOrgPerson",
+                    "uid: user" + i,
+                    "cn: User " + i,
+                    "sn: " + i);
+        }
+        directory.startListening();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        directory.shutDown(true);
+    }
+
+    private static BaseLdapServer createServer(int port, Transport transport) {
+        BaseLdapServer server = new BaseLdapServer("localhost", port, BASE_DN);
+        server.setAuthentication(Authentication.NONE);
+        server.setPageSize(PAGE_SIZE);
+        server.setTransport(transport);
+        return server;
+    }
+
+    private static LdapResultProcessor collector(final List<LdapEntry> entries) {
+        return new LdapResultProcessor() {
+            @Override
+            public void addEntry(LdapEntry entry) {
+                entries.add(entry);
+            }
+
+            @Override
+            public void reset() {
+                fail("Recoverable conditions must not reset the result");
+            }
+        };
+    }
+
+    @Test
+    public void testTreeAndSearch() throws Exception {
+        BaseLdapServer server = createServer(directory.getListenPort(), Transport.PIPELINED);
+        List<LdapEntry> entries = new ArrayList<>();
+        server.connect();
+        try {
+            server.getTree(PEOPLE_DN, collector(entries));
+            assertEquals(ENTRY_COUNT, entries.size());
+            for (LdapEntry entry : entries) {
+                assertEquals(ObjectClass.inetOrgPerson, entry.getPrimaryObjectClass());
+            }
+
+            entries.clear();
+            server.search("(uid=user1*)", collector(entries));
+            // user1, user10-19, user100-199, user1000-1199
+            assertEquals(311, entries.size());
+
+            LdapEntry entry = server.getEntry("uid=user7," + PEOPLE_DN);
+            assertEquals("User 7", entry.getAttribute("cn").get(0));
+        } finally {
+            server.disconnect();
+        }
+    }
+
+    @Test
+    public void testMissingEntry() throws Exception {
+        BaseLdapServer server = createServer(directory.getListenPort(), Transport.PIPELINED);
+        server.connect();
+        try {
+            server.getEntry("uid=missing," + PEOPLE_DN);
+            fail("Read a missing entry");
+        } catch (QueryException ex) {
+            // expected
+        } finally {
+            server.disconnect();
+        }
+    }
+
+    @Test
+    public void testBatchReadLatency() throws Exception {
+        assumeTrue(Boolean.getBoolean("ldapexplorer.benchmark"));
+        List<String> dns = new ArrayList<>();
+        for (int i = 0; i < READ_COUNT; i++) {
+            dns.add("uid=user" + i + "," + PEOPLE_DN);
+        }
+        try (LatencyProxy proxy = new LatencyProxy(directory.getListenPort(), LATENCY)) {
+            long jndiMillis = readAll(createServer(proxy.getPort(), Transport.JNDI), dns);
+            long pipelinedMillis = readAll(createServer(proxy.getPort(), Transport.PIPELINED), dns);
+            String report = String.format("%d reads, %d ms latency: jndi %d ms, pipelined %d ms",
+                    READ_COUNT, 2 * LATENCY, jndiMillis, pipelinedMillis);
+            // Sequential reads pay the round trip for every entry
+            assertTrue(report, jndiMillis >= READ_COUNT * 2 * LATENCY);
+            assertTrue(report, pipelinedMillis < jndiMillis / 4);
+        }
+    }
+
+    private static long readAll(BaseLdapServer server, List<String> dns) throws Exception {
+        server.connect();
+        try {
+            // Warm up the connection outside the measurement
+            server.getEntry(BASE_DN);
+            long start = System.nanoTime();
+            List<LdapEntry> entries = server.getEntries(dns);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(dns.size(), entries.size());
+            for (int i = 0; i < dns.size(); i++) {
+                assertEquals(dns.get(i), entries.get(i).getDn());
+                assertEquals("User " + i, entries.get(i).getAttribute("cn").get(0));
+            }
+            return millis;
+        } finally {
+            server.disconnect();
+        }
+    }
+
+    /**
+     * TCP proxy delaying the data in both directions.
+     */
+    private static class LatencyProxy implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final int targetPort;
+        private final long latency;
+        private final List<Socket> sockets = new ArrayList<>();
+
+        LatencyProxy(int targetPort, long latency) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.targetPort = targetPort;
+            this.latency = latency;
+            start(this::accept);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    Socket client = serverSocket.accept();
+                    Socket target = new Socket("localhost", targetPort);
+                    client.setTcpNoDelay(true);
+                    target.setTcpNoDelay(true);
+                    synchronized (sockets) {
+                        sockets.add(client);
+                        sockets.add(target);
+                    }
+                    forward(client, target);
+                    forward(target, client);
+                }
+            } catch (IOException ex) {
+                // closed
+            }
+        }
+
+        private void forward(Socket from, Socket to) throws IOException {
+            final InputStream in = from.getInputStream();
+            final OutputStream out = to.getOutputStream();
+            final BlockingQueue<Object[]> queue = new LinkedBlockingQueue<>();
+            start(() -> {
+                byte[] buffer = new byte[8192];
+                try {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        queue.add(new Object[]{System.nanoTime()
+                            + TimeUnit.MILLISECONDS.toNanos(latency),
+                            Arrays.copyOf(buffer, read)});
+                    }
+                } catch (IOException ex) {
+                    // closed
+                }
+                queue.add(new Object[0]);
+            });
+            start(() -> {
+                try {
+                    while (true) {
+                        Object[] chunk = queue.take();
+                        if (chunk.length == 0) {
+                            to.shutdownOutput();
+                            return;
+                        }
+                        long wait = (Long) chunk[0] - System.nanoTime();
+                        if (wait > 0) {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        }
+                        out.write((byte[]) chunk[1]);
+                        out.flush();
+                    }
+                } catch (IOException | InterruptedException ex) {
+                    // closed
+                }
+            });
+        }
+
+        private static void start(Runnable runnable) {
+            Thread thread = new Thread(runnable, LatencyProxy.class.getSimpleName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.naming.ServiceUnavailableException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the backoff of the {@link ReconnectPolicy} and the transitions of
+ * its circuit breaker.
+ */
+public class ReconnectPolicyTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private ReconnectPolicy newPolicy() {
+        return new ReconnectPolicy(100, 1000, 2, 3, now::get, sleeps::add);
+    }
+
+    @Test
+    public void testBackoffGrowsWithJitter() {
+        ReconnectPolicy policy = newPolicy();
+        assertEquals(0, policy.getDelay(0));
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, policy.getDelay(1));
+            assertBetween(100, 200, policy.getDelay(2));
+            assertBetween(200, 400, policy.getDelay(3));
+            assertBetween(500, 1000, policy.getDelay(5));
+            assertBetween(500, 1000, policy.getDelay(64));
+        }
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        ReconnectPolicy policy = newPolicy();
+        // The first retry runs right away
+        assertTrue(policy.retry(1));
+        assertTrue(sleeps.isEmpty());
+        // Further retries back off
+        assertTrue(policy.retry(2));
+        assertEquals(1, sleeps.size());
+        assertBetween(50, 100, sleeps.get(0));
+        // The third failure opens the circuit instead of retrying
+        assertFalse(policy.retry(3));
+        assertEquals(1, sleeps.size());
+        assertEquals(CircuitState.OPEN, policy.getState());
+        assertEquals(2, policy.getRetries());
+    }
+
+    @Test
+    public void testSuccessResetsFailures() throws Exception {
+        ReconnectPolicy policy = newPolicy();
+        policy.failed();
+        policy.failed();
+        policy.succeeded();
+        policy.failed();
+        assertEquals(CircuitState.CLOSED, policy.getState());
+        assertEquals(1, policy.getFailures());
+        policy.checkAvailable();
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        ReconnectPolicy policy = newPolicy();
+        policy.failed();
+        policy.failed();
+        policy.checkAvailable();
+        policy.failed();
+        assertEquals(CircuitState.OPEN, policy.getState());
+
+        // Fails fast during the cooldown
+        try {
+            policy.checkAvailable();
+            fail("Open circuit must reject operations");
+        } catch (ServiceUnavailableException ex) {
+            // expected
+        }
+        assertEquals(1, policy.getRejected());
+
+        // A single trial after the cooldown
+        now.addAndGet(1000);
+        policy.checkAvailable();
+        assertEquals(CircuitState.HALF_OPEN, policy.getState());
+        try {
+            policy.checkAvailable();
+            fail("Only one trial must run at a time");
+        } catch (ServiceUnavailableException ex) {
+            // expected
+        }
+
+        // A failed trial opens the circuit again
+        policy.failed();
+        assertEquals(CircuitState.OPEN, policy.getState());
+        now.addAndGet(1000);
+        policy.checkAvailable();
+
+        // A successful trial closes it
+        policy.succeeded();
+        assertEquals(CircuitState.CLOSED, policy.getState());
+        assertEquals(0, policy.getFailures());
+        policy.checkAvailable();
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual + " not in [" + min + ", " + max + "]",
+                actual >= min && actual <= max);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.CommunicationException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReferralChaserTest {
+
+    private static final String BASE = "dc=example,dc=com";
+    private static final String DOWN = "ldap://down:389";
+
+    /** Entries of the referred servers by server URL. */
+    private final Map<String, List<String>> entries = new HashMap<>();
+    /** References returned by the referred servers by server URL. */
+    private final Map<String, List<List<String>>> references = new HashMap<>();
+    private final Map<String, AtomicInteger> opened = new ConcurrentHashMap<>();
+
+    private static class Results implements NamingEnumeration<SearchResult> {
+
+        private final Iterator<String> dns;
+        private final List<List<String>> references;
+
+        Results(List<String> dns, List<List<String>> references) {
+            this.dns = dns.iterator();
+            this.references = references;
+        }
+
+        @Override
+        public boolean hasMore() throws NamingException {
+            if (dns.hasNext()) {
+                return true;
+            }
+            if (references != null) {
+                throw new PipelinedReferralException("Continuation references",
+                        new ArrayList<>(references));
+            }
+            return false;
+        }
+
+        @Override
+        public SearchResult next() {
+            String dn = dns.next();
+            SearchResult result = new SearchResult(dn, null, new BasicAttributes(true));
+            result.setNameInNamespace(dn);
+            return result;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return dns.hasNext();
+        }
+
+        @Override
+        public SearchResult nextElement() {
+            return next();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private LdapContext newContext(String url) throws CommunicationException {
+        if (url.equals(DOWN)) {
+            throw new CommunicationException(url + " unreachable");
+        }
+        opened.computeIfAbsent(url, u -> new AtomicInteger()).incrementAndGet();
+        return (LdapContext) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{LdapContext.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "search":
+                            return new Results(entries.get(url), references.get(url));
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private ReferralChaser newChaser() {
+        return new ReferralChaser(url -> new LdapConnectionPool(
+                () -> newContext(url), 2, 60000, 60000, 1000));
+    }
+
+    private static List<String> users(String suffix, int count) {
+        List<String> dns = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            dns.add("uid=user" + i + "," + suffix + "," + BASE);
+        }
+        return dns;
+    }
+
+    private Set<String> chase(ReferralChaser chaser, List<List<String>> refs)
+            throws Exception {
+        Set<String> names = Collections.synchronizedSet(new HashSet<>());
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        chaser.chase(refs, BASE, "(objectClass=*)", controls, sr -> {
+            // Names are relative to the base of the referred search
+            assertEquals(sr.getNameInNamespace(), sr.getName() + "," + BASE);
+            names.add(sr.getNameInNamespace());
+            return true;
+        }, () -> false);
+        return names;
+    }
+
+    @Test
+    public void testParsesReferralUrls() {
+        ReferralChaser.Referral referral = ReferralChaser.Referral.parse(
+                "ldap://Second.Example.com/ou=a%2Bb,dc=example,dc=com??one?(cn=x%20y)");
+        assertEquals("ldap://second.example.com:389", referral.getServer());
+        assertEquals("ou=a+b,dc=example,dc=com", referral.getBase(BASE));
+        assertEquals(SearchControls.ONELEVEL_SCOPE,
+                referral.getScope(SearchControls.SUBTREE_SCOPE));
+        assertEquals("(cn=x y)", referral.getFilter("(objectClass=*)"));
+
+        // The parts absent from the URL are taken from the referred search
+        referral = ReferralChaser.Referral.parse("ldaps://[::1]/");
+        assertEquals("ldaps://[::1]:636", referral.getServer());
+        assertEquals(BASE, referral.getBase(BASE));
+        assertEquals(SearchControls.SUBTREE_SCOPE,
+                referral.getScope(SearchControls.SUBTREE_SCOPE));
+        assertEquals("(objectClass=*)", referral.getFilter("(objectClass=*)"));
+
+        assertEquals("ldap://third:1389", ReferralChaser.Referral.parse(
+                "ldap://third:1389/ou=c,dc=example,dc=com").getServer());
+        assertNull(ReferralChaser.Referral.parse("http://example.com/"));
+        assertNull(ReferralChaser.Referral.parse("ldap:///ou=c,dc=example,dc=com"));
+    }
+
+    @Test
+    public void testChasesReferencesOverCachedConnections() throws Exception {
+        String first = "ldap://first:389";
+        String copy = "ldap://copy:389";
+        String nested = "ldap://nested:389";
+        entries.put(first, users("ou=first", 30));
+        entries.put(copy, users("ou=first", 30));
+        entries.put(nested, users("ou=nested", 20));
+        references.put(first, Collections.singletonList(
+                Collections.singletonList(nested + "/ou=nested," + BASE)));
+        List<List<String>> refs = Arrays.asList(
+                Collections.singletonList(first + "/ou=first," + BASE),
+                // The first alternative is not reachable
+                Arrays.asList(DOWN + "/ou=first," + BASE, copy + "/ou=first," + BASE));
+
+        ReferralChaser chaser = newChaser();
+        Set<String> found = chase(chaser, refs);
+        assertEquals(50, found.size());
+        assertTrue(found.containsAll(users("ou=nested", 20)));
+        assertEquals(4, chaser.getPoolCount());
+
+        // The connections to the referred servers are reused
+        assertEquals(found, chase(chaser, refs));
+        assertEquals(1, opened.get(first).get());
+        assertEquals(1, opened.get(copy).get());
+        assertEquals(1, opened.get(nested).get());
+        chaser.close();
+    }
+
+    @Test
+    public void testStopsAtReferralLoop() throws Exception {
+        String loop = "ldap://loop:389";
+        entries.put(loop, users("ou=loop", 5));
+        references.put(loop, Collections.singletonList(
+                Collections.singletonList(loop + "/ou=loop," + BASE)));
+
+        ReferralChaser chaser = newChaser();
+        assertEquals(5, chase(chaser, references.get(loop)).size());
+        chaser.close();
+    }
+}
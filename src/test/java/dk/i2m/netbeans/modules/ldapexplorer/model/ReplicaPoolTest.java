@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.naming.CommunicationException;
+import javax.naming.ldap.LdapContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReplicaPoolTest {
+
+    private static final String FIRST = "ldap://first:389";
+    private static final String SECOND = "ldap://second:389";
+
+    private final Set<String> down = new HashSet<>();
+    private final Map<LdapContext, String> urls = new HashMap<>();
+
+    private LdapContext newContext(String url) throws CommunicationException {
+        if (down.contains(url)) {
+            throw new CommunicationException(url + " unreachable");
+        }
+        LdapContext ctx = (LdapContext) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{LdapContext.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+        urls.put(ctx, url);
+        return ctx;
+    }
+
+    private ReplicaPool newPool() {
+        return new ReplicaPool(Arrays.asList(FIRST, SECOND),
+                url -> new LdapConnectionPool(() -> newContext(url), 2,
+                        60000, 60000, 100),
+                new ReconnectPolicy());
+    }
+
+    @Test
+    public void testRoutesToLowestLatency() throws Exception {
+        ReplicaPool pool = newPool();
+        // Unmeasured replicas are tried in the configured order
+        LdapContext first = pool.borrow();
+        assertEquals(FIRST, urls.get(first));
+        pool.recordLatency(first, 10000000);
+        pool.release(first);
+
+        // A replica that was not measured yet is preferred
+        LdapContext second = pool.borrow();
+        assertEquals(SECOND, urls.get(second));
+        pool.recordLatency(second, 1000000);
+        pool.release(second);
+
+        LdapContext fastest = pool.borrow();
+        assertEquals(SECOND, urls.get(fastest));
+
+        // The average follows the observed round trip times
+        for (int i = 0; i < 10; i++) {
+            pool.recordLatency(fastest, 50000000);
+        }
+        pool.release(fastest);
+        assertEquals(FIRST, urls.get(pool.borrow()));
+        pool.close();
+    }
+
+    @Test
+    public void testFailsOverToReachableReplica() throws Exception {
+        down.add(FIRST);
+        ReplicaPool pool = newPool();
+        LdapContext ctx = pool.borrow();
+        assertEquals(SECOND, urls.get(ctx));
+        pool.release(ctx);
+
+        List<ReplicaStatistics> statistics = pool.getStatistics();
+        assertEquals(1, statistics.get(0).getFailures());
+        assertFalse(statistics.get(0).isAvailable());
+        assertTrue(statistics.get(1).isAvailable());
+        assertEquals(1, statistics.get(1).getIdle());
+        pool.close();
+    }
+
+    @Test
+    public void testFailedContextSkipsReplica() throws Exception {
+        ReplicaPool pool = newPool();
+        LdapContext first = pool.borrow();
+        LdapContext idle = pool.borrow();
+        assertEquals(FIRST, urls.get(idle));
+        pool.release(idle);
+        pool.recordLatency(first, 1000000);
+
+        // The connection broke, the idle one is dropped as well
+        pool.fail(first);
+        assertEquals(0, pool.getStatistics().get(0).getIdle());
+        LdapContext ctx = pool.borrow();
+        assertEquals(SECOND, urls.get(ctx));
+        pool.release(ctx);
+        pool.close();
+    }
+
+    @Test
+    public void testReplicaUrls() {
+        BaseLdapServer server = new BaseLdapServer("primary", 389, "dc=example,dc=com");
+        server.setReplicas(new String[]{"replica", "replica:1389", "2001:db8::1",
+            "::1", "[2001:db8::2]", "[2001:db8::2]:1389", "ldaps://secure"});
+        assertEquals(Arrays.asList("ldap://primary:389", "ldap://replica:389",
+                "ldap://replica:1389", "ldap://[2001:db8::1]:389",
+                "ldap://[::1]:389", "ldap://[2001:db8::2]:389",
+                "ldap://[2001:db8::2]:1389", "ldaps://secure"),
+                server.getReplicaUrls());
+    }
+
+    @Test
+    public void testPinnedBorrowStaysOnReplica() throws Exception {
+        ReplicaPool pool = newPool();
+        LdapContext first = pool.borrow();
+        ReplicaPool.Replica replica = pool.getReplica(first);
+        pool.recordLatency(first, 50000000);
+        pool.release(first);
+
+        // A resumed paged search goes back to the replica of its cookie,
+        // even though another replica is preferred now
+        LdapContext resumed = pool.borrow(replica);
+        assertSame(first, resumed);
+        assertSame(replica, pool.getReplica(resumed));
+        pool.release(resumed);
+        assertEquals(1, pool.getStatistics().get(0).getIdle());
+        assertEquals(0, pool.getStatistics().get(1).getIdle());
+        pool.close();
+    }
+}
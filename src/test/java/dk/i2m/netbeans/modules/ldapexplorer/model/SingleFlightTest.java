@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that concurrent identical operations share a single call, that a
+ * caller canceling its future only detaches itself and that identical
+ * enumerations share a single enumeration.
+ */
+public class SingleFlightTest {
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Waits until a count reaches the expected value.
+     */
+    private static void awaitCount(int expected, IntSupplier count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsInt() != expected) {
+            assertTrue("Expected " + expected + ", was " + count.getAsInt(),
+                    System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static LdapEntry entry(int i) {
+        return new LdapEntry("uid=user" + i + ",dc=example,dc=com", "uid=user" + i);
+    }
+
+    @Test
+    public void testConcurrentCallsShareOneCall() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> flight.run("key", Priority.INTERACTIVE, () -> {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "result";
+        })));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            results.add(pool.submit(() -> flight.run("key", Priority.INTERACTIVE, () -> {
+                calls.incrementAndGet();
+                return "other";
+            })));
+        }
+        CompletableFuture<String> async = flight.runAsync("key",
+                Priority.PREFETCH, () -> CompletableFuture.completedFuture("other"));
+        // Wait until the synchronous callers joined
+        awaitCount(7, () -> flight.getCallers("key"));
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("result", async.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.size());
+
+        // The next call is not served from the finished flight
+        assertEquals("next", flight.run("key", Priority.INTERACTIVE, () -> "next"));
+    }
+
+    @Test
+    public void testFailureIsShared() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> source);
+        CompletableFuture<String> second = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("other"));
+        QueryException failure = new QueryException("No such object");
+        source.completeExceptionally(failure);
+        try {
+            first.join();
+            fail("Expected the failure of the call");
+        } catch (Exception ex) {
+            assertSame(failure, ex.getCause());
+        }
+        try {
+            flight.run("key", Priority.INTERACTIVE, () -> {
+                throw failure;
+            });
+            fail("Expected the failure of the call");
+        } catch (QueryException ex) {
+            assertSame(failure, ex);
+        }
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testCancelDetachesCaller() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> source);
+        CompletableFuture<String> second = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("other"));
+
+        first.cancel(true);
+        assertFalse(source.isCancelled());
+        source.complete("result");
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertTrue(first.isCancelled());
+    }
+
+    @Test
+    public void testCancelOfAllCallersCancelsCall() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> source);
+        CompletableFuture<String> second = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("other"));
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(source.isCancelled());
+        assertEquals(0, flight.size());
+
+        // A later caller starts a new call
+        assertEquals("next", flight.runAsync("key", Priority.INTERACTIVE,
+                () -> CompletableFuture.completedFuture("next")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testHigherPriorityDoesNotJoinBackgroundCall() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CompletableFuture<String> background = new CompletableFuture<>();
+        CompletableFuture<String> prefetch = flight.runAsync("key",
+                Priority.BULK, () -> background);
+        CompletableFuture<String> click = flight.runAsync("key",
+                Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("click"));
+        assertEquals("click", click.get(5, TimeUnit.SECONDS));
+        assertFalse(prefetch.isDone());
+        background.complete("background");
+        assertEquals("background", prefetch.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSharedEnumeration() throws Exception {
+        SharedEnumeration enumeration = new SharedEnumeration(Priority.INTERACTIVE, 10);
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        LdapEntryPublisher.AsyncQuery query = sink -> {
+            CompletableFuture<Void> joined = enumeration.join(sink, Priority.INTERACTIVE);
+            if (runs.getAndIncrement() == 0) {
+                pool.execute(() -> enumeration.run(lrp -> {
+                    for (int i = 0; i < 50; i++) {
+                        lrp.addEntry(entry(i));
+                        if (i == 4) {
+                            received.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                }));
+            }
+            return joined;
+        };
+        List<LdapEntry> first = new ArrayList<>();
+        List<LdapEntry> second = new ArrayList<>();
+        Future<?> firstResult = pool.submit(() -> {
+            ResultProcessorSubscriber.process(LdapEntryPublisher.of(query, 10),
+                    processor(first));
+            return null;
+        });
+        // Joins after the first entries were received, which are replayed
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        Future<?> secondResult = pool.submit(() -> {
+            ResultProcessorSubscriber.process(LdapEntryPublisher.of(query, 10),
+                    processor(second));
+            return null;
+        });
+        awaitCount(2, enumeration::getSubscribers);
+        release.countDown();
+        firstResult.get(5, TimeUnit.SECONDS);
+        secondResult.get(5, TimeUnit.SECONDS);
+        assertEquals(50, first.size());
+        assertEquals(first, second);
+        assertEquals(2, runs.get());
+
+        // Too many entries were received to join the finished enumeration
+        assertNull(enumeration.join(processor(new ArrayList<>()), Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testLastSubscriberLeavingCancelsEnumeration() throws Exception {
+        SharedEnumeration enumeration = new SharedEnumeration(Priority.INTERACTIVE, 10);
+        LdapResultProcessor first = processor(new ArrayList<>());
+        List<LdapEntry> received = new ArrayList<>();
+        LdapResultProcessor second = processor(received);
+        assertNotNull(enumeration.join(first, Priority.INTERACTIVE));
+        assertNotNull(enumeration.join(second, Priority.PREFETCH));
+
+        first.cancel();
+        assertFalse(enumeration.isCanceled());
+        enumeration.addEntry(entry(1));
+        assertEquals(1, received.size());
+        second.cancel();
+        assertTrue(enumeration.isCanceled());
+    }
+
+    @Test
+    public void testHigherPriorityDoesNotJoinBackgroundEnumeration() {
+        SharedEnumeration export = new SharedEnumeration(Priority.BULK, 10);
+        assertNull(export.join(processor(new ArrayList<>()), Priority.INTERACTIVE));
+        assertNotNull(export.join(processor(new ArrayList<>()), Priority.BULK));
+    }
+
+    private static LdapResultProcessor processor(List<LdapEntry> entries) {
+        return new LdapResultProcessor() {
+
+            @Override
+            public void addEntry(LdapEntry entry) {
+                synchronized (entries) {
+                    entries.add(entry);
+                }
+            }
+
+            @Override
+            public void reset() {
+            }
+        };
+    }
+}
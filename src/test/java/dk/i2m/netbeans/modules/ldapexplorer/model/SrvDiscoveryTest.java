@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.NameNotFoundException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SrvDiscoveryTest {
+
+    private static final String SERVICE = "_ldap._tcp.example.com";
+
+    /** Round trip times of the stub servers in milliseconds, unreachable if negative. */
+    private final Map<String, Long> rtts = new HashMap<>();
+    private final AtomicInteger resolves = new AtomicInteger();
+    private final AtomicInteger probes = new AtomicInteger();
+    private List<SrvRecord> records = new ArrayList<>();
+
+    private SrvDiscovery newDiscovery() {
+        return new SrvDiscovery(name -> {
+            assertEquals(SERVICE, name);
+            resolves.incrementAndGet();
+            return records;
+        }, (host, port, timeout) -> {
+            probes.incrementAndGet();
+            long rtt = rtts.get(host);
+            if (rtt < 0) {
+                throw new ConnectException("Connection refused");
+            }
+            return TimeUnit.MILLISECONDS.toNanos(rtt);
+        });
+    }
+
+    private void server(int priority, int weight, String host, long rtt, long ttl) {
+        records.add(new SrvRecord(priority, weight, 389, host + ".", ttl));
+        rtts.put(host, rtt);
+    }
+
+    private static List<String> targets(List<SrvRecord> records) {
+        List<String> targets = new ArrayList<>();
+        for (SrvRecord record : records) {
+            targets.add(record.getTarget());
+        }
+        return targets;
+    }
+
+    @Test
+    public void testBestPriorityFastestFirst() throws Exception {
+        server(0, 10, "dc1", -1, 600);
+        server(0, 10, "dc2", 20, 600);
+        server(0, 10, "dc3", 5, 600);
+        server(10, 10, "backup", 1, 600);
+        assertEquals(Arrays.asList("dc3", "dc2"),
+                targets(newDiscovery().discover(SERVICE, 1000)));
+        // All candidates were probed
+        assertEquals(4, probes.get());
+    }
+
+    @Test
+    public void testUnreachablePriorityFallsBack() throws Exception {
+        server(0, 10, "dc1", -1, 600);
+        server(10, 10, "backup1", 30, 600);
+        server(10, 10, "backup2", 10, 600);
+        assertEquals(Arrays.asList("backup2", "backup1"),
+                targets(newDiscovery().discover(SERVICE, 1000)));
+    }
+
+    @Test
+    public void testRankingIsCachedForTtl() throws Exception {
+        server(0, 10, "dc1", 5, 600);
+        server(0, 10, "dc2", 1, 60);
+        SrvDiscovery discovery = newDiscovery();
+        List<SrvRecord> first = discovery.discover(SERVICE, 1000);
+        rtts.put("dc2", 50L);
+        assertSame(first, discovery.discover(SERVICE, 1000));
+        assertEquals(1, resolves.get());
+        assertEquals(2, probes.get());
+
+        // Records that must not be cached are resolved and probed every time
+        records = Collections.singletonList(new SrvRecord(0, 0, 389, "dc1", 0));
+        discovery = newDiscovery();
+        discovery.discover(SERVICE, 1000);
+        discovery.discover(SERVICE, 1000);
+        assertEquals(3, resolves.get());
+    }
+
+    @Test
+    public void testProbesRunInParallel() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            server(0, 10, "dc" + i, i, 600);
+        }
+        SrvDiscovery discovery = new SrvDiscovery(name -> records,
+                (host, port, timeout) -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException ex) {
+                        throw new IOException(ex);
+                    }
+                    return TimeUnit.MILLISECONDS.toNanos(rtts.get(host));
+                });
+        long start = System.nanoTime();
+        List<SrvRecord> ranked = discovery.discover(SERVICE, 1000);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(8, ranked.size());
+        assertEquals("dc0", ranked.get(0).getTarget());
+        assertTrue("Probing took " + millis + " ms", millis < 8 * 200 / 2);
+    }
+
+    @Test
+    public void testWeightedOrder() throws Exception {
+        server(0, 0, "rare", 1, 600);
+        server(0, 90, "heavy", 1, 600);
+        server(0, 10, "light", 1, 600);
+        server(5, 10, "later", 1, 600);
+        SrvDiscovery discovery = newDiscovery();
+        int heavyFirst = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<String> ordered = targets(discovery.order(records));
+            assertEquals(4, ordered.size());
+            assertEquals("later", ordered.get(3));
+            if (ordered.get(0).equals("heavy")) {
+                heavyFirst++;
+            }
+        }
+        // Expected 900 times
+        assertTrue("heavy first " + heavyFirst + " times",
+                heavyFirst > 800 && heavyFirst < 980);
+    }
+
+    @Test
+    public void testMissingService() throws Exception {
+        try {
+            newDiscovery().discover(SERVICE, 1000);
+            fail("Discovered servers without records");
+        } catch (NameNotFoundException ex) {
+            // expected
+        }
+        records.add(new SrvRecord(0, 0, 0, ".", 600));
+        try {
+            newDiscovery().discover(SERVICE, 1000);
+            fail("Discovered servers of an unavailable service");
+        } catch (NameNotFoundException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testServerConnectsToDiscoveredServers() throws Exception {
+        server(0, 10, "dc1", 20, 600);
+        server(0, 10, "dc2", 5, 600);
+        BaseLdapServer server = new BaseLdapServer("unused", 389, "dc=example,dc=com");
+        server.setSrvDiscovery(newDiscovery());
+        server.setReplicas(new String[]{"replica:1389"});
+        assertEquals(Arrays.asList("ldap://unused:389", "ldap://replica:1389"),
+                server.getConnectUrls());
+        server.setSrvDomain(" example.com ");
+        assertEquals(Arrays.asList("ldap://dc2:389", "ldap://dc1:389",
+                "ldap://replica:1389"), server.getConnectUrls());
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades connections to an embedded directory server by StartTLS on both
+ * transports. The server certificate is trusted and issued for
+ * {@code localhost} only, so connecting to {@code 127.0.0.1} must fail the
+ * host name check unless TLS errors are ignored.
+ */
+public class StartTlsTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String ADMIN_DN = "cn=admin";
+    private static final String PASSWORD = "secret";
+    private static final String[] TRUST_STORE_PROPERTIES = {
+        "javax.net.ssl.trustStore", "javax.net.ssl.trustStorePassword",
+        "javax.net.ssl.trustStoreType"};
+    /** Upgrades and binds with credentials, in the order the server saw them. */
+    private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+    private static final Map<String, String> previousProperties = new HashMap<>();
+    private static File directory;
+    private static InMemoryDirectoryServer server;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        directory = Files.createTempDirectory("starttls").toFile();
+        File keyStoreFile = new File(directory, "server.p12");
+        keytool("-genkeypair", "-alias", "server", "-keyalg", "RSA",
+                "-keysize", "2048", "-dname", "CN=localhost",
+                "-ext", "SAN=dns:localhost", "-validity", "2",
+                "-storetype", "PKCS12", "-keystore", keyStoreFile.getPath(),
+                "-storepass", PASSWORD, "-keypass", PASSWORD);
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD.toCharArray());
+        }
+
+        // Let the client trust the certificate, whatever host it is used for
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("server", keyStore.getCertificate("server"));
+        File trustStoreFile = new File(directory, "trust.p12");
+        try (OutputStream out = new FileOutputStream(trustStoreFile)) {
+            trustStore.store(out, PASSWORD.toCharArray());
+        }
+        for (String property : TRUST_STORE_PROPERTIES) {
+            previousProperties.put(property, System.getProperty(property));
+        }
+        System.setProperty("javax.net.ssl.trustStore", trustStoreFile.getPath());
+        System.setProperty("javax.net.ssl.trustStorePassword", PASSWORD);
+        System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+        TunedSocketFactory.resetSslContexts();
+
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(
+                KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD.toCharArray());
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagers.getKeyManagers(), null, null);
+
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        config.addAdditionalBindCredentials(ADMIN_DN, PASSWORD);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig(
+                "starttls", null, 0,
+                new RecordingSocketFactory(serverContext.getSocketFactory())));
+        config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+            @Override
+            public void processSimpleBindRequest(InMemoryInterceptedSimpleBindRequest request) {
+                String dn = request.getRequest().getBindDN();
+                if (dn != null && !dn.isEmpty()) {
+                    EVENTS.add("bind " + dn);
+                }
+            }
+        });
+        server = new InMemoryDirectoryServer(config);
+        server.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        server.startListening();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        if (server != null) {
+            server.shutDown(true);
+        }
+        for (String property : TRUST_STORE_PROPERTIES) {
+            String value = previousProperties.get(property);
+            if (value == null) {
+                System.clearProperty(property);
+            } else {
+                System.setProperty(property, value);
+            }
+        }
+        TunedSocketFactory.resetSslContexts();
+        if (directory != null) {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        EVENTS.clear();
+    }
+
+    private static void keytool(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"),
+                "keytool").getPath());
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0;) {
+                output.write(buffer, 0, n);
+            }
+        }
+        assertEquals(output.toString(), 0, process.waitFor());
+    }
+
+    private static BaseLdapServer createServer(String host, Transport transport,
+            boolean ignoreTlsErrors) {
+        BaseLdapServer ldapServer = new BaseLdapServer(host, server.getListenPort(), BASE_DN);
+        ldapServer.setAuthentication(Authentication.SIMPLE);
+        ldapServer.setBinding(ADMIN_DN);
+        ldapServer.setPassword(PASSWORD);
+        ldapServer.setStartTls(true);
+        ldapServer.setIgnoreTlsErrors(ignoreTlsErrors);
+        ldapServer.setTransport(transport);
+        return ldapServer;
+    }
+
+    /**
+     * Checks that credentials were sent, and never on more connections than
+     * were upgraded before.
+     */
+    private static void assertBindsAfterUpgrade() {
+        List<String> events;
+        synchronized (EVENTS) {
+            events = new ArrayList<>(EVENTS);
+        }
+        int upgrades = 0;
+        int binds = 0;
+        for (String event : events) {
+            if (event.equals("tls")) {
+                upgrades++;
+            } else {
+                binds++;
+                assertTrue("Credentials sent before the upgrade: " + events,
+                        binds <= upgrades);
+            }
+        }
+        assertTrue("No bind: " + events, binds > 0);
+    }
+
+    @Test
+    public void testBindsAfterUpgrade() throws Exception {
+        for (Transport transport : Transport.values()) {
+            EVENTS.clear();
+            BaseLdapServer ldapServer = createServer("localhost", transport, false);
+            ldapServer.connect();
+            try {
+                assertEquals(BASE_DN, ldapServer.getEntry(BASE_DN).getDn());
+            } finally {
+                ldapServer.disconnect();
+            }
+            assertBindsAfterUpgrade();
+        }
+    }
+
+    @Test
+    public void testWrongHostIsRejected() throws Exception {
+        for (Transport transport : Transport.values()) {
+            EVENTS.clear();
+            BaseLdapServer ldapServer = createServer("127.0.0.1", transport, false);
+            try {
+                ldapServer.connect();
+                ldapServer.disconnect();
+                fail(transport + " accepted a certificate for another host");
+            } catch (ConnectionException ex) {
+                // expected
+            }
+            assertFalse("Credentials sent to an unverified server: " + EVENTS,
+                    EVENTS.contains("bind " + ADMIN_DN));
+
+            // Unless TLS errors are ignored
+            EVENTS.clear();
+            ldapServer = createServer("127.0.0.1", transport, true);
+            ldapServer.connect();
+            try {
+                assertEquals(BASE_DN, ldapServer.getEntry(BASE_DN).getDn());
+            } finally {
+                ldapServer.disconnect();
+            }
+            assertBindsAfterUpgrade();
+        }
+    }
+
+    /**
+     * Server side factory recording the upgrades of connections.
+     */
+    private static final class RecordingSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+
+        RecordingSocketFactory(SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket(Socket s, String host, int port,
+                boolean autoClose) throws IOException {
+            EVENTS.add("tls");
+            return delegate.createSocket(s, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(Socket s, InputStream consumed,
+                boolean autoClose) throws IOException {
+            EVENTS.add("tls");
+            return delegate.createSocket(s, consumed, autoClose);
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return delegate.createSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost,
+                int localPort) throws IOException {
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port,
+                InetAddress localAddress, int localPort) throws IOException {
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Interactive Media Management.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.i2m.netbeans.modules.ldapexplorer.model;
+
+import java.net.Socket;
+import javax.net.ssl.SSLSocket;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TunedSocketFactoryTest {
+
+    @Test
+    public void testSettingsAreAppliedWhileConnecting() throws Exception {
+        TunedSocketFactory.Settings settings = new TunedSocketFactory.Settings(
+                false, false, false, true, 0, 256 * 1024);
+        Socket socket = TunedSocketFactory.connect(settings,
+                () -> TunedSocketFactory.getDefault().createSocket());
+        assertFalse(socket.getTcpNoDelay());
+        assertTrue(socket.getKeepAlive());
+        assertTrue(socket.getReceiveBufferSize() >= 128 * 1024);
+        socket.close();
+
+        // Outside of connect() the defaults apply
+        socket = TunedSocketFactory.getDefault().createSocket();
+        assertFalse(socket instanceof SSLSocket);
+        assertTrue(socket.getTcpNoDelay());
+        socket.close();
+    }
+
+    @Test
+    public void testSecureSocketsShareSessionCache() throws Exception {
+        TunedSocketFactory.Settings settings = new TunedSocketFactory.Settings(
+                true, false, true, true, 0, 0);
+        Socket socket = TunedSocketFactory.connect(settings,
+                () -> TunedSocketFactory.getDefault().createSocket());
+        assertTrue(socket instanceof SSLSocket);
+        assertEquals("LDAPS", ((SSLSocket) socket).getSSLParameters()
+                .getEndpointIdentificationAlgorithm());
+        socket.close();
+
+        assertSame(TunedSocketFactory.getSslContext(false),
+                TunedSocketFactory.getSslContext(false));
+        assertNotSame(TunedSocketFactory.getSslContext(false),
+                TunedSocketFactory.getSslContext(true));
+        assertEquals(TunedSocketFactory.SESSION_CACHE_SIZE,
+                TunedSocketFactory.getSslContext(true)
+                        .getClientSessionContext().getSessionCacheSize());
+    }
+}